@@ -0,0 +1,364 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Instances of this class play a <code>Match</code> as the AI, without depending on any user interface.
+ * It's the default <code>AIStrategy</code>, and <code>ConsoleGame</code> and <code>FreeForAllWindow</code> use it directly. It shoots random tiles until it hits a ship, then it shoots the tiles around the hit until it finds out which way the ship is facing, and then it shoots along that row/column until the ship sinks.
+ * What it knows about the discovered ship is kept in arrays of tiles (row by row), so it can play on a <code>HeadlessGame</code> as a <code>HeadlessStrategy</code> with exactly the same logic, without allocating any memory.
+ */
+public class AIPlayer implements HeadlessStrategy {
+    private static final int CELL_COUNT = Match.BOARD_SIZE * Match.BOARD_SIZE;
+    private static final int MAX_POTENTIAL_TILES = 4;
+
+    private final Random random;
+    private final int[] sunkTiles;
+    private final int[] potentialTiles;
+    private int sunkTileCount;
+    private int potentialTileCount;
+    private int lastResult;
+    private int[] lastSalvoResults;
+
+    /**
+     * Constructs a new AI player with its own random number generator.
+     * This is the constructor the <code>ServiceLoader</code> uses.
+     */
+    public AIPlayer() {
+        this(new Random());
+    }
+
+    /**
+     * Constructs a new AI player.
+     * @param random the random number generator used for choosing the shots when the AI plays its turns itself
+     */
+    public AIPlayer(Random random) {
+        this.random = random;
+        sunkTiles = new int[CELL_COUNT];
+        potentialTiles = new int[MAX_POTENTIAL_TILES];
+    }
+
+    /**
+     * Creates a copy of this AI player that remembers the same discovered ship.
+     * The copy shares the random number generator with this AI player, but changing what one of them knows doesn't change the other.
+     * @return the copy
+     */
+    @Override
+    public AIPlayer copy() {
+        AIPlayer copy = new AIPlayer(random);
+        System.arraycopy(sunkTiles, 0, copy.sunkTiles, 0, sunkTileCount);
+        System.arraycopy(potentialTiles, 0, copy.potentialTiles, 0, potentialTileCount);
+        copy.sunkTileCount = sunkTileCount;
+        copy.potentialTileCount = potentialTileCount;
+        copy.lastResult = lastResult;
+        copy.lastSalvoResults = lastSalvoResults;
+        return copy;
+    }
+
+    /**
+     * Forgets the discovered ship, so this AI player can play a new match.
+     */
+    @Override
+    public void reset() {
+        sunkTileCount = 0;
+        potentialTileCount = 0;
+    }
+
+    /**
+     * Plays the AI's entire turn by shooting at the passed in player's board.
+     * In a free-for-all, the AI should keep shooting at the same player until that player is eliminated, because it only remembers one discovered ship.
+     * @param match the match being played
+     * @param player the player the AI is shooting at (from 1 to the player count)
+     * @return the tile that was shot
+     */
+    public Coordinates takeTurn(Match match, int player) {
+        Board opponentView = match.getOpponentView(player);
+        GameEvents.AIDecision decision = GameEvents.beginAIDecision();
+        Coordinates shot = chooseShot(opponentView, random);
+        GameEvents.recordAIDecision(decision, getName(), opponentView, 1, false);
+        int result = match.shoot(player, shot.getX(), shot.getY());
+        learn(shot, result);
+        lastResult = result;
+        return shot;
+    }
+
+    /**
+     * Gets the name of this strategy.
+     * @return "Hunt and target"
+     */
+    @Override
+    public String getName() {
+        return "Hunt and target";
+    }
+
+    /**
+     * Chooses the next tile to shoot at.
+     * If the AI doesn't have a discovered ship, it chooses a random undiscovered tile. Otherwise, it chooses one of the potential targets around the discovered ship.
+     * Potential targets that have been shot or revealed in the meantime (for example by other players sinking the discovered ship) are dropped first, and if none are left, the AI forgets the ship and goes back to choosing random tiles.
+     * Either way, the tile is chosen in a bounded amount of time, without retrying tiles that can't be shot.
+     * @param opponentView the opponent's board as the AI sees it
+     * @param random the random number generator to use
+     * @return the tile to shoot at, or <code>null</code> if there are no undiscovered tiles left
+     */
+    @Override
+    public Coordinates chooseShot(Board opponentView, Random random) {
+        int cell = chooseCell(opponentView, null, 0, random);
+        return cell < 0 ? null : new Coordinates(cell % Match.BOARD_SIZE, cell / Match.BOARD_SIZE);
+    }
+
+    /**
+     * Chooses the next tile to shoot at on a <code>HeadlessGame</code>, the same way <code>chooseShot</code> does.
+     * @param game the game being played
+     * @param player the player the AI plays as (1 or 2)
+     * @param random the random number generator to use
+     * @return the tile to shoot at, row by row, or -1 if there are no undiscovered tiles left
+     */
+    @Override
+    public int chooseCell(HeadlessGame game, int player, Random random) {
+        return chooseCell(null, game, player, random);
+    }
+
+    /**
+     * Chooses the next tile to shoot at, reading which tiles are undiscovered either from a board or from a headless game.
+     * @param opponentView the opponent's board as the AI sees it, or <code>null</code> to read the headless game
+     * @param game the headless game being played, used when there is no board
+     * @param player the player the AI plays as in the headless game (1 or 2)
+     * @param random the random number generator to use
+     * @return the tile to shoot at, row by row, or -1 if there are no undiscovered tiles left
+     */
+    private int chooseCell(Board opponentView, HeadlessGame game, int player, Random random) {
+        int count = 0;
+        for (int i = 0; i < potentialTileCount; i++) {
+            int cell = potentialTiles[i];
+            if (opponentView != null ? opponentView.get(cell % Match.BOARD_SIZE, cell / Match.BOARD_SIZE) == 0 : game.isUndiscovered(player, cell)) {
+                potentialTiles[count++] = cell;
+            }
+        }
+        potentialTileCount = count;
+        if (count == 0) {
+            sunkTileCount = 0;
+        }
+        if (sunkTileCount > 0) {
+            return potentialTiles[random.nextInt(count)];
+        }
+        if (opponentView != null) {
+            return randomUndiscoveredCell(opponentView, random);
+        }
+        return game.getUndiscoveredCount(player) == 0 ? -1 : game.getUndiscovered(player, random.nextInt(game.getUndiscoveredCount(player)));
+    }
+
+    /**
+     * Chooses a random undiscovered tile by counting the undiscovered tiles and then walking to a randomly chosen one of them.
+     * @param opponentView the opponent's board as the AI sees it
+     * @param random the random number generator to use
+     * @return the tile, row by row, or -1 if there are no undiscovered tiles left
+     */
+    private static int randomUndiscoveredCell(Board opponentView, Random random) {
+        int undiscoveredCount = 0;
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            if (opponentView.get(cell % Match.BOARD_SIZE, cell / Match.BOARD_SIZE) == 0) {
+                undiscoveredCount++;
+            }
+        }
+        if (undiscoveredCount == 0) {
+            return -1;
+        }
+        int remaining = random.nextInt(undiscoveredCount);
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            if (opponentView.get(cell % Match.BOARD_SIZE, cell / Match.BOARD_SIZE) == 0 && remaining-- == 0) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Plays the AI's entire turn in a salvo match by firing one salvo at the passed in player's board.
+     * The salvo has one shot for every ship of the AI that hasn't been sunk yet (see <code>chooseSalvo</code>), and the AI learns from the results in the order the shots were fired.
+     * @param match the match being played
+     * @param player the player the AI is shooting at (1 or 2)
+     * @return the tiles that were shot
+     */
+    public ArrayList<Coordinates> takeSalvo(Match match, int player) {
+        Board opponentView = match.getOpponentView(player);
+        GameEvents.AIDecision decision = GameEvents.beginAIDecision();
+        ArrayList<Coordinates> shots = new ArrayList<>(chooseSalvo(opponentView, match.getSalvoSize(3 - player), random));
+        GameEvents.recordAIDecision(decision, getName(), opponentView, shots.size(), false);
+        lastSalvoResults = match.salvo(player, shots);
+        for (int i = 0; i < shots.size(); i++) {
+            learn(shots.get(i), lastSalvoResults[i]);
+        }
+        return shots;
+    }
+
+    /**
+     * Chooses all the tiles of a salvo at once.
+     * The potential targets around a discovered ship are chosen first, and the rest of the shots go to random undiscovered tiles.
+     * @param opponentView the opponent's board as the AI sees it
+     * @param salvoSize the amount of shots in the salvo
+     * @param random the random number generator to use
+     * @return the tiles to shoot at
+     */
+    @Override
+    public List<Coordinates> chooseSalvo(Board opponentView, int salvoSize, Random random) {
+        ArrayList<Coordinates> shots = new ArrayList<>();
+        boolean[] chosen = new boolean[CELL_COUNT];
+        ArrayList<Coordinates> candidates = new ArrayList<>();
+        for (int i = 0; i < potentialTileCount; i++) {
+            candidates.add(new Coordinates(potentialTiles[i] % Match.BOARD_SIZE, potentialTiles[i] / Match.BOARD_SIZE));
+        }
+        Collections.shuffle(candidates, random);
+        chooseSalvoShots(opponentView, candidates, salvoSize, shots, chosen);
+        if (shots.size() < salvoSize) {
+            candidates.clear();
+            for (int x = 0; x < Match.BOARD_SIZE; x++) {
+                for (int y = 0; y < Match.BOARD_SIZE; y++) {
+                    candidates.add(new Coordinates(x, y));
+                }
+            }
+            Collections.shuffle(candidates, random);
+            chooseSalvoShots(opponentView, candidates, salvoSize, shots, chosen);
+        }
+        return shots;
+    }
+
+    /**
+     * Adds undiscovered tiles from a list of candidates to a salvo until the salvo is full or the candidates run out.
+     * @param opponentView the opponent's board as the AI sees it
+     * @param candidates the tiles to choose from, in the order they should be chosen
+     * @param salvoSize the amount of shots in the salvo
+     * @param shots the shots of the salvo chosen so far
+     * @param chosen which tiles have already been chosen, row by row
+     */
+    private void chooseSalvoShots(Board opponentView, ArrayList<Coordinates> candidates, int salvoSize, ArrayList<Coordinates> shots, boolean[] chosen) {
+        for (Coordinates candidate : candidates) {
+            if (shots.size() >= salvoSize) {
+                return;
+            }
+            int index = candidate.getY() * Match.BOARD_SIZE + candidate.getX();
+            if (!chosen[index] && opponentView.get(candidate.getX(), candidate.getY()) == 0) {
+                chosen[index] = true;
+                shots.add(candidate);
+            }
+        }
+    }
+
+    /**
+     * Updates what the AI knows about the discovered ship after one of its shots.
+     * The shot tile is never a potential target afterwards.
+     * @param shot the tile that was shot
+     * @param result the result of the shot
+     */
+    @Override
+    public void learn(Coordinates shot, int result) {
+        learnCell(shot.getY() * Match.BOARD_SIZE + shot.getX(), result);
+    }
+
+    /**
+     * Updates what the AI knows about the discovered ship after one of its shots, the same way <code>learn</code> does.
+     * @param cell the tile that was shot, row by row
+     * @param result the result of the shot
+     */
+    @Override
+    public void learnCell(int cell, int result) {
+        removePotentialTile(cell);
+        if (result == Match.SUNK) {
+            reset();
+        } else if (result == Match.HIT && sunkTileCount < sunkTiles.length) {
+            sunkTiles[sunkTileCount++] = cell;
+            if (sunkTileCount == 1) {
+                addCloseSurroundingTiles(cell);
+            } else {
+                potentialTileCount = 0;
+                addShipEndTiles();
+            }
+        }
+    }
+
+    /**
+     * Gets the result of the AI's last shot.
+     * @return <code>Match.MISS</code>, <code>Match.HIT</code> or <code>Match.SUNK</code>
+     */
+    public int getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * Gets the results of the AI's last salvo.
+     * @return the result of each shot of the salvo, in the order they were fired
+     */
+    public int[] getLastSalvoResults() {
+        return lastSalvoResults;
+    }
+
+    /**
+     * Adds the tiles directly above, below, left and right of the passed in tile as potential targets.
+     * @param cell the tile that was hit, row by row
+     */
+    private void addCloseSurroundingTiles(int cell) {
+        int x = cell % Match.BOARD_SIZE;
+        int y = cell / Match.BOARD_SIZE;
+        addPotentialTile(x + 1, y);
+        addPotentialTile(x, y + 1);
+        addPotentialTile(x - 1, y);
+        addPotentialTile(x, y - 1);
+    }
+
+    /**
+     * Adds the tiles just past both ends of the discovered part of the ship as potential targets.
+     * The ship is vertical if the first two hits are in the same column, and horizontal otherwise.
+     */
+    private void addShipEndTiles() {
+        int minX = Match.BOARD_SIZE;
+        int maxX = -1;
+        int minY = Match.BOARD_SIZE;
+        int maxY = -1;
+        for (int i = 0; i < sunkTileCount; i++) {
+            minX = Math.min(minX, sunkTiles[i] % Match.BOARD_SIZE);
+            maxX = Math.max(maxX, sunkTiles[i] % Match.BOARD_SIZE);
+            minY = Math.min(minY, sunkTiles[i] / Match.BOARD_SIZE);
+            maxY = Math.max(maxY, sunkTiles[i] / Match.BOARD_SIZE);
+        }
+        int x = sunkTiles[0] % Match.BOARD_SIZE;
+        int y = sunkTiles[0] / Match.BOARD_SIZE;
+        if (x == sunkTiles[1] % Match.BOARD_SIZE) {
+            addPotentialTile(x, maxY + 1);
+            addPotentialTile(x, minY - 1);
+        } else {
+            addPotentialTile(minX - 1, y);
+            addPotentialTile(maxX + 1, y);
+        }
+    }
+
+    /**
+     * Adds a tile as a potential target, unless it's outside of the board or already is one.
+     * @param x the location of the tile on the X axis
+     * @param y the location of the tile on the Y axis
+     */
+    private void addPotentialTile(int x, int y) {
+        if (x < 0 || y < 0 || x >= Match.BOARD_SIZE || y >= Match.BOARD_SIZE) {
+            return;
+        }
+        int cell = y * Match.BOARD_SIZE + x;
+        for (int i = 0; i < potentialTileCount; i++) {
+            if (potentialTiles[i] == cell) {
+                return;
+            }
+        }
+        potentialTiles[potentialTileCount++] = cell;
+    }
+
+    /**
+     * Stops treating a tile as a potential target.
+     * @param cell the tile, row by row
+     */
+    private void removePotentialTile(int cell) {
+        int count = 0;
+        for (int i = 0; i < potentialTileCount; i++) {
+            if (potentialTiles[i] != cell) {
+                potentialTiles[count++] = potentialTiles[i];
+            }
+        }
+        potentialTileCount = count;
+    }
+}
@@ -0,0 +1,72 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The interface every AI that plays Battleships implements, so new AIs can be added without changing the game.
+ * Strategies are found with a <code>ServiceLoader</code>: a strategy only needs a public constructor without parameters and its class name listed in the <code>META-INF/services/AIStrategy</code> file of its jar (see <code>StrategyHarness.getStrategyNames</code>).
+ * Strategies never see the <code>Match</code> while shooting, only their opponent's view of the board, which is immutable and safe to read from any thread.
+ * The <code>StrategyHarness</code> gives every shot a time budget, and if a strategy runs out of time or chooses a tile that can't be shot, a default shot is fired for it instead.
+ */
+public interface AIStrategy {
+
+    /**
+     * Gets the name of this strategy, which is shown to the players and used to choose it.
+     * @return the name, which should be unique among all strategies
+     */
+    String getName();
+
+    /**
+     * Places all of the player's ships on their board.
+     * Ships the strategy doesn't place are placed at random afterwards, so the default implementation places the whole fleet at random.
+     * @param match the match being played
+     * @param player the player this strategy plays as (from 1 to the player count)
+     * @param random the random number generator to use
+     */
+    default void placeFleet(Match match, int player, Random random) {
+        match.placeFleetRandomly(player, random);
+    }
+
+    /**
+     * Chooses the next tile to shoot at.
+     * @param opponentView the opponent's board as this strategy sees it, with the types used by <code>Tile</code> (0 = undiscovered)
+     * @param random the random number generator to use
+     * @return the tile to shoot at, which should be undiscovered
+     */
+    Coordinates chooseShot(Board opponentView, Random random);
+
+    /**
+     * Chooses all the tiles of a salvo at once, before any of them is shot.
+     * The default implementation calls <code>chooseShot</code> once for every shot, treating the tiles chosen so far as already shot.
+     * @param opponentView the opponent's board as this strategy sees it, with the types used by <code>Tile</code> (0 = undiscovered)
+     * @param salvoSize the amount of shots in the salvo
+     * @param random the random number generator to use
+     * @return the tiles to shoot at, which should be undiscovered and different from each other
+     */
+    default List<Coordinates> chooseSalvo(Board opponentView, int salvoSize, Random random) {
+        List<Coordinates> shots = new ArrayList<>();
+        Board view = opponentView;
+        for (int i = 0; i < salvoSize; i++) {
+            Coordinates shot = chooseShot(view, random);
+            if (shot == null) {
+                break;
+            }
+            shots.add(shot);
+            view = view.with(shot.getX(), shot.getY(), 4);
+        }
+        return shots;
+    }
+
+    /**
+     * Tells this strategy the result of one of the shots fired for it, which may be a default shot the harness fired instead of the one the strategy chose.
+     * @param shot the tile that was shot
+     * @param result <code>Match.MISS</code>, <code>Match.HIT</code> or <code>Match.SUNK</code>
+     */
+    void learn(Coordinates shot, int result);
+
+    /**
+     * Creates a copy of this strategy that remembers the same things, used for undoing the AI's moves.
+     * @return the copy
+     */
+    AIStrategy copy();
+}
@@ -0,0 +1,92 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that the head-to-head matches of the <code>StrategyHarness</code> between <code>HeadlessStrategy</code>s don't allocate any memory once the code has been compiled.
+ * Every pair of the headless strategies the <code>ServiceLoader</code> finds plays through <code>StrategyHarness.playHeadlessMatch</code>, like in a tournament, taking turns at shooting first, in single shot and in salvo matches.
+ * The matches are played on one thread, and the memory that thread allocated is read from the JVM's <code>ThreadMXBean</code> before and after them.
+ * The JIT compiler can still recompile a method during the measurement, which allocates a few bytes once, so the matches are measured in up to three rounds and the check passes as soon as one round allocates nothing. Matches that allocate memory allocate it in every round.
+ * The program exits with status 1 if every round allocated memory, so it can stop a build from shipping a change that brings garbage back into the simulations.
+ */
+public class AllocationGate {
+    private static final int ROUND_COUNT = 3;
+    private static final long MOVE_BUDGET_MILLIS = 50;
+
+    /**
+     * This class only has the <code>main</code> method.
+     */
+    private AllocationGate() {
+    }
+
+    /**
+     * Plays the matches and prints how many bytes every match allocated in each round.
+     * The first argument is the amount of matches measured in every round (100000 by default), and the second one the amount of matches played first to warm up (50000 by default).
+     * @param args the launch arguments
+     */
+    public static void main(String[] args) {
+        int matchCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int warmupCount = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads) || !threads.isThreadAllocatedMemorySupported()) {
+            System.out.println("This JVM can't measure allocated memory");
+            System.exit(2);
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        // Player 1 and player 2 get instances of their own, so a strategy playing itself doesn't share what it remembers with its opponent.
+        List<HeadlessStrategy> firstStrategies = new ArrayList<>();
+        List<HeadlessStrategy> secondStrategies = new ArrayList<>();
+        for (String name : StrategyHarness.getStrategyNames()) {
+            if (StrategyHarness.createStrategy(name) instanceof HeadlessStrategy first && StrategyHarness.createStrategy(name) instanceof HeadlessStrategy second) {
+                firstStrategies.add(first);
+                secondStrategies.add(second);
+            }
+        }
+        if (firstStrategies.isEmpty()) {
+            System.out.println("No headless strategies were found");
+            System.exit(2);
+            return;
+        }
+        StrategyHarness harness = new StrategyHarness(MOVE_BUDGET_MILLIS);
+        HeadlessGame game = new HeadlessGame();
+        playMatches(harness, game, firstStrategies, secondStrategies, 0, warmupCount);
+        long seed = warmupCount;
+        // Measures how much reading the counter allocates by itself, so it isn't blamed on the matches.
+        long overhead = -threads.getCurrentThreadAllocatedBytes() + threads.getCurrentThreadAllocatedBytes();
+        for (int round = 1; round <= ROUND_COUNT; round++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            long shots = playMatches(harness, game, firstStrategies, secondStrategies, seed, matchCount);
+            long allocated = Math.max(threads.getCurrentThreadAllocatedBytes() - before - overhead, 0);
+            seed += matchCount;
+            System.out.println("Round " + round + ": " + matchCount + " matches, " + shots / Math.max(matchCount, 1) + " shots per match, "
+                    + allocated + " bytes allocated, " + (double) allocated / Math.max(matchCount, 1) + " bytes per match");
+            if (allocated == 0) {
+                return;
+            }
+        }
+        System.exit(1);
+    }
+
+    /**
+     * Plays matches one after another, going through every pair of strategies (a strategy can also play against itself), both orders and both single shot and salvo matches in turn.
+     * The warm-up and the measured matches both run through this method, so the measured matches run the code compiled during the warm-up.
+     * @param harness the harness playing the matches, without an archive but recording them in the global heatmap and timing the moves like in a tournament
+     * @param game the game to play the matches with
+     * @param firstStrategies the headless strategies, for player 1
+     * @param secondStrategies other instances of the same strategies, in the same order, for player 2
+     * @param firstSeed the seed of the first match, the following matches use the following seeds
+     * @param matchCount the amount of matches
+     * @return the amount of shots fired in all the matches
+     */
+    private static long playMatches(StrategyHarness harness, HeadlessGame game, List<HeadlessStrategy> firstStrategies, List<HeadlessStrategy> secondStrategies, long firstSeed, int matchCount) {
+        long shots = 0;
+        int strategyCount = firstStrategies.size();
+        int pairCount = strategyCount * strategyCount;
+        for (int i = 0; i < matchCount; i++) {
+            int pair = i / 2 % pairCount;
+            harness.playHeadlessMatch(game, firstStrategies.get(pair / strategyCount), secondStrategies.get(pair % strategyCount), i % 2 == 1, firstSeed + i);
+            shots += game.getShotCount(1) + game.getShotCount(2);
+        }
+        return shots;
+    }
+}
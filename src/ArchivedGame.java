@@ -0,0 +1,45 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instances of this class hold everything needed to play a finished two player match again: the fleet of both players and the tiles each of them shot, in order.
+ * Which player shot when isn't kept, since in a match of single shots the players simply take turns, starting with player 1.
+ */
+public final class ArchivedGame {
+    private final List<Ship> fleet1;
+    private final List<Ship> fleet2;
+    private final List<Coordinates> shots1;
+    private final List<Coordinates> shots2;
+
+    /**
+     * Constructs a new archived game. The lists are copied.
+     * @param fleet1 the ships of player 1
+     * @param fleet2 the ships of player 2
+     * @param shots1 the tiles player 1 shot at player 2's board, in order
+     * @param shots2 the tiles player 2 shot at player 1's board, in order
+     */
+    public ArchivedGame(List<Ship> fleet1, List<Ship> fleet2, List<Coordinates> shots1, List<Coordinates> shots2) {
+        this.fleet1 = new ArrayList<>(fleet1);
+        this.fleet2 = new ArrayList<>(fleet2);
+        this.shots1 = new ArrayList<>(shots1);
+        this.shots2 = new ArrayList<>(shots2);
+    }
+
+    /**
+     * Gets the ships of a player.
+     * @param player the player (1 or 2)
+     * @return the ships
+     */
+    public List<Ship> getFleet(int player) {
+        return player == 1 ? fleet1 : fleet2;
+    }
+
+    /**
+     * Gets the tiles a player shot at their opponent's board.
+     * @param player the player who shot (1 or 2)
+     * @return the tiles, in the order they were shot
+     */
+    public List<Coordinates> getShots(int player) {
+        return player == 1 ? shots1 : shots2;
+    }
+}
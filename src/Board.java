@@ -0,0 +1,156 @@
+import java.util.Arrays;
+
+/**
+ * An immutable square grid of tile types.
+ * Changing a tile creates a new board which shares every row that wasn't changed with the old board, so keeping older versions of a board around only costs the changed row.
+ * This makes it cheap to keep a history of boards for undoing moves and to try out moves on a board without having to copy it.
+ * The tile types are the same as the types of a <code>Tile</code>.
+ */
+public final class Board {
+    private static final int BITS_PER_TILE = 4;
+    private static final int TILES_PER_WORD = Long.SIZE / BITS_PER_TILE;
+    private static final long TILE_MASK = (1L << BITS_PER_TILE) - 1;
+
+    private final int size;
+    private final long[][] rows;
+
+    /**
+     * Constructs a new board from already packed rows.
+     * The rows are not copied, so they must never be changed after being passed in.
+     * @param size the width and height of the board
+     * @param rows the packed rows of the board
+     */
+    private Board(int size, long[][] rows) {
+        this.size = size;
+        this.rows = rows;
+    }
+
+    /**
+     * Creates a new board where every tile has the same type.
+     * All the rows of the new board share the same packed row.
+     * @param size the width and height of the board
+     * @param type the type of every tile
+     * @return the new board
+     */
+    public static Board filled(int size, int type) {
+        long word = 0;
+        for (int i = 0; i < TILES_PER_WORD; i++) {
+            word |= (type & TILE_MASK) << (i * BITS_PER_TILE);
+        }
+        long[] row = new long[(size + TILES_PER_WORD - 1) / TILES_PER_WORD];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = word;
+        }
+        long[][] rows = new long[size][];
+        for (int i = 0; i < size; i++) {
+            rows[i] = row;
+        }
+        return new Board(size, rows);
+    }
+
+    /**
+     * Gets the width and height of this board.
+     * @return the size of this board
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the type of the tile at the passed in location.
+     * @param x the location of the tile on the X axis
+     * @param y the location of the tile on the Y axis
+     * @return the type of the tile
+     */
+    public int get(int x, int y) {
+        return (int) ((rows[y][x / TILES_PER_WORD] >>> ((x % TILES_PER_WORD) * BITS_PER_TILE)) & TILE_MASK);
+    }
+
+    /**
+     * Creates a new version of this board where the tile at the passed in location has a different type.
+     * This board is not changed. If the tile already has the passed in type, this board is returned.
+     * @param x the location of the tile on the X axis
+     * @param y the location of the tile on the Y axis
+     * @param type the new type of the tile
+     * @return the new version of this board
+     */
+    public Board with(int x, int y, int type) {
+        if (get(x, y) == type) {
+            return this;
+        }
+        int shift = (x % TILES_PER_WORD) * BITS_PER_TILE;
+        long[] row = rows[y].clone();
+        row[x / TILES_PER_WORD] = (row[x / TILES_PER_WORD] & ~(TILE_MASK << shift)) | ((type & TILE_MASK) << shift);
+        long[][] newRows = rows.clone();
+        newRows[y] = row;
+        return new Board(size, newRows);
+    }
+
+    /**
+     * Creates a new version of this board where several tiles have different types.
+     * Each changed row is copied only once, no matter how many of its tiles change, so changing many tiles at once costs about as much as changing one tile per row.
+     * This board is not changed. If none of the tiles change, this board is returned.
+     * @param xs the locations of the tiles on the X axis
+     * @param ys the locations of the tiles on the Y axis
+     * @param types the new types of the tiles
+     * @param count the amount of tiles to change, from the start of the arrays
+     * @return the new version of this board
+     */
+    public Board withAll(int[] xs, int[] ys, int[] types, int count) {
+        long[][] newRows = rows;
+        for (int i = 0; i < count; i++) {
+            long[] row = newRows[ys[i]];
+            int word = xs[i] / TILES_PER_WORD;
+            int shift = (xs[i] % TILES_PER_WORD) * BITS_PER_TILE;
+            long value = (row[word] & ~(TILE_MASK << shift)) | ((types[i] & TILE_MASK) << shift);
+            if (value == row[word]) {
+                continue;
+            }
+            if (newRows == rows) {
+                newRows = rows.clone();
+            }
+            if (row == rows[ys[i]]) {
+                row = row.clone();
+                newRows[ys[i]] = row;
+            }
+            row[word] = value;
+        }
+        return newRows == rows ? this : new Board(size, newRows);
+    }
+
+    /**
+     * Creates a board where the type of every tile is replaced using a table, for example to show what another player knows about this board.
+     * Rows that this board shares with itself (like the rows of a board created by <code>filled</code>) are only converted once and stay shared.
+     * @param typeMap the new type for every old type, indexed by the old type (16 entries)
+     * @return the converted board
+     */
+    public Board map(int[] typeMap) {
+        long[][] newRows = new long[size][];
+        for (int y = 0; y < size; y++) {
+            if (y > 0 && rows[y] == rows[y - 1]) {
+                newRows[y] = newRows[y - 1];
+                continue;
+            }
+            long[] row = new long[rows[y].length];
+            for (int i = 0; i < row.length; i++) {
+                long word = rows[y][i];
+                for (int shift = 0; shift < Long.SIZE; shift += BITS_PER_TILE) {
+                    row[i] |= (typeMap[(int) ((word >>> shift) & TILE_MASK)] & TILE_MASK) << shift;
+                }
+            }
+            newRows[y] = row;
+        }
+        return new Board(size, newRows);
+    }
+
+    /**
+     * Returns whether a row of this board has the same tiles as the same row of another board.
+     * Rows that were never changed between two versions of a board are shared, so they're recognized without comparing their tiles.
+     * @param other the other board, of the same size as this one
+     * @param y the location of the row on the Y axis
+     * @return whether the rows are the same
+     */
+    public boolean rowEquals(Board other, int y) {
+        return rows[y] == other.rows[y] || Arrays.equals(rows[y], other.rows[y]);
+    }
+}
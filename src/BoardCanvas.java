@@ -0,0 +1,315 @@
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.awt.image.BufferStrategy;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A <code>Canvas</code> that draws a <code>GridPanel</code> itself, on the thread of a <code>RenderLoop</code>, instead of letting Swing paint the grid's tiles on the event dispatch thread.
+ * The grid panel stays the model of the board: it is never shown, but its tiles still hold the colors, ship images and overlays, and the mouse events of this canvas are passed on to the tile under the cursor, so the game plays exactly like it does with the grid panel.
+ * Every tick, this canvas compares the grid panel's board with the board it saw last, and starts a splash for every newly missed tile and an explosion for every newly hit tile. Sunk ships are passed in by <code>showSinking</code>.
+ * The event dispatch thread only forwards the mouse events, so it stays free for input however many effects are playing.
+ */
+public class BoardCanvas extends Canvas implements MouseListener, MouseMotionListener {
+    private static final int MAXIMUM_EFFECTS = 256;
+    private static final Color SUNK_TINT = new Color(255, 0, 0, 128);
+
+    private final GridPanel grid;
+    private final ConcurrentLinkedQueue<int[]> sunkShips;
+    private final ArrayList<ShotEffect> effects;
+    private final Object peerLock;
+    private Board lastBoard;
+    private Tile hoveredTile;
+    private Tile pressedTile;
+    private volatile boolean displayed;
+
+    /**
+     * Constructs a new canvas drawing the passed in grid panel, with the same size and location as the grid panel.
+     * @param grid the grid panel to draw
+     */
+    public BoardCanvas(GridPanel grid) {
+        this.grid = grid;
+        sunkShips = new ConcurrentLinkedQueue<>();
+        effects = new ArrayList<>();
+        peerLock = new Object();
+        this.setBounds(grid.getBounds());
+        this.setIgnoreRepaint(true);
+        this.addMouseListener(this);
+        this.addMouseMotionListener(this);
+    }
+
+    /**
+     * Gets the grid panel drawn by this canvas.
+     * @return the grid panel
+     */
+    public GridPanel getGrid() {
+        return grid;
+    }
+
+    /**
+     * Starts the sinking effect on the tiles of a ship the next time this canvas is updated.
+     * Can be called from any thread; the ship's tiles are copied right away.
+     * @param ship the sunk ship
+     */
+    public void showSinking(Ship ship) {
+        int[] cells = new int[ship.getTiles().size()];
+        for (int i = 0; i < cells.length; i++) {
+            Coordinates tile = ship.getTiles().get(i);
+            cells[i] = tile.getY() * Match.BOARD_SIZE + tile.getX();
+        }
+        sunkShips.add(cells);
+    }
+
+    /**
+     * Sets the size and location of this canvas, and gives the grid panel the same size, so the ship images are scaled to the new size of the tiles.
+     * @param x the new location of this canvas on the X axis
+     * @param y the new location of this canvas on the Y axis
+     * @param width the new width of this canvas
+     * @param height the new height of this canvas
+     */
+    @Override
+    public void setBounds(int x, int y, int width, int height) {
+        super.setBounds(x, y, width, height);
+        grid.setBounds(x, y, width, height);
+    }
+
+    /**
+     * Creates the buffers this canvas is drawn into, once it can be shown.
+     */
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        createBufferStrategy(2);
+        displayed = true;
+    }
+
+    /**
+     * Stops drawing this canvas before it's taken off the screen.
+     * Waits for the frame that is being drawn, if there is one, since the buffers go away with the canvas.
+     */
+    @Override
+    public void removeNotify() {
+        synchronized (peerLock) {
+            displayed = false;
+        }
+        hoveredTile = null;
+        pressedTile = null;
+        super.removeNotify();
+    }
+
+    /**
+     * Moves the effects of this canvas one tick forward: throws away the effects that are over and starts the effects of the shots and sunk ships since the last tick.
+     * Only called by the <code>RenderLoop</code>. Nothing happens while this canvas isn't shown, so the shots made while a player wasn't looking are played once their grid is shown again.
+     * @param tick the new tick of the loop
+     */
+    public void update(long tick) {
+        if (!displayed) {
+            return;
+        }
+        effects.removeIf(effect -> effect.isFinished(tick));
+        Board board = grid.getBoard();
+        if (lastBoard != null && board != lastBoard) {
+            for (int cell = 0; cell < Match.BOARD_SIZE * Match.BOARD_SIZE; cell++) {
+                int oldType = lastBoard.get(cell % Match.BOARD_SIZE, cell / Match.BOARD_SIZE);
+                int newType = board.get(cell % Match.BOARD_SIZE, cell / Match.BOARD_SIZE);
+                if (newType == 4 && oldType != 4) {
+                    addEffect(new ShotEffect(ShotEffect.SPLASH, new int[]{cell}, tick));
+                } else if (newType == 3 && oldType != 3) {
+                    addEffect(new ShotEffect(ShotEffect.EXPLOSION, new int[]{cell}, tick));
+                }
+            }
+        }
+        lastBoard = board;
+        int[] sunkShip;
+        while ((sunkShip = sunkShips.poll()) != null) {
+            addEffect(new ShotEffect(ShotEffect.SINKING, sunkShip, tick));
+        }
+    }
+
+    /**
+     * Adds an effect, throwing away the oldest one if there are already too many, so a long salvo can't slow the drawing down without limit.
+     * @param effect the new effect
+     */
+    private void addEffect(ShotEffect effect) {
+        if (effects.size() == MAXIMUM_EFFECTS) {
+            effects.remove(0);
+        }
+        effects.add(effect);
+    }
+
+    /**
+     * Draws the tiles of the grid panel and the effects into the back buffer and shows it.
+     * Only called by the <code>RenderLoop</code>.
+     * @param time the current tick of the loop, plus how far the loop is into the next tick (between 0 and 1)
+     * @return whether anything was drawn (nothing is drawn while this canvas isn't shown)
+     */
+    public boolean render(double time) {
+        synchronized (peerLock) {
+            if (!displayed) {
+                return false;
+            }
+            BufferStrategy strategy = getBufferStrategy();
+            do {
+                do {
+                    Graphics2D graphics = (Graphics2D) strategy.getDrawGraphics();
+                    try {
+                        drawTiles(graphics);
+                        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                        int tileSize = getWidth() / Match.BOARD_SIZE;
+                        for (ShotEffect effect : effects) {
+                            effect.draw(graphics, tileSize, time);
+                        }
+                    } finally {
+                        graphics.dispose();
+                    }
+                } while (strategy.contentsRestored());
+                strategy.show();
+            } while (strategy.contentsLost());
+            return true;
+        }
+    }
+
+    /**
+     * Draws every tile like <code>Tile</code> draws itself, from the images of the <code>TileImageCache</code>: its color, the part of a ship's image on it (tinted red once sunk), its overlay and its border.
+     * @param graphics the graphics to draw with
+     */
+    private void drawTiles(Graphics2D graphics) {
+        int tileSize = getWidth() / Match.BOARD_SIZE;
+        double scale = TileImageCache.getScale(graphics);
+        int size = (int) Math.round(tileSize * scale);
+        Tile[][] tiles = grid.getTiles();
+        graphics.setColor(Color.BLACK);
+        graphics.fillRect(0, 0, getWidth(), getHeight());
+        for (int x = 0; x < Match.BOARD_SIZE; x++) {
+            for (int y = 0; y < Match.BOARD_SIZE; y++) {
+                Tile tile = tiles[x][y];
+                int left = x * tileSize;
+                int top = y * tileSize;
+                Image sprite = tile.getSprite();
+                Color overlay = tile.getOverlay();
+                if (sprite == null && overlay == null) {
+                    TileImageCache.drawDeviceImage(graphics, TileImageCache.getTileImage(tile.getAppearance(), tile.isTargeted(), size, scale), left, top);
+                    continue;
+                }
+                TileImageCache.drawDeviceImage(graphics, TileImageCache.getFillImage(tile.getAppearance(), size, scale), left, top);
+                if (sprite != null) {
+                    TileImageCache.drawDeviceImage(graphics, sprite, left, top);
+                    if (tile.getType() == 3) {
+                        graphics.setColor(SUNK_TINT);
+                        graphics.fillRect(left, top, tileSize, tileSize);
+                    }
+                }
+                if (overlay != null) {
+                    graphics.setColor(overlay);
+                    graphics.fillRect(left, top, tileSize, tileSize);
+                }
+                TileImageCache.drawDeviceImage(graphics, TileImageCache.getBorderImage(tile.isTargeted(), size, scale), left, top);
+            }
+        }
+    }
+
+    /**
+     * Gets the tile under a point of this canvas.
+     * @param e the mouse event holding the point
+     * @return the tile, or <code>null</code> if the point is outside the board
+     */
+    private Tile getTileAt(MouseEvent e) {
+        int tileSize = Math.max(getWidth() / Match.BOARD_SIZE, 1);
+        int x = e.getX() / tileSize;
+        int y = e.getY() / tileSize;
+        if (e.getX() < 0 || e.getY() < 0 || x >= Match.BOARD_SIZE || y >= Match.BOARD_SIZE) {
+            return null;
+        }
+        return grid.getTiles()[x][y];
+    }
+
+    /**
+     * Tells the tiles that the cursor left one of them and entered another, if it moved to a different tile.
+     * @param e the mouse event holding the new location of the cursor
+     */
+    private void moveHover(MouseEvent e) {
+        Tile tile = getTileAt(e);
+        if (tile == hoveredTile) {
+            return;
+        }
+        if (hoveredTile != null) {
+            hoveredTile.mouseExited(e);
+        }
+        hoveredTile = tile;
+        if (tile != null) {
+            tile.mouseEntered(e);
+        }
+    }
+
+    @Override
+    public void mouseClicked(MouseEvent e) {
+
+    }
+
+    /**
+     * Passes the press on to the tile under the cursor.
+     * @param e the event to be processed
+     */
+    @Override
+    public void mousePressed(MouseEvent e) {
+        moveHover(e);
+        pressedTile = hoveredTile;
+        if (pressedTile != null) {
+            pressedTile.mousePressed(e);
+        }
+    }
+
+    /**
+     * Passes the release on to the tile the button was pressed on, like Swing does for components, so the tile only acts if the cursor is still over it.
+     * @param e the event to be processed
+     */
+    @Override
+    public void mouseReleased(MouseEvent e) {
+        moveHover(e);
+        if (pressedTile != null) {
+            pressedTile.mouseReleased(e);
+            pressedTile = null;
+        }
+    }
+
+    /**
+     * Tells the tile under the cursor that the cursor entered it.
+     * @param e the event to be processed
+     */
+    @Override
+    public void mouseEntered(MouseEvent e) {
+        moveHover(e);
+    }
+
+    /**
+     * Tells the tile the cursor was over that the cursor left it.
+     * @param e the event to be processed
+     */
+    @Override
+    public void mouseExited(MouseEvent e) {
+        if (hoveredTile != null) {
+            hoveredTile.mouseExited(e);
+            hoveredTile = null;
+        }
+    }
+
+    /**
+     * Moves the hover to the tile under the cursor while a mouse button is held down.
+     * @param e the event to be processed
+     */
+    @Override
+    public void mouseDragged(MouseEvent e) {
+        moveHover(e);
+    }
+
+    /**
+     * Moves the hover to the tile under the cursor.
+     * @param e the event to be processed
+     */
+    @Override
+    public void mouseMoved(MouseEvent e) {
+        moveHover(e);
+    }
+}
@@ -0,0 +1,184 @@
+import java.util.Arrays;
+
+/**
+ * The eight symmetries of the square board (the four rotations, and the four reflections), applied to bitboards, so anything worked out for one board can be reused for the seven boards that look the same after turning or flipping.
+ * A bitboard holds one bit per tile, bit <code>y * Match.BOARD_SIZE + x</code> being the tile at <code>x</code>, <code>y</code>, split into a long with the first 64 tiles and a long with the rest, like the bitmasks of <code>EndgameSolver</code>.
+ * A symmetry is applied with lookup tables: every group of four tiles of the input is looked up in the symmetry's table, which holds where those four tiles end up, so a whole board takes 25 lookups.
+ * The canonical version of a board is the one of its eight versions with the smallest bitboards. All the versions of a board have the same canonical version, so it can be the key of a cache, and the symmetry that turned the board into its canonical version maps the tiles of the board to the tiles of the cached result.
+ * Symmetry 0 leaves the board as it is, 1 to 3 rotate it by a quarter turn clockwise that many times, and 4 to 7 mirror it left to right and then rotate it like 0 to 3.
+ */
+public final class BoardSymmetry {
+    public static final int SYMMETRY_COUNT = 8;
+
+    private static final int SIZE = Match.BOARD_SIZE;
+    private static final int CELL_COUNT = SIZE * SIZE;
+    private static final int NIBBLE_COUNT = (CELL_COUNT + 3) / 4;
+    private static final int[][] CELLS = new int[SYMMETRY_COUNT][CELL_COUNT];
+    private static final long[][] LOW_TABLES = new long[SYMMETRY_COUNT][NIBBLE_COUNT * 16];
+    private static final long[][] HIGH_TABLES = new long[SYMMETRY_COUNT][NIBBLE_COUNT * 16];
+
+    static {
+        for (int symmetry = 0; symmetry < SYMMETRY_COUNT; symmetry++) {
+            for (int cell = 0; cell < CELL_COUNT; cell++) {
+                int x = cell % SIZE;
+                int y = cell / SIZE;
+                if (symmetry >= 4) {
+                    x = SIZE - 1 - x;
+                }
+                for (int turn = 0; turn < symmetry % 4; turn++) {
+                    int turnedX = SIZE - 1 - y;
+                    y = x;
+                    x = turnedX;
+                }
+                CELLS[symmetry][cell] = y * SIZE + x;
+            }
+            for (int nibble = 0; nibble < NIBBLE_COUNT; nibble++) {
+                for (int value = 0; value < 16; value++) {
+                    for (int bit = 0; bit < 4; bit++) {
+                        int cell = nibble * 4 + bit;
+                        if ((value & 1 << bit) == 0 || cell >= CELL_COUNT) {
+                            continue;
+                        }
+                        int target = CELLS[symmetry][cell];
+                        if (target < 64) {
+                            LOW_TABLES[symmetry][nibble * 16 + value] |= 1L << target;
+                        } else {
+                            HIGH_TABLES[symmetry][nibble * 16 + value] |= 1L << target - 64;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A canonical board, usable as the key of a map. It holds one or more bitboards.
+     */
+    public static final class Key {
+        private final long[] bits;
+
+        private Key(long[] bits) {
+            this.bits = bits;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && Arrays.equals(key.bits, bits);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(bits);
+        }
+    }
+
+    /**
+     * This class only has static methods.
+     */
+    private BoardSymmetry() {
+    }
+
+    /**
+     * Gets where a tile ends up after a symmetry is applied.
+     * @param symmetry the symmetry (0 to 7)
+     * @param cell the tile, <code>y * Match.BOARD_SIZE + x</code>
+     * @return the tile it ends up on
+     */
+    public static int transformCell(int symmetry, int cell) {
+        return CELLS[symmetry][cell];
+    }
+
+    /**
+     * Applies a symmetry to a bitboard.
+     * @param symmetry the symmetry (0 to 7)
+     * @param low the first 64 tiles of the bitboard
+     * @param high the rest of the tiles of the bitboard
+     * @param out receives the transformed bitboard, the first 64 tiles at <code>offset</code> and the rest after them
+     * @param offset where to put the transformed bitboard in <code>out</code>
+     */
+    public static void transform(int symmetry, long low, long high, long[] out, int offset) {
+        long[] lowTable = LOW_TABLES[symmetry];
+        long[] highTable = HIGH_TABLES[symmetry];
+        long transformedLow = 0;
+        long transformedHigh = 0;
+        for (int nibble = 0; nibble < NIBBLE_COUNT; nibble++) {
+            int value = (int) ((nibble < 16 ? low >>> nibble * 4 : high >>> (nibble - 16) * 4) & 15);
+            transformedLow |= lowTable[nibble * 16 + value];
+            transformedHigh |= highTable[nibble * 16 + value];
+        }
+        out[offset] = transformedLow;
+        out[offset + 1] = transformedHigh;
+    }
+
+    /**
+     * Finds the symmetry that turns one or more bitboards into their canonical version: the version whose bitboards, compared one after another, are the smallest.
+     * @param bitboards the bitboards, each as two longs (the first 64 tiles and the rest)
+     * @return the symmetry (0 to 7)
+     */
+    public static int findCanonicalSymmetry(long[] bitboards) {
+        long[] best = bitboards.clone();
+        long[] candidate = new long[bitboards.length];
+        int bestSymmetry = 0;
+        for (int symmetry = 1; symmetry < SYMMETRY_COUNT; symmetry++) {
+            for (int i = 0; i < bitboards.length; i += 2) {
+                transform(symmetry, bitboards[i], bitboards[i + 1], candidate, i);
+            }
+            if (compare(candidate, best) < 0) {
+                System.arraycopy(candidate, 0, best, 0, best.length);
+                bestSymmetry = symmetry;
+            }
+        }
+        return bestSymmetry;
+    }
+
+    /**
+     * Compares two sets of bitboards, the higher tiles of each bitboard first.
+     * @param a the first bitboards
+     * @param b the second bitboards
+     * @return a negative number, 0 or a positive number if <code>a</code> is smaller than, equal to or larger than <code>b</code>
+     */
+    private static int compare(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i += 2) {
+            int comparison = Long.compareUnsigned(a[i + 1], b[i + 1]);
+            if (comparison == 0) {
+                comparison = Long.compareUnsigned(a[i], b[i]);
+            }
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Creates the key of one or more bitboards after applying a symmetry to them.
+     * @param bitboards the bitboards, each as two longs (the first 64 tiles and the rest)
+     * @param symmetry the symmetry, usually the one found by <code>findCanonicalSymmetry</code>
+     * @return the key
+     */
+    public static Key createKey(long[] bitboards, int symmetry) {
+        long[] bits = new long[bitboards.length];
+        for (int i = 0; i < bitboards.length; i += 2) {
+            transform(symmetry, bitboards[i], bitboards[i + 1], bits, i);
+        }
+        return new Key(bits);
+    }
+
+    /**
+     * Splits an opponent's view of a board into the two bitboards that make up what the shooting player knows: the undiscovered tiles and the hit tiles. Every other tile is known to be empty.
+     * @param opponentView the view, with the types used by <code>Tile</code>
+     * @return the undiscovered tiles and the hit tiles, each as two longs
+     */
+    public static long[] getViewBitboards(Board opponentView) {
+        long[] bitboards = new long[4];
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            int type = opponentView.get(cell % SIZE, cell / SIZE);
+            if (type == 0 || type == 5) {
+                bitboards[cell >> 6] |= 1L << cell;
+            } else if (type == 3) {
+                bitboards[2 + (cell >> 6)] |= 1L << cell;
+            }
+        }
+        return bitboards;
+    }
+}
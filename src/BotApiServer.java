@@ -0,0 +1,643 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Lets bots play matches against the AI over HTTP with JSON documents, using the HTTP server that comes with the JDK.
+ * Every request is handled on its own thread, which is a virtual thread if the Java runtime supports them, and the matches are played on the shards of a <code>MatchScheduler</code>, like the matches of <code>GameServer</code>.
+ * <pre>
+ * POST   /matches                  creates a match, the body can be {"salvo": true, "seed": 42} or {"salvo": true, "player": "name"}, answers 201 with the state of the match
+ * GET    /matches/ID               answers the state of the match
+ * POST   /matches/ID/fleet         places the bot's whole fleet, the body is {"ships": [{"x": 0, "y": 4, "size": 5, "rotation": "v"}, ...]} or {"random": true}
+ * POST   /matches/ID/shots         fires a shot, {"x": 3, "y": 7}, or in a salvo match a salvo, {"shots": [{"x": 3, "y": 7}, ...]}, then lets the AI shoot back
+ * DELETE /matches/ID               ends the match
+ * GET    /leaderboard?top=K        answers the K players with the highest ratings (10 by default, at most 1000) and the amount of rated players
+ * GET    /leaderboard/NAME         answers the rank, rating and game count of a player
+ * </pre>
+ * The fleets and shots of every match are added to the global <code>HeatmapAnalytics</code>.
+ * Matches created with a player name are rated when they end: the player and the AI (as "AI") are updated on the server's <code>Leaderboard</code> right on the match's shard.
+ * A rated match that is ended before it's won or lost, with DELETE or for being idle, counts as a loss for the player. Rated matches can't be given a seed, since the seed also places the AI's fleet, and the seeds the server chooses come from a <code>SecureRandom</code>.
+ * The ships are placed with the same rules as in the game window (vertical ships extend upwards, horizontal ships to the right) and the fleet is only placed if every ship of it is valid and it's complete, like confirming the placement in the game window.
+ * The state of a match is {"id", "salvo", "phase" ("placement", "shooting", "won" or "lost"), "salvoSize", "shipsRemaining", "aiShipsRemaining", "ownBoard", "opponentBoard"}, where the boards are arrays of rows using the characters of <code>ConsoleGame</code>.
+ * Errors are answered with {"error": "..."} and status 400 (invalid request), 404 (unknown match), 405 (unsupported method) or 409 (not allowed in the current phase of the match).
+ * A session only keeps a <code>Match</code>, the AI and its random number generator, so thousands of them fit in a few megabytes, and sessions that weren't used for <code>IDLE_TIMEOUT</code> are ended.
+ * The server only listens on the loopback address.
+ */
+public class BotApiServer implements Closeable {
+    private static final int BACKLOG = 4096;
+    private static final int MAXIMUM_BODY_SIZE = 16 * 1024;
+    private static final long IDLE_TIMEOUT = TimeUnit.MINUTES.toNanos(10);
+    private static final String[] RESULTS = {"invalid", "miss", "hit", "sunk"};
+    private static final String AI_NAME = "AI";
+    private static final int MAXIMUM_NAME_LENGTH = 32;
+    private static final int MAXIMUM_TOP = 1000;
+
+    /**
+     * The state of one bot's match. It's only used by the commands of the match's shard.
+     */
+    private static final class Session {
+        private final long id;
+        private final Match match;
+        private final AIPlayer ai;
+        private final Random random;
+        private final boolean salvo;
+        private final String player;
+        private boolean ended;
+        private volatile long lastUsed;
+
+        private Session(long id, long seed, boolean salvo, String player) {
+            this.id = id;
+            this.salvo = salvo;
+            this.player = player;
+            random = new Random(seed);
+            match = new Match();
+            match.setAnalytics(HeatmapAnalytics.getGlobal());
+            ai = new AIPlayer(random);
+            match.placeFleetRandomly(2, random);
+            lastUsed = System.nanoTime();
+        }
+    }
+
+    /**
+     * The status and JSON body of an answer.
+     */
+    private static final class Response {
+        private final int status;
+        private final String body;
+
+        private Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        /**
+         * Creates an error answer.
+         * @param status the status
+         * @param message what went wrong
+         * @return the answer
+         */
+        private static Response error(int status, String message) {
+            return new Response(status, Json.quote(new StringBuilder("{\"error\": "), message).append('}').toString());
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService requestExecutor;
+    private final MatchScheduler scheduler;
+    private final ConcurrentHashMap<Long, Session> sessions;
+    private final Leaderboard leaderboard;
+    private final AtomicLong nextMatchId;
+    private final SecureRandom seeds;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new server listening on the loopback address, with an empty leaderboard. It doesn't answer any requests until <code>start</code> is called.
+     * @param port the port to listen on, or 0 to let the system choose a free port
+     * @param shardCount the amount of threads the matches are played on
+     * @throws IOException if the port can't be opened
+     */
+    public BotApiServer(int port, int shardCount) throws IOException {
+        this(port, shardCount, new Leaderboard());
+    }
+
+    /**
+     * Constructs a new server listening on the loopback address. It doesn't answer any requests until <code>start</code> is called.
+     * @param port the port to listen on, or 0 to let the system choose a free port
+     * @param shardCount the amount of threads the matches are played on
+     * @param leaderboard the leaderboard the named players are rated on
+     * @throws IOException if the port can't be opened
+     */
+    public BotApiServer(int port, int shardCount, Leaderboard leaderboard) throws IOException {
+        this.leaderboard = leaderboard;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        requestExecutor = GameServer.newThreadPerTaskExecutor("Bot API request");
+        scheduler = new MatchScheduler(shardCount);
+        sessions = new ConcurrentHashMap<>();
+        nextMatchId = new AtomicLong(1);
+        seeds = new SecureRandom();
+        server.setExecutor(requestExecutor);
+        server.createContext("/matches", this::handle);
+        server.createContext("/leaderboard", this::handle);
+    }
+
+    /**
+     * Starts answering requests, and ending the sessions that haven't been used for a while on a separate daemon thread.
+     */
+    public void start() {
+        server.start();
+        Thread thread = new Thread(this::endIdleSessions, "Bot API idle sessions");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Ends the sessions that haven't been used for <code>IDLE_TIMEOUT</code>, once a minute, until the server is closed.
+     */
+    private void endIdleSessions() {
+        while (!closed) {
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException e) {
+                return;
+            }
+            long now = System.nanoTime();
+            for (Session session : sessions.values()) {
+                if (now - session.lastUsed > IDLE_TIMEOUT) {
+                    endSession(session.id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Answers a request. The request is routed by its path and method, and everything the match is involved in runs on the match's shard.
+     * @param exchange the request
+     * @throws IOException if the answer can't be sent
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        Response response;
+        try {
+            response = route(exchange);
+        } catch (IllegalArgumentException e) {
+            response = Response.error(400, e.getMessage());
+        }
+        byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, response.status == 204 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            if (response.status != 204) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Finds out what a request asks for and does it.
+     * @param exchange the request
+     * @return the answer
+     * @throws IOException if the body of the request can't be read
+     * @throws IllegalArgumentException if the request is invalid
+     */
+    private Response route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        if (path.length >= 2 && path[1].equals("leaderboard")) {
+            return method.equals("GET") ? describeLeaderboard(exchange, path) : Response.error(405, "Use GET");
+        }
+        // The path starts with "/matches", so the first element is empty and the second one is "matches".
+        if (path.length == 2) {
+            return method.equals("POST") ? createSession(readBody(exchange)) : Response.error(405, "Use POST to create a match");
+        }
+        long id;
+        try {
+            id = Long.parseLong(path[2]);
+        } catch (NumberFormatException e) {
+            return Response.error(404, "Unknown match");
+        }
+        Session session = sessions.get(id);
+        if (session == null || path.length > 4) {
+            return Response.error(404, "Unknown match");
+        }
+        session.lastUsed = System.nanoTime();
+        if (path.length == 3) {
+            return switch (method) {
+                case "GET" -> run(session, () -> new Response(200, describe(session)));
+                case "DELETE" -> {
+                    endSession(id);
+                    yield new Response(204, "");
+                }
+                default -> Response.error(405, "Use GET or DELETE");
+            };
+        }
+        if (!method.equals("POST")) {
+            return Response.error(405, "Use POST");
+        }
+        return switch (path[3]) {
+            case "fleet" -> {
+                Map<?, ?> body = readBody(exchange);
+                yield run(session, () -> placeFleet(session, body));
+            }
+            case "shots" -> {
+                Map<?, ?> body = readBody(exchange);
+                yield run(session, () -> shoot(session, body));
+            }
+            default -> Response.error(404, "Unknown match");
+        };
+    }
+
+    /**
+     * Reads the body of a request as a JSON object.
+     * @param exchange the request
+     * @return the object, which is empty if the body is empty
+     * @throws IOException if the body can't be read
+     * @throws IllegalArgumentException if the body is too large or isn't a JSON object
+     */
+    private static Map<?, ?> readBody(HttpExchange exchange) throws IOException {
+        byte[] bytes;
+        try (InputStream in = exchange.getRequestBody()) {
+            bytes = in.readNBytes(MAXIMUM_BODY_SIZE + 1);
+        }
+        if (bytes.length > MAXIMUM_BODY_SIZE) {
+            throw new IllegalArgumentException("The body is too large");
+        }
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        if (text.isBlank()) {
+            return Map.of();
+        }
+        if (!(Json.parse(text) instanceof Map<?, ?> object)) {
+            throw new IllegalArgumentException("The body must be a JSON object");
+        }
+        return object;
+    }
+
+    /**
+     * Runs a command on the shard of a match and waits for it.
+     * If the match has been ended by the time the command runs, the command doesn't run and the match is answered as unknown.
+     * @param session the match
+     * @param command the command
+     * @return the answer of the command
+     */
+    private Response run(Session session, Supplier<Response> command) {
+        try {
+            return scheduler.submit(session.id, () -> session.ended ? Response.error(404, "Unknown match") : command.get()).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException invalid) {
+                return Response.error(400, invalid.getMessage());
+            }
+            return Response.error(500, "The command failed");
+        } catch (CancellationException | IllegalArgumentException e) {
+            // The match ended or the server is closing while the command was waiting.
+            return Response.error(404, "Unknown match");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Response.error(503, "The server is closing");
+        }
+    }
+
+    /**
+     * Creates a new match against the AI.
+     * @param body the body of the request, which can set "salvo", and either "seed" or "player"
+     * @return the answer
+     */
+    private Response createSession(Map<?, ?> body) {
+        if (body.containsKey("salvo") && !(body.get("salvo") instanceof Boolean)) {
+            throw new IllegalArgumentException("\"salvo\" must be true or false");
+        }
+        if (body.containsKey("seed") && !(body.get("seed") instanceof Long)) {
+            throw new IllegalArgumentException("\"seed\" must be a whole number");
+        }
+        if (body.containsKey("player") && (!(body.get("player") instanceof String name) || name.isBlank() || name.length() > MAXIMUM_NAME_LENGTH)) {
+            throw new IllegalArgumentException("\"player\" must be a name of 1 to " + MAXIMUM_NAME_LENGTH + " characters");
+        }
+        if (body.containsKey("seed") && body.containsKey("player")) {
+            throw new IllegalArgumentException("A rated match can't have a \"seed\"");
+        }
+        String player = (String) body.get("player");
+        boolean salvo = Boolean.TRUE.equals(body.get("salvo"));
+        long seed = body.containsKey("seed") ? (Long) body.get("seed") : seeds.nextLong();
+        long id = nextMatchId.getAndIncrement();
+        scheduler.register(id);
+        Response response;
+        try {
+            response = scheduler.submit(id, () -> {
+                Session session = new Session(id, seed, salvo, player);
+                sessions.put(id, session);
+                return new Response(201, describe(session));
+            }).get();
+        } catch (ExecutionException | CancellationException e) {
+            scheduler.unregister(id);
+            return Response.error(500, "The match couldn't be created");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            scheduler.unregister(id);
+            return Response.error(503, "The server is closing");
+        }
+        return response;
+    }
+
+    /**
+     * Ends a match. Its commands that are already waiting are answered as if the match were unknown.
+     * If the match is rated and hasn't been won or lost, the player loses it, on the match's shard.
+     * @param id the id of the match
+     */
+    private void endSession(long id) {
+        Session session = sessions.remove(id);
+        if (session == null) {
+            return;
+        }
+        scheduler.submit(id, () -> {
+            session.ended = true;
+            if (session.player != null && !session.match.isOver()) {
+                leaderboard.recordResult(AI_NAME, session.player);
+            }
+            return null;
+        });
+        scheduler.unregister(id);
+    }
+
+    /**
+     * Places the bot's whole fleet. It runs on the match's shard.
+     * @param session the match
+     * @param body the body of the request
+     * @return the answer
+     */
+    private static Response placeFleet(Session session, Map<?, ?> body) {
+        Match match = session.match;
+        if (match.isFleetComplete(1)) {
+            return Response.error(409, "The fleet has already been placed");
+        }
+        if (Boolean.TRUE.equals(body.get("random"))) {
+            match.placeFleetRandomly(1, session.random);
+            return new Response(200, describe(session));
+        }
+        if (!(body.get("ships") instanceof List<?> ships)) {
+            throw new IllegalArgumentException("\"ships\" must be an array of ships, or \"random\" must be true");
+        }
+        int[] x = new int[ships.size()];
+        int[] y = new int[ships.size()];
+        int[] sizes = new int[ships.size()];
+        int[] rotations = new int[ships.size()];
+        // The fleet is placed on a scratch match first, so an invalid fleet doesn't leave some of its ships on the real board.
+        Match scratch = new Match();
+        for (int i = 0; i < ships.size(); i++) {
+            if (!(ships.get(i) instanceof Map<?, ?> ship)) {
+                throw new IllegalArgumentException("Every ship must be an object");
+            }
+            x[i] = Json.getInt(ship, "x");
+            y[i] = Json.getInt(ship, "y");
+            sizes[i] = Json.getInt(ship, "size");
+            Object rotation = ship.get("rotation");
+            if (!"v".equals(rotation) && !"h".equals(rotation)) {
+                throw new IllegalArgumentException("\"rotation\" must be \"v\" or \"h\"");
+            }
+            rotations[i] = rotation.equals("v") ? 1 : 2;
+            if (!scratch.placeShip(1, x[i], y[i], sizes[i], rotations[i])) {
+                return Response.error(400, "Ship " + i + " can't be placed there");
+            }
+        }
+        if (!scratch.isFleetComplete(1)) {
+            return Response.error(400, "The fleet is incomplete");
+        }
+        for (int i = 0; i < ships.size(); i++) {
+            match.placeShip(1, x[i], y[i], sizes[i], rotations[i]);
+        }
+        return new Response(200, describe(session));
+    }
+
+    /**
+     * Fires the bot's shot or salvo, then lets the AI shoot back. It runs on the match's shard.
+     * Invalid shots of a salvo are answered with "invalid" and don't count, but the rest of the salvo is still fired, like in <code>ConsoleGame</code>. A salvo without a single valid shot is rejected like an invalid single shot, and the AI doesn't shoot back.
+     * @param session the match
+     * @param body the body of the request
+     * @return the answer, {"results": [...], "ai": [{"x", "y", "result"}, ...], "phase"}
+     */
+    private Response shoot(Session session, Map<?, ?> body) {
+        Match match = session.match;
+        if (!match.isFleetComplete(1)) {
+            return Response.error(409, "Place the fleet first");
+        }
+        if (match.isOver()) {
+            return Response.error(409, "The match is over");
+        }
+        ArrayList<Coordinates> shots = new ArrayList<>();
+        if (session.salvo) {
+            if (!(body.get("shots") instanceof List<?> list) || list.isEmpty()) {
+                throw new IllegalArgumentException("\"shots\" must be an array of shots in a salvo match");
+            }
+            for (Object shot : list) {
+                if (!(shot instanceof Map<?, ?> coordinates)) {
+                    throw new IllegalArgumentException("Every shot must be an object");
+                }
+                shots.add(new Coordinates(Json.getInt(coordinates, "x"), Json.getInt(coordinates, "y")));
+            }
+            if (shots.size() > match.getSalvoSize(1)) {
+                return Response.error(400, "At most " + match.getSalvoSize(1) + " shots");
+            }
+        } else {
+            shots.add(new Coordinates(Json.getInt(body, "x"), Json.getInt(body, "y")));
+        }
+        int[] results;
+        if (session.salvo) {
+            results = match.salvo(2, shots);
+            boolean anyValid = false;
+            for (int result : results) {
+                anyValid |= result != Match.INVALID;
+            }
+            if (!anyValid) {
+                return Response.error(400, "Every shot of the salvo is invalid");
+            }
+        } else {
+            results = new int[]{match.shoot(2, shots.get(0).getX(), shots.get(0).getY())};
+            if (results[0] == Match.INVALID) {
+                return Response.error(400, "Invalid shot");
+            }
+        }
+        List<Coordinates> aiShots = List.of();
+        int[] aiResults = new int[0];
+        if (!match.isOver()) {
+            GameEvents.recordTurnSwitch(2, match.getShotCount());
+            if (session.salvo) {
+                aiShots = session.ai.takeSalvo(match, 1);
+                aiResults = session.ai.getLastSalvoResults();
+            } else {
+                aiShots = List.of(session.ai.takeTurn(match, 1));
+                aiResults = new int[]{session.ai.getLastResult()};
+            }
+            if (!match.isOver()) {
+                GameEvents.recordTurnSwitch(1, match.getShotCount());
+            }
+        }
+        if (match.isOver() && session.player != null) {
+            boolean won = match.getWinner() == 1;
+            leaderboard.recordResult(won ? session.player : AI_NAME, won ? AI_NAME : session.player);
+        }
+        StringBuilder builder = new StringBuilder("{\"results\": [");
+        for (int i = 0; i < results.length; i++) {
+            builder.append(i > 0 ? ", \"" : "\"").append(RESULTS[results[i]]).append('"');
+        }
+        builder.append("], \"ai\": [");
+        for (int i = 0; i < aiShots.size(); i++) {
+            builder.append(i > 0 ? ", " : "").append("{\"x\": ").append(aiShots.get(i).getX()).append(", \"y\": ").append(aiShots.get(i).getY())
+                    .append(", \"result\": \"").append(RESULTS[aiResults[i]]).append("\"}");
+        }
+        builder.append("], \"phase\": \"").append(getPhase(match)).append("\"}");
+        return new Response(200, builder.toString());
+    }
+
+    /**
+     * Answers a leaderboard request: the top players, or one player's place if the path names a player.
+     * @param exchange the request
+     * @param path the path of the request, split at the slashes
+     * @return the answer
+     */
+    private Response describeLeaderboard(HttpExchange exchange, String[] path) {
+        if (path.length == 3) {
+            Leaderboard.Entry entry = leaderboard.get(path[2]);
+            return entry == null ? Response.error(404, "Unknown player") : new Response(200, appendEntry(new StringBuilder(), entry).toString());
+        }
+        if (path.length > 3) {
+            return Response.error(404, "Unknown player");
+        }
+        int top = 10;
+        String query = exchange.getRequestURI().getQuery();
+        if (query != null && query.startsWith("top=")) {
+            try {
+                top = Math.max(0, Math.min(Integer.parseInt(query.substring(4)), MAXIMUM_TOP));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("\"top\" must be a whole number");
+            }
+        }
+        StringBuilder builder = new StringBuilder("{\"size\": ").append(leaderboard.size()).append(", \"players\": [");
+        List<Leaderboard.Entry> entries = leaderboard.getTop(top);
+        for (int i = 0; i < entries.size(); i++) {
+            appendEntry(builder.append(i > 0 ? ", " : ""), entries.get(i));
+        }
+        return new Response(200, builder.append("]}").toString());
+    }
+
+    /**
+     * Appends a player's place on the leaderboard as a JSON object.
+     * @param builder the builder the object is appended to
+     * @param entry the player's place
+     * @return the builder
+     */
+    private static StringBuilder appendEntry(StringBuilder builder, Leaderboard.Entry entry) {
+        builder.append("{\"rank\": ").append(entry.getRank()).append(", \"name\": ");
+        return Json.quote(builder, entry.getName()).append(", \"rating\": ").append(Math.round(entry.getRating())).append(", \"games\": ").append(entry.getGameCount()).append('}');
+    }
+
+    /**
+     * Gets the phase of a match as seen by the bot.
+     * @param match the match
+     * @return "placement", "shooting", "won" or "lost"
+     */
+    private static String getPhase(Match match) {
+        if (!match.isFleetComplete(1)) {
+            return "placement";
+        }
+        if (!match.isOver()) {
+            return "shooting";
+        }
+        return match.getWinner() == 1 ? "won" : "lost";
+    }
+
+    /**
+     * Describes the state of a match. It runs on the match's shard.
+     * @param session the match
+     * @return the state as a JSON object
+     */
+    private static String describe(Session session) {
+        Match match = session.match;
+        StringBuilder builder = new StringBuilder("{\"id\": ").append(session.id).append(", \"salvo\": ").append(session.salvo)
+                .append(", \"phase\": \"").append(getPhase(match)).append("\", \"salvoSize\": ").append(match.getSalvoSize(1))
+                .append(", \"shipsRemaining\": ").append(match.getShipsRemaining(1)).append(", \"aiShipsRemaining\": ").append(match.getShipsRemaining(2))
+                .append(", \"ownBoard\": [");
+        appendBoard(builder, match, true);
+        builder.append("], \"opponentBoard\": [");
+        appendBoard(builder, match, false);
+        return builder.append("]}").toString();
+    }
+
+    /**
+     * Appends the rows of one of the boards of a match as JSON strings.
+     * @param builder the builder the rows are appended to
+     * @param match the match
+     * @param own whether to append the bot's own board instead of what the bot knows about the AI's board
+     */
+    private static void appendBoard(StringBuilder builder, Match match, boolean own) {
+        for (int y = 0; y < Match.BOARD_SIZE; y++) {
+            builder.append(y > 0 ? ", \"" : "\"");
+            for (int x = 0; x < Match.BOARD_SIZE; x++) {
+                builder.append(ConsoleGame.tileCharacter(own ? match.getOwnType(1, x, y) : match.getOpponentViewType(2, x, y)));
+            }
+            builder.append('"');
+        }
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Gets how many matches are open.
+     * @return the amount of sessions
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Gets the scheduler the matches are played on, for example to read its report.
+     * @return the scheduler
+     */
+    public MatchScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Stops answering requests and ends all the matches.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        server.stop(0);
+        requestExecutor.shutdownNow();
+        scheduler.close();
+        sessions.clear();
+    }
+
+    /**
+     * Runs a server until the program is stopped, printing the amount of open matches and the report of every shard, rebalancing the shards and saving the leaderboard and the global heatmap every ten seconds.
+     * The leaderboard is kept in "results/bots.leaderboard" in the working directory, and loaded from there when the server starts, so the ratings survive a restart.
+     * The first argument is the port (8080 by default), and <code>--shards N</code> sets the amount of threads the matches are played on (one for every processor by default).
+     * @param args the launch arguments
+     * @throws Exception if the port can't be opened
+     */
+    public static void main(String[] args) throws Exception {
+        int port = 8080;
+        int shardCount = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--shards") && i + 1 < args.length) {
+                shardCount = Integer.parseInt(args[++i]);
+            } else {
+                port = Integer.parseInt(args[i]);
+            }
+        }
+        File leaderboardFile = new File("results", "bots.leaderboard");
+        BotApiServer server = new BotApiServer(port, shardCount, leaderboardFile.exists() ? Leaderboard.load(leaderboardFile) : new Leaderboard());
+        server.start();
+        System.out.println("Listening on http://" + server.server.getAddress().getHostString() + ":" + server.getPort() + "/matches with " + shardCount + " shards");
+        while (true) {
+            Thread.sleep(10_000);
+            System.out.println(server.getSessionCount() + " open matches");
+            System.out.print(server.scheduler.getReport());
+            server.scheduler.rebalance();
+            server.leaderboard.save(leaderboardFile);
+            HeatmapAnalytics.saveGlobal();
+        }
+    }
+}
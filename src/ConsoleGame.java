@@ -0,0 +1,309 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Plays a match against the AI through a line based text protocol, without any graphical user interface.
+ * Every command is one line, and every command is answered with one or more lines:
+ * <pre>
+ * place X Y SIZE v|h   places a ship (v extends upwards, h extends to the right), answers "ok" or "error ..."
+ * auto                 places all the remaining ships at random locations, answers "ok"
+ * shoot X Y            shoots at the AI's board, answers "miss", "hit" or "sunk", followed by the AI's shot "ai X Y miss|hit|sunk"
+ * salvo X Y [X Y ...]  in a salvo match, fires up to one shot for every remaining ship, answers the result of every shot on one line,
+ *                      followed by the AI's salvo "ai X Y miss|hit|sunk [X Y miss|hit|sunk ...]", or "error ..." if every shot is invalid
+ * board                prints both boards
+ * help                 prints the list of commands
+ * quit                 ends the match
+ * </pre>
+ * When the match ends, "win" or "lose" is printed and the game stops reading commands.
+ * This class doesn't use any AWT or Swing classes (and neither do the classes it uses), so the game can be played on a computer without a display and it starts up quickly.
+ */
+public class ConsoleGame {
+    private static final String[] RESULTS = {"invalid", "miss", "hit", "sunk"};
+
+    private final Match match;
+    private final AIPlayer ai;
+    private final Random random;
+    private final PrintStream out;
+    private final boolean salvo;
+
+    /**
+     * Constructs a new console game where the AI has already placed its ships.
+     * @param seed the seed of the random number generator used by the AI
+     * @param out the stream the answers are written to
+     * @param salvo whether every turn is a salvo of one shot per remaining ship (the "salvo" command) instead of a single shot (the "shoot" command)
+     */
+    public ConsoleGame(long seed, PrintStream out, boolean salvo) {
+        this(seed, out, salvo, HeatmapAnalytics.getGlobal());
+    }
+
+    /**
+     * Constructs a new console game where the AI has already placed its ships, recording the match to the passed in heatmap.
+     * @param seed the seed of the random number generator used by the AI
+     * @param out the stream the answers are written to
+     * @param salvo whether every turn is a salvo of one shot per remaining ship (the "salvo" command) instead of a single shot (the "shoot" command)
+     * @param analytics the heatmap the shots and fleets are added to, or <code>null</code> to not record anything
+     */
+    public ConsoleGame(long seed, PrintStream out, boolean salvo, HeatmapAnalytics analytics) {
+        this.out = out;
+        this.salvo = salvo;
+        random = new Random(seed);
+        match = new Match();
+        match.setAnalytics(analytics);
+        ai = new AIPlayer(random);
+        match.placeFleetRandomly(2, random);
+    }
+
+    /**
+     * Reads commands from the passed in stream until the match ends, the stream ends or the "quit" command is read.
+     * The shots and fleets of the match are added to the global <code>HeatmapAnalytics</code>, which is saved at the end if the player placed their whole fleet or a shot was fired, so quitting straight away leaves the saved heatmap alone.
+     * @param in the stream the commands are read from
+     * @throws IOException if the commands can't be read or the heatmap can't be saved
+     */
+    public void run(InputStream in) throws IOException {
+        play(in);
+        if (match.isFleetComplete(1) || match.getShotCount() > 0) {
+            HeatmapAnalytics.saveGlobal();
+        }
+    }
+
+    /**
+     * Reads commands from the passed in stream until the match ends, the stream ends or the "quit" command is read, without saving the heatmap.
+     * The answers are flushed after every command, so the stream can be a network connection.
+     * @param in the stream the commands are read from
+     * @throws IOException if the commands can't be read
+     */
+    public void play(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in));
+        out.println("ready");
+        out.flush();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            boolean more = executeLine(line);
+            out.flush();
+            if (!more) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Executes a single command line, writing its answer to the output stream without flushing it.
+     * @param line the command line
+     * @return whether more commands should be read
+     */
+    public boolean executeLine(String line) {
+        return execute(line.trim().split("\\s+"));
+    }
+
+    /**
+     * Executes a single command.
+     * @param command the command, split into words
+     * @return whether more commands should be read
+     */
+    private boolean execute(String[] command) {
+        switch (command[0].toLowerCase()) {
+            case "" -> {
+                return true;
+            }
+            case "place" -> place(command);
+            case "auto" -> {
+                match.placeFleetRandomly(1, random);
+                out.println("ok");
+            }
+            case "shoot" -> shoot(command);
+            case "salvo" -> salvo(command);
+            case "board" -> printBoards();
+            case "help" -> out.println(salvo ? "commands: place X Y SIZE v|h, auto, salvo X Y [X Y ...], board, help, quit" : "commands: place X Y SIZE v|h, auto, shoot X Y, board, help, quit");
+            case "quit" -> {
+                return false;
+            }
+            default -> out.println("error unknown command");
+        }
+        return !match.isOver();
+    }
+
+    /**
+     * Executes the "place" command.
+     * @param command the command, split into words
+     */
+    private void place(String[] command) {
+        if (command.length != 5 || !isNumber(command[1]) || !isNumber(command[2]) || !isNumber(command[3])) {
+            out.println("error usage: place X Y SIZE v|h");
+            return;
+        }
+        if (!command[4].equalsIgnoreCase("v") && !command[4].equalsIgnoreCase("h")) {
+            out.println("error invalid direction, use v or h");
+            return;
+        }
+        int rotation = command[4].equalsIgnoreCase("v") ? 1 : 2;
+        if (match.placeShip(1, Integer.parseInt(command[1]), Integer.parseInt(command[2]), Integer.parseInt(command[3]), rotation)) {
+            out.println("ok");
+        } else {
+            out.println("error invalid placement");
+        }
+    }
+
+    /**
+     * Executes the "shoot" command, then lets the AI shoot back.
+     * @param command the command, split into words
+     */
+    private void shoot(String[] command) {
+        if (command.length != 3 || !isNumber(command[1]) || !isNumber(command[2])) {
+            out.println("error usage: shoot X Y");
+            return;
+        }
+        if (salvo) {
+            out.println("error this is a salvo match, use: salvo X Y [X Y ...]");
+            return;
+        }
+        if (!match.isFleetComplete(1)) {
+            out.println("error place all of your ships first");
+            return;
+        }
+        int result = match.shoot(2, Integer.parseInt(command[1]), Integer.parseInt(command[2]));
+        if (result == Match.INVALID) {
+            out.println("error invalid shot");
+            return;
+        }
+        out.println(RESULTS[result]);
+        if (match.isOver()) {
+            out.println("win");
+            return;
+        }
+        GameEvents.recordTurnSwitch(2, match.getShotCount());
+        Coordinates aiShot = ai.takeTurn(match, 1);
+        StringBuilder builder = new StringBuilder("ai ");
+        builder.append(aiShot.getX()).append(' ').append(aiShot.getY()).append(' ').append(RESULTS[ai.getLastResult()]);
+        out.println(builder);
+        if (match.isOver()) {
+            out.println("lose");
+        } else {
+            GameEvents.recordTurnSwitch(1, match.getShotCount());
+        }
+    }
+
+    /**
+     * Executes the "salvo" command, then lets the AI fire its salvo back.
+     * Invalid shots of the salvo are answered with "invalid" and don't count, but the rest of the salvo is still fired.
+     * A salvo in which every shot is invalid is answered with an error instead, and the player still has their turn.
+     * @param command the command, split into words
+     */
+    private void salvo(String[] command) {
+        if (!salvo) {
+            out.println("error this isn't a salvo match, use: shoot X Y");
+            return;
+        }
+        if (command.length < 3 || command.length % 2 == 0) {
+            out.println("error usage: salvo X Y [X Y ...]");
+            return;
+        }
+        ArrayList<Coordinates> shots = new ArrayList<>();
+        for (int i = 1; i < command.length; i += 2) {
+            if (!isNumber(command[i]) || !isNumber(command[i + 1])) {
+                out.println("error usage: salvo X Y [X Y ...]");
+                return;
+            }
+            shots.add(new Coordinates(Integer.parseInt(command[i]), Integer.parseInt(command[i + 1])));
+        }
+        if (!match.isFleetComplete(1)) {
+            out.println("error place all of your ships first");
+            return;
+        }
+        if (shots.size() > match.getSalvoSize(1)) {
+            StringBuilder builder = new StringBuilder("error at most ");
+            builder.append(match.getSalvoSize(1)).append(" shots");
+            out.println(builder);
+            return;
+        }
+        int[] results = match.salvo(2, shots);
+        boolean anyValid = false;
+        for (int result : results) {
+            anyValid |= result != Match.INVALID;
+        }
+        if (!anyValid) {
+            out.println("error every shot of the salvo is invalid");
+            return;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < results.length; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(RESULTS[results[i]]);
+        }
+        out.println(builder);
+        if (match.isOver()) {
+            out.println("win");
+            return;
+        }
+        GameEvents.recordTurnSwitch(2, match.getShotCount());
+        ArrayList<Coordinates> aiShots = ai.takeSalvo(match, 1);
+        builder = new StringBuilder("ai");
+        for (int i = 0; i < aiShots.size(); i++) {
+            builder.append(' ').append(aiShots.get(i).getX()).append(' ').append(aiShots.get(i).getY()).append(' ').append(RESULTS[ai.getLastSalvoResults()[i]]);
+        }
+        out.println(builder);
+        if (match.isOver()) {
+            out.println("lose");
+        } else {
+            GameEvents.recordTurnSwitch(1, match.getShotCount());
+        }
+    }
+
+    /**
+     * Prints the player's own board next to what the player knows about the AI's board.
+     * . = Undiscovered, ~ = Empty, # = Ship, X = Sunk ship, * = Shot empty
+     */
+    private void printBoards() {
+        StringBuilder builder = new StringBuilder("  0123456789   0123456789\n");
+        for (int y = 0; y < Match.BOARD_SIZE; y++) {
+            builder.append(y).append(' ');
+            for (int x = 0; x < Match.BOARD_SIZE; x++) {
+                builder.append(tileCharacter(match.getOwnType(1, x, y)));
+            }
+            builder.append(' ').append(' ').append(y);
+            for (int x = 0; x < Match.BOARD_SIZE; x++) {
+                builder.append(tileCharacter(match.getOpponentViewType(2, x, y)));
+            }
+            builder.append('\n');
+        }
+        out.print(builder);
+    }
+
+    /**
+     * Gets the character that represents a tile type on the text board.
+     * @param type the type of the tile, as used by <code>Tile</code>
+     * @return the character representing the tile
+     */
+    static char tileCharacter(int type) {
+        return switch (type) {
+            case 1 -> '~';
+            case 2 -> '#';
+            case 3 -> 'X';
+            case 4 -> '*';
+            default -> '.';
+        };
+    }
+
+    /**
+     * Checks whether a word is a non-negative whole number.
+     * @param word the word to check
+     * @return whether the word is a number
+     */
+    private static boolean isNumber(String word) {
+        if (word.isEmpty() || word.length() > 9) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (!Character.isDigit(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
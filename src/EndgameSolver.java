@@ -0,0 +1,439 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Works out how likely every undiscovered tile of an opponent's board is to hold a ship, from what the opponent's view of the board shows.
+ * Ships that have been sunk are recognised by the revealed tiles around them, so only the remaining ships are placed. Hit tiles of ships that haven't been sunk yet have to be covered by one of the remaining ships, and no two ships may touch, not even diagonally.
+ * Late in a match, when the remaining ships can only be placed in a limited amount of ways, every placement consistent with the view is enumerated and the probabilities are exact.
+ * The enumeration places the remaining ships one after another as bitmasks of the board's tiles and remembers the result for every combination of the next ship and the tiles taken so far, so a position reached in several ways is only searched once.
+ * The enumeration has a hard limit on its time and on how many results it remembers. If the position has too many possible placements or the time runs out, the probabilities are approximated instead by counting the placements of each remaining ship on its own.
+ */
+public class EndgameSolver {
+    public static final double DEFAULT_CONFIGURATION_LIMIT = 1e6;
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 50;
+    public static final int DEFAULT_MEMO_LIMIT = 20_000;
+
+    private static final int CELL_COUNT = Match.BOARD_SIZE * Match.BOARD_SIZE;
+    private static final double HIT_WEIGHT = 20;
+
+    private final double configurationLimit;
+    private final long timeLimitNanos;
+    private final int memoLimit;
+    private boolean lastResultExact;
+    private double lastConfigurationCount;
+
+    /**
+     * A position of the enumeration: the index of the next ship to place and the tiles taken by the ships placed so far.
+     */
+    private static final class Key {
+        private final int shipIndex;
+        private final long low;
+        private final long high;
+
+        private Key(int shipIndex, long low, long high) {
+            this.shipIndex = shipIndex;
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && key.shipIndex == shipIndex && key.low == low && key.high == high;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(low * 31 + high) * 31 + shipIndex;
+        }
+    }
+
+    /**
+     * The result of the enumeration from one position: in how many ways the rest of the ships can be placed, and how many of those ways cover each tile.
+     */
+    private static final class Count {
+        private final double total;
+        private final double[] cells;
+
+        private Count(double total, double[] cells) {
+            this.total = total;
+            this.cells = cells;
+        }
+    }
+
+    /**
+     * Thrown to stop the enumeration when it runs out of time.
+     */
+    private static final class TimeLimitException extends RuntimeException {
+        private TimeLimitException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Constructs a new solver with the default limits.
+     */
+    public EndgameSolver() {
+        this(DEFAULT_CONFIGURATION_LIMIT, DEFAULT_TIME_LIMIT_MILLIS, DEFAULT_MEMO_LIMIT);
+    }
+
+    /**
+     * Constructs a new solver.
+     * @param configurationLimit the exact enumeration is only tried if multiplying the amount of places each remaining ship fits on its own gives at most this many combinations
+     * @param timeLimitMillis how many milliseconds the exact enumeration may take before the solver falls back to the approximation
+     * @param memoLimit how many positions the exact enumeration remembers at most; once there are this many, new positions are searched without being remembered
+     */
+    public EndgameSolver(double configurationLimit, long timeLimitMillis, int memoLimit) {
+        this.configurationLimit = configurationLimit;
+        this.timeLimitNanos = timeLimitMillis * 1_000_000;
+        this.memoLimit = memoLimit;
+    }
+
+    /**
+     * Returns whether the probabilities returned by the last call of <code>solve</code> were exact.
+     * @return whether the last result was exact, <code>false</code> if it was approximated
+     */
+    public boolean wasLastResultExact() {
+        return lastResultExact;
+    }
+
+    /**
+     * Gets the estimated size of the last position's configuration space: the product of the amount of places each remaining ship fits on its own.
+     * It's an upper bound of the amount of ways the remaining ships can be placed together, and it decides whether the exact enumeration is tried.
+     * @return the estimate for the last call of <code>solve</code>
+     */
+    public double getLastConfigurationCount() {
+        return lastConfigurationCount;
+    }
+
+    /**
+     * Works out the probability of every tile holding a ship that hasn't been found yet, for a match played with the standard fleet.
+     * @param opponentView the opponent's board as the shooting player sees it, with the types used by <code>Tile</code> (0 = undiscovered, 3 = hit, 1 and 4 = empty)
+     * @return the probability of each tile, row by row; tiles that have already been shot or revealed are 0
+     */
+    public double[] solve(Board opponentView) {
+        return solve(opponentView, Match.FLEET);
+    }
+
+    /**
+     * Works out the probability of every tile holding a ship that hasn't been found yet.
+     * @param opponentView the opponent's board as the shooting player sees it, with the types used by <code>Tile</code> (0 = undiscovered, 3 = hit, 1 and 4 = empty)
+     * @param fleet the sizes of all the ships of the match, including the sunk ones
+     * @return the probability of each tile, row by row; tiles that have already been shot or revealed are 0
+     */
+    public double[] solve(Board opponentView, int[] fleet) {
+        long[] open = new long[2];
+        long[] hits = new long[2];
+        List<Integer> remainingShips = findRemainingShips(opponentView, fleet, open, hits);
+        lastResultExact = false;
+        if (hits[0] == 0 && hits[1] == 0) {
+            double[] counts = countWithoutHits(remainingShips, open);
+            if (counts != null) {
+                return counts;
+            }
+        }
+        List<List<long[]>> placements = new ArrayList<>();
+        double configurationCount = 1;
+        for (int size : remainingShips) {
+            List<long[]> shipPlacements = findPlacements(size, open, hits);
+            placements.add(shipPlacements);
+            configurationCount *= shipPlacements.size();
+        }
+        lastConfigurationCount = configurationCount;
+        if (!remainingShips.isEmpty() && configurationCount <= configurationLimit) {
+            try {
+                double[] probabilities = enumerate(placements, hits, remainingShips);
+                if (probabilities != null) {
+                    lastResultExact = true;
+                    return probabilities;
+                }
+            } catch (TimeLimitException exception) {
+                // Fall back to the approximation below.
+            }
+        }
+        return approximate(placements, hits);
+    }
+
+    /**
+     * Finds the ships that haven't been sunk yet, and which tiles can still hold them.
+     * Hit tiles are grouped into ships. A ship is sunk if none of the tiles around it are undiscovered, since the tiles around a ship are revealed when it sinks, while a ship that's only been hit still has undiscovered tiles of its own next to the hits.
+     * @param opponentView the opponent's view of the board
+     * @param fleet the sizes of all the ships of the match
+     * @param open filled with the tiles that can hold a remaining ship: undiscovered tiles and hits of ships that haven't been sunk
+     * @param hits filled with the hits of ships that haven't been sunk
+     * @return the sizes of the remaining ships, from the largest to the smallest
+     */
+    private static List<Integer> findRemainingShips(Board opponentView, int[] fleet, long[] open, long[] hits) {
+        List<Integer> remainingShips = new ArrayList<>();
+        for (int size : fleet) {
+            remainingShips.add(size);
+        }
+        boolean[] visited = new boolean[CELL_COUNT];
+        int[] component = new int[CELL_COUNT];
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            int type = opponentView.get(cell % Match.BOARD_SIZE, cell / Match.BOARD_SIZE);
+            if (type == 0 || type == 5) {
+                setBit(open, cell);
+            }
+            if (type != 3 || visited[cell]) {
+                continue;
+            }
+            int size = 0;
+            boolean sunk = true;
+            component[size++] = cell;
+            visited[cell] = true;
+            for (int i = 0; i < size; i++) {
+                int x = component[i] % Match.BOARD_SIZE;
+                int y = component[i] / Match.BOARD_SIZE;
+                for (int neighbourX = Math.max(x - 1, 0); neighbourX <= Math.min(x + 1, Match.BOARD_SIZE - 1); neighbourX++) {
+                    for (int neighbourY = Math.max(y - 1, 0); neighbourY <= Math.min(y + 1, Match.BOARD_SIZE - 1); neighbourY++) {
+                        int neighbour = neighbourY * Match.BOARD_SIZE + neighbourX;
+                        int neighbourType = opponentView.get(neighbourX, neighbourY);
+                        if (neighbourType == 0 || neighbourType == 5) {
+                            sunk = false;
+                        } else if (neighbourType == 3 && !visited[neighbour]) {
+                            visited[neighbour] = true;
+                            component[size++] = neighbour;
+                        }
+                    }
+                }
+            }
+            if (sunk) {
+                remainingShips.remove(Integer.valueOf(size));
+            } else {
+                for (int i = 0; i < size; i++) {
+                    setBit(open, component[i]);
+                    setBit(hits, component[i]);
+                }
+            }
+        }
+        remainingShips.sort((first, second) -> second - first);
+        return remainingShips;
+    }
+
+    /**
+     * Finds every place a single ship of the passed in size fits.
+     * A place fits if all of its tiles can hold a remaining ship, at least one of them is undiscovered (otherwise the ship would already be sunk), and no hit next to it is left out (that hit would belong to another ship touching this one).
+     * @param size the size of the ship
+     * @param open the tiles that can hold a remaining ship
+     * @param hits the hits of ships that haven't been sunk
+     * @return the places, each as four longs: the ship's tiles and the ship's tiles together with all the tiles around it, both split into the first 64 tiles and the rest
+     */
+    private static List<long[]> findPlacements(int size, long[] open, long[] hits) {
+        List<long[]> placements = new ArrayList<>();
+        for (int rotation = 1; rotation <= (size > 1 ? 2 : 1); rotation++) {
+            for (int y = 0; y < Match.BOARD_SIZE; y++) {
+                for (int x = 0; x < Match.BOARD_SIZE; x++) {
+                    long[] placement = new long[4];
+                    boolean fits = true;
+                    boolean undiscovered = false;
+                    for (int i = 0; i < size && fits; i++) {
+                        int tileX = rotation == 1 ? x : x + i;
+                        int tileY = rotation == 1 ? y + i : y;
+                        if (tileX >= Match.BOARD_SIZE || tileY >= Match.BOARD_SIZE || !isSet(open, tileY * Match.BOARD_SIZE + tileX)) {
+                            fits = false;
+                        } else {
+                            placement[tileY * Match.BOARD_SIZE + tileX < 64 ? 0 : 1] |= 1L << (tileY * Match.BOARD_SIZE + tileX) % 64;
+                            undiscovered |= !isSet(hits, tileY * Match.BOARD_SIZE + tileX);
+                            for (int neighbourX = Math.max(tileX - 1, 0); neighbourX <= Math.min(tileX + 1, Match.BOARD_SIZE - 1); neighbourX++) {
+                                for (int neighbourY = Math.max(tileY - 1, 0); neighbourY <= Math.min(tileY + 1, Match.BOARD_SIZE - 1); neighbourY++) {
+                                    int neighbour = neighbourY * Match.BOARD_SIZE + neighbourX;
+                                    placement[neighbour < 64 ? 2 : 3] |= 1L << neighbour % 64;
+                                }
+                            }
+                        }
+                    }
+                    if (fits && undiscovered && (placement[2] & ~placement[0] & hits[0]) == 0 && (placement[3] & ~placement[1] & hits[1]) == 0) {
+                        placements.add(placement);
+                    }
+                }
+            }
+        }
+        return placements;
+    }
+
+    /**
+     * Enumerates every way the remaining ships can be placed together and works out the exact probability of every tile.
+     * @param placements the places each remaining ship fits on its own
+     * @param hits the hits that have to be covered
+     * @param remainingShips the sizes of the remaining ships
+     * @return the probability of each tile, or <code>null</code> if the ships can't be placed at all (which only happens if the view isn't consistent with the fleet)
+     */
+    private double[] enumerate(List<List<long[]>> placements, long[] hits, List<Integer> remainingShips) {
+        int[] spareTiles = new int[remainingShips.size() + 1];
+        for (int i = remainingShips.size() - 1; i >= 0; i--) {
+            spareTiles[i] = spareTiles[i + 1] + remainingShips.get(i) - 1;
+        }
+        long deadline = System.nanoTime() + timeLimitNanos;
+        HashMap<Key, Count> memo = new HashMap<>();
+        long[] nodeCount = new long[1];
+        Count count = count(0, 0, 0, placements, hits, spareTiles, memo, deadline, nodeCount);
+        if (count.total == 0) {
+            return null;
+        }
+        double[] probabilities = new double[CELL_COUNT];
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            probabilities[cell] = isSet(hits, cell) ? 0 : count.cells[cell] / count.total;
+        }
+        return probabilities;
+    }
+
+    /**
+     * Counts the ways the ships from the passed in index on can be placed, given the tiles taken by the ships placed before them.
+     * Results are remembered until the memo is full.
+     * @param shipIndex the index of the next ship to place
+     * @param low the taken tiles among the first 64 tiles
+     * @param high the taken tiles among the rest of the tiles
+     * @param placements the places each remaining ship fits on its own
+     * @param hits the hits that have to be covered
+     * @param spareTiles for each ship index, how many hits the ships from that index on could still cover
+     * @param memo the remembered results
+     * @param deadline the time the enumeration has to stop at, from <code>System.nanoTime</code>
+     * @param nodeCount how many positions have been searched so far
+     * @return the result from this position
+     */
+    private Count count(int shipIndex, long low, long high, List<List<long[]>> placements, long[] hits, int[] spareTiles, HashMap<Key, Count> memo, long deadline, long[] nodeCount) {
+        int uncoveredHits = Long.bitCount(hits[0] & ~low) + Long.bitCount(hits[1] & ~high);
+        if (shipIndex == placements.size()) {
+            return uncoveredHits == 0 ? new Count(1, null) : new Count(0, null);
+        }
+        if (uncoveredHits > spareTiles[shipIndex]) {
+            return new Count(0, null);
+        }
+        if ((++nodeCount[0] & 4095) == 0 && System.nanoTime() > deadline) {
+            throw new TimeLimitException();
+        }
+        Key key = new Key(shipIndex, low, high);
+        Count remembered = memo.get(key);
+        if (remembered != null) {
+            return remembered;
+        }
+        double total = 0;
+        double[] cells = new double[CELL_COUNT];
+        for (long[] placement : placements.get(shipIndex)) {
+            if ((placement[2] & low) != 0 || (placement[3] & high) != 0) {
+                continue;
+            }
+            Count rest = count(shipIndex + 1, low | placement[0], high | placement[1], placements, hits, spareTiles, memo, deadline, nodeCount);
+            if (rest.total == 0) {
+                continue;
+            }
+            total += rest.total;
+            if (rest.cells != null) {
+                for (int cell = 0; cell < CELL_COUNT; cell++) {
+                    cells[cell] += rest.cells[cell];
+                }
+            }
+            addCells(cells, placement, rest.total);
+        }
+        Count count = new Count(total, cells);
+        if (memo.size() < memoLimit) {
+            memo.put(key, count);
+        }
+        return count;
+    }
+
+    /**
+     * Counts the places of the remaining ships with <code>PlacementKernel</code> when there are no hits to cover, which is most of the match.
+     * Without hits, the approximation is just the amount of places of every ship covering each tile, so there's no need to list the places one by one if the position is too large for the exact enumeration anyway.
+     * @param remainingShips the sizes of the remaining ships
+     * @param open the tiles that can hold a remaining ship
+     * @return the probability of each tile, scaled so the most likely tile is 1, or <code>null</code> if the exact enumeration should be tried
+     */
+    private double[] countWithoutHits(List<Integer> remainingShips, long[] open) {
+        long[] openRows = new long[Match.BOARD_SIZE];
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            if (isSet(open, cell)) {
+                openRows[cell / Match.BOARD_SIZE] |= 1L << cell % Match.BOARD_SIZE;
+            }
+        }
+        int[] shipSizes = new int[remainingShips.size()];
+        for (int i = 0; i < shipSizes.length; i++) {
+            shipSizes[i] = remainingShips.get(i);
+        }
+        int[] placementCounts = new int[shipSizes.length];
+        int[] counts = PlacementKernel.countPlacements(openRows, Match.BOARD_SIZE, Match.BOARD_SIZE, shipSizes, placementCounts);
+        double configurationCount = 1;
+        for (int placementCount : placementCounts) {
+            configurationCount *= placementCount;
+        }
+        if (!remainingShips.isEmpty() && configurationCount <= configurationLimit) {
+            return null;
+        }
+        lastConfigurationCount = configurationCount;
+        int maximum = 0;
+        for (int count : counts) {
+            maximum = Math.max(maximum, count);
+        }
+        double[] probabilities = new double[CELL_COUNT];
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            probabilities[cell] = maximum > 0 ? (double) counts[cell] / maximum : 0;
+        }
+        return probabilities;
+    }
+
+    /**
+     * Approximates the probability of every tile by counting the places each remaining ship fits on its own, ignoring the other ships.
+     * Places covering hits of ships that haven't been sunk are counted many times over, since a hit ship is much more likely to continue next to its hits.
+     * @param placements the places each remaining ship fits on its own
+     * @param hits the hits of ships that haven't been sunk
+     * @return the probability of each tile, scaled so the most likely tile is 1
+     */
+    private static double[] approximate(List<List<long[]>> placements, long[] hits) {
+        double[] weights = new double[CELL_COUNT];
+        for (List<long[]> shipPlacements : placements) {
+            for (long[] placement : shipPlacements) {
+                int coveredHits = Long.bitCount(placement[0] & hits[0]) + Long.bitCount(placement[1] & hits[1]);
+                addCells(weights, placement, Math.pow(HIT_WEIGHT, coveredHits));
+            }
+        }
+        double maximum = 0;
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            if (isSet(hits, cell)) {
+                weights[cell] = 0;
+            }
+            maximum = Math.max(maximum, weights[cell]);
+        }
+        if (maximum > 0) {
+            for (int cell = 0; cell < CELL_COUNT; cell++) {
+                weights[cell] /= maximum;
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * Adds a weight to every tile of a ship.
+     * @param cells the weights of the tiles, row by row
+     * @param placement the place of the ship
+     * @param weight the weight to add
+     */
+    private static void addCells(double[] cells, long[] placement, double weight) {
+        for (int half = 0; half < 2; half++) {
+            long bits = placement[half];
+            while (bits != 0) {
+                cells[half * 64 + Long.numberOfTrailingZeros(bits)] += weight;
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    /**
+     * Sets the bit of a tile in a bitmask of the board's tiles.
+     * @param mask the bitmask, split into the first 64 tiles and the rest
+     * @param cell the index of the tile, row by row
+     */
+    private static void setBit(long[] mask, int cell) {
+        mask[cell / 64] |= 1L << cell % 64;
+    }
+
+    /**
+     * Returns whether the bit of a tile is set in a bitmask of the board's tiles.
+     * @param mask the bitmask, split into the first 64 tiles and the rest
+     * @param cell the index of the tile, row by row
+     * @return whether the bit is set
+     */
+    private static boolean isSet(long[] mask, int cell) {
+        return (mask[cell / 64] & 1L << cell % 64) != 0;
+    }
+}
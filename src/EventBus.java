@@ -0,0 +1,51 @@
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Delivers the <code>MatchEvent</code>s published by the game engine to every subscribed <code>MatchListener</code>.
+ * The engine only publishes events and never calls the user interface directly, so <code>Match</code> doesn't depend on Swing and a match can be played without any window at all.
+ * Events are delivered right away, on the publishing thread, in the order the listeners subscribed. Listeners that update Swing components should only note what changed and leave the repainting to a <code>FrameScheduler</code>, so many events in a row still cost a single repaint.
+ */
+public class EventBus {
+    private final CopyOnWriteArrayList<MatchListener> listeners;
+
+    /**
+     * Constructs a new event bus without any listeners.
+     */
+    public EventBus() {
+        listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Adds a listener that receives every event published from now on.
+     * @param listener the listener
+     */
+    public void subscribe(MatchListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener, so it stops receiving events.
+     * @param listener the listener
+     */
+    public void unsubscribe(MatchListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns whether anyone is listening, so publishers can skip creating events nobody receives.
+     * @return whether at least one listener is subscribed
+     */
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    /**
+     * Delivers an event to every subscribed listener.
+     * @param event the event
+     */
+    public void publish(MatchEvent event) {
+        for (MatchListener listener : listeners) {
+            listener.matchChanged(event);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+import javax.swing.*;
+import java.util.LinkedHashSet;
+
+/**
+ * Runs user interface updates once per frame instead of once per change.
+ * A task scheduled several times before the next frame only runs once, so a burst of changes (for example every tile of a salvo, or every tile revealed around a sunk ship) is painted with a single update.
+ * All the methods of this class must be called from the Swing event dispatch thread, and the tasks run on it as well.
+ */
+public final class FrameScheduler {
+    public static final int FRAME_MILLIS = 16;
+
+    private static final LinkedHashSet<Runnable> pendingTasks = new LinkedHashSet<>();
+    private static Timer timer;
+
+    private FrameScheduler() {
+    }
+
+    /**
+     * Schedules a task to run at the start of the next frame.
+     * If the same task is already scheduled, nothing changes.
+     * @param task the task to run
+     */
+    public static void schedule(Runnable task) {
+        pendingTasks.add(task);
+        if (timer == null) {
+            timer = new Timer(FRAME_MILLIS, e -> runPendingTasks());
+            timer.setRepeats(false);
+        }
+        if (!timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    /**
+     * Runs every task scheduled for this frame.
+     * Tasks scheduled while the tasks are running are left for the next frame.
+     */
+    private static void runPendingTasks() {
+        Runnable[] tasks = pendingTasks.toArray(new Runnable[0]);
+        pendingTasks.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+}
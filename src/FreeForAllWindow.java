@@ -0,0 +1,266 @@
+import javax.swing.*;
+import javax.swing.border.LineBorder;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Random;
+
+/**
+ * A subclass of <code>JFrame</code> where 3 to 8 players play a free-for-all match on one computer, taking turns.
+ * Every player's fleet is placed at random. The first players are played by people, the rest of them by the AI.
+ * No matter how many players there are, this window only has two <code>GridPanel</code>s: one showing the current player's own board and one showing the opponent the current player has chosen as their target.
+ * Both of them show views worked out from the one board each player has in the <code>Match</code>, so nothing is kept for each pair of players.
+ */
+public class FreeForAllWindow extends JFrame implements ActionListener {
+    private static final String[] RESULTS = {"", "Miss.", "Hit!", "Hit and sunk!"};
+
+    private final Match match;
+    private final AIPlayer[] aiPlayers;
+    private final int[] aiTargets;
+    private final Random random;
+    private int currentPlayer;
+    private boolean canShoot;
+    private int[] targets;
+
+    private GridPanel ownGrid;
+    private GridPanel targetGrid;
+    private JLabel ownLabel;
+    private JComboBox<String> targetBox;
+    private JLabel statusLabel;
+    private JButton endTurnButton;
+    private JPanel gamePanel;
+    private JPanel readyScreenPanel;
+    private JLabel readyScreenLabel;
+    private JButton readyScreenButton;
+
+    /**
+     * Constructs a new free-for-all window, places every player's fleet and shows the ready screen of player 1.
+     * Note that it also sets this window as visible.
+     * @param playerCount the amount of players (3 to 8)
+     * @param humanCount how many of the players are played by people (at least 1), the rest are played by the AI
+     */
+    public FreeForAllWindow(int playerCount, int humanCount) {
+        random = new Random();
+        match = new Match(playerCount);
+        match.setAnalytics(HeatmapAnalytics.getGlobal());
+        aiPlayers = new AIPlayer[playerCount];
+        aiTargets = new int[playerCount];
+        for (int player = 1; player <= playerCount; player++) {
+            match.placeFleetRandomly(player, random);
+            if (player > humanCount) {
+                aiPlayers[player - 1] = new AIPlayer(random);
+            }
+        }
+
+        int windowX = 800;
+        int windowY = 540;
+        int gridSize = 300;
+
+        this.setDefaultCloseOperation(DO_NOTHING_ON_CLOSE);
+        this.setSize(new Dimension(windowX, windowY));
+        this.setResizable(false);
+        this.setLocationRelativeTo(null);
+        this.addWindowListener(new GameWindowAdapter(this));
+
+        ownLabel = new JLabel();
+        ownLabel.setFont(new Font("Helvetica", Font.BOLD, 16));
+        ownLabel.setBounds(50, 30, gridSize, 30);
+
+        ownGrid = new GridPanel(true, false);
+        ownGrid.setBounds(50, 80, gridSize, gridSize);
+
+        targetBox = new JComboBox<>();
+        targetBox.setBounds(windowX - 50 - gridSize, 30, gridSize, 30);
+        targetBox.addActionListener(this);
+
+        targetGrid = new GridPanel(false, true);
+        targetGrid.setBounds(windowX - 50 - gridSize, 80, gridSize, gridSize);
+        targetGrid.setShotHandler(this::shoot);
+
+        statusLabel = new JLabel();
+        statusLabel.setBounds(50, 400, windowX - 100, 30);
+
+        endTurnButton = new JButton("End turn");
+        endTurnButton.setBounds(50, 440, 200, 40);
+        endTurnButton.addActionListener(this);
+
+        gamePanel = new JPanel();
+        gamePanel.setLayout(null);
+        gamePanel.add(ownLabel);
+        gamePanel.add(ownGrid);
+        gamePanel.add(targetBox);
+        gamePanel.add(targetGrid);
+        gamePanel.add(statusLabel);
+        gamePanel.add(endTurnButton);
+
+        readyScreenLabel = new JLabel();
+        readyScreenLabel.setBounds(windowX / 2 - 100, 100, 200, 50);
+        readyScreenLabel.setBorder(new LineBorder(Color.BLACK, 5));
+        readyScreenLabel.setOpaque(true);
+        readyScreenLabel.setHorizontalAlignment(JLabel.CENTER);
+        readyScreenLabel.setFont(new Font("Helvetica", Font.BOLD, 20));
+
+        readyScreenButton = new JButton("Ready");
+        readyScreenButton.setBounds(windowX / 2 - 50, 400, 100, 20);
+        readyScreenButton.addActionListener(this);
+
+        readyScreenPanel = new JPanel();
+        readyScreenPanel.setLayout(null);
+        readyScreenPanel.add(readyScreenLabel);
+        readyScreenPanel.add(readyScreenButton);
+
+        currentPlayer = 1;
+        readyScreen();
+        this.setVisible(true);
+    }
+
+    /**
+     * Shows the ready screen informing the players whose turn it is, so the previous player doesn't see the next player's board.
+     */
+    private void readyScreen() {
+        readyScreenLabel.setText("Player " + currentPlayer + "'s turn");
+        this.remove(gamePanel);
+        this.add(readyScreenPanel);
+        this.setTitle("Battleships (Free-for-all, ready) - Player " + currentPlayer);
+        this.revalidate();
+        this.repaint();
+    }
+
+    /**
+     * Starts the current player's turn by showing their own board and the list of opponents they can shoot at.
+     */
+    private void startTurn() {
+        canShoot = true;
+        ownLabel.setText("Player " + currentPlayer + " (" + match.getShipsRemaining(currentPlayer) + " ships left)");
+        ownGrid.showBoard(match.getOwnView(currentPlayer));
+        ownGrid.setShips(match.getShips(currentPlayer));
+        refreshTargets();
+        statusLabel.setText("Choose an opponent and shoot at their board.");
+        endTurnButton.setEnabled(false);
+        this.remove(readyScreenPanel);
+        this.add(gamePanel);
+        this.setTitle("Battleships (Free-for-all, shooting) - Player " + currentPlayer);
+        this.revalidate();
+        this.repaint();
+    }
+
+    /**
+     * Fills the list of targets with every opponent of the current player that hasn't been eliminated yet and shows the board of the first one.
+     */
+    private void refreshTargets() {
+        int targetCount = 0;
+        targets = new int[match.getPlayerCount()];
+        for (int player = 1; player <= match.getPlayerCount(); player++) {
+            if (player != currentPlayer && !match.isEliminated(player)) {
+                targets[targetCount++] = player;
+            }
+        }
+        String[] targetNames = new String[targetCount];
+        for (int i = 0; i < targetCount; i++) {
+            targetNames[i] = "Player " + targets[i] + " (" + match.getShipsRemaining(targets[i]) + " ships left)";
+        }
+        targetBox.setModel(new DefaultComboBoxModel<>(targetNames));
+        showTarget();
+    }
+
+    /**
+     * Shows what everyone knows about the board of the opponent selected in the list of targets.
+     */
+    private void showTarget() {
+        if (targetBox.getSelectedIndex() >= 0) {
+            targetGrid.showBoard(match.getOpponentView(targets[targetBox.getSelectedIndex()]));
+        }
+    }
+
+    /**
+     * Shoots at a tile of the selected opponent's board, if the current player hasn't shot yet this turn.
+     * Shots at tiles that have already been shot or revealed are ignored.
+     * @param coordinates the coordinates of the tile that was clicked on
+     */
+    private void shoot(Coordinates coordinates) {
+        if (!canShoot || targetBox.getSelectedIndex() < 0) {
+            return;
+        }
+        int target = targets[targetBox.getSelectedIndex()];
+        int result = match.shoot(target, coordinates.getX(), coordinates.getY());
+        if (result == Match.INVALID) {
+            return;
+        }
+        canShoot = false;
+        targetGrid.showBoard(match.getOpponentView(target));
+        String status = RESULTS[result];
+        if (match.isEliminated(target)) {
+            status += " Player " + target + " has been eliminated!";
+        }
+        statusLabel.setText(status);
+        if (match.isOver()) {
+            victory();
+        } else {
+            endTurnButton.setEnabled(true);
+        }
+    }
+
+    /**
+     * Passes the turn to the next player who hasn't been eliminated.
+     * The AI players play their turns right away, until it's a person's turn again or the match is over.
+     */
+    private void endTurn() {
+        currentPlayer = match.getNextPlayer(currentPlayer);
+        GameEvents.recordTurnSwitch(currentPlayer, match.getShotCount());
+        while (!match.isOver() && aiPlayers[currentPlayer - 1] != null) {
+            AITurn();
+            currentPlayer = match.getNextPlayer(currentPlayer);
+            GameEvents.recordTurnSwitch(currentPlayer, match.getShotCount());
+        }
+        if (match.isOver()) {
+            victory();
+        } else {
+            readyScreen();
+        }
+    }
+
+    /**
+     * Plays the current AI player's turn.
+     * The AI keeps shooting at the same opponent until that opponent is eliminated, and then picks a new one at random.
+     */
+    private void AITurn() {
+        int target = aiTargets[currentPlayer - 1];
+        if (target == 0 || match.isEliminated(target)) {
+            do {
+                target = random.nextInt(match.getPlayerCount()) + 1;
+            } while (target == currentPlayer || match.isEliminated(target));
+            aiTargets[currentPlayer - 1] = target;
+        }
+        aiPlayers[currentPlayer - 1].takeTurn(match, target);
+    }
+
+    /**
+     * Starts saving the heatmap in the background (see <code>ResultSaver</code>) and displays a <code>JOptionPane</code> letting the players know who won.
+     * It also disposes of this window and creates a new instance of the <code>MenuWindow</code> class.
+     */
+    private void victory() {
+        ResultSaver.saveHeatmap();
+        int winner = match.getWinner();
+        JOptionPane.showMessageDialog(null, "Player " + winner + (aiPlayers[winner - 1] != null ? " (AI)" : "") + " won!", "Results", JOptionPane.PLAIN_MESSAGE);
+        this.dispose();
+        new MenuWindow();
+    }
+
+    /**
+     * Handles the button presses and the selection of a target.
+     * The "Ready" button on the ready screen starts the player's turn.
+     * Selecting an opponent in the list of targets shows that opponent's board.
+     * The "End turn" button ends the player's turn and lets the next player play.
+     * @param e the event to be processed
+     */
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (e.getSource() == readyScreenButton) {
+            startTurn();
+        } else if (e.getSource() == targetBox) {
+            showTarget();
+        } else if (e.getSource() == endTurnButton) {
+            endTurn();
+        }
+    }
+}
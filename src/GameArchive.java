@@ -0,0 +1,572 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encodes <code>ArchivedGame</code>s into as few bits as possible, for the archive files written by <code>GameArchiveWriter</code> and read by <code>GameArchiveReader</code>.
+ * A fleet is stored as one number, its rank: every ship of <code>Match.FLEET</code> is given the index of its location among all the locations a ship of its size can have on the board, and these indexes are the digits of a mixed radix number.
+ * Ships of the same size are ordered by their index first, so a fleet always has the same rank, no matter in which order its ships were placed.
+ * A shot is stored as its index among the tiles that player hasn't shot yet, in a truncated binary code: the fewer tiles are left, the fewer bits a shot takes.
+ */
+public final class GameArchive {
+    static final int MAGIC = 0x42534741;
+    static final int INDEX_MAGIC = 0x42534149;
+    static final int VERSION = 1;
+    static final int GAMES_PER_BLOCK = 4096;
+    static final int HEADER_SIZE = 8;
+    static final int TRAILER_SIZE = 12;
+
+    private static final int CELL_COUNT = Match.BOARD_SIZE * Match.BOARD_SIZE;
+    private static final int SHOT_COUNT_BITS = 32 - Integer.numberOfLeadingZeros(CELL_COUNT);
+    private static final int[] FLEET_SIZES = sortedFleet();
+    private static final int FLEET_RANK_BITS = fleetRankBits();
+
+    /**
+     * This class only has static methods.
+     */
+    private GameArchive() {
+    }
+
+    /**
+     * Gets the sizes of the ships of <code>Match.FLEET</code> from the largest to the smallest, which is the order of the digits of a fleet's rank.
+     * @return the sizes
+     */
+    private static int[] sortedFleet() {
+        int[] sizes = Match.FLEET.clone();
+        Arrays.sort(sizes);
+        for (int i = 0; i < sizes.length / 2; i++) {
+            int size = sizes[i];
+            sizes[i] = sizes[sizes.length - 1 - i];
+            sizes[sizes.length - 1 - i] = size;
+        }
+        return sizes;
+    }
+
+    /**
+     * Works out how many bits the rank of a fleet takes.
+     * @return the amount of bits
+     */
+    private static int fleetRankBits() {
+        long count = 1;
+        for (int size : FLEET_SIZES) {
+            count = Math.multiplyExact(count, locationCount(size));
+        }
+        return 64 - Long.numberOfLeadingZeros(count - 1);
+    }
+
+    /**
+     * Gets how many locations a ship of the passed in size can have on an empty board.
+     * @param size the size of the ship
+     * @return the amount of locations
+     */
+    private static int locationCount(int size) {
+        int positions = Match.BOARD_SIZE * (Match.BOARD_SIZE - size + 1);
+        return size == 1 ? positions : positions * 2;
+    }
+
+    /**
+     * Gets the index of a ship's location among all the locations a ship of its size can have.
+     * Vertical locations come first, ordered by column and then by the top tile, then horizontal locations, ordered by row and then by the leftmost tile.
+     * @param ship the ship
+     * @return the index
+     * @throws IllegalArgumentException if the ship isn't a straight line of tiles on the board
+     */
+    private static int locationIndex(Ship ship) {
+        List<Coordinates> tiles = ship.getTiles();
+        int minX = Match.BOARD_SIZE;
+        int minY = Match.BOARD_SIZE;
+        int maxX = -1;
+        int maxY = -1;
+        for (Coordinates coordinates : tiles) {
+            minX = Math.min(minX, coordinates.getX());
+            minY = Math.min(minY, coordinates.getY());
+            maxX = Math.max(maxX, coordinates.getX());
+            maxY = Math.max(maxY, coordinates.getY());
+        }
+        int size = tiles.size();
+        int positions = Match.BOARD_SIZE - size + 1;
+        if (minX < 0 || minY < 0 || maxX >= Match.BOARD_SIZE || maxY >= Match.BOARD_SIZE) {
+            throw new IllegalArgumentException("The ship isn't on the board");
+        }
+        if (minX == maxX && maxY - minY == size - 1) {
+            return minX * positions + minY;
+        }
+        if (minY == maxY && maxX - minX == size - 1) {
+            return Match.BOARD_SIZE * positions + minY * positions + minX;
+        }
+        throw new IllegalArgumentException("The ship isn't a straight line of tiles");
+    }
+
+    /**
+     * Creates the ship of the passed in size at the location with the passed in index, the same way <code>Match.placeShip</code> does.
+     * @param size the size of the ship
+     * @param index the index of the location, as returned by <code>locationIndex</code>
+     * @return the ship
+     */
+    private static Ship shipAt(int size, int index) {
+        int positions = Match.BOARD_SIZE - size + 1;
+        int rotation = index < Match.BOARD_SIZE * positions ? 1 : 2;
+        index %= Match.BOARD_SIZE * positions;
+        ArrayList<Coordinates> tiles = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (rotation == 1) {
+                tiles.add(new Coordinates(index / positions, index % positions + size - 1 - i));
+            } else {
+                tiles.add(new Coordinates(index % positions + i, index / positions));
+            }
+        }
+        Ship ship = new Ship(tiles);
+        ship.setRotation(rotation);
+        return ship;
+    }
+
+    /**
+     * Works out the rank of a fleet.
+     * @param fleet the ships of the fleet, which must have the sizes of <code>Match.FLEET</code>
+     * @return the rank, between 0 and 2 to the power of <code>getFleetRankBits</code>
+     * @throws IllegalArgumentException if the fleet doesn't have the sizes of <code>Match.FLEET</code> or a ship isn't on the board
+     */
+    public static long rankFleet(List<Ship> fleet) {
+        if (fleet.size() != FLEET_SIZES.length) {
+            throw new IllegalArgumentException("The fleet has " + fleet.size() + " ships instead of " + FLEET_SIZES.length);
+        }
+        long[] digits = new long[fleet.size()];
+        for (int i = 0; i < fleet.size(); i++) {
+            // The size in the upper bits sorts the ships by size before their location.
+            digits[i] = (long) (Match.BOARD_SIZE - fleet.get(i).getTiles().size()) << 32 | locationIndex(fleet.get(i));
+        }
+        Arrays.sort(digits);
+        long rank = 0;
+        for (int i = 0; i < digits.length; i++) {
+            if (Match.BOARD_SIZE - (int) (digits[i] >>> 32) != FLEET_SIZES[i]) {
+                throw new IllegalArgumentException("The fleet doesn't have the sizes of Match.FLEET");
+            }
+            rank = rank * locationCount(FLEET_SIZES[i]) + (int) digits[i];
+        }
+        return rank;
+    }
+
+    /**
+     * Creates the fleet with the passed in rank.
+     * @param rank the rank, as returned by <code>rankFleet</code>
+     * @return the ships of the fleet, from the largest to the smallest
+     */
+    public static List<Ship> unrankFleet(long rank) {
+        Ship[] ships = new Ship[FLEET_SIZES.length];
+        for (int i = FLEET_SIZES.length - 1; i >= 0; i--) {
+            int count = locationCount(FLEET_SIZES[i]);
+            ships[i] = shipAt(FLEET_SIZES[i], (int) (rank % count));
+            rank /= count;
+        }
+        return new ArrayList<>(Arrays.asList(ships));
+    }
+
+    /**
+     * Gets how many bits the rank of a fleet takes in an archive.
+     * @return the amount of bits
+     */
+    public static int getFleetRankBits() {
+        return FLEET_RANK_BITS;
+    }
+
+    /**
+     * Writes a game.
+     * @param game the game
+     * @param out the bits to write to
+     * @throws IllegalArgumentException if a fleet can't be ranked, or a player shot a tile that isn't on the board or shot a tile twice, in which case nothing is written
+     */
+    static void writeGame(ArchivedGame game, BitWriter out) {
+        long rank1 = rankFleet(game.getFleet(1));
+        long rank2 = rankFleet(game.getFleet(2));
+        checkShots(game.getShots(1));
+        checkShots(game.getShots(2));
+        out.write(rank1, FLEET_RANK_BITS);
+        out.write(rank2, FLEET_RANK_BITS);
+        writeShots(game.getShots(1), out);
+        writeShots(game.getShots(2), out);
+    }
+
+    /**
+     * Reads a game written by <code>writeGame</code>.
+     * @param in the bits to read from
+     * @return the game
+     */
+    static ArchivedGame readGame(BitReader in) {
+        List<Ship> fleet1 = unrankFleet(in.read(FLEET_RANK_BITS));
+        List<Ship> fleet2 = unrankFleet(in.read(FLEET_RANK_BITS));
+        return new ArchivedGame(fleet1, fleet2, readShots(in), readShots(in));
+    }
+
+    /**
+     * Checks that every shot of a player is on the board and that no tile was shot twice, so nothing is written for a game that can't be archived.
+     * @param shots the tiles the player shot
+     * @throws IllegalArgumentException if a shot isn't on the board or a tile was shot twice
+     */
+    private static void checkShots(List<Coordinates> shots) {
+        boolean[] shot = new boolean[CELL_COUNT];
+        for (Coordinates coordinates : shots) {
+            if (coordinates.getX() < 0 || coordinates.getY() < 0 || coordinates.getX() >= Match.BOARD_SIZE || coordinates.getY() >= Match.BOARD_SIZE) {
+                throw new IllegalArgumentException("The shot isn't on the board");
+            }
+            int cell = coordinates.getY() * Match.BOARD_SIZE + coordinates.getX();
+            if (shot[cell]) {
+                throw new IllegalArgumentException("The same tile was shot twice");
+            }
+            shot[cell] = true;
+        }
+    }
+
+    /**
+     * Writes the shots of one player, which have been checked by <code>checkShots</code>.
+     * The tiles that have been shot are kept as a 100 bit mask, so the index of a tile among the tiles that haven't been shot is just a count of the bits below it.
+     * @param shots the tiles the player shot, in order
+     * @param out the bits to write to
+     */
+    private static void writeShots(List<Coordinates> shots, BitWriter out) {
+        out.write(shots.size(), SHOT_COUNT_BITS);
+        long shotLow = 0;
+        long shotHigh = 0;
+        for (int i = 0; i < shots.size(); i++) {
+            Coordinates shot = shots.get(i);
+            int cell = shot.getY() * Match.BOARD_SIZE + shot.getX();
+            long low = cell < 64 ? 1L << cell : 0;
+            long high = cell < 64 ? 0 : 1L << (cell - 64);
+            int index = cell - (cell < 64 ? Long.bitCount(shotLow & (low - 1)) : Long.bitCount(shotLow) + Long.bitCount(shotHigh & (high - 1)));
+            writeTruncated(index, CELL_COUNT - i, out);
+            shotLow |= low;
+            shotHigh |= high;
+        }
+    }
+
+    /**
+     * Reads the shots of one player written by <code>writeShots</code>.
+     * @param in the bits to read from
+     * @return the tiles the player shot, in order
+     */
+    private static List<Coordinates> readShots(BitReader in) {
+        int count = (int) in.read(SHOT_COUNT_BITS);
+        ArrayList<Coordinates> shots = new ArrayList<>(count);
+        long shotLow = 0;
+        long shotHigh = 0;
+        for (int i = 0; i < count; i++) {
+            int index = readTruncated(CELL_COUNT - i, in);
+            // Walks to the index-th tile that hasn't been shot, counting whole words of shot tiles at once.
+            int unshotLow = 64 - Long.bitCount(shotLow);
+            int cell;
+            if (index < unshotLow) {
+                cell = selectBit(~shotLow, index);
+                shotLow |= 1L << cell;
+            } else {
+                cell = 64 + selectBit(~shotHigh, index - unshotLow);
+                shotHigh |= 1L << (cell - 64);
+            }
+            shots.add(new Coordinates(cell % Match.BOARD_SIZE, cell / Match.BOARD_SIZE));
+        }
+        return shots;
+    }
+
+    /**
+     * Finds the position of a set bit.
+     * @param bits the bits
+     * @param index which of the set bits to find, counting from the lowest one
+     * @return the position of the set bit
+     */
+    private static int selectBit(long bits, int index) {
+        for (int i = 0; i < index; i++) {
+            bits &= bits - 1;
+        }
+        return Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Writes a number between 0 and <code>count</code> in a truncated binary code, which uses one bit less for the smallest numbers when <code>count</code> isn't a power of 2.
+     * @param value the number
+     * @param count the amount of numbers that could have been written
+     * @param out the bits to write to
+     */
+    private static void writeTruncated(int value, int count, BitWriter out) {
+        int bits = 31 - Integer.numberOfLeadingZeros(count);
+        int shortCodes = (1 << (bits + 1)) - count;
+        if (value < shortCodes) {
+            out.write(value, bits);
+        } else {
+            out.write(value + shortCodes, bits + 1);
+        }
+    }
+
+    /**
+     * Reads a number written by <code>writeTruncated</code>.
+     * @param count the amount of numbers that could have been written
+     * @param in the bits to read from
+     * @return the number
+     */
+    private static int readTruncated(int count, BitReader in) {
+        int bits = 31 - Integer.numberOfLeadingZeros(count);
+        int shortCodes = (1 << (bits + 1)) - count;
+        int value = (int) in.read(bits);
+        if (value < shortCodes) {
+            return value;
+        }
+        return (int) ((value << 1 | in.read(1)) - shortCodes);
+    }
+
+    /**
+     * Collects bits into a growing array of bytes, starting with the highest bit of every byte.
+     */
+    static final class BitWriter {
+        private byte[] bytes = new byte[1024];
+        private int length;
+        private long buffer;
+        private int bufferedBits;
+
+        /**
+         * Writes the lowest bits of a number, starting with the highest of them.
+         * @param value the number
+         * @param bits how many of its bits to write (at most 57)
+         */
+        void write(long value, int bits) {
+            buffer = buffer << bits | value & ((1L << bits) - 1);
+            bufferedBits += bits;
+            while (bufferedBits >= 8) {
+                bufferedBits -= 8;
+                if (length == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, length * 2);
+                }
+                bytes[length++] = (byte) (buffer >>> bufferedBits);
+            }
+        }
+
+        /**
+         * Gets the bytes written so far, padding the last byte with 0 bits.
+         * @return the amount of bytes in the array returned by <code>getBytes</code>
+         */
+        int finish() {
+            if (bufferedBits > 0) {
+                write(0, 8 - bufferedBits);
+            }
+            return length;
+        }
+
+        /**
+         * Gets the array holding the written bytes, which may be longer than the amount of bytes written.
+         * @return the array
+         */
+        byte[] getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Forgets all the written bits, keeping the array.
+         */
+        void reset() {
+            length = 0;
+            buffer = 0;
+            bufferedBits = 0;
+        }
+    }
+
+    /**
+     * Reads bits from an array of bytes written by a <code>BitWriter</code>.
+     */
+    static final class BitReader {
+        private final byte[] bytes;
+        private int position;
+        private long buffer;
+        private int bufferedBits;
+
+        /**
+         * Constructs a new reader starting at the first bit of the array.
+         * @param bytes the array
+         */
+        BitReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * Reads a number.
+         * @param bits how many bits the number has (at most 57)
+         * @return the number
+         */
+        long read(int bits) {
+            while (bufferedBits < bits) {
+                buffer = buffer << 8 | (position < bytes.length ? bytes[position++] & 0xFF : 0);
+                bufferedBits += 8;
+            }
+            bufferedBits -= bits;
+            return buffer >>> bufferedBits & ((1L << bits) - 1);
+        }
+    }
+
+    /**
+     * Finds the blocks of an archive file and checks its header, writing the header if the file is empty.
+     * The index at the end of the file is used if the file was closed properly. Otherwise (for example if the program crashed while writing), the blocks are found by reading the header of each block, and a block that was only partly written is left out.
+     * @param file the archive file
+     * @return the blocks
+     * @throws IOException if the file can't be read or isn't an archive
+     */
+    static BlockIndex readIndex(RandomAccessFile file) throws IOException {
+        BlockIndex index = new BlockIndex();
+        long length = file.length();
+        if (length == 0) {
+            file.seek(0);
+            file.writeInt(MAGIC);
+            file.writeInt(VERSION);
+            index.end = HEADER_SIZE;
+            return index;
+        }
+        file.seek(0);
+        if (length < HEADER_SIZE || file.readInt() != MAGIC) {
+            throw new IOException("Not a game archive");
+        }
+        if (file.readInt() != VERSION) {
+            throw new IOException("Unsupported game archive version");
+        }
+        if (length >= HEADER_SIZE + TRAILER_SIZE) {
+            file.seek(length - TRAILER_SIZE);
+            long indexOffset = file.readLong();
+            if (file.readInt() == INDEX_MAGIC && indexOffset >= HEADER_SIZE && indexOffset <= length - TRAILER_SIZE - 4) {
+                file.seek(indexOffset);
+                int blockCount = file.readInt();
+                if (indexOffset + 4 + blockCount * 12L == length - TRAILER_SIZE) {
+                    for (int i = 0; i < blockCount; i++) {
+                        index.add(file.readLong(), file.readInt());
+                    }
+                    index.end = indexOffset;
+                    return index;
+                }
+            }
+        }
+        long position = HEADER_SIZE;
+        while (position + 12 <= length) {
+            file.seek(position);
+            int gameCount = file.readInt();
+            file.readInt();
+            int compressedLength = file.readInt();
+            if (gameCount <= 0 || compressedLength < 0 || position + 12 + compressedLength > length) {
+                break;
+            }
+            index.add(position, gameCount);
+            position += 12 + compressedLength;
+        }
+        index.end = position;
+        return index;
+    }
+
+    /**
+     * Writes the index of the blocks at the end of an archive file, followed by the location of the index.
+     * @param file the archive file, positioned after the last block
+     * @param index the blocks
+     * @throws IOException if the index can't be written
+     */
+    static void writeIndex(RandomAccessFile file, BlockIndex index) throws IOException {
+        long indexOffset = file.getFilePointer();
+        byte[] bytes = new byte[4 + index.blockCount * 12 + TRAILER_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.putInt(index.blockCount);
+        for (int i = 0; i < index.blockCount; i++) {
+            buffer.putLong(index.offsets[i]);
+            buffer.putInt((int) (index.firstGames[i + 1] - index.firstGames[i]));
+        }
+        buffer.putLong(indexOffset);
+        buffer.putInt(INDEX_MAGIC);
+        file.write(bytes);
+        file.setLength(file.getFilePointer());
+    }
+
+    /**
+     * Where every block of an archive file starts and which games it holds.
+     */
+    static final class BlockIndex {
+        private long[] offsets = new long[16];
+        private long[] firstGames = new long[17];
+        private int blockCount;
+        private long end;
+
+        /**
+         * Adds a block after the last block.
+         * @param offset where the block starts in the file
+         * @param gameCount how many games the block holds
+         */
+        void add(long offset, int gameCount) {
+            if (blockCount == offsets.length) {
+                offsets = Arrays.copyOf(offsets, blockCount * 2);
+                firstGames = Arrays.copyOf(firstGames, blockCount * 2 + 1);
+            }
+            offsets[blockCount] = offset;
+            firstGames[blockCount + 1] = firstGames[blockCount] + gameCount;
+            blockCount++;
+        }
+
+        /**
+         * Gets how many blocks there are.
+         * @return the amount of blocks
+         */
+        int getBlockCount() {
+            return blockCount;
+        }
+
+        /**
+         * Gets where a block starts in the file.
+         * @param block the number of the block
+         * @return the offset
+         */
+        long getOffset(int block) {
+            return offsets[block];
+        }
+
+        /**
+         * Gets the number of the first game of a block.
+         * @param block the number of the block, or the amount of blocks for the amount of games
+         * @return the number of the game
+         */
+        long getFirstGame(int block) {
+            return firstGames[block];
+        }
+
+        /**
+         * Gets how many games all the blocks hold.
+         * @return the amount of games
+         */
+        long getGameCount() {
+            return firstGames[blockCount];
+        }
+
+        /**
+         * Gets where the last block ends, which is where the next block is written.
+         * @return the offset
+         */
+        long getEnd() {
+            return end;
+        }
+
+        /**
+         * Sets where the last block ends.
+         * @param end the offset
+         */
+        void setEnd(long end) {
+            this.end = end;
+        }
+
+        /**
+         * Finds the block holding a game with a binary search.
+         * @param game the number of the game
+         * @return the number of the block
+         */
+        int findBlock(long game) {
+            int low = 0;
+            int high = blockCount - 1;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (firstGames[middle] <= game) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return low;
+        }
+    }
+}
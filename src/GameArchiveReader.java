@@ -0,0 +1,145 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the games of an archive file written by <code>GameArchiveWriter</code>.
+ * Only the index of the blocks is kept in memory. The games are decoded while they're iterated over, one block at a time, so an archive of any size can be read.
+ * The index also lets a reader start at any game by decompressing just the block holding it.
+ */
+public class GameArchiveReader implements Iterable<ArchivedGame>, Closeable {
+    private final RandomAccessFile file;
+    private final GameArchive.BlockIndex index;
+
+    /**
+     * Opens an archive file for reading.
+     * @param file the archive file
+     * @throws IOException if the file can't be opened or isn't an archive
+     */
+    public GameArchiveReader(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        try {
+            if (this.file.length() == 0) {
+                throw new IOException("Not a game archive");
+            }
+            index = GameArchive.readIndex(this.file);
+        } catch (IOException e) {
+            this.file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets how many games the archive holds.
+     * @return the amount of games
+     */
+    public long getGameCount() {
+        return index.getGameCount();
+    }
+
+    /**
+     * Reads one game.
+     * @param game the number of the game, starting at 0
+     * @return the game
+     * @throws IOException if the block holding the game can't be read
+     */
+    public ArchivedGame read(long game) throws IOException {
+        if (game < 0 || game >= getGameCount()) {
+            throw new IndexOutOfBoundsException("Game " + game + " of " + getGameCount());
+        }
+        int block = index.findBlock(game);
+        GameArchive.BitReader in = new GameArchive.BitReader(readBlock(block));
+        for (long i = index.getFirstGame(block); i < game; i++) {
+            GameArchive.readGame(in);
+        }
+        return GameArchive.readGame(in);
+    }
+
+    /**
+     * Iterates over all the games, in the order they were appended.
+     * @return the iterator, which throws an <code>UncheckedIOException</code> if a block can't be read
+     */
+    @Override
+    public Iterator<ArchivedGame> iterator() {
+        return iterator(0);
+    }
+
+    /**
+     * Iterates over the games, starting at the passed in game.
+     * @param firstGame the number of the first game
+     * @return the iterator, which throws an <code>UncheckedIOException</code> if a block can't be read
+     */
+    public Iterator<ArchivedGame> iterator(long firstGame) {
+        return new Iterator<>() {
+            private long game = Math.max(firstGame, 0);
+            private int block = -1;
+            private GameArchive.BitReader in;
+
+            @Override
+            public boolean hasNext() {
+                return game < getGameCount();
+            }
+
+            @Override
+            public ArchivedGame next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (block < 0 || game == index.getFirstGame(block + 1)) {
+                    block = index.findBlock(game);
+                    try {
+                        in = new GameArchive.BitReader(readBlock(block));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    for (long i = index.getFirstGame(block); i < game; i++) {
+                        GameArchive.readGame(in);
+                    }
+                }
+                game++;
+                return GameArchive.readGame(in);
+            }
+        };
+    }
+
+    /**
+     * Reads and decompresses a block.
+     * @param block the number of the block
+     * @return the bits of the block's games
+     * @throws IOException if the block can't be read or is damaged
+     */
+    private synchronized byte[] readBlock(int block) throws IOException {
+        file.seek(index.getOffset(block));
+        file.readInt();
+        byte[] bytes = new byte[file.readInt()];
+        byte[] compressed = new byte[file.readInt()];
+        file.readFully(compressed);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            if (inflater.inflate(bytes) != bytes.length) {
+                throw new IOException("Damaged block " + block);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Damaged block " + block, e);
+        } finally {
+            inflater.end();
+        }
+        return bytes;
+    }
+
+    /**
+     * Closes the file.
+     * @throws IOException if the file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
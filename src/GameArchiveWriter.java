@@ -0,0 +1,114 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Appends <code>ArchivedGame</code>s to an archive file, encoded by <code>GameArchive</code>.
+ * The games are collected into blocks of up to <code>GameArchive.GAMES_PER_BLOCK</code> games, and every block is compressed on its own, so a reader only ever has to decompress the block holding the games it wants.
+ * When the writer is closed, an index of the blocks is written at the end of the file. Opening an existing archive removes the index again and carries on after the last block.
+ * Games can be appended from several threads at once.
+ */
+public class GameArchiveWriter implements Closeable {
+    private final RandomAccessFile file;
+    private final GameArchive.BlockIndex index;
+    private final GameArchive.BitWriter block;
+    private final Deflater deflater;
+    private byte[] compressed;
+    private int blockGameCount;
+
+    /**
+     * Opens an archive file for appending, creating it if it doesn't exist yet.
+     * @param file the archive file
+     * @throws IOException if the file can't be opened or isn't an archive
+     */
+    public GameArchiveWriter(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "rw");
+        try {
+            index = GameArchive.readIndex(this.file);
+        } catch (IOException e) {
+            this.file.close();
+            throw e;
+        }
+        this.file.setLength(index.getEnd());
+        this.file.seek(index.getEnd());
+        block = new GameArchive.BitWriter();
+        deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        compressed = new byte[1024];
+    }
+
+    /**
+     * Appends a game to the archive.
+     * @param game the game
+     * @throws IOException if the block the game completed can't be written
+     * @throws IllegalArgumentException if a fleet of the game doesn't have the ships of <code>Match.FLEET</code>, or a player shot a tile twice
+     */
+    public synchronized void append(ArchivedGame game) throws IOException {
+        GameArchive.writeGame(game, block);
+        blockGameCount++;
+        if (blockGameCount == GameArchive.GAMES_PER_BLOCK) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Gets how many games the archive holds, including the ones that haven't been written to the file yet.
+     * @return the amount of games
+     */
+    public synchronized long getGameCount() {
+        return index.getGameCount() + blockGameCount;
+    }
+
+    /**
+     * Writes the games that haven't been written yet to the file as a smaller block, so they aren't lost if the program stops.
+     * @throws IOException if the block can't be written
+     */
+    public synchronized void flush() throws IOException {
+        if (blockGameCount > 0) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Compresses the current block and writes it to the file, preceded by the amount of its games, its size and its compressed size.
+     * @throws IOException if the block can't be written
+     */
+    private void writeBlock() throws IOException {
+        int length = block.finish();
+        deflater.reset();
+        deflater.setInput(block.getBytes(), 0, length);
+        deflater.finish();
+        int compressedLength = 12;
+        while (!deflater.finished()) {
+            if (compressedLength == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+        ByteBuffer.wrap(compressed).putInt(blockGameCount).putInt(length).putInt(compressedLength - 12);
+        long offset = index.getEnd();
+        file.write(compressed, 0, compressedLength);
+        index.add(offset, blockGameCount);
+        index.setEnd(offset + compressedLength);
+        block.reset();
+        blockGameCount = 0;
+    }
+
+    /**
+     * Writes the remaining games and the index of the blocks, and closes the file.
+     * @throws IOException if the file can't be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+            GameArchive.writeIndex(file, index);
+        } finally {
+            deflater.end();
+            file.close();
+        }
+    }
+}
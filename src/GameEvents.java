@@ -0,0 +1,286 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The Java Flight Recorder events of the game, so a recording shows what the game was doing next to the JVM's own events.
+ * None of the events record a stack trace, since that's what would make them expensive, and only the AI decisions that took at least a millisecond are recorded by default, so the events can stay enabled all the time.
+ * Loading an event class makes the JVM prepare it for recording, which is slow enough to delay the start of the game, so no event is created until a flight recorder has been started.
+ * Every event is only filled in and committed if it's enabled, for example by the <code>battleships.jfc</code> settings:
+ * <pre>
+ * java -XX:StartFlightRecording:settings=battleships.jfc,filename=battleships.jfr -cp out Main
+ * </pre>
+ */
+public final class GameEvents {
+    private static final String CATEGORY = "Battleships";
+
+    /**
+     * This class only holds the event classes.
+     */
+    private GameEvents() {
+    }
+
+    /**
+     * Recorded when every player of a match has placed their fleet and the shooting starts.
+     */
+    @Name("battleships.MatchStart")
+    @Label("Match Start")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class MatchStart extends Event {
+        @Label("Players")
+        int playerCount;
+    }
+
+    /**
+     * Recorded when a match is won. The duration of the event is the time from the start of the shooting to the winning shot.
+     */
+    @Name("battleships.MatchEnd")
+    @Label("Match End")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class MatchEnd extends Event {
+        @Label("Players")
+        int playerCount;
+
+        @Label("Winner")
+        int winner;
+
+        @Label("Shots")
+        int shotCount;
+    }
+
+    /**
+     * Recorded when a player has placed their whole fleet.
+     */
+    @Name("battleships.PlacementConfirmed")
+    @Label("Placement Confirmed")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class PlacementConfirmed extends Event {
+        @Label("Player")
+        int player;
+
+        @Label("Ships")
+        int shipCount;
+    }
+
+    /**
+     * Recorded for every valid shot, including every shot of a salvo.
+     */
+    @Name("battleships.Shot")
+    @Label("Shot")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class Shot extends Event {
+        @Label("Target")
+        @Description("The player whose board was shot")
+        int target;
+
+        @Label("X")
+        int x;
+
+        @Label("Y")
+        int y;
+
+        @Label("Result")
+        @Description("1 = miss, 2 = hit, 3 = sunk")
+        int result;
+
+        @Label("Sunk")
+        boolean sunk;
+    }
+
+    /**
+     * Recorded for every move an AI chose. The duration of the event is how long choosing the move took.
+     */
+    @Name("battleships.AIDecision")
+    @Label("AI Decision")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    @Threshold("1 ms")
+    public static final class AIDecision extends Event {
+        @Label("Strategy")
+        String strategy;
+
+        @Label("Candidates")
+        @Description("How many undiscovered tiles the AI could choose from")
+        int candidateCount;
+
+        @Label("Shots")
+        int shotCount;
+
+        @Label("Default Move")
+        @Description("Whether the AI didn't choose in time or failed, so a random move was played for it")
+        boolean defaultMove;
+    }
+
+    /**
+     * Recorded when the turn passes to the next player, in the game windows, the console and bot games and the matches the <code>StrategyHarness</code> plays on a <code>Match</code>.
+     * Matches played on a <code>HeadlessGame</code> don't record any events, since they must not allocate memory.
+     */
+    @Name("battleships.TurnSwitch")
+    @Label("Turn Switch")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class TurnSwitch extends Event {
+        @Label("Player")
+        @Description("The player whose turn it is now")
+        int player;
+
+        @Label("Shots")
+        @Description("How many shots have been fired in the match so far")
+        int shotCount;
+    }
+
+    /**
+     * Records that a player has placed their whole fleet.
+     * @param player the player (from 1 to the player count)
+     * @param shipCount the amount of ships in the fleet
+     */
+    static void recordPlacementConfirmed(int player, int shipCount) {
+        if (!FlightRecorder.isInitialized()) {
+            return;
+        }
+        PlacementConfirmed event = new PlacementConfirmed();
+        if (event.isEnabled()) {
+            event.player = player;
+            event.shipCount = shipCount;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records that the shooting of a match has started.
+     * @param playerCount the amount of players
+     * @return the event recording the end of the match, which has already begun, or <code>null</code> if the end of the match isn't recorded
+     */
+    static MatchEnd recordMatchStart(int playerCount) {
+        if (!FlightRecorder.isInitialized()) {
+            return null;
+        }
+        MatchStart event = new MatchStart();
+        if (event.isEnabled()) {
+            event.playerCount = playerCount;
+            event.commit();
+        }
+        MatchEnd matchEnd = new MatchEnd();
+        if (!matchEnd.isEnabled()) {
+            return null;
+        }
+        matchEnd.playerCount = playerCount;
+        matchEnd.begin();
+        return matchEnd;
+    }
+
+    /**
+     * Records that a match has been won.
+     * @param matchEnd the event returned by <code>recordMatchStart</code>, or <code>null</code>
+     * @param winner the winner
+     * @param shotCount how many shots were fired in the match
+     */
+    static void recordMatchEnd(MatchEnd matchEnd, int winner, int shotCount) {
+        if (matchEnd != null) {
+            matchEnd.end();
+            matchEnd.winner = winner;
+            matchEnd.shotCount = shotCount;
+            matchEnd.commit();
+        }
+    }
+
+    /**
+     * Records a valid shot.
+     * @param target the player whose board was shot
+     * @param x the location of the tile on the X axis
+     * @param y the location of the tile on the Y axis
+     * @param result <code>Match.MISS</code>, <code>Match.HIT</code> or <code>Match.SUNK</code>
+     */
+    static void recordShot(int target, int x, int y, int result) {
+        if (!FlightRecorder.isInitialized()) {
+            return;
+        }
+        Shot event = new Shot();
+        if (event.isEnabled()) {
+            event.target = target;
+            event.x = x;
+            event.y = y;
+            event.result = result;
+            event.sunk = result == Match.SUNK;
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts timing an AI's move.
+     * @return the event, which has already begun, or <code>null</code> if there is no flight recorder to record it
+     */
+    static AIDecision beginAIDecision() {
+        if (!FlightRecorder.isInitialized()) {
+            return null;
+        }
+        AIDecision decision = new AIDecision();
+        decision.begin();
+        return decision;
+    }
+
+    /**
+     * Records an AI's move, if it took long enough.
+     * @param decision the event returned by <code>beginAIDecision</code>, or <code>null</code>
+     * @param strategy the name of the AI's strategy
+     * @param opponentView the view of the board the AI chose from
+     * @param shotCount the amount of shots the AI chose
+     * @param defaultMove whether a random move was played because the AI didn't choose in time or failed
+     */
+    static void recordAIDecision(AIDecision decision, String strategy, Board opponentView, int shotCount, boolean defaultMove) {
+        if (decision == null) {
+            return;
+        }
+        decision.end();
+        if (decision.shouldCommit()) {
+            decision.strategy = strategy;
+            decision.candidateCount = countCandidates(opponentView);
+            decision.shotCount = shotCount;
+            decision.defaultMove = defaultMove;
+            decision.commit();
+        }
+    }
+
+    /**
+     * Records that the turn has passed to the next player.
+     * @param player the player whose turn it is now
+     * @param shotCount how many shots have been fired in the match so far
+     */
+    static void recordTurnSwitch(int player, int shotCount) {
+        if (!FlightRecorder.isInitialized()) {
+            return;
+        }
+        TurnSwitch event = new TurnSwitch();
+        if (event.isEnabled()) {
+            event.player = player;
+            event.shotCount = shotCount;
+            event.commit();
+        }
+    }
+
+    /**
+     * Counts the undiscovered tiles of a view of a board, which are the tiles an AI can choose from.
+     * @param opponentView the view, with the types used by <code>Tile</code>
+     * @return the amount of undiscovered tiles
+     */
+    private static int countCandidates(Board opponentView) {
+        int count = 0;
+        for (int y = 0; y < opponentView.getSize(); y++) {
+            for (int x = 0; x < opponentView.getSize(); x++) {
+                if (opponentView.get(x, y) == 0) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
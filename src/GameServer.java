@@ -0,0 +1,235 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts matches against the AI over TCP, using the same line based text protocol as <code>ConsoleGame</code>.
+ * Every connection plays one match: the server answers "ready", then reads commands until the match ends or the client disconnects.
+ * The server only listens on the loopback address. Every connection is read and written by its own thread, which is a virtual thread if the Java runtime supports them and a regular thread otherwise.
+ * The matches themselves are played on the shards of a <code>MatchScheduler</code>: the connection thread submits every command line to the match's shard and sends back the answer the command wrote, so no match is ever touched by two threads at once and the matches don't need any locks.
+ * The fleets and shots of the matches are added to the global <code>HeatmapAnalytics</code>, which <code>main</code> saves every ten seconds.
+ */
+public class GameServer implements Closeable {
+    private static final int BACKLOG = 4096;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connectionExecutor;
+    private final MatchScheduler scheduler;
+    private final boolean salvo;
+    private final AtomicLong nextSeed;
+    private final AtomicLong nextMatchId;
+    private final AtomicInteger activeMatches;
+    private final AtomicInteger matchesPlayed;
+
+    /**
+     * Constructs a new server listening on the loopback address, with one shard for every processor. It doesn't accept connections until <code>start</code> is called.
+     * @param port the port to listen on, or 0 to let the system choose a free port
+     * @param salvo whether the matches are salvo matches
+     * @throws IOException if the port can't be opened
+     */
+    public GameServer(int port, boolean salvo) throws IOException {
+        this(port, salvo, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a new server listening on the loopback address. It doesn't accept connections until <code>start</code> is called.
+     * @param port the port to listen on, or 0 to let the system choose a free port
+     * @param salvo whether the matches are salvo matches
+     * @param shardCount the amount of threads the matches are played on
+     * @throws IOException if the port can't be opened
+     */
+    public GameServer(int port, boolean salvo, int shardCount) throws IOException {
+        this.salvo = salvo;
+        serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+        connectionExecutor = newThreadPerTaskExecutor("Game server connection");
+        scheduler = new MatchScheduler(shardCount);
+        nextSeed = new AtomicLong(System.nanoTime());
+        nextMatchId = new AtomicLong();
+        activeMatches = new AtomicInteger();
+        matchesPlayed = new AtomicInteger();
+    }
+
+    /**
+     * Creates an executor that runs every task on a new virtual thread, or, if the Java runtime doesn't have virtual threads, on a daemon thread from a cached pool.
+     * The virtual thread executor is looked up by reflection, so the program still runs on Java 17.
+     * @param name the name of the threads of the cached pool
+     * @return the executor
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String name) {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Starts accepting connections on a separate daemon thread.
+     */
+    public void start() {
+        Thread thread = new Thread(this::acceptConnections, "Game server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Accepts connections until the server is closed, and starts a match for each of them.
+     */
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connectionExecutor.execute(() -> serve(socket));
+            } catch (IOException e) {
+                // The server socket was closed, or the connection failed before it was accepted.
+            }
+        }
+    }
+
+    /**
+     * Plays one match over a connection and closes the connection when the match ends.
+     * @param socket the connection
+     */
+    private void serve(Socket socket) {
+        long matchId = nextMatchId.getAndIncrement();
+        scheduler.register(matchId);
+        activeMatches.incrementAndGet();
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            ByteArrayOutputStream answers = new ByteArrayOutputStream();
+            PrintStream out = new PrintStream(answers, false);
+            OutputStream socketOut = socket.getOutputStream();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            long seed = nextSeed.getAndIncrement();
+            ConsoleGame game = scheduler.submit(matchId, () -> new ConsoleGame(seed, out, salvo)).get();
+            // Greets the client like ConsoleGame.play does.
+            out.println("ready");
+            sendAnswers(answers, socketOut);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String command = line;
+                boolean more = scheduler.submit(matchId, () -> game.executeLine(command)).get();
+                sendAnswers(answers, socketOut);
+                if (!more) {
+                    break;
+                }
+            }
+        } catch (IOException | ExecutionException | CancellationException e) {
+            // The client disconnected, the match failed or the server is closing, which ends the match just like the "quit" command.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            scheduler.unregister(matchId);
+            activeMatches.decrementAndGet();
+            matchesPlayed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Sends the answers a command has written to the client.
+     * The answers are only read after the command has completed on its shard, so the connection thread sees everything the command wrote.
+     * @param answers the answers, which are cleared afterwards
+     * @param socketOut the stream of the connection
+     * @throws IOException if the answers can't be sent
+     */
+    private static void sendAnswers(ByteArrayOutputStream answers, OutputStream socketOut) throws IOException {
+        answers.writeTo(socketOut);
+        socketOut.flush();
+        answers.reset();
+    }
+
+    /**
+     * Gets the scheduler the matches are played on, for example to read its report.
+     * @return the scheduler
+     */
+    public MatchScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     * @return the port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Gets how many matches are being played right now.
+     * @return the amount of open connections
+     */
+    public int getActiveMatches() {
+        return activeMatches.get();
+    }
+
+    /**
+     * Gets how many matches have ended, including the ones whose client disconnected early.
+     * @return the amount of closed connections
+     */
+    public int getMatchesPlayed() {
+        return matchesPlayed.get();
+    }
+
+    /**
+     * Stops accepting connections and interrupts the matches being played.
+     * @throws IOException if the server socket can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connectionExecutor.shutdownNow();
+        scheduler.close();
+    }
+
+    /**
+     * Runs a server until the program is stopped, printing the report of every shard, rebalancing the shards and saving the global heatmap every ten seconds.
+     * The first argument is the port (5000 by default), a <code>--salvo</code> argument hosts salvo matches and <code>--shards N</code> sets the amount of threads the matches are played on (one for every processor by default).
+     * @param args the launch arguments
+     * @throws Exception if the port can't be opened
+     */
+    public static void main(String[] args) throws Exception {
+        boolean salvo = false;
+        int port = 5000;
+        int shardCount = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--salvo")) {
+                salvo = true;
+            } else if (args[i].equals("--shards") && i + 1 < args.length) {
+                shardCount = Integer.parseInt(args[++i]);
+            } else {
+                port = Integer.parseInt(args[i]);
+            }
+        }
+        GameServer server = new GameServer(port, salvo, shardCount);
+        server.start();
+        System.out.println("Listening on " + server.serverSocket.getLocalSocketAddress() + " with " + shardCount + " shards");
+        while (true) {
+            Thread.sleep(10_000);
+            System.out.print(server.scheduler.getReport());
+            int moved = server.scheduler.rebalance();
+            if (moved > 0) {
+                System.out.println("Handed off " + moved + " matches");
+            }
+            HeatmapAnalytics.saveGlobal();
+        }
+    }
+}
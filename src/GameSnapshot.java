@@ -0,0 +1,181 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable copy of the state of the game at one point in time.
+ * The boards are shared with the <code>Match</code> and the <code>GridPanel</code>s they were taken from, so taking a snapshot doesn't copy any tiles.
+ * The created ships are kept as their tiles and rotations, since <code>Ship</code>s can be changed, and the AI strategy is kept as it was passed in, so the same copy of the AI can be shared by every snapshot taken until the AI changes.
+ * Snapshots are used by <code>GameState</code> for undoing and redoing ship placement and moves.
+ * <code>GameState</code> also publishes a new snapshot after every move. Since snapshots never change, they can be read from any thread without locking.
+ */
+public final class GameSnapshot {
+    private final long version;
+    private final boolean shipCreating;
+    private final int currentPlayer;
+    private final boolean canShoot;
+    private final int player1shipsRemaining;
+    private final int player2shipsRemaining;
+
+    private final Board shipCreationBoard;
+    private final List<List<Coordinates>> createdShipTiles;
+    private final int[] createdShipRotations;
+
+    private final Board boardPlayer1;
+    private final Board boardOpponent1;
+    private final Board boardPlayer2;
+    private final Board boardOpponent2;
+
+    private final AIStrategy ai;
+
+    /**
+     * Constructs a new snapshot.
+     * The tiles and rotations of the created ships are copied. The AI strategy isn't, so it must not be changed afterwards.
+     * @param version the number of snapshots taken before this one
+     * @param shipCreating whether the game is in the ship creating phase
+     * @param currentPlayer the player whose turn it is
+     * @param canShoot whether the current player can still shoot this turn
+     * @param player1shipsRemaining how many of player 1's ships haven't been sunk yet
+     * @param player2shipsRemaining how many of player 2's ships haven't been sunk yet
+     * @param shipCreationBoard the board of the ship creation grid
+     * @param createdShips the ships that the current player has created so far
+     * @param boardPlayer1 player 1's board in the match
+     * @param boardOpponent1 the board of player 1's opponent grid, including the tiles player 1 highlighted
+     * @param boardPlayer2 player 2's board in the match
+     * @param boardOpponent2 the board of player 2's opponent grid, including the tiles player 2 highlighted
+     * @param ai a copy of the AI strategy playing as player 2, which nothing changes anymore
+     */
+    public GameSnapshot(long version, boolean shipCreating, int currentPlayer, boolean canShoot, int player1shipsRemaining, int player2shipsRemaining, Board shipCreationBoard, List<Ship> createdShips,
+                        Board boardPlayer1, Board boardOpponent1, Board boardPlayer2, Board boardOpponent2, AIStrategy ai) {
+        this.version = version;
+        this.shipCreating = shipCreating;
+        this.currentPlayer = currentPlayer;
+        this.canShoot = canShoot;
+        this.player1shipsRemaining = player1shipsRemaining;
+        this.player2shipsRemaining = player2shipsRemaining;
+        this.shipCreationBoard = shipCreationBoard;
+        createdShipTiles = new ArrayList<>();
+        createdShipRotations = new int[createdShips.size()];
+        for (int i = 0; i < createdShips.size(); i++) {
+            createdShipTiles.add(List.copyOf(createdShips.get(i).getTiles()));
+            createdShipRotations[i] = createdShips.get(i).getRotation();
+        }
+        this.boardPlayer1 = boardPlayer1;
+        this.boardOpponent1 = boardOpponent1;
+        this.boardPlayer2 = boardPlayer2;
+        this.boardOpponent2 = boardOpponent2;
+        this.ai = ai;
+    }
+
+    /**
+     * Gets the number of snapshots that were taken before this one.
+     * A snapshot with a higher version is always newer.
+     * @return the version of this snapshot
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns whether the game was in the ship creating phase.
+     * @return whether the game was in the ship creating phase
+     */
+    public boolean isShipCreating() {
+        return shipCreating;
+    }
+
+    /**
+     * Gets which player's turn it was.
+     * @return the current player
+     */
+    public int getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    /**
+     * Returns whether the current player could still shoot.
+     * @return whether the current player could still shoot
+     */
+    public boolean canShoot() {
+        return canShoot;
+    }
+
+    /**
+     * Gets how many of player 1's ships hadn't been sunk yet.
+     * @return player 1's remaining ship count
+     */
+    public int getPlayer1shipsRemaining() {
+        return player1shipsRemaining;
+    }
+
+    /**
+     * Gets how many of player 2's ships hadn't been sunk yet.
+     * @return player 2's remaining ship count
+     */
+    public int getPlayer2shipsRemaining() {
+        return player2shipsRemaining;
+    }
+
+    /**
+     * Gets the board of the ship creation grid.
+     * @return the ship creation board
+     */
+    public Board getShipCreationBoard() {
+        return shipCreationBoard;
+    }
+
+    /**
+     * Creates the ships that the current player had created.
+     * New ships are created every time, so changing them doesn't change this snapshot.
+     * @return the created ships
+     */
+    public List<Ship> getCreatedShips() {
+        List<Ship> createdShips = new ArrayList<>();
+        for (int i = 0; i < createdShipTiles.size(); i++) {
+            Ship ship = new Ship(new ArrayList<>(createdShipTiles.get(i)));
+            ship.setRotation(createdShipRotations[i]);
+            createdShips.add(ship);
+        }
+        return createdShips;
+    }
+
+    /**
+     * Gets player 1's board in the match, with the tile types used by <code>Match</code>.
+     * @return player 1's board
+     */
+    public Board getBoardPlayer1() {
+        return boardPlayer1;
+    }
+
+    /**
+     * Gets the board of player 1's opponent grid.
+     * @return player 1's opponent board
+     */
+    public Board getBoardOpponent1() {
+        return boardOpponent1;
+    }
+
+    /**
+     * Gets player 2's board in the match, with the tile types used by <code>Match</code>.
+     * @return player 2's board
+     */
+    public Board getBoardPlayer2() {
+        return boardPlayer2;
+    }
+
+    /**
+     * Gets the board of player 2's opponent grid.
+     * @return player 2's opponent board
+     */
+    public Board getBoardOpponent2() {
+        return boardOpponent2;
+    }
+
+    /**
+     * Gets the AI strategy as it was when this snapshot was taken.
+     * It's shared with other snapshots, so it must not be changed: the AI should play with a copy of it.
+     * @return the AI strategy
+     */
+    public AIStrategy getAi() {
+        return ai;
+    }
+}
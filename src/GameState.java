@@ -1,20 +1,23 @@
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * This class contains static variables and methods that keep track of and manage the state of the whole game.
+ * The boards of both players are kept only in a <code>Match</code>. The four <code>GridPanel</code>s of the <code>GameWindow</code> don't hold any state of their own; they show views worked out from those boards.
+ * The match and this class never update the grids themselves. Every change to a board and every change of turn is published on the game's <code>EventBus</code>, and the <code>GameWindow</code> redraws the affected grids once per frame.
  */
 public class GameState {
 
-    private static ArrayList<Ship> player1ships;
-    private static ArrayList<Ship> player2ships;
-
-    private static int player1shipsRemaining;
-    private static int player2shipsRemaining;
+    private static Match match;
+    private static EventBus eventBus;
 
     private static int currentPlayer;
     private static int playerCount;
     private static boolean canShoot;
+    private static boolean salvoMode;
+    private static ArrayList<Coordinates> salvoTargets;
 
     private static GameWindow gameWindow;
 
@@ -36,12 +39,19 @@ public class GameState {
     private static int battleshipRemainder;
     private static int carrierRemainder;
 
-    private static boolean aiHit;
-    private static boolean aiValidShot;
-    private static boolean aiSunk;
-    private static ArrayList<Coordinates> aiSunkTiles;
-    private static ArrayList<Coordinates> aiPotentialTiles;
-    private static int aiDiscoveredShipRotation;
+    private static final long AI_MOVE_BUDGET_MILLIS = 500;
+    private static final StrategyHarness aiHarness = new StrategyHarness(AI_MOVE_BUDGET_MILLIS);
+    private static String aiStrategyName = StrategyHarness.DEFAULT_STRATEGY;
+    private static AIStrategy ai;
+    private static Random aiRandom;
+    private static Random aiFallbackRandom;
+    private static AIStrategy aiCopy;
+
+    private static UndoHistory<GameSnapshot> history;
+    private static Replay replay;
+    private static long shootingStartTime;
+    private static long snapshotVersion;
+    private static final AtomicReference<GameSnapshot> publishedSnapshot = new AtomicReference<>();
 
     /**
      * Initializes all of this class's variables to their starting values.
@@ -52,18 +62,68 @@ public class GameState {
         shipCreating = true;
         initializeShipCreation();
 
-        player1ships = new ArrayList<>();
-        player2ships = new ArrayList<>();
-
-        player1shipsRemaining = 7;
-        player2shipsRemaining = 7;
+        eventBus = new EventBus();
+        match = new Match();
+        match.setAnalytics(HeatmapAnalytics.getGlobal());
+        match.setEventBus(eventBus);
 
         currentPlayer = 1;
         canShoot = true;
+        salvoTargets = new ArrayList<>();
         gameWindow = gameWindowReference;
 
-        aiSunkTiles = new ArrayList<>();
-        aiPotentialTiles = new ArrayList<>();
+        ai = StrategyHarness.createStrategy(aiStrategyName);
+        aiCopy = null;
+        aiRandom = new Random();
+        aiFallbackRandom = new Random();
+
+        history = new UndoHistory<>(publishSnapshot());
+        gameWindow.refreshUndoButtons();
+    }
+
+    /**
+     * Gets the latest snapshot of the state of the game.
+     * Unlike the other methods of this class, this method can safely be called from any thread, for example by background AI threads or autosaving.
+     * The snapshot never changes, so it stays consistent even while the game goes on.
+     * @return the latest published snapshot, or <code>null</code> if no game has been started yet
+     */
+    public static GameSnapshot getSnapshot() {
+        return publishedSnapshot.get();
+    }
+
+    /**
+     * Gets the event bus that the changes of the current game are published on.
+     * A new event bus is created for every game, so listeners of an earlier game don't receive its events.
+     * @return the event bus
+     */
+    public static EventBus getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * Gets the recording of the current match.
+     * The recording starts once both players have placed their ships.
+     * @return the recording of the match, or <code>null</code> if the shooting phase hasn't started yet
+     */
+    public static Replay getReplay() {
+        return replay;
+    }
+
+    /**
+     * Creates the result of the current match, with the current player as the winner.
+     * When playing against the AI, player 2 is called by the name of the AI's strategy. The AI level is left at 0, since the <code>MatchResultStore</code> gives it when the result is saved (see <code>ResultSaver</code>).
+     * @return the result of the match
+     */
+    public static MatchResult getMatchResult() {
+        int winnerShotCount = 0;
+        for (int i = 0; i < replay.getMoveCount(); i++) {
+            if (replay.getMovePlayer(i) == currentPlayer) {
+                winnerShotCount++;
+            }
+        }
+        long now = System.currentTimeMillis();
+        return new MatchResult(now, now - shootingStartTime, "Player 1", playerCount == 1 ? ai.getName() : "Player 2", playerCount,
+                0, currentPlayer, replay.getMoveCount(), winnerShotCount);
     }
 
     /**
@@ -123,6 +183,54 @@ public class GameState {
         GameState.playerCount = playerCount;
     }
 
+    /**
+     * Gets the name of the <code>AIStrategy</code> that plays as player 2 in a 1 player game.
+     * @return the name of the AI strategy
+     */
+    public static String getAIStrategyName() {
+        return aiStrategyName;
+    }
+
+    /**
+     * Sets the <code>AIStrategy</code> that plays as player 2 in a 1 player game, starting with the next game.
+     * @param aiStrategyName the name of one of the strategies returned by <code>StrategyHarness.getStrategyNames</code>
+     */
+    public static void setAIStrategyName(String aiStrategyName) {
+        GameState.aiStrategyName = aiStrategyName;
+    }
+
+    /**
+     * Returns whether every turn is a salvo of one shot per remaining ship instead of a single shot.
+     * @return whether the game is a salvo match
+     */
+    public static boolean isSalvoMode() {
+        return salvoMode;
+    }
+
+    /**
+     * Sets whether every turn is a salvo of one shot per remaining ship instead of a single shot.
+     * @param salvoMode whether the game is a salvo match
+     */
+    public static void setSalvoMode(boolean salvoMode) {
+        GameState.salvoMode = salvoMode;
+    }
+
+    /**
+     * Gets how many shots the current player can fire in their salvo, which is one shot for every ship of theirs that hasn't been sunk yet.
+     * @return the size of the current player's salvo
+     */
+    public static int getSalvoSize() {
+        return match.getSalvoSize(currentPlayer);
+    }
+
+    /**
+     * Gets how many tiles the current player has chosen for their salvo so far.
+     * @return the amount of targeted tiles
+     */
+    public static int getSalvoTargetCount() {
+        return salvoTargets.size();
+    }
+
     /**
      * Gets which player's turn it currently is.
      * @return current player
@@ -165,33 +273,53 @@ public class GameState {
     }
 
     /**
-     * Assigns the placed ships to the player that placed the ships.
+     * Places the ships the current player has created on their board in the <code>Match</code>.
      * Note that all the variables associated with the ship creating process will be reset back to their initial values to let the other player create his ships.
      * If the player whose ship layout was just confirmed is player 2, the <code>ShipCreating</code> value will be set to <code>false</code> and the <code>currentPlayer</code> value will be set to 1.
+     * The ship creation grid is cleared and the undo history starts over, so the next player can't undo the previous player's ship layout.
      */
     public static void confirmShipPlacement() {
+        for (Ship ship : createdShips) {
+            Coordinates firstTile = ship.getTiles().get(0);
+            int rotation = ship.getSize() > 1 && ship.getTiles().get(1).getX() != firstTile.getX() ? 2 : 1;
+            match.placeShip(currentPlayer, firstTile.getX(), firstTile.getY(), ship.getSize(), rotation);
+        }
+        finishShipPlacement();
+    }
+
+    /**
+     * Shows the current player's placed ships on their grid and lets the other player place their ships, or starts the shooting phase if both players have placed their ships.
+     */
+    private static void finishShipPlacement() {
+        getPlayerGrid(currentPlayer).setShips(match.getShips(currentPlayer));
         if (currentPlayer == 1) {
-            for (Ship ship : createdShips) {
-                player1ships.add(new Ship(ship.getTiles()));
-                for (Coordinates coordinates : ship.getTiles()) {
-                    gameWindow.getGridPlayer1().getTiles()[coordinates.getX()][coordinates.getY()].setType(2);
-                    gameWindow.getGridPlayer1().getTiles()[coordinates.getX()][coordinates.getY()].refreshColor();
-                }
-            }
             currentPlayer = 2;
         } else {
-            for (Ship ship : createdShips) {
-                player2ships.add(new Ship(ship.getTiles()));
-                for (Coordinates coordinates : ship.getTiles()) {
-                    gameWindow.getGridPlayer2().getTiles()[coordinates.getX()][coordinates.getY()].setType(2);
-                    gameWindow.getGridPlayer2().getTiles()[coordinates.getX()][coordinates.getY()].refreshColor();
-                }
-            }
             currentPlayer = 1;
             shipCreating = false;
+            replay = new Replay(match.getBoard(1), match.getBoard(2));
+            shootingStartTime = System.currentTimeMillis();
+            publishTurnChanged();
         }
+        initializeShipCreation();
+        gameWindow.getShipCreationGridPanel().assignValue(1);
+        gameWindow.getShipCreationGridPanel().setShips(createdShips);
+        gameWindow.resetShipCreationLabels();
+        history = new UndoHistory<>(publishSnapshot());
+        gameWindow.refreshUndoButtons();
+    }
+
+    /**
+     * Removes all the ships the current player has placed so far, letting them start placing their ships again.
+     * The reset is recorded in the undo history, so it can be undone.
+     */
+    public static void resetShipPlacement() {
         initializeShipCreation();
         gameWindow.resetShipCreationLabels();
+        gameWindow.getShipCreationGridPanel().assignValue(1);
+        gameWindow.getShipCreationGridPanel().setShips(createdShips);
+        publishSnapshot();
+        recordHistory();
     }
 
     /**
@@ -204,9 +332,10 @@ public class GameState {
         if (isLocationValid) {
             createdShips.add(new Ship(newShip.getTiles()));
             for (Coordinates coordinates : newShip.getTiles()) {
-                gameWindow.getShipCreationGridPanel().getTiles()[coordinates.getX()][coordinates.getY()].setType(2);
+                gameWindow.getShipCreationGridPanel().setType(coordinates.getX(), coordinates.getY(), 2);
             }
             refreshNewShipTiles();
+            gameWindow.getShipCreationGridPanel().setShips(createdShips);
             switch (newShip.getSize()) {
                 case 1 -> {
                     submarineRemainder--;
@@ -233,6 +362,8 @@ public class GameState {
                 currentShipTypeLabelReference.disableSelect();
                 newShip.setSize(0);
             }
+            publishSnapshot();
+            recordHistory();
         }
     }
 
@@ -272,7 +403,7 @@ public class GameState {
     private static boolean isAdjacent() {
         for (Coordinates shipCoordinates : newShip.getTiles()) {
             for (Coordinates surroundingCoordinates : getSurroundingTilesCoordinates(shipCoordinates)) {
-                if (gameWindow.getShipCreationGridPanel().getTiles()[surroundingCoordinates.getX()][surroundingCoordinates.getY()].getType() == 2) {
+                if (gameWindow.getShipCreationGridPanel().getType(surroundingCoordinates.getX(), surroundingCoordinates.getY()) == 2) {
                     return true;
                 }
             }
@@ -305,250 +436,145 @@ public class GameState {
     }
 
     /**
-     * Generates the AI's ships.
-     * This method adds the generated ships to player 2's <code>GridPanel</code> and to player 1's opponent <code>GridPanel</code>.
+     * Lets the AI strategy place player 2's fleet, then starts the shooting phase.
+     * Ships the strategy doesn't place in time are placed at random.
      */
     public static void AIGenerateShips() {
-        Random random = new Random();
-        initializeShipCreation();
-        currentShipTypeLabelReference = new ShipLabel(0);
-        for (int i = 0; i < 7; i++) {
-            switch (i) {
-                case 0 -> newShip.setSize(5);
-                case 1 -> newShip.setSize(4);
-                case 2 -> newShip.setSize(3);
-                default -> {
-                    if (i >= 5) {
-                        newShip.setSize(1);
-                    } else {
-                        newShip.setSize(2);
-                    }
-                }
-            }
-            addShipTiles(new Coordinates(random.nextInt(10), random.nextInt(10)));
-            newShip.setRotation(random.nextInt(2) + 1);
-            if (isLocationValid) {
-                addShip();
-            } else {
-                i--;
-            }
-            newShip.getTiles().clear();
-        }
-        confirmShipPlacement();
+        aiHarness.placeFleet(ai, match, 2, aiRandom, aiFallbackRandom);
+        aiCopy = null;
+        finishShipPlacement();
     }
 
     /**
-     * "Shoots" at the tile that player 1 clicked on.
-     * If player 1 shot a valid tile (one that wasn't already revealed), the value <code>canShoot</code> gets set to <code>false</code>, so the player can't shoot twice in 1 turn.
-     * The tiles in both <code>gridPlayer2</code> and <code>gridOpponent1</code>'s type gets changed to their new corresponding type, then their color is refreshed.
-     * If player 1 sinks player 2's last ship, the game ends.
+     * "Shoots" at the tile that the current player clicked on.
+     * If the player shot a valid tile (one that wasn't already revealed), the value <code>canShoot</code> gets set to <code>false</code>, so the player can't shoot twice in 1 turn.
+     * The shot is resolved on the other player's board in the <code>Match</code>, which publishes the changed tiles for the grids to redraw.
+     * If the player sinks the other player's last ship, the game ends.
+     * When player 1 is playing against the AI, the shot is recorded in the undo history.
      * @param tile the tile that was clicked on
+     * @return the result of the shot (see <code>Match</code>)
      */
-    public static void shootPlayer1(Tile tile) {
-        if (canShoot) {
-            if (gameWindow.getGridOpponent1().getTiles()[tile.getCoordinates().getX()][tile.getCoordinates().getY()].getType() == 0 || gameWindow.getGridOpponent1().getTiles()[tile.getCoordinates().getX()][tile.getCoordinates().getY()].getType() == 5) {
-                if (gameWindow.getGridPlayer2().getTiles()[tile.getCoordinates().getX()][tile.getCoordinates().getY()].getType() == 2) {
-                    gameWindow.getGridPlayer2().getTiles()[tile.getCoordinates().getX()][tile.getCoordinates().getY()].setType(3);
-                    for (Ship ship : player2ships) {
-                        for (Coordinates coordinates : ship.getTiles()) {
-                            if (tile.getCoordinates().getX() == coordinates.getX() && tile.getCoordinates().getY() == coordinates.getY()) {
-                                ship.setSunkenTileCount(ship.getSunkenTileCount() + 1);
-                                gameWindow.getGridPlayer2().getTiles()[tile.getCoordinates().getX()][tile.getCoordinates().getY()].setType(3);
-                                if (ship.getSunkenTileCount() >= ship.getSize()) {
-                                    revealSurroundingTiles(ship);
-                                    player2shipsRemaining--;
-                                }
-                            }
-                        }
-                    }
-                } else {
-                    gameWindow.getGridPlayer2().getTiles()[tile.getCoordinates().getX()][tile.getCoordinates().getY()].setType(4);
-                }
-                gameWindow.getGridOpponent1().getTiles()[tile.getCoordinates().getX()][tile.getCoordinates().getY()].setType(gameWindow.getGridPlayer2().getTiles()[tile.getCoordinates().getX()][tile.getCoordinates().getY()].getType());
-                tile.setType(gameWindow.getGridPlayer2().getTiles()[tile.getCoordinates().getX()][tile.getCoordinates().getY()].getType());
-                tile.refreshColor();
-                gameWindow.getGridPlayer2().getTiles()[tile.getCoordinates().getX()][tile.getCoordinates().getY()].refreshColor();
-                canShoot = false;
-                gameWindow.getEndTurnButton().setEnabled(true);
-                if (player2shipsRemaining <= 0) {
-                    gameWindow.victory();
-                }
-            }
+    public static int shoot(Tile tile) {
+        if (!canShoot) {
+            return Match.INVALID;
+        }
+        int result = match.shoot(3 - currentPlayer, tile.getCoordinates().getX(), tile.getCoordinates().getY());
+        if (result != Match.INVALID) {
+            ArrayList<Coordinates> shots = new ArrayList<>();
+            shots.add(tile.getCoordinates());
+            finishShots(shots, new int[]{result});
         }
+        return result;
     }
 
     /**
-     * "Shoots" at the tile that player 2 clicked on.
-     * If player 2 shot a valid tile (one that wasn't already revealed), the value <code>canShoot</code> gets set to <code>false</code>, so the player can't shoot twice in 1 turn.
-     * The tiles in both <code>gridPlayer1</code> and <code>gridOpponent2</code>'s type gets changed to their new corresponding type, then their color is refreshed.
-     * If player 2 sinks player 1's last ship, the game ends.
-     * The AI values regarding the current shot get reset at the beginning of the method.
-     * If the AI shoots at a valid tile, the value <code>aiValidShot</code> gets set to <code>true</code>.
-     * If the AI manages to hit the ship, the value <code>aiHit</code> gets set to <code>true</code>.
-     * If the AI manages to sink the ship, the value <code>aiSunk</code> gets set to <code>true</code>.
-     * @param tile the tile that was clicked on
+     * Records the current player's shots in the replay and ends the game if the other player has no ships left.
+     * The value <code>canShoot</code> gets set to <code>false</code>, so the player can't shoot again this turn.
+     * When player 1 is playing against the AI, the shots are recorded in the undo history.
+     * @param shots the tiles that were shot
+     * @param results the result of each shot, in the same order as the shots
      */
-    public static void shootPlayer2(Tile tile) {
-        aiHit = false;
-        aiValidShot = false;
-        aiSunk = false;
-        if (canShoot) {
-            if (gameWindow.getGridOpponent2().getTiles()[tile.getCoordinates().getX()][tile.getCoordinates().getY()].getType() == 0 || gameWindow.getGridOpponent2().getTiles()[tile.getCoordinates().getX()][tile.getCoordinates().getY()].getType() == 5) {
-                aiValidShot = true;
-                if (gameWindow.getGridPlayer1().getTiles()[tile.getCoordinates().getX()][tile.getCoordinates().getY()].getType() == 2) {
-                    gameWindow.getGridPlayer1().getTiles()[tile.getCoordinates().getX()][tile.getCoordinates().getY()].setType(3);
-                    aiHit = true;
-                    for (Ship ship : player1ships) {
-                        for (Coordinates coordinates : ship.getTiles()) {
-                            if (tile.getCoordinates().getX() == coordinates.getX() && tile.getCoordinates().getY() == coordinates.getY()) {
-                                ship.setSunkenTileCount(ship.getSunkenTileCount() + 1);
-                                gameWindow.getGridPlayer1().getTiles()[tile.getCoordinates().getX()][tile.getCoordinates().getY()].setType(3);
-                                if (ship.getSunkenTileCount() >= ship.getSize()) {
-                                    revealSurroundingTiles(ship);
-                                    player1shipsRemaining--;
-                                    aiSunk = true;
-                                }
-                            }
-                        }
-                    }
-                } else {
-                    gameWindow.getGridPlayer1().getTiles()[tile.getCoordinates().getX()][tile.getCoordinates().getY()].setType(4);
-                }
-                gameWindow.getGridOpponent2().getTiles()[tile.getCoordinates().getX()][tile.getCoordinates().getY()].setType(gameWindow.getGridPlayer1().getTiles()[tile.getCoordinates().getX()][tile.getCoordinates().getY()].getType());
-                tile.setType(gameWindow.getGridPlayer1().getTiles()[tile.getCoordinates().getX()][tile.getCoordinates().getY()].getType());
-                tile.refreshColor();
-                gameWindow.getGridPlayer1().getTiles()[tile.getCoordinates().getX()][tile.getCoordinates().getY()].refreshColor();
-                canShoot = false;
-                gameWindow.getEndTurnButton().setEnabled(true);
-                if (player1shipsRemaining <= 0) {
-                    gameWindow.victory();
-                }
+    private static void finishShots(List<Coordinates> shots, int[] results) {
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] != Match.INVALID) {
+                replay.recordMove(currentPlayer, shots.get(i).getX(), shots.get(i).getY(), match.getBoard(1), match.getBoard(2));
             }
         }
+        canShoot = false;
+        gameWindow.getEndTurnButton().setEnabled(true);
+        publishSnapshot();
+        if (playerCount == 1 && currentPlayer == 1) {
+            recordHistory();
+        }
+        if (match.isOver()) {
+            gameWindow.victory();
+        }
     }
 
     /**
-     * Manages the AI's entire turn.
-     * If the AI shot an invalid tile, it shoots again.
-     * If it doesn't have a current discovered ship, it shoots a random tile.
-     * If it manages to hit a ship, it writes down it's surrounding tiles as potential targets for the next turn.
-     * If it then manages to hit another one of the ship's tiles, it writes down its rotation, and it only shoots adjacent tiles on that row/column the next time.
-     * If it sinks the ship, it'll look for another ship again on its next turn.
+     * Gets the grid showing a player's own board.
+     * @param player the player (1 or 2)
+     * @return the player's grid
      */
-    public static void AITurn() {
-        Random random = new Random();
-        Coordinates aiShot;
-        if (aiSunkTiles.size() == 0) {
-            do {
-                aiShot = new Coordinates(random.nextInt(10), random.nextInt(10));
-                shootPlayer2(gameWindow.getGridOpponent2().getTiles()[aiShot.getX()][aiShot.getY()]);
-            } while (!aiValidShot);
-            if (aiHit) {
-                aiSunkTiles.add(new Coordinates(aiShot.getX(), aiShot.getY()));
-                aiPotentialTiles.addAll(getCloseSurroundingTilesCoordinates(aiShot));
-            }
-        } else {
-            do {
-                aiShot = aiPotentialTiles.get(random.nextInt(aiPotentialTiles.size()));
-                shootPlayer2(gameWindow.getGridOpponent2().getTiles()[aiShot.getX()][aiShot.getY()]);
-            } while (!aiValidShot);
-            if (aiHit) {
-                aiSunkTiles.add(new Coordinates(aiShot.getX(), aiShot.getY()));
-                aiPotentialTiles.clear();
-                if (aiSunkTiles.size() == 2) {
-                    if (aiSunkTiles.get(0).getX() < aiSunkTiles.get(1).getX() || aiSunkTiles.get(0).getX() > aiSunkTiles.get(1).getX()) {
-                        aiDiscoveredShipRotation = 2;
-                    } else {
-                        aiDiscoveredShipRotation = 1;
-                    }
-                }
-                if (aiDiscoveredShipRotation == 1) {
-                    int lowestCoordinates = getLowestCoordinatesIndex(aiSunkTiles);
-                    int highestCoordinates = getHighestCoordinatesIndex(aiSunkTiles);
-                    if (aiSunkTiles.get(lowestCoordinates).getY() + 1 <= 9) {
-                        aiPotentialTiles.add(new Coordinates(aiSunkTiles.get(lowestCoordinates).getX(), aiSunkTiles.get(lowestCoordinates).getY() + 1));
-                    }
-                    if (aiSunkTiles.get(highestCoordinates).getY() - 1 >= 0) {
-                        aiPotentialTiles.add(new Coordinates(aiSunkTiles.get(highestCoordinates).getX(), aiSunkTiles.get(highestCoordinates).getY() - 1));
-                    }
-                } else {
-                    int leftMostCoordinates = getLeftmostCoordinatesIndex(aiSunkTiles);
-                    int rightMostCoordinates = getRightmostCoordinatesIndex(aiSunkTiles);
-                    if (aiSunkTiles.get(leftMostCoordinates).getX() - 1 >= 0) {
-                        aiPotentialTiles.add(new Coordinates(aiSunkTiles.get(leftMostCoordinates).getX() - 1, aiSunkTiles.get(leftMostCoordinates).getY()));
-                    }
-                    if (aiSunkTiles.get(rightMostCoordinates).getX() + 1 <= 9) {
-                        aiPotentialTiles.add(new Coordinates(aiSunkTiles.get(rightMostCoordinates).getX() + 1, aiSunkTiles.get(rightMostCoordinates).getY()));
-                    }
-                }
+    private static GridPanel getPlayerGrid(int player) {
+        return player == 1 ? gameWindow.getGridPlayer1() : gameWindow.getGridPlayer2();
+    }
+
+    /**
+     * Adds the tile that was clicked on to the current player's salvo, or removes it if it's already part of the salvo.
+     * Only undiscovered or highlighted tiles can be targeted, and only as many as the size of the salvo.
+     * @param tile the tile that was clicked on
+     */
+    public static void toggleSalvoTarget(Tile tile) {
+        if (!canShoot) {
+            return;
+        }
+        for (int i = 0; i < salvoTargets.size(); i++) {
+            if (salvoTargets.get(i).getX() == tile.getCoordinates().getX() && salvoTargets.get(i).getY() == tile.getCoordinates().getY()) {
+                salvoTargets.remove(i);
+                tile.setTargeted(false);
+                gameWindow.refreshSalvoButton();
+                return;
             }
         }
-
-        if (aiSunk) {
-            aiPotentialTiles.clear();
-            aiSunkTiles.clear();
+        if (salvoTargets.size() < getSalvoSize() && isSalvoTarget(tile.getCoordinates())) {
+            salvoTargets.add(tile.getCoordinates());
+            tile.setTargeted(true);
+            gameWindow.refreshSalvoButton();
         }
-        newTurn();
     }
 
     /**
-     * Gets the index of the lowest coordinates in an <code>ArrayList</code> of coordinates.
-     * @param coordinatesArray the array list of coordinates
-     * @return the index of the lowest coordinates in the <code>ArrayList</code>
+     * Returns whether a tile can be shot by the current player, which means it's undiscovered or highlighted on the current player's opponent grid.
+     * @param coordinates the coordinates of the tile
+     * @return whether the tile can be shot
      */
-    private static int getLowestCoordinatesIndex(ArrayList<Coordinates> coordinatesArray) {
-        int lowestIndex = 0;
-        for (int i = 1; i < coordinatesArray.size(); i++) {
-            if (coordinatesArray.get(i).getY() > coordinatesArray.get(lowestIndex).getY()) {
-                lowestIndex = i;
-            }
-        }
-        return lowestIndex;
+    private static boolean isSalvoTarget(Coordinates coordinates) {
+        return match.getOpponentViewType(3 - currentPlayer, coordinates.getX(), coordinates.getY()) == 0;
     }
 
     /**
-     * Gets the index of the highest coordinates in an <code>ArrayList</code> of coordinates.
-     * @param coordinatesArray the array list of coordinates
-     * @return the index of the highest coordinates in the <code>ArrayList</code>
+     * Removes all the tiles from the current player's salvo.
      */
-    private static int getHighestCoordinatesIndex(ArrayList<Coordinates> coordinatesArray) {
-        int highestIndex = 0;
-        for (int i = 1; i < coordinatesArray.size(); i++) {
-            if (coordinatesArray.get(i).getY() < coordinatesArray.get(highestIndex).getY()) {
-                highestIndex = i;
-            }
+    private static void clearSalvoTargets() {
+        for (Coordinates coordinates : salvoTargets) {
+            gameWindow.getGridOpponent1().getTiles()[coordinates.getX()][coordinates.getY()].setTargeted(false);
+            gameWindow.getGridOpponent2().getTiles()[coordinates.getX()][coordinates.getY()].setTargeted(false);
         }
-        return highestIndex;
+        salvoTargets.clear();
+        gameWindow.refreshSalvoButton();
     }
 
     /**
-     * Gets the index of the leftmost coordinates in an <code>ArrayList</code> of coordinates.
-     * @param coordinatesArray the array list of coordinates
-     * @return the index of the leftmost coordinates in the <code>ArrayList</code>
+     * Fires the current player's salvo at the other player's ships.
+     * All the shots are resolved together by <code>Match.salvo</code>, which publishes a single event with all the changed tiles, instead of one for every shot.
+     * The salvo is recorded in the replay as one move per valid shot, with all the changed tiles in the first of them.
+     * @return the result of each shot in the order they were chosen (see <code>Match</code>), or <code>null</code> if no salvo was fired
      */
-    private static int getLeftmostCoordinatesIndex(ArrayList<Coordinates> coordinatesArray) {
-        int leftMostIndex = 0;
-        for (int i = 1; i < coordinatesArray.size(); i++) {
-            if (coordinatesArray.get(i).getX() < coordinatesArray.get(leftMostIndex).getX()) {
-                leftMostIndex = i;
-            }
+    public static int[] fireSalvo() {
+        if (!canShoot || salvoTargets.isEmpty()) {
+            return null;
         }
-        return leftMostIndex;
+        ArrayList<Coordinates> shots = new ArrayList<>(salvoTargets);
+        clearSalvoTargets();
+        int[] results = match.salvo(3 - currentPlayer, shots);
+        finishShots(shots, results);
+        return results;
     }
 
     /**
-     * Gets the index of the rightmost coordinates in an <code>ArrayList</code> of coordinates.
-     * @param coordinatesArray the array list of coordinates
-     * @return the index of the rightmost coordinates in the <code>ArrayList</code>
+     * Manages the AI's entire turn, which is played by the AI strategy shooting at player 1's board.
+     * In a salvo match, the AI fires a salvo instead of a single shot.
+     * Every move has to be chosen within the move budget of the <code>StrategyHarness</code>, otherwise a random undiscovered tile is shot instead.
+     * The state after the AI's turn is recorded in the undo history.
      */
-    private static int getRightmostCoordinatesIndex(ArrayList<Coordinates> coordinatesArray) {
-        int rightMostIndex = 0;
-        for (int i = 1; i < coordinatesArray.size(); i++) {
-            if (coordinatesArray.get(i).getX() > coordinatesArray.get(rightMostIndex).getX()) {
-                rightMostIndex = i;
-            }
-        }
-        return rightMostIndex;
+    public static void AITurn() {
+        ArrayList<Coordinates> shots = new ArrayList<>();
+        int[] results = aiHarness.playTurn(ai, match, 1, salvoMode ? match.getSalvoSize(2) : 0, aiRandom, aiFallbackRandom, shots);
+        aiCopy = null;
+        finishShots(shots, results);
+        newTurn();
+        recordHistory();
     }
 
     /**
@@ -586,59 +612,153 @@ public class GameState {
     }
 
     /**
-     * Gets the coordinates of all the tiles adjacent to the tile at the passed in coordinates, excluding corner tiles.
-     * @param coordinates the coordinates to get the adjacent tiles of
-     * @return an <code>ArrayList</code> of the adjacent tiles' coordinates
+     * Records the latest published snapshot as a new step in the undo history.
+     * Any steps that were undone before can no longer be redone.
      */
-    private static ArrayList<Coordinates> getCloseSurroundingTilesCoordinates(Coordinates coordinates) {
-        ArrayList<Coordinates> surroundingTiles = new ArrayList<>();
-        if (coordinates.getX() + 1 <= 9) {
-            surroundingTiles.add(new Coordinates(coordinates.getX() + 1, coordinates.getY()));
+    private static void recordHistory() {
+        history = history.record(publishedSnapshot.get());
+        gameWindow.refreshUndoButtons();
+    }
+
+    /**
+     * Returns whether there is a step in the undo history that can be undone.
+     * @return whether the last step can be undone
+     */
+    public static boolean canUndo() {
+        return history.canUndo();
+    }
+
+    /**
+     * Returns whether there is a step in the undo history that can be redone.
+     * @return whether the last undone step can be redone
+     */
+    public static boolean canRedo() {
+        return history.canRedo();
+    }
+
+    /**
+     * Returns the game to the state before the last recorded step.
+     */
+    public static void undo() {
+        if (history.canUndo()) {
+            history = history.undo();
+            restoreSnapshot(history.getCurrent());
+            publishSnapshot();
         }
-        if (coordinates.getY() + 1 <= 9) {
-            surroundingTiles.add(new Coordinates(coordinates.getX(), coordinates.getY() + 1));
+    }
+
+    /**
+     * Returns the game to the state after the last undone step.
+     */
+    public static void redo() {
+        if (history.canRedo()) {
+            history = history.redo();
+            restoreSnapshot(history.getCurrent());
+            publishSnapshot();
         }
-        if (coordinates.getX() - 1 >= 0) {
-            surroundingTiles.add(new Coordinates(coordinates.getX() - 1, coordinates.getY()));
+    }
+
+    /**
+     * Takes a snapshot of the current state of the game.
+     * The boards of the <code>Match</code> and of the opponent grids are shared with the snapshot, not copied.
+     * The AI is only copied if it changed since the last snapshot; otherwise the snapshot shares the last snapshot's copy.
+     * @return the snapshot
+     */
+    private static GameSnapshot takeSnapshot() {
+        if (aiCopy == null) {
+            aiCopy = ai.copy();
         }
-        if (coordinates.getY() - 1 >= 0) {
-            surroundingTiles.add(new Coordinates(coordinates.getX(), coordinates.getY() - 1));
+        return new GameSnapshot(snapshotVersion++, shipCreating, currentPlayer, canShoot, match.getShipsRemaining(1), match.getShipsRemaining(2),
+                gameWindow.getShipCreationGridPanel().getBoard(), createdShips,
+                match.getBoard(1), gameWindow.getGridOpponent1().getBoard(),
+                match.getBoard(2), gameWindow.getGridOpponent2().getBoard(),
+                aiCopy);
+    }
+
+    /**
+     * Takes a snapshot of the current state of the game and publishes it, so it can be read from other threads through <code>getSnapshot</code>.
+     * @return the published snapshot
+     */
+    private static GameSnapshot publishSnapshot() {
+        GameSnapshot snapshot = takeSnapshot();
+        publishedSnapshot.set(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Restores the state of the game from a snapshot.
+     * In the ship creating phase, the created ships and the ship creation grid are restored and the ship type labels are updated to match them.
+     * Otherwise, the boards of both players in the <code>Match</code>, the highlighted tiles of the opponent grids and the AI are restored, and the restored boards are published for the grids to redraw. How many tiles of each ship have been sunk is recounted from the restored boards.
+     * @param snapshot the snapshot to restore
+     */
+    private static void restoreSnapshot(GameSnapshot snapshot) {
+        clearSalvoTargets();
+        currentPlayer = snapshot.getCurrentPlayer();
+        canShoot = snapshot.canShoot();
+        if (snapshot.isShipCreating()) {
+            refreshNewShipTiles();
+            newShip.getTiles().clear();
+            newShip.setSize(0);
+            currentShipTypeLabelReference = null;
+            createdShips = new ArrayList<>(snapshot.getCreatedShips());
+            submarineRemainder = SUBMARINE_COUNT - getCreatedShipCount(1);
+            destroyerRemainder = DESTROYER_COUNT - getCreatedShipCount(2);
+            cruiserRemainder = CRUISER_COUNT - getCreatedShipCount(3);
+            battleshipRemainder = BATTLESHIP_COUNT - getCreatedShipCount(4);
+            carrierRemainder = CARRIER_COUNT - getCreatedShipCount(5);
+            gameWindow.getShipCreationGridPanel().showBoard(snapshot.getShipCreationBoard());
+            gameWindow.getShipCreationGridPanel().setShips(createdShips);
+            gameWindow.updateShipCreationLabels();
+        } else {
+            match.restoreBoard(1, snapshot.getBoardPlayer1());
+            match.restoreBoard(2, snapshot.getBoardPlayer2());
+            gameWindow.getGridOpponent1().showBoard(snapshot.getBoardOpponent1());
+            gameWindow.getGridOpponent2().showBoard(snapshot.getBoardOpponent2());
+            aiCopy = snapshot.getAi();
+            ai = aiCopy.copy();
+            publishTurnChanged();
+            replay.truncate(match.getShotCount());
+            gameWindow.getEndTurnButton().setEnabled(!canShoot);
         }
-        return surroundingTiles;
+        gameWindow.refreshUndoButtons();
     }
 
     /**
-     * Reveals all the tiles around a ship.
-     * The tile will only be revealed if its type is undiscovered (0).
-     * @param ship the ship to reveal the surrounding tiles of
+     * Gets how many of the created ships have the passed in size.
+     * @param shipSize the size of the ships to count
+     * @return the amount of created ships of that size
      */
-    private static void revealSurroundingTiles(Ship ship) {
-        for (Coordinates shipTileCoordinates : ship.getTiles()) {
-            for (Coordinates surroundingTileCoordinates : getSurroundingTilesCoordinates(shipTileCoordinates)) {
-                if (currentPlayer == 1) {
-                    if (gameWindow.getGridOpponent1().getTiles()[surroundingTileCoordinates.getX()][surroundingTileCoordinates.getY()].getType() == 0) {
-                        gameWindow.getGridOpponent1().getTiles()[surroundingTileCoordinates.getX()][surroundingTileCoordinates.getY()].setType(1);
-                        gameWindow.getGridOpponent1().getTiles()[surroundingTileCoordinates.getX()][surroundingTileCoordinates.getY()].refreshColor();
-                    }
-                } else {
-                    if (gameWindow.getGridOpponent2().getTiles()[surroundingTileCoordinates.getX()][surroundingTileCoordinates.getY()].getType() == 0) {
-                        gameWindow.getGridOpponent2().getTiles()[surroundingTileCoordinates.getX()][surroundingTileCoordinates.getY()].setType(1);
-                        gameWindow.getGridOpponent2().getTiles()[surroundingTileCoordinates.getX()][surroundingTileCoordinates.getY()].refreshColor();
-                    }
-                }
+    private static int getCreatedShipCount(int shipSize) {
+        int count = 0;
+        for (Ship ship : createdShips) {
+            if (ship.getSize() == shipSize) {
+                count++;
             }
         }
+        return count;
     }
 
     /**
-     * Resets the <code>canShoot</code> value back to <code>true</code> and sets the <code>currentPlayer</code> value to the other player.
+     * Clears the salvo, resets the <code>canShoot</code> value back to <code>true</code> and sets the <code>currentPlayer</code> value to the other player.
+     * The change of turn is published on the event bus.
      */
     public static void newTurn() {
+        clearSalvoTargets();
         canShoot = true;
         if (currentPlayer == 1) {
             currentPlayer = 2;
         } else {
             currentPlayer = 1;
         }
+        GameEvents.recordTurnSwitch(currentPlayer, match.getShotCount());
+        publishTurnChanged();
+        publishSnapshot();
+    }
+
+    /**
+     * Publishes on the event bus that it's now the current player's turn.
+     */
+    private static void publishTurnChanged() {
+        eventBus.publish(new MatchEvent(MatchEvent.TURN_CHANGED, currentPlayer, null, null));
     }
 }
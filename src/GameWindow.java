@@ -2,11 +2,15 @@ import javax.swing.*;
 import javax.swing.border.LineBorder;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.IOException;
 
 /**
  * A subclass of <code>JFrame</code> that serves as the window where the whole game plays out.
+ * It listens to the events of the game and redraws the grids of a player whose board changed at the start of the next frame, so all the changes made in one frame are drawn together.
+ * The window can be resized: every screen is laid out on a 1280 by 680 design by a <code>ScaledLayout</code>, which scales it to the size of the window.
+ * With active rendering turned on (see <code>setActiveRendering</code>), the grids of the shooting phase are shown by <code>BoardCanvas</code>es drawn by a <code>RenderLoop</code> instead, which also animate the shots and the sunk ships.
  */
-public class GameWindow extends JFrame implements ActionListener {
+public class GameWindow extends JFrame implements ActionListener, MatchListener {
     private JLabel readyScreenLabel;
     private JButton readyScreenButton;
 
@@ -28,8 +32,28 @@ public class GameWindow extends JFrame implements ActionListener {
     private JLabel shipCreationCurrentPlayerLabel;
     private JButton confirmButton;
     private JButton resetButton;
+    private JButton undoPlacementButton;
+    private JButton redoPlacementButton;
 
     private JButton endTurnButton;
+    private JButton undoShotButton;
+    private JButton redoShotButton;
+    private JToggleButton heatmapButton;
+    private JButton fireSalvoButton;
+
+    private static final int DESIGN_WIDTH = 1280;
+    private static final int DESIGN_HEIGHT = 680;
+
+    private static boolean activeRendering;
+
+    private RenderLoop renderLoop;
+    private BoardCanvas canvasPlayer1;
+    private BoardCanvas canvasOpponent1;
+    private BoardCanvas canvasPlayer2;
+    private BoardCanvas canvasOpponent2;
+
+    private final Board[] changedBoards = new Board[2];
+    private final Runnable gridRefresher = this::refreshChangedGrids;
 
     private int tileSize;
     private int gridSize;
@@ -41,13 +65,13 @@ public class GameWindow extends JFrame implements ActionListener {
      * Note that it also sets this window as visible.
      */
     public GameWindow() {
-        int windowX = 1280;
+        int windowX = DESIGN_WIDTH;
         int windowY = 720;
 
         this.setDefaultCloseOperation(DO_NOTHING_ON_CLOSE);
         this.setLocationRelativeTo(null);
         this.setSize(new Dimension(windowX, windowY));
-        this.setResizable(false);
+        this.setMinimumSize(new Dimension(windowX / 2, windowY / 2));
         this.addWindowListener(new GameWindowAdapter(this));
 
         tileSize = 20;
@@ -71,6 +95,22 @@ public class GameWindow extends JFrame implements ActionListener {
         endTurnButton.setBounds(gridOffsetX, gridOffsetY + gridSize + 20, 200, 50);
         endTurnButton.addActionListener(this);
 
+        undoShotButton = new JButton("Undo");
+        undoShotButton.setBounds(gridOffsetX, gridOffsetY + gridSize + 80, 95, 50);
+        undoShotButton.addActionListener(this);
+
+        redoShotButton = new JButton("Redo");
+        redoShotButton.setBounds(gridOffsetX + 105, gridOffsetY + gridSize + 80, 95, 50);
+        redoShotButton.addActionListener(this);
+
+        heatmapButton = new JToggleButton("Show hit heatmap");
+        heatmapButton.setBounds(gridOffsetX, gridOffsetY + gridSize + 140, 200, 50);
+        heatmapButton.addActionListener(this);
+
+        fireSalvoButton = new JButton("Fire salvo");
+        fireSalvoButton.setBounds(gridOffsetX + 220, gridOffsetY + gridSize + 20, 200, 50);
+        fireSalvoButton.addActionListener(this);
+
         initializeShipCreationGUIComponents();
 
         readyScreenLabel = new JLabel();
@@ -92,20 +132,56 @@ public class GameWindow extends JFrame implements ActionListener {
         readyScreenButton.addActionListener(this);
 
         readyScreenPanel = new JPanel();
-        readyScreenPanel.setLayout(null);
-        readyScreenPanel.add(readyScreenLabel);
-        readyScreenPanel.add(readyScreenButton);
+        readyScreenPanel.setLayout(new ScaledLayout(DESIGN_WIDTH, DESIGN_HEIGHT));
+        readyScreenPanel.add(readyScreenLabel, readyScreenLabel.getBounds());
+        readyScreenPanel.add(readyScreenButton, readyScreenButton.getBounds());
 
         gamePanel = new JPanel();
-        gamePanel.setLayout(null);
-        gamePanel.add(endTurnButton);
+        gamePanel.setLayout(new ScaledLayout(DESIGN_WIDTH, DESIGN_HEIGHT));
+        gamePanel.add(endTurnButton, endTurnButton.getBounds());
+        gamePanel.add(heatmapButton, heatmapButton.getBounds());
+        if (GameState.isSalvoMode()) {
+            gamePanel.add(fireSalvoButton, fireSalvoButton.getBounds());
+        }
+        if (GameState.getPlayerCount() == 1) {
+            gamePanel.add(undoShotButton, undoShotButton.getBounds());
+            gamePanel.add(redoShotButton, redoShotButton.getBounds());
+        }
+
+        if (activeRendering) {
+            renderLoop = new RenderLoop();
+            canvasPlayer1 = new BoardCanvas(gridPlayer1);
+            canvasOpponent1 = new BoardCanvas(gridOpponent1);
+            canvasPlayer2 = new BoardCanvas(gridPlayer2);
+            canvasOpponent2 = new BoardCanvas(gridOpponent2);
+            renderLoop.add(canvasPlayer1);
+            renderLoop.add(canvasOpponent1);
+            renderLoop.add(canvasPlayer2);
+            renderLoop.add(canvasOpponent2);
+            renderLoop.start();
+        }
+
+        // The grids are swapped at the start of every turn, so they're added once here for the layout to know their bounds.
+        gamePanel.add(getView(gridPlayer1, canvasPlayer1), gridPlayer1.getBounds());
+        gamePanel.add(getView(gridOpponent1, canvasOpponent1), gridOpponent1.getBounds());
+        gamePanel.add(getView(gridPlayer2, canvasPlayer2), gridPlayer2.getBounds());
+        gamePanel.add(getView(gridOpponent2, canvasOpponent2), gridOpponent2.getBounds());
 
         GameState.initialize(this);
+        GameState.getEventBus().subscribe(this);
 
         shipCreationScreen();
         this.setVisible(true);
     }
 
+    /**
+     * Sets whether the game windows created from now on draw the grids of the shooting phase with a <code>RenderLoop</code>, animating the shots and the sunk ships, instead of letting Swing paint them.
+     * @param activeRendering whether to use active rendering
+     */
+    public static void setActiveRendering(boolean activeRendering) {
+        GameWindow.activeRendering = activeRendering;
+    }
+
     /**
      * Gets the "End turn" button that ends your turn and lets either another player or the AI play.
      * @return the "End turn" button
@@ -186,31 +262,120 @@ public class GameWindow extends JFrame implements ActionListener {
     private void startTurn(){
         endTurnButton.setEnabled(false);
         if (GameState.getCurrentPlayer() == 1){
-            gamePanel.remove(gridPlayer2);
-            gamePanel.remove(gridOpponent2);
-            gamePanel.add(gridPlayer1);
-            gamePanel.add(gridOpponent1);
+            gamePanel.remove(getView(gridPlayer2, canvasPlayer2));
+            gamePanel.remove(getView(gridOpponent2, canvasOpponent2));
+            gamePanel.add(getView(gridPlayer1, canvasPlayer1));
+            gamePanel.add(getView(gridOpponent1, canvasOpponent1));
         } else {
-            gamePanel.remove(gridPlayer1);
-            gamePanel.remove(gridOpponent1);
-            gamePanel.add(gridPlayer2);
-            gamePanel.add(gridOpponent2);
+            gamePanel.remove(getView(gridPlayer1, canvasPlayer1));
+            gamePanel.remove(getView(gridOpponent1, canvasOpponent1));
+            gamePanel.add(getView(gridPlayer2, canvasPlayer2));
+            gamePanel.add(getView(gridOpponent2, canvasOpponent2));
         }
         this.remove(shipCreationPanel);
         this.remove(readyScreenPanel);
         this.add(gamePanel);
+        refreshSalvoButton();
         this.setTitle("Battleships (Shooting) - Player " + GameState.getCurrentPlayer());
         this.revalidate();
         this.repaint();
     }
 
     /**
-     * Displays a <code>JOptionPane</code> letting the player(s) know who won.
-     * It also disposes of this window and creates a new instance of the <code>MenuWindow</code> class.
+     * Gets the component that shows a grid during the shooting phase.
+     * @param grid the grid
+     * @param canvas the canvas drawing the grid, or <code>null</code> without active rendering
+     * @return the canvas, or the grid itself without active rendering
+     */
+    private Component getView(GridPanel grid, BoardCanvas canvas) {
+        return canvas != null ? canvas : grid;
+    }
+
+    /**
+     * Handles the events of the game.
+     * A changed board is only noted down, and the grids showing it are redrawn at the start of the next frame, together with any other boards that change before then.
+     * A change of turn moves the heatmap to the new current player's opponent grid.
+     * With active rendering, a sunk ship starts the sinking effect on the grids showing it: its owner's grid and their opponent's opponent grid.
+     * @param event the event to be processed
+     */
+    @Override
+    public void matchChanged(MatchEvent event) {
+        switch (event.getType()) {
+            case MatchEvent.CELLS_CHANGED -> {
+                changedBoards[event.getPlayer() - 1] = event.getBoard();
+                FrameScheduler.schedule(gridRefresher);
+            }
+            case MatchEvent.TURN_CHANGED -> refreshHeatmap();
+            case MatchEvent.SHIP_SUNK -> {
+                if (renderLoop != null) {
+                    (event.getPlayer() == 1 ? canvasPlayer1 : canvasPlayer2).showSinking(event.getShip());
+                    (event.getPlayer() == 1 ? canvasOpponent2 : canvasOpponent1).showSinking(event.getShip());
+                }
+            }
+        }
+    }
+
+    /**
+     * Disposes of this window, stopping the render loop first if there is one.
+     */
+    @Override
+    public void dispose() {
+        if (renderLoop != null) {
+            renderLoop.stop();
+            renderLoop = null;
+        }
+        super.dispose();
+    }
+
+    /**
+     * Redraws the grids of every player whose board changed since the last frame: the player's own grid and their opponent's opponent grid.
+     */
+    private void refreshChangedGrids() {
+        if (changedBoards[0] != null) {
+            gridPlayer1.showBoard(Match.ownView(changedBoards[0]));
+            gridOpponent2.showOpponentView(Match.opponentView(changedBoards[0]));
+            changedBoards[0] = null;
+        }
+        if (changedBoards[1] != null) {
+            gridPlayer2.showBoard(Match.ownView(changedBoards[1]));
+            gridOpponent1.showOpponentView(Match.opponentView(changedBoards[1]));
+            changedBoards[1] = null;
+        }
+    }
+
+    /**
+     * Shows or hides the heatmap of where ships have been hit in all the recorded games on the current player's opponent grid, depending on the heatmap button.
+     */
+    private void refreshHeatmap(){
+        double[] heatmap = heatmapButton.isSelected() ? HeatmapAnalytics.getGlobal().getHeatmap(HeatmapAnalytics.HIT) : null;
+        gridOpponent1.showHeatmap(GameState.getCurrentPlayer() == 1 ? heatmap : null);
+        gridOpponent2.showHeatmap(GameState.getCurrentPlayer() == 2 ? heatmap : null);
+    }
+
+    /**
+     * Starts saving the result of the match to the <code>MatchResultStore</code> and updating the ratings of the <code>Leaderboard</code> in the background (see <code>ResultSaver</code>), and displays a <code>JOptionPane</code> letting the player(s) know who won.
+     * The player(s) can then watch a replay of the match, save the replay to a file or go back to the menu.
+     * It also disposes of this window and creates a new instance of the <code>MenuWindow</code> class (once the replay is closed, if it's watched).
      */
     public void victory(){
-        JOptionPane.showMessageDialog(null, "Player " + GameState.getCurrentPlayer() + " won!", "Results", JOptionPane.PLAIN_MESSAGE);
+        ResultSaver.saveMatchResult(GameState.getMatchResult());
+        String[] options = {"Back to menu", "Watch replay", "Save replay"};
+        int answer = JOptionPane.showOptionDialog(null, "Player " + GameState.getCurrentPlayer() + " won!", "Results", JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null, options, options[0]);
         this.dispose();
+        if(answer == 1){
+            new ReplayWindow(GameState.getReplay());
+            return;
+        }
+        if(answer == 2){
+            JFileChooser fileChooser = new JFileChooser();
+            if(fileChooser.showSaveDialog(null) == JFileChooser.APPROVE_OPTION){
+                try {
+                    GameState.getReplay().write(fileChooser.getSelectedFile());
+                } catch (IOException exception) {
+                    JOptionPane.showMessageDialog(null, "The replay couldn't be saved.", "Save replay", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }
         new MenuWindow();
     }
 
@@ -219,7 +384,7 @@ public class GameWindow extends JFrame implements ActionListener {
      */
     private void initializeShipCreationGUIComponents(){
         shipCreationPanel = new JPanel();
-        shipCreationPanel.setLayout(null);
+        shipCreationPanel.setLayout(new ScaledLayout(DESIGN_WIDTH, DESIGN_HEIGHT));
 
         initializeShipCreationLabels();
 
@@ -231,6 +396,14 @@ public class GameWindow extends JFrame implements ActionListener {
         resetButton.setBounds(gridOffsetX, gridOffsetY + gridSize + 80, 200, 50);
         resetButton.addActionListener(this);
 
+        undoPlacementButton = new JButton("Undo");
+        undoPlacementButton.setBounds(gridOffsetX + 220, gridOffsetY + gridSize + 20, 100, 50);
+        undoPlacementButton.addActionListener(this);
+
+        redoPlacementButton = new JButton("Redo");
+        redoPlacementButton.setBounds(gridOffsetX + 220, gridOffsetY + gridSize + 80, 100, 50);
+        redoPlacementButton.addActionListener(this);
+
         shipCreationCurrentPlayerLabel = new JLabel("Player 1");
         shipCreationCurrentPlayerLabel.setBounds(gridOffsetX + gridSize + 50, gridOffsetY, gridSize, gridSize);
         shipCreationCurrentPlayerLabel.setFont(new Font("Helvetica", Font.BOLD, 20));
@@ -238,42 +411,47 @@ public class GameWindow extends JFrame implements ActionListener {
         shipCreationGridPanel = new GridPanel(true, false);
         shipCreationGridPanel.setBounds(gridOffsetX, gridOffsetY, gridSize, gridSize);
 
-        shipCreationPanel.add(submarine);
-        shipCreationPanel.add(destroyer);
-        shipCreationPanel.add(cruiser);
-        shipCreationPanel.add(battleship);
-        shipCreationPanel.add(carrier);
-
-        shipCreationPanel.add(confirmButton);
-        shipCreationPanel.add(resetButton);
-        shipCreationPanel.add(shipCreationCurrentPlayerLabel);
-        shipCreationPanel.add(shipCreationGridPanel);
+        shipCreationPanel.add(submarine, submarine.getBounds());
+        shipCreationPanel.add(destroyer, destroyer.getBounds());
+        shipCreationPanel.add(cruiser, cruiser.getBounds());
+        shipCreationPanel.add(battleship, battleship.getBounds());
+        shipCreationPanel.add(carrier, carrier.getBounds());
+
+        shipCreationPanel.add(confirmButton, confirmButton.getBounds());
+        shipCreationPanel.add(resetButton, resetButton.getBounds());
+        shipCreationPanel.add(undoPlacementButton, undoPlacementButton.getBounds());
+        shipCreationPanel.add(redoPlacementButton, redoPlacementButton.getBounds());
+        shipCreationPanel.add(shipCreationCurrentPlayerLabel, shipCreationCurrentPlayerLabel.getBounds());
+        shipCreationPanel.add(shipCreationGridPanel, shipCreationGridPanel.getBounds());
     }
 
     /**
      * Sets up all of the <code>ShipLabel</code> labels used for creating the ships.
+     * The ship images are shown as soon as the <code>SpriteAtlas</code> has loaded them.
      */
     private void initializeShipCreationLabels(){
         submarine = new ShipLabel(1);
         submarine.setText("Submarine (2 left)");
-        submarine.setIcon(new ImageIcon("shipImages/submarine.png"));
         submarine.setBounds(1030, 25, 200, 124);
         destroyer = new ShipLabel(2);
         destroyer.setText("Destroyer (2 left)");
-        destroyer.setIcon(new ImageIcon("shipImages/destroyer.png"));
         destroyer.setBounds(1030, 149, 200, 124);
         cruiser = new ShipLabel(3);
         cruiser.setText("Cruiser (1 left)");
-        cruiser.setIcon(new ImageIcon("shipImages/cruiser.png"));
         cruiser.setBounds(1030, 273, 200, 124);
         battleship = new ShipLabel(4);
         battleship.setText("Battleship (1 left)");
-        battleship.setIcon(new ImageIcon("shipImages/battleship.png"));
         battleship.setBounds(1030, 397, 200, 124);
         carrier = new ShipLabel(5);
         carrier.setText("Carrier (1 left)");
-        carrier.setIcon(new ImageIcon("shipImages/carrier.png"));
         carrier.setBounds(1030, 521, 200, 124);
+        SpriteAtlas.whenLoaded(atlas -> {
+            submarine.setIcon(atlas.getShipIcon(1));
+            destroyer.setIcon(atlas.getShipIcon(2));
+            cruiser.setIcon(atlas.getShipIcon(3));
+            battleship.setIcon(atlas.getShipIcon(4));
+            carrier.setIcon(atlas.getShipIcon(5));
+        });
     }
 
     /**
@@ -292,11 +470,59 @@ public class GameWindow extends JFrame implements ActionListener {
         carrier.setText("Carrier (1 left)");
     }
 
+    /**
+     * Updates the text of the labels used for creating the ships to match how many ships of each type can still be placed.
+     * Labels of ship types that can't be placed anymore are disabled, the others are enabled and deselected.
+     */
+    public void updateShipCreationLabels(){
+        updateShipCreationLabel(submarine, "Submarine", 1);
+        updateShipCreationLabel(destroyer, "Destroyer", 2);
+        updateShipCreationLabel(cruiser, "Cruiser", 3);
+        updateShipCreationLabel(battleship, "Battleship", 4);
+        updateShipCreationLabel(carrier, "Carrier", 5);
+    }
+
+    /**
+     * Updates a single label used for creating the ships.
+     * @param label the label to update
+     * @param shipName the name of the ship type shown on the label
+     * @param shipSize the size of the ship type
+     */
+    private void updateShipCreationLabel(ShipLabel label, String shipName, int shipSize){
+        int remainder = GameState.getShipTypeRemainder(shipSize);
+        label.reset();
+        label.setText(shipName + " (" + remainder + " left)");
+        if(remainder <= 0){
+            label.disableSelect();
+        }
+    }
+
+    /**
+     * Enables or disables the "Undo" and "Redo" buttons depending on whether there is anything to undo or redo.
+     */
+    public void refreshUndoButtons(){
+        undoPlacementButton.setEnabled(GameState.canUndo());
+        redoPlacementButton.setEnabled(GameState.canRedo());
+        undoShotButton.setEnabled(GameState.canUndo());
+        redoShotButton.setEnabled(GameState.canRedo());
+    }
+
+    /**
+     * Shows how many tiles the current player has chosen for their salvo and enables the "Fire salvo" button if there is at least one.
+     */
+    public void refreshSalvoButton(){
+        fireSalvoButton.setText("Fire salvo (" + GameState.getSalvoTargetCount() + "/" + GameState.getSalvoSize() + ")");
+        fireSalvoButton.setEnabled(GameState.getSalvoTargetCount() > 0);
+    }
+
     /**
      * Handles the button presses.
      * The "Ready" button on the ready screen starts the player's turn.
      * The "Confirm ship placement" button on the ship creation screen saves the placement of the player's ships and either lets the other player/AI set up their ships, or it starts the game if the other player has already set up his ships.
      * The "Reset ship placement" button resets the labels showing the ships the player can place and the <code>GridPanel</code> where the player sets up his ship layout.
+     * The "Undo" and "Redo" buttons undo or redo the last ship placement, or the last shot when playing against the AI.
+     * The "Fire salvo" button fires the tiles chosen for the salvo in a salvo match.
+     * The heatmap button shows or hides the heatmap of where ships have been hit.
      * The "End turn" button ends the player's turn and shows the ready screen, letting the other player/the AI play.
      * @param e the event to be processed
      */
@@ -307,7 +533,6 @@ public class GameWindow extends JFrame implements ActionListener {
         } else if (e.getSource() == confirmButton) {
             if(GameState.getCreatedShips().size() >= 7){
                 GameState.confirmShipPlacement();
-                shipCreationGridPanel.assignValue(1);
                 if(GameState.getPlayerCount() == 1){
                     GameState.AIGenerateShips();
                 }
@@ -320,10 +545,16 @@ public class GameWindow extends JFrame implements ActionListener {
             }
         } else if (e.getSource() == resetButton) {
             if(JOptionPane.showConfirmDialog(null, "Are you sure you want to reset your ship layout?", "Reset ship layout", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE) == 0){
-                GameState.initializeShipCreation();
-                resetShipCreationLabels();
-                shipCreationGridPanel.assignValue(1);
+                GameState.resetShipPlacement();
             }
+        } else if (e.getSource() == undoPlacementButton || e.getSource() == undoShotButton) {
+            GameState.undo();
+        } else if (e.getSource() == redoPlacementButton || e.getSource() == redoShotButton) {
+            GameState.redo();
+        } else if (e.getSource() == fireSalvoButton) {
+            GameState.fireSalvo();
+        } else if (e.getSource() == heatmapButton) {
+            refreshHeatmap();
         } else if (e.getSource() == endTurnButton) {
             GameState.newTurn();
             if(GameState.getPlayerCount() == 1){
@@ -1,11 +1,23 @@
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * A subclass of <code>JPanel</code> made for displaying and keeping track of a set of ships.
+ * Changes to many tiles at once don't repaint each tile on its own. The changed tiles are collected into one dirty region, which is repainted once at the start of the next frame by the <code>FrameScheduler</code>.
+ * The board is volatile, so a <code>BoardCanvas</code> can read it from the thread of its <code>RenderLoop</code>.
  */
 public class GridPanel extends JPanel {
     private Tile[][] tiles;
+    private volatile Board board;
+    private List<Ship> ships;
+    private SpriteAtlas spriteAtlas;
+    private Consumer<Coordinates> shotHandler;
+    private Rectangle dirtyRegion;
+    private final Runnable repaintTask = this::repaintDirtyRegion;
 
     /**
      * Constructs a new grid panel.
@@ -16,12 +28,18 @@ public class GridPanel extends JPanel {
     GridPanel(boolean canSee, boolean isOpponentGrid){
         this.setLayout(new GridLayout(10, 10));
         tiles = new Tile[10][10];
+        board = Board.filled(10, canSee ? 1 : 0);
         for(int i = 0; i < 10; i++){
             for(int j = 0; j < 10; j++){
-                tiles[j][i] = new Tile(new Coordinates(j, i), canSee, isOpponentGrid);
+                tiles[j][i] = new Tile(this, new Coordinates(j, i), canSee, isOpponentGrid);
                 this.add(tiles[j][i]);
             }
         }
+        ships = new ArrayList<>();
+        SpriteAtlas.whenLoaded(atlas -> {
+            spriteAtlas = atlas;
+            refreshShipSprites();
+        });
     }
 
     /**
@@ -32,16 +50,245 @@ public class GridPanel extends JPanel {
         return tiles;
     }
 
+    /**
+     * Gets the current version of the board of this grid panel.
+     * The board always holds the same types as the tiles of this panel.
+     * @return this panel's board
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Gets the type of the tile at the passed in location.
+     * @param x the location of the tile on the X axis
+     * @param y the location of the tile on the Y axis
+     * @return the type of the tile
+     */
+    public int getType(int x, int y) {
+        return board.get(x, y);
+    }
+
+    /**
+     * Sets the type of the tile at the passed in location.
+     * Note that the color of the tile is not refreshed.
+     * @param x the location of the tile on the X axis
+     * @param y the location of the tile on the Y axis
+     * @param type the new type of the tile
+     */
+    public void setType(int x, int y, int type) {
+        board = board.with(x, y, type);
+        tiles[x][y].setType(type);
+    }
+
+    /**
+     * Replaces the board of this grid panel with the passed in board and refreshes the color of each tile that changed.
+     * Rows that the old and the new board share are skipped, so showing a board that only differs in a few tiles is cheap.
+     * Used for restoring an older version of this panel and for showing the result of a salvo all at once.
+     * @param board the new board
+     */
+    public void showBoard(Board board) {
+        Board oldBoard = this.board;
+        this.board = board;
+        for(int j = 0; j < 10; j++){
+            if(board.rowEquals(oldBoard, j)){
+                continue;
+            }
+            for(int i = 0; i < 10; i++){
+                if(board.get(i, j) != oldBoard.get(i, j)){
+                    tiles[i][j].setType(board.get(i, j));
+                    tiles[i][j].updateColor();
+                    markDirty(tiles[i][j]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Shows how a player's board looks to their opponent, keeping the tiles this grid panel's player highlighted.
+     * Highlighted tiles stay highlighted as long as they're still undiscovered in the new view.
+     * @param view the opponent's view of the board, as returned by <code>Match.opponentView</code>
+     */
+    public void showOpponentView(Board view) {
+        int[] xs = new int[100];
+        int[] ys = new int[100];
+        int[] types = new int[100];
+        int highlightCount = 0;
+        for(int j = 0; j < 10; j++){
+            for(int i = 0; i < 10; i++){
+                if(board.get(i, j) == 5 && view.get(i, j) == 0){
+                    xs[highlightCount] = i;
+                    ys[highlightCount] = j;
+                    types[highlightCount] = 5;
+                    highlightCount++;
+                }
+            }
+        }
+        showBoard(view.withAll(xs, ys, types, highlightCount));
+    }
+
+    /**
+     * Adds a tile to the region of this grid panel that is repainted at the start of the next frame.
+     * @param tile the changed tile
+     */
+    private void markDirty(Tile tile) {
+        if(dirtyRegion == null){
+            dirtyRegion = tile.getBounds();
+            FrameScheduler.schedule(repaintTask);
+        } else {
+            dirtyRegion.add(tile.getBounds());
+        }
+    }
+
+    /**
+     * Marks every tile of this grid panel as changed.
+     */
+    private void markAllDirty() {
+        dirtyRegion = new Rectangle(0, 0, getWidth(), getHeight());
+        FrameScheduler.schedule(repaintTask);
+    }
+
+    /**
+     * Repaints the region of this grid panel that holds all the tiles changed since the last frame, with a single repaint request.
+     */
+    private void repaintDirtyRegion() {
+        if(dirtyRegion != null){
+            repaint(dirtyRegion);
+            dirtyRegion = null;
+        }
+    }
+
+    /**
+     * Gets the handler that is called when a tile of this grid panel is shot.
+     * @return the shot handler, or <code>null</code> if the shots are handled by <code>GameState</code>
+     */
+    public Consumer<Coordinates> getShotHandler() {
+        return shotHandler;
+    }
+
+    /**
+     * Sets the handler that is called when a tile of this grid panel is shot, instead of letting <code>GameState</code> handle the shot.
+     * Grid panels with a shot handler never take part in the ship creating phase of <code>GameState</code>.
+     * @param shotHandler the handler receiving the coordinates of the shot tile
+     */
+    public void setShotHandler(Consumer<Coordinates> shotHandler) {
+        this.shotHandler = shotHandler;
+    }
+
+    /**
+     * Sets the ships drawn on this grid panel.
+     * Each tile occupied by a ship shows its part of the ship's image.
+     * The list is not copied, so this method should be called again whenever ships are added to it or removed from it.
+     * @param ships the ships to draw
+     */
+    public void setShips(List<Ship> ships) {
+        this.ships = ships;
+        refreshShipSprites();
+    }
+
+    /**
+     * Gives each tile the part of a ship's image it should draw, using images already scaled to the size of the tiles in device pixels, so they stay sharp on high resolution displays.
+     * Nothing is drawn until the ship images have been loaded. Only the tiles whose image changed are repainted.
+     */
+    private void refreshShipSprites() {
+        Image[][] newSprites = new Image[10][10];
+        int tileSize = Math.max((int) Math.round(getWidth() / 10 * getDeviceScale()), 1);
+        for(Ship ship : ships){
+            if(spriteAtlas == null){
+                break;
+            }
+            int minX = 10;
+            int minY = 10;
+            boolean vertical = true;
+            for(Coordinates coordinates : ship.getTiles()){
+                minX = Math.min(minX, coordinates.getX());
+                minY = Math.min(minY, coordinates.getY());
+                vertical &= coordinates.getX() == ship.getTiles().get(0).getX();
+            }
+            BufferedImage[] sprites = spriteAtlas.getTileSprites(ship.getSize(), vertical ? 1 : 2, tileSize);
+            if(sprites != null){
+                for(Coordinates coordinates : ship.getTiles()){
+                    int index = vertical ? coordinates.getY() - minY : coordinates.getX() - minX;
+                    newSprites[coordinates.getX()][coordinates.getY()] = sprites[index];
+                }
+            }
+        }
+        for(int i = 0; i < 10; i++){
+            for(int j = 0; j < 10; j++){
+                if(tiles[i][j].setSprite(newSprites[i][j])){
+                    markDirty(tiles[i][j]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets how many device pixels one pixel of this grid panel takes on the screen it's shown on, which is more than 1 on high resolution displays.
+     * A grid panel that isn't shown (like the ones drawn by a <code>BoardCanvas</code>) uses the scale of the main screen.
+     * @return the scale
+     */
+    private double getDeviceScale() {
+        GraphicsConfiguration configuration = getGraphicsConfiguration();
+        if(configuration == null){
+            if(GraphicsEnvironment.isHeadless()){
+                return 1;
+            }
+            configuration = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+        }
+        return configuration.getDefaultTransform().getScaleX();
+    }
+
+    /**
+     * Scales the ship images to the screen this grid panel is shown on, once it's shown.
+     */
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        refreshShipSprites();
+    }
+
+    /**
+     * Draws a heatmap over the tiles of this grid panel.
+     * The hotter a tile is, the more strongly it's tinted orange.
+     * @param heatmap the heat of every tile between 0 and 1, row by row (as returned by <code>HeatmapAnalytics.getHeatmap</code>), or <code>null</code> to remove the heatmap
+     */
+    public void showHeatmap(double[] heatmap) {
+        for(int i = 0; i < 10; i++){
+            for(int j = 0; j < 10; j++){
+                tiles[j][i].setOverlay(heatmap == null ? null : new Color(255, 140, 0, (int) (Math.max(0, Math.min(heatmap[i * 10 + j], 1)) * 180)));
+            }
+        }
+        markAllDirty();
+    }
+
+    /**
+     * Sets the size and location of this grid panel, and scales the ship images to the new size of the tiles.
+     * @param x the new location of this panel on the X axis
+     * @param y the new location of this panel on the Y axis
+     * @param width the new width of this panel
+     * @param height the new height of this panel
+     */
+    @Override
+    public void setBounds(int x, int y, int width, int height) {
+        boolean resized = width != getWidth();
+        super.setBounds(x, y, width, height);
+        if(resized && tiles != null){
+            refreshShipSprites();
+        }
+    }
+
     /**
      * Assigns the passed in value as the type of each tile in this grid panel.
      * @param type the type assigned to each tile
      */
     public void assignValue(int type){
+        board = Board.filled(10, type);
         for(int i = 0; i < 10; i++){
             for(int j = 0; j < 10; j++){
                 tiles[i][j].setType(type);
-                tiles[i][j].refreshColor();
+                tiles[i][j].updateColor();
             }
         }
+        markAllDirty();
     }
 }
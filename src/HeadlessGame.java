@@ -0,0 +1,349 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A match between two <code>HeadlessStrategy</code>s that is played entirely on arrays of primitives, for simulating many matches one after another.
+ * It follows the same rules as <code>Match</code>, including salvo matches, and places the fleets like <code>Match.placeFleetRandomly</code>, but the same instance is reused for every match it plays.
+ * Once the code has been compiled, playing a match doesn't allocate any memory at all, so a simulation doesn't keep the garbage collector busy. The <code>StrategyHarness</code> plays its head-to-head matches on it, and <code>AllocationGate</code> checks that they stay free of allocations.
+ * <code>Match</code> is still what the user interfaces play on, since the undo history, the replays and the snapshots rely on its immutable boards.
+ * Players are numbered from 0 inside this class and from 1 outside of it, like everywhere else.
+ */
+public final class HeadlessGame {
+    private static final int CELL_COUNT = Match.BOARD_SIZE * Match.BOARD_SIZE;
+    private static final int SHIP_COUNT = Match.FLEET.length;
+    private static final int MAX_SHIP_SIZE = maxShipSize();
+
+    private final Random random;
+    private final int[] tiles;
+    private final int[] shipAt;
+    private final int[] shipHits;
+    private final int[] shipCells;
+    private final int[] shipRotations;
+    private final int[] shipsRemaining;
+    private final int[] shots;
+    private final int[] shotCounts;
+    private final int[] undiscovered;
+    private final int[] undiscoveredPositions;
+    private final int[] undiscoveredCounts;
+    private final int[] salvoCells;
+    private final int[] salvoResults;
+    private final LatencyRecorder[] latencies;
+    private HeatmapAnalytics analytics;
+    private long moveBudgetNanos;
+
+    /**
+     * Constructs a new game. Every array the matches need is allocated here.
+     */
+    public HeadlessGame() {
+        random = new Random();
+        tiles = new int[2 * CELL_COUNT];
+        shipAt = new int[2 * CELL_COUNT];
+        shipHits = new int[2 * SHIP_COUNT];
+        shipCells = new int[2 * SHIP_COUNT * MAX_SHIP_SIZE];
+        shipRotations = new int[2 * SHIP_COUNT];
+        shipsRemaining = new int[2];
+        shots = new int[2 * CELL_COUNT];
+        shotCounts = new int[2];
+        undiscovered = new int[2 * CELL_COUNT];
+        undiscoveredPositions = new int[2 * CELL_COUNT];
+        undiscoveredCounts = new int[2];
+        salvoCells = new int[SHIP_COUNT];
+        salvoResults = new int[SHIP_COUNT];
+        latencies = new LatencyRecorder[2];
+    }
+
+    /**
+     * Sets the heatmap the fleets and shots of the following matches are recorded in.
+     * @param analytics the heatmap, or <code>null</code> to not record anything
+     */
+    public void setAnalytics(HeatmapAnalytics analytics) {
+        this.analytics = analytics;
+    }
+
+    /**
+     * Sets how long a strategy has for every move of the following matches, a single shot or a whole salvo.
+     * A move can't be interrupted, since it runs on the thread playing the match, so a move that took longer is replaced afterwards: the tiles the strategy chose from then on are thrown away and default shots (random undiscovered tiles) are fired instead, like the <code>StrategyHarness</code> does with a late move.
+     * @param moveBudgetNanos the budget in nanoseconds, or 0 for no budget
+     */
+    public void setMoveBudget(long moveBudgetNanos) {
+        this.moveBudgetNanos = moveBudgetNanos;
+    }
+
+    /**
+     * Sets the recorders the time of every move of the following matches is recorded in, including whether it ran out of its budget.
+     * @param first the recorder of player 1's strategy, or <code>null</code> to not time its moves
+     * @param second the recorder of player 2's strategy, or <code>null</code> to not time its moves
+     */
+    public void setLatencies(LatencyRecorder first, LatencyRecorder second) {
+        latencies[0] = first;
+        latencies[1] = second;
+    }
+
+    /**
+     * Gets the size of the largest ship of <code>Match.FLEET</code>.
+     * @return the size
+     */
+    private static int maxShipSize() {
+        int size = 0;
+        for (int shipSize : Match.FLEET) {
+            size = Math.max(size, shipSize);
+        }
+        return size;
+    }
+
+    /**
+     * Plays a match from the placement of the fleets to the last shot. Player 1 shoots first.
+     * A tile a strategy chooses that can't be shot is replaced by a random undiscovered tile. In a salvo match, every player fires one shot for every ship of theirs that hasn't been sunk yet, and the shots are resolved together like <code>Match.salvo</code> does: a shot next to a ship sunk by the same salvo is a miss.
+     * The strategies aren't reset, so they should be reset before the match if they played before.
+     * @param first the strategy of player 1
+     * @param second the strategy of player 2
+     * @param salvo whether the match is a salvo match
+     * @param seed the seed of the random number generator of the match, so the same seed and strategies always play the same match
+     * @return the winner (1 or 2)
+     */
+    public int play(HeadlessStrategy first, HeadlessStrategy second, boolean salvo, long seed) {
+        random.setSeed(seed);
+        Arrays.fill(tiles, 1);
+        Arrays.fill(shipAt, -1);
+        Arrays.fill(shipHits, 0);
+        for (int player = 0; player < 2; player++) {
+            shotCounts[player] = 0;
+            undiscoveredCounts[player] = CELL_COUNT;
+            for (int cell = 0; cell < CELL_COUNT; cell++) {
+                undiscovered[player * CELL_COUNT + cell] = cell;
+                undiscoveredPositions[player * CELL_COUNT + cell] = cell;
+            }
+            placeFleet(player);
+        }
+        int player = 0;
+        while (shipsRemaining[0] > 0 && shipsRemaining[1] > 0) {
+            HeadlessStrategy strategy = player == 0 ? first : second;
+            int shotCount = salvo ? shipsRemaining[player] : 1;
+            int fired = 0;
+            long start = System.nanoTime();
+            boolean late = false;
+            while (fired < shotCount && undiscoveredCounts[player] > 0) {
+                int cell = late ? -1 : strategy.chooseCell(this, player + 1, random);
+                if (!late && moveBudgetNanos > 0 && System.nanoTime() - start > moveBudgetNanos) {
+                    late = true;
+                    cell = -1;
+                }
+                if (cell < 0 || cell >= CELL_COUNT || undiscoveredPositions[player * CELL_COUNT + cell] < 0) {
+                    cell = undiscovered[player * CELL_COUNT + random.nextInt(undiscoveredCounts[player])];
+                }
+                removeUndiscovered(player, cell);
+                salvoCells[fired++] = cell;
+            }
+            if (latencies[player] != null) {
+                latencies[player].record(System.nanoTime() - start, late);
+            }
+            for (int i = 0; i < fired; i++) {
+                salvoResults[i] = shoot(1 - player, salvoCells[i]);
+            }
+            for (int i = 0; i < fired; i++) {
+                strategy.learnCell(salvoCells[i], salvoResults[i]);
+            }
+            player = 1 - player;
+        }
+        return shipsRemaining[0] > 0 ? 1 : 2;
+    }
+
+    /**
+     * Returns whether a player can still shoot a tile of their opponent's board, because it hasn't been shot, revealed or chosen for the salvo that is being put together.
+     * @param player the player shooting (1 or 2)
+     * @param cell the tile, row by row
+     * @return whether the tile is undiscovered
+     */
+    public boolean isUndiscovered(int player, int cell) {
+        return undiscoveredPositions[(player - 1) * CELL_COUNT + cell] >= 0;
+    }
+
+    /**
+     * Gets how many tiles of their opponent's board a player can still shoot.
+     * @param player the player shooting (1 or 2)
+     * @return the amount of undiscovered tiles
+     */
+    public int getUndiscoveredCount(int player) {
+        return undiscoveredCounts[player - 1];
+    }
+
+    /**
+     * Gets one of the tiles of their opponent's board a player can still shoot. The order of the tiles changes as they're shot.
+     * @param player the player shooting (1 or 2)
+     * @param index the index of the tile, from 0 to <code>getUndiscoveredCount</code> (excluded)
+     * @return the tile, row by row
+     */
+    public int getUndiscovered(int player, int index) {
+        return undiscovered[(player - 1) * CELL_COUNT + index];
+    }
+
+    /**
+     * Gets how many shots a player fired in the last match.
+     * @param player the player who shot (1 or 2)
+     * @return the amount of shots
+     */
+    public int getShotCount(int player) {
+        return shotCounts[player - 1];
+    }
+
+    /**
+     * Gets how many ships of a player were left at the end of the last match.
+     * @param player the player (1 or 2)
+     * @return the amount of ships that weren't sunk
+     */
+    public int getShipsRemaining(int player) {
+        return shipsRemaining[player - 1];
+    }
+
+    /**
+     * Gets the fleet a player had in the last match, as new <code>Ship</code>s, for archiving it. Unlike playing, this allocates memory.
+     * @param player the player (1 or 2)
+     * @return the ships, with their tiles in the order <code>Match.placeShip</code> lists them
+     */
+    public List<Ship> getShips(int player) {
+        List<Ship> ships = new ArrayList<>();
+        for (int ship = (player - 1) * SHIP_COUNT; ship < player * SHIP_COUNT; ship++) {
+            ArrayList<Coordinates> shipTiles = new ArrayList<>();
+            for (int i = 0; i < Match.FLEET[ship % SHIP_COUNT]; i++) {
+                int cell = shipCells[ship * MAX_SHIP_SIZE + i];
+                shipTiles.add(new Coordinates(cell % Match.BOARD_SIZE, cell / Match.BOARD_SIZE));
+            }
+            Ship newShip = new Ship(shipTiles);
+            newShip.setRotation(shipRotations[ship]);
+            ships.add(newShip);
+        }
+        return ships;
+    }
+
+    /**
+     * Gets the tiles a player shot in the last match, as new <code>Coordinates</code>, for archiving them. Unlike playing, this allocates memory.
+     * @param player the player who shot (1 or 2)
+     * @return the tiles, in the order they were shot
+     */
+    public List<Coordinates> getShots(int player) {
+        List<Coordinates> playerShots = new ArrayList<>();
+        for (int i = 0; i < shotCounts[player - 1]; i++) {
+            int cell = shots[(player - 1) * CELL_COUNT + i];
+            playerShots.add(new Coordinates(cell % Match.BOARD_SIZE, cell / Match.BOARD_SIZE));
+        }
+        return playerShots;
+    }
+
+    /**
+     * Places all the ships of a player at random locations, from the largest to the smallest, the same way <code>Match.placeFleetRandomly</code> does.
+     * @param player the player (0 or 1)
+     */
+    private void placeFleet(int player) {
+        shipsRemaining[player] = 0;
+        for (int ship = 0; ship < SHIP_COUNT; ship++) {
+            int size = Match.FLEET[ship];
+            int x;
+            int y;
+            int rotation;
+            do {
+                x = random.nextInt(Match.BOARD_SIZE);
+                y = random.nextInt(Match.BOARD_SIZE);
+                rotation = random.nextInt(2) + 1;
+            } while (!canPlaceShip(player, x, y, size, rotation));
+            for (int i = 0; i < size; i++) {
+                int cell = (rotation == 1 ? y - i : y) * Match.BOARD_SIZE + (rotation == 1 ? x : x + i);
+                tiles[player * CELL_COUNT + cell] = 2;
+                shipAt[player * CELL_COUNT + cell] = ship;
+                shipCells[(player * SHIP_COUNT + ship) * MAX_SHIP_SIZE + i] = cell;
+                if (analytics != null) {
+                    analytics.recordPlacement(cell % Match.BOARD_SIZE, cell / Match.BOARD_SIZE);
+                }
+            }
+            shipRotations[player * SHIP_COUNT + ship] = rotation;
+            shipsRemaining[player]++;
+        }
+    }
+
+    /**
+     * Returns whether a ship fits at a location without touching any other ship, like <code>Match.canPlaceShip</code>.
+     * @param player the player placing the ship (0 or 1)
+     * @param x the location of the ship's first tile on the X axis
+     * @param y the location of the ship's first tile on the Y axis
+     * @param size the size of the ship
+     * @param rotation the rotation of the ship (1 = vertical, extending upwards, 2 = horizontal, extending to the right)
+     * @return whether the ship can be placed there
+     */
+    private boolean canPlaceShip(int player, int x, int y, int size, int rotation) {
+        if (rotation == 1 ? y - size + 1 < 0 : x + size - 1 >= Match.BOARD_SIZE) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            int tileX = rotation == 1 ? x : x + i;
+            int tileY = rotation == 1 ? y - i : y;
+            for (int j = Math.max(tileX - 1, 0); j <= Math.min(tileX + 1, Match.BOARD_SIZE - 1); j++) {
+                for (int k = Math.max(tileY - 1, 0); k <= Math.min(tileY + 1, Match.BOARD_SIZE - 1); k++) {
+                    if (tiles[player * CELL_COUNT + k * Match.BOARD_SIZE + j] == 2) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Shoots at a tile of a player's board, like <code>Match.shoot</code>.
+     * The tile has to be taken out of the shooter's undiscovered tiles before, so the shots of a salvo can be chosen before any of them is resolved.
+     * A tile revealed around a ship sunk earlier in the same salvo is still shot, as a miss.
+     * @param player the player being shot at (0 or 1)
+     * @param cell the tile, row by row
+     * @return <code>Match.MISS</code>, <code>Match.HIT</code> or <code>Match.SUNK</code>
+     */
+    private int shoot(int player, int cell) {
+        int shooter = 1 - player;
+        shots[shooter * CELL_COUNT + shotCounts[shooter]++] = cell;
+        int index = player * CELL_COUNT + cell;
+        if (analytics != null) {
+            analytics.recordShot(cell % Match.BOARD_SIZE, cell / Match.BOARD_SIZE, tiles[index] == 2);
+        }
+        if (tiles[index] != 2) {
+            tiles[index] = 4;
+            return Match.MISS;
+        }
+        tiles[index] = 3;
+        int ship = player * SHIP_COUNT + shipAt[index];
+        shipHits[ship]++;
+        if (shipHits[ship] < Match.FLEET[shipAt[index]]) {
+            return Match.HIT;
+        }
+        for (int i = 0; i < shipHits[ship]; i++) {
+            int shipCell = shipCells[ship * MAX_SHIP_SIZE + i];
+            int x = shipCell % Match.BOARD_SIZE;
+            int y = shipCell / Match.BOARD_SIZE;
+            for (int j = Math.max(x - 1, 0); j <= Math.min(x + 1, Match.BOARD_SIZE - 1); j++) {
+                for (int k = Math.max(y - 1, 0); k <= Math.min(y + 1, Match.BOARD_SIZE - 1); k++) {
+                    int neighbour = k * Match.BOARD_SIZE + j;
+                    if (tiles[player * CELL_COUNT + neighbour] == 1) {
+                        tiles[player * CELL_COUNT + neighbour] = 6;
+                        removeUndiscovered(shooter, neighbour);
+                    }
+                }
+            }
+        }
+        shipsRemaining[player]--;
+        return Match.SUNK;
+    }
+
+    /**
+     * Removes a tile from the tiles a player can still shoot, by moving the last tile of the list into its place.
+     * @param player the player (0 or 1)
+     * @param cell the tile of the opponent's board
+     */
+    private void removeUndiscovered(int player, int cell) {
+        int position = undiscoveredPositions[player * CELL_COUNT + cell];
+        if (position < 0) {
+            return;
+        }
+        int last = undiscovered[player * CELL_COUNT + --undiscoveredCounts[player]];
+        undiscovered[player * CELL_COUNT + position] = last;
+        undiscoveredPositions[player * CELL_COUNT + last] = position;
+        undiscoveredPositions[player * CELL_COUNT + cell] = -1;
+    }
+}
@@ -0,0 +1,32 @@
+import java.util.Random;
+
+/**
+ * An <code>AIStrategy</code> that can also play on a <code>HeadlessGame</code>, where it chooses its shots from the game's arrays instead of from a <code>Board</code>, so simulating its matches doesn't allocate any memory.
+ * The <code>StrategyHarness</code> plays a match on a headless game whenever both strategies implement this interface, and on a <code>Match</code> otherwise.
+ * Headless moves are made on the thread playing the match and can't be interrupted: a move that runs out of its time budget is only replaced by default shots once it's over, so only strategies that choose their shots in a short, bounded amount of time should implement this interface. Their fleets are always placed at random, like the default <code>placeFleet</code> does.
+ * Tiles are numbered row by row (<code>y * Match.BOARD_SIZE + x</code>).
+ */
+public interface HeadlessStrategy extends AIStrategy {
+
+    /**
+     * Forgets everything this strategy learned, so the same instance can play a new match.
+     */
+    void reset();
+
+    /**
+     * Chooses the next tile to shoot at, without allocating any memory.
+     * In a salvo, the tiles chosen earlier in the same salvo already count as shot.
+     * @param game the game being played
+     * @param player the player this strategy plays as (1 or 2)
+     * @param random the random number generator to use
+     * @return the tile to shoot at, which should be undiscovered (see <code>HeadlessGame.isUndiscovered</code>)
+     */
+    int chooseCell(HeadlessGame game, int player, Random random);
+
+    /**
+     * Tells this strategy the result of one of the shots fired for it, without allocating any memory.
+     * @param cell the tile that was shot
+     * @param result <code>Match.MISS</code>, <code>Match.HIT</code> or <code>Match.SUNK</code>
+     */
+    void learnCell(int cell, int result);
+}
@@ -0,0 +1,215 @@
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts, for every tile of the board, how often ships were placed on it, how often it was shot and how often it was hit.
+ * The counters are split into a fixed number of stripes, a few for every processor, and every thread records into the stripe picked by a hash of the thread, so many simulation threads rarely change the same counters at the same time.
+ * The stripes are allocated once, so recording never allocates memory, however many threads come and go. They're added together when the counts are read.
+ */
+public final class HeatmapAnalytics {
+    public static final int PLACEMENT = 0;
+    public static final int SHOT = 1;
+    public static final int HIT = 2;
+    private static final int KIND_COUNT = 3;
+
+    private static HeatmapAnalytics global;
+
+    private final int size;
+    private final int stripeMask;
+    private final AtomicLongArray counters;
+
+    /**
+     * Constructs a new heatmap where all the counts are 0.
+     * @param size the width and height of the board
+     */
+    public HeatmapAnalytics(int size) {
+        this.size = size;
+        int stripeCount = Integer.highestOneBit(Math.max(Runtime.getRuntime().availableProcessors() * 4 - 1, 1)) * 2;
+        stripeMask = stripeCount - 1;
+        counters = new AtomicLongArray(stripeCount * KIND_COUNT * size * size);
+    }
+
+    /**
+     * Gets the heatmap of every game played or simulated by this program, loading the counts saved by earlier runs the first time it's needed.
+     * @return the global heatmap
+     */
+    public static synchronized HeatmapAnalytics getGlobal() {
+        if (global == null) {
+            global = new HeatmapAnalytics(Match.BOARD_SIZE);
+            try {
+                global.load(getGlobalFile());
+            } catch (IOException e) {
+                // Start counting from 0 if the saved counts can't be read.
+            }
+        }
+        return global;
+    }
+
+    /**
+     * Saves the counts of the global heatmap, so they can be loaded by the next run of the program.
+     * @throws IOException if the counts can't be written
+     */
+    public static void saveGlobal() throws IOException {
+        File file = getGlobalFile();
+        if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+            throw new IOException("Couldn't create directory " + file.getParentFile());
+        }
+        getGlobal().save(file);
+    }
+
+    /**
+     * Gets the file the global heatmap is saved to.
+     * @return the file
+     */
+    private static File getGlobalFile() {
+        return new File("results", "heatmap.dat");
+    }
+
+    /**
+     * Gets the width and height of the board.
+     * @return the size of the board
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Increases one counter in the stripe of the current thread.
+     * Threads with different ids usually get different stripes, but two threads can share one, so the counter is increased atomically.
+     * @param kind <code>PLACEMENT</code>, <code>SHOT</code> or <code>HIT</code>
+     * @param x the location of the tile on the X axis
+     * @param y the location of the tile on the Y axis
+     * @param amount the amount to add
+     */
+    private void add(int kind, int x, int y, long amount) {
+        int stripe = (int) (Thread.currentThread().getId() * 0x9E3779B97F4A7C15L >>> 32) & stripeMask;
+        counters.getAndAdd(((stripe * KIND_COUNT + kind) * size + y) * size + x, amount);
+    }
+
+    /**
+     * Records a shot.
+     * @param x the location of the tile that was shot on the X axis
+     * @param y the location of the tile that was shot on the Y axis
+     * @param hit whether the shot hit a ship
+     */
+    public void recordShot(int x, int y, boolean hit) {
+        add(SHOT, x, y, 1);
+        if (hit) {
+            add(HIT, x, y, 1);
+        }
+    }
+
+    /**
+     * Records one tile of a confirmed fleet, for fleets that aren't kept as <code>Ship</code>s.
+     * @param x the location of the tile on the X axis
+     * @param y the location of the tile on the Y axis
+     */
+    public void recordPlacement(int x, int y) {
+        add(PLACEMENT, x, y, 1);
+    }
+
+    /**
+     * Records the tiles of a confirmed fleet.
+     * @param ships the ships of the fleet
+     */
+    public void recordFleet(List<Ship> ships) {
+        for (Ship ship : ships) {
+            for (Coordinates coordinates : ship.getTiles()) {
+                add(PLACEMENT, coordinates.getX(), coordinates.getY(), 1);
+            }
+        }
+    }
+
+    /**
+     * Adds up the counters of all the stripes.
+     * Counts recorded at the same time as this method runs may or may not be included.
+     * @param kind <code>PLACEMENT</code>, <code>SHOT</code> or <code>HIT</code>
+     * @return the count of every tile, row by row
+     */
+    public long[] getCounts(int kind) {
+        long[] counts = new long[size * size];
+        for (int stripe = 0; stripe <= stripeMask; stripe++) {
+            int offset = (stripe * KIND_COUNT + kind) * size * size;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += counters.get(offset + i);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Gets the counts of every tile divided by the highest count, so the most counted tile has a heat of 1.
+     * @param kind <code>PLACEMENT</code>, <code>SHOT</code> or <code>HIT</code>
+     * @return the heat of every tile between 0 and 1, row by row
+     */
+    public double[] getHeatmap(int kind) {
+        long[] counts = getCounts(kind);
+        long max = 1;
+        for (long count : counts) {
+            max = Math.max(max, count);
+        }
+        double[] heatmap = new double[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            heatmap[i] = (double) counts[i] / max;
+        }
+        return heatmap;
+    }
+
+    /**
+     * Writes all the counts to a file.
+     * The counts are written to a temporary file next to it first, which then replaces the file, so a program that is stopped while saving never leaves a half written heatmap behind.
+     * @param file the file to write to
+     * @throws IOException if the file can't be written
+     */
+    public synchronized void save(File file) throws IOException {
+        File temporary = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            out.writeInt(size);
+            for (int kind = 0; kind < KIND_COUNT; kind++) {
+                for (long count : getCounts(kind)) {
+                    out.writeLong(count);
+                }
+            }
+        }
+        try {
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Adds the counts written to a file by <code>save</code> to the counts of this heatmap.
+     * The whole file is read before any count is added, so nothing is added if the file is cut short or otherwise damaged.
+     * @param file the file to read from
+     * @throws IOException if the file can't be read, is damaged or was saved for a different board size
+     */
+    public void load(File file) throws IOException {
+        long[] counts = new long[KIND_COUNT * size * size];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != size) {
+                throw new IOException("The heatmap in " + file + " has a different board size");
+            }
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = in.readLong();
+                if (counts[i] < 0) {
+                    throw new IOException("The heatmap in " + file + " is damaged");
+                }
+            }
+            if (in.read() != -1) {
+                throw new IOException("The heatmap in " + file + " is damaged");
+            }
+        }
+        for (int kind = 0; kind < KIND_COUNT; kind++) {
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    add(kind, x, y, counts[(kind * size + y) * size + x]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes the small JSON documents of the bot API (see <code>BotApiServer</code>), without any library.
+ * Objects are read as <code>Map</code>s, arrays as <code>List</code>s, whole numbers as <code>Long</code>s, other numbers as <code>Double</code>s, and strings, booleans and <code>null</code> as themselves.
+ */
+public final class Json {
+    private static final int MAXIMUM_DEPTH = 32;
+
+    private final String text;
+    private int position;
+
+    /**
+     * Constructs a new reader of a JSON document.
+     * @param text the document
+     */
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Reads a JSON document.
+     * @param text the document
+     * @return the value of the document
+     * @throws IllegalArgumentException if the document isn't valid JSON or is nested too deeply
+     */
+    public static Object parse(String text) {
+        Json json = new Json(text);
+        Object value = json.readValue(0);
+        json.skipWhitespace();
+        if (json.position != text.length()) {
+            throw json.error("Unexpected text after the value");
+        }
+        return value;
+    }
+
+    /**
+     * Gets a whole number from a JSON object.
+     * @param object the object
+     * @param key the key of the number
+     * @return the number
+     * @throws IllegalArgumentException if the object doesn't have a whole number that fits an <code>int</code> under the key
+     */
+    public static int getInt(Map<?, ?> object, String key) {
+        if (!(object.get(key) instanceof Long number) || number != (int) (long) number) {
+            throw new IllegalArgumentException("\"" + key + "\" must be a whole number");
+        }
+        return (int) (long) number;
+    }
+
+    /**
+     * Writes a string as a JSON string, with quotes.
+     * @param builder the builder the string is appended to
+     * @param string the string
+     * @return the builder
+     */
+    public static StringBuilder quote(StringBuilder builder, String string) {
+        builder.append('"');
+        for (int i = 0; i < string.length(); i++) {
+            char character = string.charAt(i);
+            switch (character) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if (character < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) character));
+                    } else {
+                        builder.append(character);
+                    }
+                }
+            }
+        }
+        return builder.append('"');
+    }
+
+    /**
+     * Reads any value.
+     * @param depth how many arrays and objects the value is in
+     * @return the value
+     */
+    private Object readValue(int depth) {
+        if (depth > MAXIMUM_DEPTH) {
+            throw error("The document is nested too deeply");
+        }
+        skipWhitespace();
+        if (position == text.length()) {
+            throw error("Unexpected end of the document");
+        }
+        char character = text.charAt(position);
+        return switch (character) {
+            case '{' -> readObject(depth);
+            case '[' -> readArray(depth);
+            case '"' -> readString();
+            case 't' -> readLiteral("true", Boolean.TRUE);
+            case 'f' -> readLiteral("false", Boolean.FALSE);
+            case 'n' -> readLiteral("null", null);
+            default -> {
+                if (character == '-' || character >= '0' && character <= '9') {
+                    yield readNumber();
+                }
+                throw error("Unexpected character '" + character + "'");
+            }
+        };
+    }
+
+    /**
+     * Reads an object, keeping the order of its keys.
+     * @param depth how many arrays and objects the object is in
+     * @return the object
+     */
+    private Map<String, Object> readObject(int depth) {
+        Map<String, Object> object = new LinkedHashMap<>();
+        position++;
+        skipWhitespace();
+        if (consume('}')) {
+            return object;
+        }
+        do {
+            skipWhitespace();
+            if (position == text.length() || text.charAt(position) != '"') {
+                throw error("Expected a key");
+            }
+            String key = readString();
+            skipWhitespace();
+            if (!consume(':')) {
+                throw error("Expected ':'");
+            }
+            object.put(key, readValue(depth + 1));
+            skipWhitespace();
+        } while (consume(','));
+        if (!consume('}')) {
+            throw error("Expected ',' or '}'");
+        }
+        return object;
+    }
+
+    /**
+     * Reads an array.
+     * @param depth how many arrays and objects the array is in
+     * @return the array
+     */
+    private List<Object> readArray(int depth) {
+        List<Object> array = new ArrayList<>();
+        position++;
+        skipWhitespace();
+        if (consume(']')) {
+            return array;
+        }
+        do {
+            array.add(readValue(depth + 1));
+            skipWhitespace();
+        } while (consume(','));
+        if (!consume(']')) {
+            throw error("Expected ',' or ']'");
+        }
+        return array;
+    }
+
+    /**
+     * Reads a string, including its escape sequences.
+     * @return the string
+     */
+    private String readString() {
+        StringBuilder builder = new StringBuilder();
+        position++;
+        while (position < text.length()) {
+            char character = text.charAt(position++);
+            if (character == '"') {
+                return builder.toString();
+            }
+            if (character != '\\') {
+                builder.append(character);
+                continue;
+            }
+            if (position == text.length()) {
+                break;
+            }
+            char escaped = text.charAt(position++);
+            switch (escaped) {
+                case '"', '\\', '/' -> builder.append(escaped);
+                case 'b' -> builder.append('\b');
+                case 'f' -> builder.append('\f');
+                case 'n' -> builder.append('\n');
+                case 'r' -> builder.append('\r');
+                case 't' -> builder.append('\t');
+                case 'u' -> {
+                    if (position + 4 > text.length()) {
+                        throw error("Incomplete escape sequence");
+                    }
+                    try {
+                        builder.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid escape sequence");
+                    }
+                    position += 4;
+                }
+                default -> throw error("Invalid escape sequence");
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    /**
+     * Reads a number.
+     * @return the number, as a <code>Long</code> if it's a whole number that fits one and as a <code>Double</code> otherwise
+     */
+    private Object readNumber() {
+        int start = position;
+        boolean whole = true;
+        while (position < text.length()) {
+            char character = text.charAt(position);
+            if (character == '.' || character == 'e' || character == 'E') {
+                whole = false;
+            } else if (character != '-' && character != '+' && (character < '0' || character > '9')) {
+                break;
+            }
+            position++;
+        }
+        String number = text.substring(start, position);
+        try {
+            if (whole) {
+                return Long.parseLong(number);
+            }
+        } catch (NumberFormatException e) {
+            // Too large for a long, so it's read as a double below.
+        }
+        try {
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            throw error("Invalid number");
+        }
+    }
+
+    /**
+     * Reads <code>true</code>, <code>false</code> or <code>null</code>.
+     * @param literal the expected literal
+     * @param value the value of the literal
+     * @return the value
+     */
+    private Object readLiteral(String literal, Object value) {
+        if (!text.startsWith(literal, position)) {
+            throw error("Unexpected text");
+        }
+        position += literal.length();
+        return value;
+    }
+
+    /**
+     * Skips spaces, tabs and line breaks.
+     */
+    private void skipWhitespace() {
+        while (position < text.length() && (text.charAt(position) == ' ' || text.charAt(position) == '\t' || text.charAt(position) == '\n' || text.charAt(position) == '\r')) {
+            position++;
+        }
+    }
+
+    /**
+     * Skips a character if it's the next one.
+     * @param character the character
+     * @return whether the character was skipped
+     */
+    private boolean consume(char character) {
+        if (position < text.length() && text.charAt(position) == character) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Creates the exception of an invalid document.
+     * @param message what's wrong
+     * @return the exception
+     */
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position);
+    }
+}
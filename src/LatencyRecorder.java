@@ -0,0 +1,119 @@
+/**
+ * Records how long the moves of one strategy took and works out percentiles of those times.
+ * Moves can be recorded from several threads at once.
+ * The times aren't kept one by one but counted in buckets, which are exact below 64 ns and at most 1/32 of their time wide above it, so every percentile is within about 3% of the real time. A recorder takes the same memory however many moves it records, and recording a move never allocates memory.
+ */
+public class LatencyRecorder {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private final long[] buckets;
+    private int sampleCount;
+    private int timeoutCount;
+    private long maximum;
+
+    /**
+     * Constructs a new recorder without any recorded moves.
+     */
+    public LatencyRecorder() {
+        buckets = new long[getBucket(Long.MAX_VALUE) + 1];
+    }
+
+    /**
+     * Gets the bucket a time is counted in.
+     * Times below <code>2 * SUB_BUCKET_COUNT</code> get a bucket each; above that, every power of two is split into <code>SUB_BUCKET_COUNT</code> buckets of the same width.
+     * @param nanos the time, which isn't negative
+     * @return the index of the bucket
+     */
+    private static int getBucket(long nanos) {
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent <= SUB_BUCKET_BITS) {
+            return (int) nanos;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKET_COUNT + (int) (nanos >>> shift);
+    }
+
+    /**
+     * Gets the highest time counted in a bucket.
+     * @param bucket the index of the bucket
+     * @return the time in nanoseconds
+     */
+    private static long getBucketLimit(int bucket) {
+        if (bucket < 2 * SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKET_COUNT - 1;
+        long start = (long) (bucket - shift * SUB_BUCKET_COUNT) << shift;
+        return start + (1L << shift) - 1;
+    }
+
+    /**
+     * Records how long one move took.
+     * @param nanos the time the move took, in nanoseconds
+     * @param timedOut whether the move ran out of its time budget
+     */
+    public synchronized void record(long nanos, boolean timedOut) {
+        nanos = Math.max(nanos, 0);
+        buckets[getBucket(nanos)]++;
+        sampleCount++;
+        maximum = Math.max(maximum, nanos);
+        if (timedOut) {
+            timeoutCount++;
+        }
+    }
+
+    /**
+     * Records a move that wasn't made at all because the strategy was still busy with an earlier move that ran out of time.
+     * It counts as a timed out move, but it doesn't take part in the percentiles, since nothing was measured.
+     */
+    public synchronized void recordSkipped() {
+        timeoutCount++;
+    }
+
+    /**
+     * Gets how many moves have been measured.
+     * @return the amount of measured moves
+     */
+    public synchronized int getCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Gets how many of the moves ran out of their time budget or were skipped because of an earlier move that did.
+     * @return the amount of timed out moves
+     */
+    public synchronized int getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    /**
+     * Gets a percentile of the recorded move times, using the nearest rank.
+     * The time is the highest time of the bucket the move of that rank was counted in, but never more than the slowest move, which is kept exactly.
+     * @param percentile the percentile, between 0 and 100 (for example 99 for the time 99% of the moves were faster than or as fast as)
+     * @return the time in nanoseconds, or 0 if no moves have been recorded
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (sampleCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, Math.min((long) Math.ceil(percentile / 100 * sampleCount), sampleCount));
+        long counted = 0;
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            counted += buckets[bucket];
+            if (counted >= rank) {
+                return Math.min(getBucketLimit(bucket), maximum);
+            }
+        }
+        return maximum;
+    }
+
+    /**
+     * Describes the recorded move times in one line: the amount of moves, the 50th, 90th and 99th percentile, the slowest move and the amount of timed out moves.
+     * @return the summary, with the times in microseconds
+     */
+    public synchronized String getSummary() {
+        return getCount() + " moves, p50 " + getPercentile(50) / 1000 + " us, p90 " + getPercentile(90) / 1000 + " us, p99 " + getPercentile(99) / 1000
+                + " us, max " + getPercentile(100) / 1000 + " us, " + getTimeoutCount() + " timed out";
+    }
+}
@@ -0,0 +1,493 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The Elo ratings of all the players, ordered from the highest rating to the lowest.
+ * The ratings are updated after every result: the winner takes points from the loser, more the less likely the win was, and players who haven't played <code>PROVISIONAL_GAMES</code> games yet move twice as fast, so new players reach their real rating sooner.
+ * The players are kept in a treap (a binary search tree balanced by random priorities) where every node knows the size of its subtree, so updating a rating, finding a player's rank and finding the player at a rank all take O(log n) time, and the top K players take O(log n + K), without ever sorting the players.
+ * Every method is synchronized. The operations are short, so the shards of a server can all update ratings at once without waiting long for each other.
+ * The leaderboard can be saved to a file and loaded from it, and it remembers how many results it has counted, so after loading it only the results stored since it was saved need to be counted (see <code>catchUp</code>).
+ */
+public class Leaderboard {
+    public static final double INITIAL_RATING = 1500;
+    private static final double K_FACTOR = 20;
+    private static final int PROVISIONAL_GAMES = 30;
+    private static final int MAGIC = 0x454C4F31;
+    private static final int VERSION = 1;
+
+    private static Leaderboard defaultLeaderboard;
+
+    /**
+     * A player in the treap.
+     */
+    private static final class Node {
+        private final String name;
+        private final int priority;
+        private double rating;
+        private int gameCount;
+        private int size;
+        private Node left;
+        private Node right;
+
+        private Node(String name, int priority) {
+            this.name = name;
+            this.priority = priority;
+            rating = INITIAL_RATING;
+            size = 1;
+        }
+    }
+
+    /**
+     * A player's place on the leaderboard at the time it was read.
+     */
+    public static final class Entry {
+        private final int rank;
+        private final String name;
+        private final double rating;
+        private final int gameCount;
+
+        private Entry(int rank, String name, double rating, int gameCount) {
+            this.rank = rank;
+            this.name = name;
+            this.rating = rating;
+            this.gameCount = gameCount;
+        }
+
+        /**
+         * Gets the rank of the player.
+         * @return the rank, 1 being the highest rating
+         */
+        public int getRank() {
+            return rank;
+        }
+
+        /**
+         * Gets the name of the player.
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the rating of the player.
+         * @return the rating
+         */
+        public double getRating() {
+            return rating;
+        }
+
+        /**
+         * Gets how many rated games the player has played.
+         * @return the game count
+         */
+        public int getGameCount() {
+            return gameCount;
+        }
+    }
+
+    private final HashMap<String, Node> players;
+    private final Random random;
+    private Node root;
+    private long resultCount;
+
+    /**
+     * Constructs a new leaderboard without any players.
+     */
+    public Leaderboard() {
+        players = new HashMap<>();
+        random = new Random();
+    }
+
+    /**
+     * Gets the leaderboard of the results in the default <code>MatchResultStore</code>, loading it from the "results" directory of the working directory the first time it's needed and counting the results stored since it was saved.
+     * @return the default leaderboard
+     * @throws IOException if the leaderboard or the results can't be read
+     */
+    public static synchronized Leaderboard getDefault() throws IOException {
+        if (defaultLeaderboard == null) {
+            File file = new File("results", "leaderboard.dat");
+            defaultLeaderboard = file.exists() ? load(file) : new Leaderboard();
+        }
+        defaultLeaderboard.catchUp(MatchResultStore.getDefault());
+        return defaultLeaderboard;
+    }
+
+    /**
+     * Saves the default leaderboard to the "results" directory of the working directory, if it has been loaded.
+     * @throws IOException if the leaderboard can't be written
+     */
+    public static synchronized void saveDefault() throws IOException {
+        if (defaultLeaderboard != null) {
+            defaultLeaderboard.save(new File("results", "leaderboard.dat"));
+        }
+    }
+
+    /**
+     * Counts the results of a store that this leaderboard hasn't counted yet.
+     * The results are counted in the order they were stored, starting with the result after the last one this leaderboard counted, so this leaderboard must only ever count the results of this store.
+     * @param store the store
+     * @throws IOException if the results can't be read
+     */
+    public synchronized void catchUp(MatchResultStore store) throws IOException {
+        int size = store.size();
+        while (resultCount < size) {
+            MatchResult result = store.get((int) resultCount);
+            recordResult(result.getWinnerName(), result.getWinner() == 1 ? result.getPlayer2() : result.getPlayer1());
+        }
+    }
+
+    /**
+     * Updates the ratings of two players after one of them beat the other. Players who aren't on the leaderboard yet are added with the <code>INITIAL_RATING</code>.
+     * @param winner the name of the winner
+     * @param loser the name of the loser
+     */
+    public synchronized void recordResult(String winner, String loser) {
+        resultCount++;
+        if (winner.equals(loser)) {
+            return;
+        }
+        Node winnerNode = getOrAdd(winner);
+        Node loserNode = getOrAdd(loser);
+        double expected = 1 / (1 + Math.pow(10, (loserNode.rating - winnerNode.rating) / 400));
+        double winnerChange = kFactor(winnerNode) * (1 - expected);
+        double loserChange = kFactor(loserNode) * (1 - expected);
+        setRating(winnerNode, winnerNode.rating + winnerChange);
+        setRating(loserNode, loserNode.rating - loserChange);
+        winnerNode.gameCount++;
+        loserNode.gameCount++;
+    }
+
+    /**
+     * Gets how far a player's rating moves after one game.
+     * @param node the player
+     * @return the K-factor of the player
+     */
+    private static double kFactor(Node node) {
+        return node.gameCount < PROVISIONAL_GAMES ? 2 * K_FACTOR : K_FACTOR;
+    }
+
+    /**
+     * Gets a player, adding them to the treap with the initial rating if they aren't on the leaderboard yet.
+     * @param name the name of the player
+     * @return the player
+     */
+    private Node getOrAdd(String name) {
+        Node node = players.get(name);
+        if (node == null) {
+            node = new Node(name, random.nextInt());
+            players.put(name, node);
+            root = insert(root, node);
+        }
+        return node;
+    }
+
+    /**
+     * Changes the rating of a player, moving the player to their new place in the treap.
+     * @param node the player
+     * @param rating the new rating
+     */
+    private void setRating(Node node, double rating) {
+        root = remove(root, node);
+        node.rating = rating;
+        node.left = null;
+        node.right = null;
+        node.size = 1;
+        root = insert(root, node);
+    }
+
+    /**
+     * Compares the places of two players: the higher rating comes first, and players with the same rating are ordered by name.
+     * @param a the first player
+     * @param b the second player
+     * @return a negative number if <code>a</code> comes first, a positive number if <code>b</code> comes first, 0 if they're the same player
+     */
+    private static int compare(Node a, Node b) {
+        int comparison = Double.compare(b.rating, a.rating);
+        return comparison != 0 ? comparison : a.name.compareTo(b.name);
+    }
+
+    /**
+     * Gets the size of a subtree.
+     * @param node the root of the subtree, or <code>null</code>
+     * @return the amount of players in the subtree
+     */
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Recalculates the size of a subtree from the sizes of its children.
+     * @param node the root of the subtree
+     */
+    private static void updateSize(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    /**
+     * Inserts a player into a subtree, rotating it above its parents while its priority is higher.
+     * @param subtree the root of the subtree, or <code>null</code>
+     * @param node the player, without children
+     * @return the new root of the subtree
+     */
+    private static Node insert(Node subtree, Node node) {
+        if (subtree == null) {
+            return node;
+        }
+        if (compare(node, subtree) < 0) {
+            subtree.left = insert(subtree.left, node);
+            if (subtree.left.priority > subtree.priority) {
+                subtree = rotateRight(subtree);
+            }
+        } else {
+            subtree.right = insert(subtree.right, node);
+            if (subtree.right.priority > subtree.priority) {
+                subtree = rotateLeft(subtree);
+            }
+        }
+        updateSize(subtree);
+        return subtree;
+    }
+
+    /**
+     * Removes a player from a subtree, replacing it with the merge of its children.
+     * @param subtree the root of the subtree
+     * @param node the player, which must be in the subtree
+     * @return the new root of the subtree
+     */
+    private static Node remove(Node subtree, Node node) {
+        if (subtree == node) {
+            return merge(node.left, node.right);
+        }
+        if (compare(node, subtree) < 0) {
+            subtree.left = remove(subtree.left, node);
+        } else {
+            subtree.right = remove(subtree.right, node);
+        }
+        updateSize(subtree);
+        return subtree;
+    }
+
+    /**
+     * Merges two subtrees where every player of the first one comes before every player of the second one.
+     * @param first the first subtree, or <code>null</code>
+     * @param second the second subtree, or <code>null</code>
+     * @return the root of the merged subtree
+     */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            updateSize(first);
+            return first;
+        }
+        second.left = merge(first, second.left);
+        updateSize(second);
+        return second;
+    }
+
+    /**
+     * Rotates a subtree to the right, making its left child its root.
+     * @param node the root of the subtree
+     * @return the new root
+     */
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        updateSize(node);
+        updateSize(left);
+        return left;
+    }
+
+    /**
+     * Rotates a subtree to the left, making its right child its root.
+     * @param node the root of the subtree
+     * @return the new root
+     */
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        updateSize(node);
+        updateSize(right);
+        return right;
+    }
+
+    /**
+     * Gets the amount of players on the leaderboard.
+     * @return the player count
+     */
+    public synchronized int size() {
+        return size(root);
+    }
+
+    /**
+     * Gets how many results this leaderboard has counted.
+     * @return the result count
+     */
+    public synchronized long getResultCount() {
+        return resultCount;
+    }
+
+    /**
+     * Gets the place of a player.
+     * @param name the name of the player
+     * @return the player's entry, or <code>null</code> if they aren't on the leaderboard
+     */
+    public synchronized Entry get(String name) {
+        Node node = players.get(name);
+        if (node == null) {
+            return null;
+        }
+        int rank = size(node.left) + 1;
+        Node current = root;
+        while (current != node) {
+            if (compare(node, current) < 0) {
+                current = current.left;
+            } else {
+                rank += size(current.left) + 1;
+                current = current.right;
+            }
+        }
+        return new Entry(rank, node.name, node.rating, node.gameCount);
+    }
+
+    /**
+     * Gets the player at a rank.
+     * @param rank the rank, 1 being the highest rating
+     * @return the player's entry, or <code>null</code> if there's no such rank
+     */
+    public synchronized Entry getAt(int rank) {
+        if (rank < 1 || rank > size(root)) {
+            return null;
+        }
+        Node current = root;
+        int remaining = rank;
+        while (remaining != size(current.left) + 1) {
+            if (remaining <= size(current.left)) {
+                current = current.left;
+            } else {
+                remaining -= size(current.left) + 1;
+                current = current.right;
+            }
+        }
+        return new Entry(rank, current.name, current.rating, current.gameCount);
+    }
+
+    /**
+     * Gets the players with the highest ratings, highest first.
+     * @param count the maximum amount of players
+     * @return the players' entries
+     */
+    public synchronized List<Entry> getTop(int count) {
+        ArrayList<Entry> entries = new ArrayList<>(Math.max(0, Math.min(count, size(root))));
+        ArrayList<Node> path = new ArrayList<>();
+        Node current = root;
+        while (entries.size() < count && (current != null || !path.isEmpty())) {
+            if (current != null) {
+                path.add(current);
+                current = current.left;
+            } else {
+                current = path.remove(path.size() - 1);
+                entries.add(new Entry(entries.size() + 1, current.name, current.rating, current.gameCount));
+                current = current.right;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Saves this leaderboard to a file, replacing the file only once the new file is complete, so a crash can't leave a broken leaderboard behind.
+     * The players are copied while holding the lock, and written after releasing it, so the rating updates don't wait for the disk.
+     * @param file the file
+     * @throws IOException if the file can't be written
+     */
+    public void save(File file) throws IOException {
+        List<Entry> entries;
+        long savedResultCount;
+        synchronized (this) {
+            entries = getTop(size(root));
+            savedResultCount = resultCount;
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Couldn't create directory " + parent);
+        }
+        File temporary = new File(parent, file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(savedResultCount);
+            out.writeInt(entries.size());
+            for (Entry entry : entries) {
+                out.writeUTF(entry.name);
+                out.writeDouble(entry.rating);
+                out.writeInt(entry.gameCount);
+            }
+        }
+        try {
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Loads a leaderboard saved with <code>save</code>.
+     * @param file the file
+     * @return the leaderboard
+     * @throws IOException if the file can't be read or isn't a saved leaderboard
+     */
+    public static Leaderboard load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(file + " isn't a saved leaderboard");
+            }
+            Leaderboard leaderboard = new Leaderboard();
+            leaderboard.resultCount = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Node node = new Node(in.readUTF(), leaderboard.random.nextInt());
+                node.rating = in.readDouble();
+                node.gameCount = in.readInt();
+                leaderboard.players.put(node.name, node);
+                leaderboard.root = insert(leaderboard.root, node);
+            }
+            return leaderboard;
+        }
+    }
+
+    /**
+     * Prints the players with the highest ratings of the default leaderboard.
+     * The first argument is the amount of players (10 by default).
+     * @param args the launch arguments
+     * @throws IOException if the leaderboard or the results can't be read
+     */
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        Leaderboard leaderboard = getDefault();
+        for (Entry entry : leaderboard.getTop(count)) {
+            System.out.printf("%d. %s %.0f (%d games)%n", entry.rank, entry.name, entry.rating, entry.gameCount);
+        }
+        saveDefault();
+    }
+}
@@ -0,0 +1,340 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.Socket;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds out how many matches a <code>GameServer</code> can host by connecting many simulated players to it over the loopback address.
+ * Every simulated player connects, places its fleet the way the AI does with "place" commands, waits until every other player has placed theirs, and then plays the match to the end with <code>AIPlayer</code>'s shots, optionally waiting a while before each of them.
+ * This is the same placement and shooting flow <code>GameState</code> goes through when a person plays against the AI, just over the protocol of <code>ConsoleGame</code>.
+ * Every player runs on its own thread, which is a virtual thread if the Java runtime supports them.
+ * At the end, the connection rate, the match throughput, the latency percentiles of the messages and the server's memory per match are printed, followed by the report of the server's shards if the server runs in this program.
+ */
+public class LoadGenerator {
+    private static final String[] RESULTS = {"invalid", "miss", "hit", "sunk"};
+
+    private final String host;
+    private final int port;
+    private final int clientCount;
+    private final long thinkMillis;
+    private final boolean salvo;
+    private final LatencyRecorder placeLatencies;
+    private final LatencyRecorder shotLatencies;
+    private final AtomicLong lastConnectedNanos;
+    private final AtomicInteger wonCount;
+    private final AtomicInteger lostCount;
+    private final AtomicInteger failedCount;
+    private final CountDownLatch placed;
+    private final CountDownLatch shooting;
+    private final CountDownLatch finished;
+
+    /**
+     * Constructs a new load generator.
+     * @param host the host the server runs on
+     * @param port the port the server listens on
+     * @param clientCount how many players connect to the server
+     * @param thinkMillis how many milliseconds every player waits before each shot
+     * @param salvo whether the server hosts salvo matches
+     */
+    public LoadGenerator(String host, int port, int clientCount, long thinkMillis, boolean salvo) {
+        this.host = host;
+        this.port = port;
+        this.clientCount = clientCount;
+        this.thinkMillis = thinkMillis;
+        this.salvo = salvo;
+        placeLatencies = new LatencyRecorder();
+        shotLatencies = new LatencyRecorder();
+        lastConnectedNanos = new AtomicLong();
+        wonCount = new AtomicInteger();
+        lostCount = new AtomicInteger();
+        failedCount = new AtomicInteger();
+        placed = new CountDownLatch(clientCount);
+        shooting = new CountDownLatch(1);
+        finished = new CountDownLatch(clientCount);
+    }
+
+    /**
+     * Connects all the players, lets them play their matches and prints the results.
+     * @param server the server being tested, if it runs in this program, so its memory per match can be measured, or <code>null</code>
+     * @throws InterruptedException if the thread is interrupted while waiting for the players
+     */
+    public void run(GameServer server) throws InterruptedException {
+        long baseline = usedMemory();
+        ExecutorService clientExecutor = GameServer.newThreadPerTaskExecutor("Simulated player");
+        long start = System.nanoTime();
+        Random seeds = new Random(start);
+        for (int i = 0; i < clientCount; i++) {
+            long seed = seeds.nextLong();
+            clientExecutor.execute(() -> playClient(seed));
+        }
+        placed.await();
+        long connectNanos = Math.max(lastConnectedNanos.get() - start, 1);
+        long openMatches = server != null ? server.getActiveMatches() : 0;
+        long memory = server != null ? usedMemory() - baseline : 0;
+        long shootingStart = System.nanoTime();
+        shooting.countDown();
+        finished.await();
+        long shootingNanos = Math.max(System.nanoTime() - shootingStart, 1);
+        clientExecutor.shutdown();
+
+        int completed = wonCount.get() + lostCount.get();
+        System.out.println(clientCount + " players, " + thinkMillis + " ms think time" + (salvo ? ", salvo" : "") + ", " + failedCount.get() + " failed");
+        System.out.println("Connections: " + clientCount * TimeUnit.SECONDS.toNanos(1) / connectNanos + " per second");
+        System.out.println("Matches: " + completed + " completed in " + TimeUnit.NANOSECONDS.toMillis(shootingNanos) + " ms, "
+                + completed * TimeUnit.SECONDS.toNanos(1) / shootingNanos + " per second (" + wonCount.get() + " won by the players, " + lostCount.get() + " by the AI)");
+        System.out.println("Placement messages: " + describe(placeLatencies));
+        System.out.println((salvo ? "Salvo" : "Shot") + " messages: " + describe(shotLatencies));
+        if (openMatches > 0) {
+            System.out.println("Memory: " + memory / openMatches + " bytes per open match (" + openMatches
+                    + " open, including each simulated player's own state)");
+        }
+        if (server != null) {
+            System.out.print(server.getScheduler().getReport());
+        }
+    }
+
+    /**
+     * Plays one simulated player's match.
+     * Every player counts down the <code>placed</code> latch exactly once, even if it fails before placing its fleet, so the other players never wait for it forever.
+     * @param seed the seed of the player's random number generator
+     */
+    private void playClient(long seed) {
+        Random random = new Random(seed);
+        boolean hasPlaced = false;
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            lastConnectedNanos.accumulateAndGet(System.nanoTime(), Math::max);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream()), false);
+            expect(in.readLine(), "ready");
+
+            AIPlayer ai = new AIPlayer(random);
+            Match fleet = new Match();
+            ai.placeFleet(fleet, 1, random);
+            int fleetTiles = 0;
+            for (Ship ship : fleet.getShips(1)) {
+                Coordinates first = ship.getTiles().get(0);
+                long sent = System.nanoTime();
+                send(out, "place " + first.getX() + " " + first.getY() + " " + ship.getSize() + (ship.getRotation() == 1 ? " v" : " h"));
+                expect(in.readLine(), "ok");
+                placeLatencies.record(System.nanoTime() - sent, false);
+                fleetTiles += ship.getSize();
+            }
+            hasPlaced = true;
+            placed.countDown();
+            shooting.await();
+
+            Board view = Board.filled(Match.BOARD_SIZE, 0);
+            int shipsRemaining = fleet.getShips(1).size();
+            int tilesHit = 0;
+            int tilesLost = 0;
+            while (true) {
+                if (thinkMillis > 0) {
+                    Thread.sleep(thinkMillis);
+                }
+                List<Coordinates> shots = salvo ? ai.chooseSalvo(view, shipsRemaining, random) : List.of(ai.chooseShot(view, random));
+                StringBuilder command = new StringBuilder(salvo ? "salvo" : "shoot");
+                for (Coordinates shot : shots) {
+                    command.append(' ').append(shot.getX()).append(' ').append(shot.getY());
+                }
+                long sent = System.nanoTime();
+                send(out, command.toString());
+                String[] results = readAnswer(in).split(" ");
+                if (results.length != shots.size()) {
+                    throw new IOException("Unexpected answer: " + String.join(" ", results));
+                }
+                for (int i = 0; i < shots.size(); i++) {
+                    int result = parseResult(results[i]);
+                    view = reveal(view, shots.get(i), result);
+                    ai.learn(shots.get(i), result);
+                    tilesHit += result == Match.HIT || result == Match.SUNK ? 1 : 0;
+                }
+                if (tilesHit == fleetTiles) {
+                    expect(in.readLine(), "win");
+                    shotLatencies.record(System.nanoTime() - sent, false);
+                    wonCount.incrementAndGet();
+                    return;
+                }
+                String[] aiShots = readAnswer(in).split(" ");
+                shotLatencies.record(System.nanoTime() - sent, false);
+                for (int i = 3; i < aiShots.length; i += 3) {
+                    int result = parseResult(aiShots[i]);
+                    tilesLost += result == Match.HIT || result == Match.SUNK ? 1 : 0;
+                    shipsRemaining -= result == Match.SUNK ? 1 : 0;
+                }
+                if (tilesLost == fleetTiles) {
+                    expect(in.readLine(), "lose");
+                    lostCount.incrementAndGet();
+                    return;
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            failedCount.incrementAndGet();
+        } finally {
+            if (!hasPlaced) {
+                placed.countDown();
+            }
+            finished.countDown();
+        }
+    }
+
+    /**
+     * Sends one command to the server.
+     * @param out the stream of the connection
+     * @param command the command
+     * @throws IOException if the connection was closed
+     */
+    private static void send(PrintStream out, String command) throws IOException {
+        out.println(command);
+        out.flush();
+        if (out.checkError()) {
+            throw new IOException("The connection was closed");
+        }
+    }
+
+    /**
+     * Reads one line of an answer, failing if the server reported an error.
+     * @param in the stream of the connection
+     * @return the line
+     * @throws IOException if the connection was closed or the server reported an error
+     */
+    private static String readAnswer(BufferedReader in) throws IOException {
+        String line = in.readLine();
+        if (line == null || line.startsWith("error")) {
+            throw new IOException("Unexpected answer: " + line);
+        }
+        return line;
+    }
+
+    /**
+     * Checks that the server answered what was expected.
+     * @param line the answer
+     * @param expected the expected answer
+     * @throws IOException if the answer is different
+     */
+    private static void expect(String line, String expected) throws IOException {
+        if (!expected.equals(line)) {
+            throw new IOException("Expected " + expected + " but got " + line);
+        }
+    }
+
+    /**
+     * Turns the result of a shot in the protocol into one of <code>Match</code>'s results.
+     * @param word "miss", "hit" or "sunk"
+     * @return <code>Match.MISS</code>, <code>Match.HIT</code> or <code>Match.SUNK</code>
+     * @throws IOException if the word isn't the result of a valid shot
+     */
+    private static int parseResult(String word) throws IOException {
+        for (int result = Match.MISS; result < RESULTS.length; result++) {
+            if (RESULTS[result].equals(word)) {
+                return result;
+            }
+        }
+        throw new IOException("Unexpected result: " + word);
+    }
+
+    /**
+     * Adds the result of a shot to the player's view of the opponent's board.
+     * When a ship sinks, the tiles around it are revealed as empty, just like <code>Match</code> reveals them.
+     * @param view the view, with the types used by <code>Tile</code>
+     * @param shot the tile that was shot
+     * @param result the result of the shot
+     * @return the new view
+     */
+    private static Board reveal(Board view, Coordinates shot, int result) {
+        view = view.with(shot.getX(), shot.getY(), result == Match.MISS ? 4 : 3);
+        if (result != Match.SUNK) {
+            return view;
+        }
+        // Ships never touch, so the hit tiles connected to the shot are exactly the sunk ship.
+        boolean[] visited = new boolean[Match.BOARD_SIZE * Match.BOARD_SIZE];
+        int[] stack = new int[Match.BOARD_SIZE * Match.BOARD_SIZE];
+        int stackSize = 0;
+        stack[stackSize++] = shot.getY() * Match.BOARD_SIZE + shot.getX();
+        visited[stack[0]] = true;
+        while (stackSize > 0) {
+            int index = stack[--stackSize];
+            int x = index % Match.BOARD_SIZE;
+            int y = index / Match.BOARD_SIZE;
+            for (int j = Math.max(x - 1, 0); j <= Math.min(x + 1, Match.BOARD_SIZE - 1); j++) {
+                for (int k = Math.max(y - 1, 0); k <= Math.min(y + 1, Match.BOARD_SIZE - 1); k++) {
+                    int neighbour = k * Match.BOARD_SIZE + j;
+                    if (view.get(j, k) == 0) {
+                        view = view.with(j, k, 1);
+                    } else if (view.get(j, k) == 3 && !visited[neighbour]) {
+                        visited[neighbour] = true;
+                        stack[stackSize++] = neighbour;
+                    }
+                }
+            }
+        }
+        return view;
+    }
+
+    /**
+     * Describes the recorded latencies of one kind of message in one line.
+     * @param latencies the latencies
+     * @return the amount of messages and the 50th, 90th, 99th percentile and slowest latency, in microseconds
+     */
+    private static String describe(LatencyRecorder latencies) {
+        return latencies.getCount() + " messages, p50 " + latencies.getPercentile(50) / 1000 + " us, p90 " + latencies.getPercentile(90) / 1000
+                + " us, p99 " + latencies.getPercentile(99) / 1000 + " us, max " + latencies.getPercentile(100) / 1000 + " us";
+    }
+
+    /**
+     * Gets how much memory the objects still in use take up, after asking for a garbage collection.
+     * @return the used heap memory in bytes
+     */
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Runs a load test and prints its results.
+     * The first argument is the amount of players (1000 by default), and the second one the think time before each shot in milliseconds (0 by default).
+     * A <code>--salvo</code> argument plays salvo matches, and <code>--port PORT</code> tests a server that is already running on this computer instead of starting one in this program.
+     * @param args the launch arguments
+     * @throws Exception if the server can't be started
+     */
+    public static void main(String[] args) throws Exception {
+        boolean salvo = false;
+        int port = 0;
+        int[] numbers = {1000, 0};
+        int numberCount = 0;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--salvo")) {
+                salvo = true;
+            } else if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (numberCount < numbers.length) {
+                numbers[numberCount++] = Integer.parseInt(args[i]);
+            }
+        }
+        GameServer server = null;
+        if (port == 0) {
+            server = new GameServer(0, salvo);
+            server.start();
+            port = server.getPort();
+        }
+        try {
+            new LoadGenerator("127.0.0.1", port, numbers[0], numbers[1], salvo).run(server);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+}
@@ -5,9 +5,40 @@
 public class Main {
     /**
      * Invoked when running the program, creates a new instance of the <code>MenuWindow</code> class.
+     * If the first launch argument is <code>--cli</code>, a match against the AI is played on the standard input and output instead (see <code>ConsoleGame</code>), and no window is opened. The second launch argument can then set the seed of the AI, and a <code>--salvo</code> argument after it starts a salvo match.
+     * If the first launch argument is <code>--tournament</code>, head-to-head matches between all the available AI strategies are played instead (see <code>StrategyHarness.main</code> for the other arguments).
+     * If the first launch argument is <code>--server</code>, matches against the AI are hosted over TCP instead (see <code>GameServer.main</code>), and <code>--load-test</code> tests how many matches such a server can host (see <code>LoadGenerator.main</code>).
+     * If the first launch argument is <code>--bot-api</code>, bots can play matches against the AI over HTTP instead (see <code>BotApiServer</code>), and <code>--leaderboard</code> prints the players with the highest ratings (see <code>Leaderboard.main</code>).
+     * If the first launch argument is <code>--active-rendering</code>, the menu is opened as usual, but the matches draw their grids with a <code>RenderLoop</code> and animate the shots (see <code>GameWindow.setActiveRendering</code>).
      * @param args launch arguments
+     * @throws Exception if the console game can't read its commands
      */
-    public static void main(String[] args) {
-        new MenuWindow();
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--cli")) {
+            boolean salvo = args[args.length - 1].equals("--salvo");
+            long seed = System.nanoTime();
+            if (args.length > (salvo ? 2 : 1)) {
+                try {
+                    seed = Long.parseLong(args[1]);
+                } catch (NumberFormatException e) {
+                    System.err.println("usage: --cli [SEED] [--salvo]");
+                    System.exit(2);
+                }
+            }
+            new ConsoleGame(seed, System.out, salvo).run(System.in);
+        } else if (args.length > 0 && args[0].equals("--tournament")) {
+            StrategyHarness.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+        } else if (args.length > 0 && args[0].equals("--server")) {
+            GameServer.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+        } else if (args.length > 0 && args[0].equals("--bot-api")) {
+            BotApiServer.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+        } else if (args.length > 0 && args[0].equals("--leaderboard")) {
+            Leaderboard.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+        } else if (args.length > 0 && args[0].equals("--load-test")) {
+            LoadGenerator.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+        } else {
+            GameWindow.setActiveRendering(args.length > 0 && args[0].equals("--active-rendering"));
+            new MenuWindow();
+        }
     }
-}
\ No newline at end of file
+}
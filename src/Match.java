@@ -0,0 +1,661 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Instances of this class keep track of and manage a single match between two or more players without depending on any user interface.
+ * Each player has one <code>Board</code> holding their fleet and every shot fired at it. What the player sees of their own board and what their opponents see of it are both worked out from that board.
+ * Every shot is seen by everyone, so all the opponents of a player share the same view of the player's board, and a match only needs one board per player no matter how many players there are.
+ * In a match with more than two players (a free-for-all), every player can shoot at any opponent that hasn't been eliminated yet, and the last player with ships left wins.
+ * The types of the tiles of a board are:
+ * 1 = Empty
+ * 2 = Ship
+ * 3 = Sunk ship
+ * 4 = Shot empty
+ * 6 = Empty, revealed to the opponent because it's next to a sunk ship
+ * Every change to a board is published on the match's <code>EventBus</code>, if it has one, so user interfaces can redraw the changed views without the match knowing about them.
+ */
+public class Match {
+    public static final int BOARD_SIZE = 10;
+    public static final int[] FLEET = {5, 4, 3, 2, 2, 1, 1};
+
+    public static final int INVALID = 0;
+    public static final int MISS = 1;
+    public static final int HIT = 2;
+    public static final int SUNK = 3;
+
+    private static final int[] OWN_VIEW = {0, 1, 2, 3, 4, 5, 1, 7, 8, 9, 10, 11, 12, 13, 14, 15};
+    private static final int[] OPPONENT_VIEW = {0, 0, 0, 3, 4, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+
+    private final Board[] boards;
+    private final ArrayList<ArrayList<Ship>> ships;
+    private final int[] shipsRemaining;
+    private int shotCount;
+    private HeatmapAnalytics analytics;
+    private EventBus eventBus;
+    private GameEvents.MatchEnd matchEndEvent;
+
+    /**
+     * Constructs a new match between two players where neither player has placed any ships yet.
+     */
+    public Match() {
+        this(2);
+    }
+
+    /**
+     * Constructs a new match where none of the players have placed any ships yet.
+     * @param playerCount the amount of players
+     */
+    public Match(int playerCount) {
+        boards = new Board[playerCount];
+        ships = new ArrayList<>();
+        shipsRemaining = new int[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            boards[i] = Board.filled(BOARD_SIZE, 1);
+            ships.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Sets the heatmap that the shots and the complete fleets of this match are recorded to.
+     * @param analytics the heatmap, or <code>null</code> to not record anything
+     */
+    public void setAnalytics(HeatmapAnalytics analytics) {
+        this.analytics = analytics;
+    }
+
+    /**
+     * Sets the event bus that every change to the boards of this match is published on.
+     * A cells changed event is published once per placed ship, shot, salvo or restored board, and a ship sunk event for every sunk ship.
+     * @param eventBus the event bus, or <code>null</code> to not publish anything
+     */
+    public void setEventBus(EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * Publishes an event on the event bus of this match, if it has one and anyone is listening.
+     * @param type the type of the event (see <code>MatchEvent</code>)
+     * @param player the player the event is about
+     * @param ship the sunk ship for ship sunk events, otherwise <code>null</code>
+     */
+    private void publish(int type, int player, Ship ship) {
+        if (eventBus != null && eventBus.hasListeners()) {
+            eventBus.publish(new MatchEvent(type, player, type == MatchEvent.CELLS_CHANGED ? boards[player - 1] : null, ship));
+        }
+    }
+
+    /**
+     * Gets the amount of players in this match.
+     * @return the player count
+     */
+    public int getPlayerCount() {
+        return boards.length;
+    }
+
+    /**
+     * Gets the board of a player.
+     * @param player the player (from 1 to the player count)
+     * @return the player's board
+     */
+    public Board getBoard(int player) {
+        return boards[player - 1];
+    }
+
+    /**
+     * Gets the ships a player has placed.
+     * @param player the player (from 1 to the player count)
+     * @return the player's ships
+     */
+    public ArrayList<Ship> getShips(int player) {
+        return ships.get(player - 1);
+    }
+
+    /**
+     * Gets how many of a player's ships haven't been sunk yet.
+     * @param player the player (from 1 to the player count)
+     * @return the remaining ship count
+     */
+    public int getShipsRemaining(int player) {
+        return shipsRemaining[player - 1];
+    }
+
+    /**
+     * Gets how many valid shots have been fired in this match.
+     * @return the shot count
+     */
+    public int getShotCount() {
+        return shotCount;
+    }
+
+    /**
+     * Gets the type of a tile as its owner sees it.
+     * @param player the owner of the board (from 1 to the player count)
+     * @param x the location of the tile on the X axis
+     * @param y the location of the tile on the Y axis
+     * @return the type of the tile, as used by <code>Tile</code>
+     */
+    public int getOwnType(int player, int x, int y) {
+        return ownType(boards[player - 1].get(x, y));
+    }
+
+    /**
+     * Gets the type of a tile as the opponent of its owner sees it.
+     * Ships that haven't been hit and empty tiles that haven't been revealed are undiscovered.
+     * @param player the owner of the board (from 1 to the player count)
+     * @param x the location of the tile on the X axis
+     * @param y the location of the tile on the Y axis
+     * @return the type of the tile, as used by <code>Tile</code>
+     */
+    public int getOpponentViewType(int player, int x, int y) {
+        return opponentViewType(boards[player - 1].get(x, y));
+    }
+
+    /**
+     * Gets a player's board as the player sees it.
+     * @param player the owner of the board (from 1 to the player count)
+     * @return a board with the types used by <code>Tile</code>
+     */
+    public Board getOwnView(int player) {
+        return ownView(boards[player - 1]);
+    }
+
+    /**
+     * Gets a player's board as all of the player's opponents see it.
+     * @param player the owner of the board (from 1 to the player count)
+     * @return a board with the types used by <code>Tile</code>
+     */
+    public Board getOpponentView(int player) {
+        return opponentView(boards[player - 1]);
+    }
+
+    /**
+     * Converts a board to the board its owner sees.
+     * @param board a board with the tile types used by <code>Match</code>
+     * @return a board with the types used by <code>Tile</code>
+     */
+    public static Board ownView(Board board) {
+        return board.map(OWN_VIEW);
+    }
+
+    /**
+     * Converts a board to the board the opponents of its owner see.
+     * @param board a board with the tile types used by <code>Match</code>
+     * @return a board with the types used by <code>Tile</code>
+     */
+    public static Board opponentView(Board board) {
+        return board.map(OPPONENT_VIEW);
+    }
+
+    /**
+     * Converts the type of a board tile to the type its owner sees.
+     * @param type the type of the board tile
+     * @return the type of the tile, as used by <code>Tile</code>
+     */
+    public static int ownType(int type) {
+        return OWN_VIEW[type];
+    }
+
+    /**
+     * Converts the type of a board tile to the type the opponent of its owner sees.
+     * @param type the type of the board tile
+     * @return the type of the tile, as used by <code>Tile</code>
+     */
+    public static int opponentViewType(int type) {
+        return OPPONENT_VIEW[type];
+    }
+
+    /**
+     * Gets how many more ships of a selected size a player can still place.
+     * @param player the player (from 1 to the player count)
+     * @param shipSize the size of the ship
+     * @return the amount of ships left
+     */
+    public int getShipTypeRemainder(int player, int shipSize) {
+        int remainder = 0;
+        for (int size : FLEET) {
+            if (size == shipSize) {
+                remainder++;
+            }
+        }
+        for (Ship ship : ships.get(player - 1)) {
+            if (ship.getSize() == shipSize) {
+                remainder--;
+            }
+        }
+        return remainder;
+    }
+
+    /**
+     * Returns whether a player has placed their whole fleet.
+     * @param player the player (from 1 to the player count)
+     * @return whether the player's fleet is complete
+     */
+    public boolean isFleetComplete(int player) {
+        return ships.get(player - 1).size() >= FLEET.length;
+    }
+
+    /**
+     * Checks whether a ship can be placed at the passed in location.
+     * The ship has to fit on the board and it can't touch any other ship, not even diagonally.
+     * Vertical ships (rotation 1) extend upwards from the passed in tile, horizontal ships (rotation 2) extend to the right.
+     * @param player the player placing the ship (from 1 to the player count)
+     * @param x the location of the ship's first tile on the X axis
+     * @param y the location of the ship's first tile on the Y axis
+     * @param size the size of the ship
+     * @param rotation the rotation of the ship (1 = vertical, 2 = horizontal)
+     * @return whether the ship can be placed there
+     */
+    public boolean canPlaceShip(int player, int x, int y, int size, int rotation) {
+        if (size <= 0 || x < 0 || y < 0 || x >= BOARD_SIZE || y >= BOARD_SIZE) {
+            return false;
+        }
+        if (rotation == 1 ? y - size + 1 < 0 : x + size - 1 >= BOARD_SIZE) {
+            return false;
+        }
+        Board board = boards[player - 1];
+        for (int i = 0; i < size; i++) {
+            int tileX = rotation == 1 ? x : x + i;
+            int tileY = rotation == 1 ? y - i : y;
+            for (int j = Math.max(tileX - 1, 0); j <= Math.min(tileX + 1, BOARD_SIZE - 1); j++) {
+                for (int k = Math.max(tileY - 1, 0); k <= Math.min(tileY + 1, BOARD_SIZE - 1); k++) {
+                    if (board.get(j, k) == 2) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Places a ship on a player's board if the location is valid and the player can still place a ship of that size.
+     * @param player the player placing the ship (from 1 to the player count)
+     * @param x the location of the ship's first tile on the X axis
+     * @param y the location of the ship's first tile on the Y axis
+     * @param size the size of the ship
+     * @param rotation the rotation of the ship (1 = vertical, 2 = horizontal)
+     * @return whether the ship was placed
+     */
+    public boolean placeShip(int player, int x, int y, int size, int rotation) {
+        if (getShipTypeRemainder(player, size) <= 0 || !canPlaceShip(player, x, y, size, rotation)) {
+            return false;
+        }
+        ArrayList<Coordinates> tiles = new ArrayList<>();
+        Board board = boards[player - 1];
+        for (int i = 0; i < size; i++) {
+            int tileX = rotation == 1 ? x : x + i;
+            int tileY = rotation == 1 ? y - i : y;
+            tiles.add(new Coordinates(tileX, tileY));
+            board = board.with(tileX, tileY, 2);
+        }
+        boards[player - 1] = board;
+        Ship ship = new Ship(tiles);
+        ship.setRotation(rotation);
+        ships.get(player - 1).add(ship);
+        shipsRemaining[player - 1]++;
+        if (isFleetComplete(player)) {
+            if (analytics != null) {
+                analytics.recordFleet(ships.get(player - 1));
+            }
+            GameEvents.recordPlacementConfirmed(player, ships.get(player - 1).size());
+            if (areAllFleetsComplete()) {
+                matchEndEvent = GameEvents.recordMatchStart(boards.length);
+            }
+        }
+        publish(MatchEvent.CELLS_CHANGED, player, null);
+        return true;
+    }
+
+    /**
+     * Places all the ships a player hasn't placed yet at random locations, from the largest to the smallest.
+     * @param player the player (from 1 to the player count)
+     * @param random the random number generator used for choosing the locations
+     */
+    public void placeFleetRandomly(int player, Random random) {
+        for (int size : FLEET) {
+            if (getShipTypeRemainder(player, size) > 0) {
+                while (!placeShip(player, random.nextInt(BOARD_SIZE), random.nextInt(BOARD_SIZE), size, random.nextInt(2) + 1)) {
+                    // Keep trying random locations until the ship fits.
+                }
+            }
+        }
+    }
+
+    /**
+     * Shoots at a tile of a player's board.
+     * A shot is only valid if the tile hasn't been shot or revealed yet.
+     * If the shot sinks a ship, all the empty tiles around the ship are revealed.
+     * @param player the player being shot at (from 1 to the player count)
+     * @param x the location of the tile on the X axis
+     * @param y the location of the tile on the Y axis
+     * @return <code>INVALID</code>, <code>MISS</code>, <code>HIT</code> or <code>SUNK</code>
+     */
+    public int shoot(int player, int x, int y) {
+        if (x < 0 || y < 0 || x >= BOARD_SIZE || y >= BOARD_SIZE || getOpponentViewType(player, x, y) != 0) {
+            return INVALID;
+        }
+        shotCount++;
+        Board board = boards[player - 1];
+        if (analytics != null) {
+            analytics.recordShot(x, y, board.get(x, y) == 2);
+        }
+        if (board.get(x, y) != 2) {
+            boards[player - 1] = board.with(x, y, 4);
+            GameEvents.recordShot(player, x, y, MISS);
+            publish(MatchEvent.CELLS_CHANGED, player, null);
+            return MISS;
+        }
+        board = board.with(x, y, 3);
+        int result = HIT;
+        Ship sunkShip = null;
+        for (Ship ship : ships.get(player - 1)) {
+            for (Coordinates coordinates : ship.getTiles()) {
+                if (coordinates.getX() == x && coordinates.getY() == y) {
+                    ship.setSunkenTileCount(ship.getSunkenTileCount() + 1);
+                    if (ship.getSunkenTileCount() >= ship.getSize()) {
+                        board = revealSurroundingTiles(board, ship);
+                        shipsRemaining[player - 1]--;
+                        result = SUNK;
+                        sunkShip = ship;
+                    }
+                }
+            }
+        }
+        boards[player - 1] = board;
+        GameEvents.recordShot(player, x, y, result);
+        if (sunkShip != null) {
+            recordMatchEndIfOver();
+        }
+        publish(MatchEvent.CELLS_CHANGED, player, null);
+        if (sunkShip != null) {
+            publish(MatchEvent.SHIP_SUNK, player, sunkShip);
+        }
+        return result;
+    }
+
+    /**
+     * Replaces a player's board with an earlier version of it, for example when a move is undone.
+     * The player's ships must already be placed, and the board must hold the same ships.
+     * How many tiles of each ship have been sunk, how many of the player's ships are left and how many shots have been fired are all recounted from the board.
+     * @param player the owner of the board (from 1 to the player count)
+     * @param board the earlier version of the board
+     */
+    public void restoreBoard(int player, Board board) {
+        shotCount -= countShotTiles(boards[player - 1]);
+        boards[player - 1] = board;
+        shotCount += countShotTiles(board);
+        shipsRemaining[player - 1] = 0;
+        for (Ship ship : ships.get(player - 1)) {
+            int sunkenTileCount = 0;
+            for (Coordinates coordinates : ship.getTiles()) {
+                if (board.get(coordinates.getX(), coordinates.getY()) == 3) {
+                    sunkenTileCount++;
+                }
+            }
+            ship.setSunkenTileCount(sunkenTileCount);
+            if (sunkenTileCount < ship.getSize()) {
+                shipsRemaining[player - 1]++;
+            }
+        }
+        publish(MatchEvent.CELLS_CHANGED, player, null);
+    }
+
+    /**
+     * Gets the ship of a player that occupies a tile.
+     * @param player the owner of the ship (from 1 to the player count)
+     * @param x the location of the tile on the X axis
+     * @param y the location of the tile on the Y axis
+     * @return the ship, or <code>null</code> if there is no ship on the tile
+     */
+    public Ship getShipAt(int player, int x, int y) {
+        for (Ship ship : ships.get(player - 1)) {
+            for (Coordinates coordinates : ship.getTiles()) {
+                if (coordinates.getX() == x && coordinates.getY() == y) {
+                    return ship;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets how many tiles of a board have been shot, which is the same as the amount of shots fired at it.
+     * @param board the board
+     * @return the amount of sunk ship and shot empty tiles
+     */
+    private static int countShotTiles(Board board) {
+        int count = 0;
+        for (int y = 0; y < BOARD_SIZE; y++) {
+            for (int x = 0; x < BOARD_SIZE; x++) {
+                if (board.get(x, y) == 3 || board.get(x, y) == 4) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets how many shots a player fires in one salvo, which is one shot for every ship of theirs that hasn't been sunk yet.
+     * @param player the player firing the salvo (from 1 to the player count)
+     * @return the size of the player's salvo
+     */
+    public int getSalvoSize(int player) {
+        return shipsRemaining[player - 1];
+    }
+
+    /**
+     * Shoots at several tiles of a player's board at once, as a salvo.
+     * All the shots are resolved together and the board is changed only once (see <code>resolveSalvo</code>).
+     * @param player the player being shot at (from 1 to the player count)
+     * @param shots the tiles to shoot at
+     * @return the result of each shot, in the same order as the shots: <code>INVALID</code>, <code>MISS</code>, <code>HIT</code> or <code>SUNK</code>
+     */
+    public int[] salvo(int player, List<Coordinates> shots) {
+        int[] results = new int[shots.size()];
+        boards[player - 1] = resolveSalvo(boards[player - 1], ships.get(player - 1), shots, results);
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] != INVALID) {
+                shotCount++;
+                if (analytics != null) {
+                    analytics.recordShot(shots.get(i).getX(), shots.get(i).getY(), results[i] != MISS);
+                }
+                GameEvents.recordShot(player, shots.get(i).getX(), shots.get(i).getY(), results[i]);
+                if (results[i] == SUNK) {
+                    shipsRemaining[player - 1]--;
+                }
+            }
+        }
+        recordMatchEndIfOver();
+        publish(MatchEvent.CELLS_CHANGED, player, null);
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == SUNK) {
+                publish(MatchEvent.SHIP_SUNK, player, getShipAt(player, shots.get(i).getX(), shots.get(i).getY()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Resolves a salvo of shots on a board in a single pass.
+     * The shots are first marked in a bitmask of the board's tiles, then every ship is checked once against that mask, and finally every changed tile, including the tiles revealed around sunk ships, is written to a new board at once.
+     * A shot is invalid if it's outside of the board, if its tile has already been shot or revealed, or if an earlier shot of the same salvo is at the same tile.
+     * The shot that hits the last remaining tile of a ship is the one that sinks it.
+     * Because the shots land at the same time, a shot next to a ship sunk by the same salvo is a miss, not an invalid shot.
+     * The sunken tile counts of the ships are updated.
+     * @param board the board being shot at, with the tile types used by <code>Match</code> (types 1 to 4 as used by <code>Tile</code> work as well)
+     * @param ships the ships placed on the board
+     * @param shots the tiles to shoot at
+     * @param results filled with the result of each shot, in the same order as the shots: <code>INVALID</code>, <code>MISS</code>, <code>HIT</code> or <code>SUNK</code>
+     * @return the board after the salvo
+     */
+    public static Board resolveSalvo(Board board, List<Ship> ships, List<Coordinates> shots, int[] results) {
+        int size = board.getSize();
+        long[] shotMask = new long[(size * size + 63) / 64];
+        long[] revealedMask = new long[shotMask.length];
+        int[] xs = new int[size * size];
+        int[] ys = new int[size * size];
+        int[] types = new int[size * size];
+        int changeCount = 0;
+        for (int i = 0; i < shots.size(); i++) {
+            int x = shots.get(i).getX();
+            int y = shots.get(i).getY();
+            if (x < 0 || y < 0 || x >= size || y >= size || opponentViewType(board.get(x, y)) != 0 || isMarked(shotMask, y * size + x)) {
+                results[i] = INVALID;
+                continue;
+            }
+            shotMask[(y * size + x) >>> 6] |= 1L << (y * size + x);
+            results[i] = board.get(x, y) == 2 ? HIT : MISS;
+            xs[changeCount] = x;
+            ys[changeCount] = y;
+            types[changeCount++] = board.get(x, y) == 2 ? 3 : 4;
+        }
+        for (Ship ship : ships) {
+            int newlySunkenTiles = 0;
+            for (Coordinates coordinates : ship.getTiles()) {
+                if (isMarked(shotMask, coordinates.getY() * size + coordinates.getX())) {
+                    newlySunkenTiles++;
+                }
+            }
+            if (newlySunkenTiles == 0) {
+                continue;
+            }
+            ship.setSunkenTileCount(ship.getSunkenTileCount() + newlySunkenTiles);
+            if (ship.getSunkenTileCount() < ship.getSize()) {
+                continue;
+            }
+            int lastShot = -1;
+            for (int i = 0; i < shots.size(); i++) {
+                if (results[i] == HIT) {
+                    for (Coordinates coordinates : ship.getTiles()) {
+                        if (coordinates.getX() == shots.get(i).getX() && coordinates.getY() == shots.get(i).getY()) {
+                            lastShot = i;
+                        }
+                    }
+                }
+            }
+            if (lastShot >= 0) {
+                results[lastShot] = SUNK;
+            }
+            for (Coordinates coordinates : ship.getTiles()) {
+                for (int x = Math.max(coordinates.getX() - 1, 0); x <= Math.min(coordinates.getX() + 1, size - 1); x++) {
+                    for (int y = Math.max(coordinates.getY() - 1, 0); y <= Math.min(coordinates.getY() + 1, size - 1); y++) {
+                        int index = y * size + x;
+                        if (board.get(x, y) == 1 && !isMarked(shotMask, index) && !isMarked(revealedMask, index)) {
+                            revealedMask[index >>> 6] |= 1L << index;
+                            xs[changeCount] = x;
+                            ys[changeCount] = y;
+                            types[changeCount++] = 6;
+                        }
+                    }
+                }
+            }
+        }
+        return board.withAll(xs, ys, types, changeCount);
+    }
+
+    /**
+     * Returns whether a tile is marked in a bitmask of the tiles of a board.
+     * @param mask the bitmask, with one bit for every tile, row by row
+     * @param index the index of the tile (y * size + x)
+     * @return whether the tile's bit is set
+     */
+    private static boolean isMarked(long[] mask, int index) {
+        return (mask[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Reveals all the empty tiles around a ship.
+     * @param board the board the ship is on
+     * @param ship the ship to reveal the surrounding tiles of
+     * @return the board with the tiles revealed
+     */
+    private static Board revealSurroundingTiles(Board board, Ship ship) {
+        for (Coordinates coordinates : ship.getTiles()) {
+            for (int i = Math.max(coordinates.getX() - 1, 0); i <= Math.min(coordinates.getX() + 1, BOARD_SIZE - 1); i++) {
+                for (int j = Math.max(coordinates.getY() - 1, 0); j <= Math.min(coordinates.getY() + 1, BOARD_SIZE - 1); j++) {
+                    if (board.get(i, j) == 1) {
+                        board = board.with(i, j, 6);
+                    }
+                }
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Returns whether a player has lost all of their ships.
+     * @param player the player (from 1 to the player count)
+     * @return whether the player is out of the match
+     */
+    public boolean isEliminated(int player) {
+        return isFleetComplete(player) && shipsRemaining[player - 1] <= 0;
+    }
+
+    /**
+     * Gets the player whose turn comes after the passed in player's turn, skipping the players who have been eliminated.
+     * @param player the player whose turn it is (from 1 to the player count)
+     * @return the next player
+     */
+    public int getNextPlayer(int player) {
+        for (int i = 1; i <= boards.length; i++) {
+            int nextPlayer = (player - 1 + i) % boards.length + 1;
+            if (!isEliminated(nextPlayer)) {
+                return nextPlayer;
+            }
+        }
+        return player;
+    }
+
+    /**
+     * Returns whether every player has placed their whole fleet.
+     * @return whether the shooting can start
+     */
+    private boolean areAllFleetsComplete() {
+        for (int player = 1; player <= boards.length; player++) {
+            if (!isFleetComplete(player)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records the end of the match for the Java Flight Recorder, the first time a shot finds the match over.
+     */
+    private void recordMatchEndIfOver() {
+        if (matchEndEvent != null && isOver()) {
+            GameEvents.recordMatchEnd(matchEndEvent, getWinner(), shotCount);
+            matchEndEvent = null;
+        }
+    }
+
+    /**
+     * Returns whether all the players but one have lost all of their ships.
+     * @return whether the match is over
+     */
+    public boolean isOver() {
+        return getWinner() != 0;
+    }
+
+    /**
+     * Gets the player who won the match, which is the only player who still has ships left once everyone has placed their fleet.
+     * @return the winner (from 1 to the player count), or 0 if nobody has won yet
+     */
+    public int getWinner() {
+        int winner = 0;
+        for (int player = 1; player <= boards.length; player++) {
+            if (!isFleetComplete(player)) {
+                return 0;
+            }
+            if (shipsRemaining[player - 1] > 0) {
+                if (winner != 0) {
+                    return 0;
+                }
+                winner = player;
+            }
+        }
+        return winner;
+    }
+}
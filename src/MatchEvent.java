@@ -0,0 +1,64 @@
+/**
+ * An immutable description of one change to a <code>Match</code>, published on an <code>EventBus</code>.
+ * The types of events are:
+ * 1 = Cells changed: some tiles of a player's board changed; the event holds the player's whole new board
+ * 2 = Turn changed: it's now the event's player's turn
+ * 3 = Ship sunk: one of the event's player's ships was sunk; the event holds the ship
+ * A single shot or salvo publishes one cells changed event per affected board, no matter how many tiles it changed, so revealing the tiles around a sunk ship doesn't cost any extra events.
+ */
+public final class MatchEvent {
+    public static final int CELLS_CHANGED = 1;
+    public static final int TURN_CHANGED = 2;
+    public static final int SHIP_SUNK = 3;
+
+    private final int type;
+    private final int player;
+    private final Board board;
+    private final Ship ship;
+
+    /**
+     * Constructs a new event.
+     * @param type the type of the event
+     * @param player the player the event is about (from 1 to the player count)
+     * @param board the player's new board for cells changed events, otherwise <code>null</code>
+     * @param ship the sunk ship for ship sunk events, otherwise <code>null</code>
+     */
+    public MatchEvent(int type, int player, Board board, Ship ship) {
+        this.type = type;
+        this.player = player;
+        this.board = board;
+        this.ship = ship;
+    }
+
+    /**
+     * Gets the type of this event.
+     * @return <code>CELLS_CHANGED</code>, <code>TURN_CHANGED</code> or <code>SHIP_SUNK</code>
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * Gets the player this event is about: the owner of the changed board, the player whose turn it is or the owner of the sunk ship.
+     * @return the player (from 1 to the player count)
+     */
+    public int getPlayer() {
+        return player;
+    }
+
+    /**
+     * Gets the player's new board, with the tile types used by <code>Match</code>.
+     * @return the board, or <code>null</code> if this isn't a cells changed event
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Gets the ship that was sunk.
+     * @return the ship, or <code>null</code> if this isn't a ship sunk event
+     */
+    public Ship getShip() {
+        return ship;
+    }
+}
@@ -0,0 +1,12 @@
+/**
+ * The listener interface for receiving the events published on an <code>EventBus</code>.
+ */
+public interface MatchListener {
+
+    /**
+     * Invoked when something in the match changed.
+     * It's called on the thread that published the event, which is the Swing event dispatch thread when the game is played in a window.
+     * @param event the event describing the change
+     */
+    void matchChanged(MatchEvent event);
+}
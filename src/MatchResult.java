@@ -0,0 +1,127 @@
+/**
+ * Instances of this class hold the outcome of a single finished match.
+ */
+public final class MatchResult {
+    private final long timestamp;
+    private final long duration;
+    private final String player1;
+    private final String player2;
+    private final int playerCount;
+    private final int aiLevel;
+    private final int winner;
+    private final int shotCount;
+    private final int winnerShotCount;
+
+    /**
+     * Constructs a new match result.
+     * @param timestamp when the match ended, in milliseconds since the epoch
+     * @param duration how long the shooting phase of the match took, in milliseconds
+     * @param player1 the name of player 1
+     * @param player2 the name of player 2
+     * @param playerCount how many human players played the match (1 or 2)
+     * @param aiLevel the level of the AI (see <code>MatchResultStore.getAiLevel</code>), or 0 if no AI played or its level isn't known yet
+     * @param winner the player who won (1 or 2)
+     * @param shotCount how many shots both players fired
+     * @param winnerShotCount how many shots the winner fired
+     */
+    public MatchResult(long timestamp, long duration, String player1, String player2, int playerCount, int aiLevel, int winner, int shotCount, int winnerShotCount) {
+        this.timestamp = timestamp;
+        this.duration = duration;
+        this.player1 = player1;
+        this.player2 = player2;
+        this.playerCount = playerCount;
+        this.aiLevel = aiLevel;
+        this.winner = winner;
+        this.shotCount = shotCount;
+        this.winnerShotCount = winnerShotCount;
+    }
+
+    /**
+     * Gets when the match ended.
+     * @return the time in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Gets how long the shooting phase of the match took.
+     * @return the duration in milliseconds
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Gets the name of player 1.
+     * @return player 1's name
+     */
+    public String getPlayer1() {
+        return player1;
+    }
+
+    /**
+     * Gets the name of player 2.
+     * @return player 2's name
+     */
+    public String getPlayer2() {
+        return player2;
+    }
+
+    /**
+     * Gets how many human players played the match.
+     * @return the player count
+     */
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    /**
+     * Gets the level of the AI that played the match.
+     * @return the AI level, or 0 if no AI played
+     */
+    public int getAiLevel() {
+        return aiLevel;
+    }
+
+    /**
+     * Creates a copy of this result with a different AI level.
+     * @param aiLevel the level of the AI
+     * @return the copy
+     */
+    public MatchResult withAiLevel(int aiLevel) {
+        return new MatchResult(timestamp, duration, player1, player2, playerCount, aiLevel, winner, shotCount, winnerShotCount);
+    }
+
+    /**
+     * Gets the player who won.
+     * @return the winner (1 or 2)
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * Gets the name of the player who won.
+     * @return the winner's name
+     */
+    public String getWinnerName() {
+        return winner == 1 ? player1 : player2;
+    }
+
+    /**
+     * Gets how many shots both players fired.
+     * @return the shot count
+     */
+    public int getShotCount() {
+        return shotCount;
+    }
+
+    /**
+     * Gets how many shots the winner needed to win.
+     * @return the winner's shot count
+     */
+    public int getWinnerShotCount() {
+        return winnerShotCount;
+    }
+}
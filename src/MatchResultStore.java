@@ -0,0 +1,456 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A local store of the results of every finished match, kept in a directory on the disk.
+ * The results are appended to a file of fixed size records, so any result can be read by its number without reading the others.
+ * Each record points to the previous record of both of its players and to the previous record with the same AI level. Together with the latest record of every player and AI level (kept in a small separate file), these pointers answer questions such as "how many of their last 20 games did a player win" by reading only those 20 records.
+ * Records are appended in order of time, so the records between two dates are found with a binary search.
+ * Every AI strategy is given its own AI level by the store the first time one of its matches is saved (see <code>getAiLevel</code>), so the levels stay the same whichever strategies are installed.
+ * Player names are cut to the space reserved for them, both when they're stored and when they're looked up.
+ */
+public class MatchResultStore implements Closeable {
+    private static final int RECORD_SIZE = 48;
+    private static final int PLAYER_SLOT_SIZE = 48;
+    private static final int MAX_NAME_LENGTH = 32;
+    private static final int AI_LEVEL_COUNT = 16;
+    private static final int AI_LEVEL_SLOT_SIZE = 24;
+
+    private static MatchResultStore defaultStore;
+
+    private final RandomAccessFile records;
+    private final RandomAccessFile players;
+    private final RandomAccessFile aiLevels;
+
+    private int recordCount;
+    private long lastTimestamp;
+
+    private final HashMap<String, Integer> playerIds;
+    private final ArrayList<String> playerNames;
+    private int[] playerLastRecords;
+    private int[] playerGameCounts;
+    private int[] playerWinCounts;
+
+    private final int[] aiLevelLastRecords;
+    private final int[] aiLevelGameCounts;
+    private final long[] aiLevelWinnerShotTotals;
+    private final int[] aiLevelStrategies;
+
+    /**
+     * Opens the store in the passed in directory, creating the directory and the store if they don't exist yet.
+     * A record that was only partly written (for example because the game crashed) is removed.
+     * @param directory the directory of the store
+     * @throws IOException if the store can't be opened
+     */
+    public MatchResultStore(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Couldn't create directory " + directory);
+        }
+        records = new RandomAccessFile(new File(directory, "results.dat"), "rw");
+        players = new RandomAccessFile(new File(directory, "players.dat"), "rw");
+        aiLevels = new RandomAccessFile(new File(directory, "ailevels.dat"), "rw");
+
+        recordCount = (int) (records.length() / RECORD_SIZE);
+        records.setLength((long) recordCount * RECORD_SIZE);
+        if (recordCount > 0) {
+            records.seek((long) (recordCount - 1) * RECORD_SIZE);
+            lastTimestamp = records.readLong();
+        }
+
+        playerIds = new HashMap<>();
+        playerNames = new ArrayList<>();
+        int playerCount = (int) (players.length() / PLAYER_SLOT_SIZE);
+        playerLastRecords = new int[Math.max(playerCount, 16)];
+        playerGameCounts = new int[playerLastRecords.length];
+        playerWinCounts = new int[playerLastRecords.length];
+        byte[] nameBytes = new byte[MAX_NAME_LENGTH];
+        players.seek(0);
+        for (int i = 0; i < playerCount; i++) {
+            int nameLength = players.readUnsignedByte();
+            players.readFully(nameBytes);
+            String name = new String(nameBytes, 0, nameLength, StandardCharsets.UTF_8);
+            playerIds.put(name, i);
+            playerNames.add(name);
+            playerLastRecords[i] = players.readInt();
+            playerGameCounts[i] = players.readInt();
+            playerWinCounts[i] = players.readInt();
+            players.skipBytes(PLAYER_SLOT_SIZE - MAX_NAME_LENGTH - 13);
+        }
+
+        aiLevelLastRecords = new int[AI_LEVEL_COUNT];
+        aiLevelGameCounts = new int[AI_LEVEL_COUNT];
+        aiLevelWinnerShotTotals = new long[AI_LEVEL_COUNT];
+        aiLevelStrategies = new int[AI_LEVEL_COUNT];
+        Arrays.fill(aiLevelLastRecords, -1);
+        if (aiLevels.length() >= (long) AI_LEVEL_COUNT * AI_LEVEL_SLOT_SIZE) {
+            aiLevels.seek(0);
+            for (int i = 0; i < AI_LEVEL_COUNT; i++) {
+                aiLevelLastRecords[i] = aiLevels.readInt();
+                aiLevelGameCounts[i] = aiLevels.readInt();
+                aiLevelWinnerShotTotals[i] = aiLevels.readLong();
+                aiLevelStrategies[i] = aiLevels.readInt();
+                aiLevels.skipBytes(AI_LEVEL_SLOT_SIZE - 20);
+            }
+        } else {
+            for (int i = 0; i < AI_LEVEL_COUNT; i++) {
+                writeAiLevel(i);
+            }
+        }
+    }
+
+    /**
+     * Gets the store in the "results" directory of the working directory, opening it the first time it's needed.
+     * @return the default store
+     * @throws IOException if the store can't be opened
+     */
+    public static synchronized MatchResultStore getDefault() throws IOException {
+        if (defaultStore == null) {
+            defaultStore = new MatchResultStore(new File("results"));
+        }
+        return defaultStore;
+    }
+
+    /**
+     * Gets the amount of results in this store.
+     * @return the result count
+     */
+    public synchronized int size() {
+        return recordCount;
+    }
+
+    /**
+     * Appends a result to this store.
+     * If the result is older than the last result in the store, its timestamp is moved forward to keep the results in order of time.
+     * @param result the result to append
+     * @throws IOException if the result can't be written
+     */
+    public synchronized void append(MatchResult result) throws IOException {
+        int player1 = getOrAddPlayer(result.getPlayer1());
+        int player2 = getOrAddPlayer(result.getPlayer2());
+        int aiLevel = Math.max(0, Math.min(result.getAiLevel(), AI_LEVEL_COUNT - 1));
+        lastTimestamp = Math.max(lastTimestamp, result.getTimestamp());
+
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        buffer.putLong(lastTimestamp);
+        buffer.putLong(result.getDuration());
+        buffer.putInt(player1);
+        buffer.putInt(player2);
+        buffer.put((byte) result.getPlayerCount());
+        buffer.put((byte) aiLevel);
+        buffer.put((byte) result.getWinner());
+        buffer.put((byte) 0);
+        buffer.putInt(result.getShotCount());
+        buffer.putInt(result.getWinnerShotCount());
+        buffer.putInt(playerLastRecords[player1]);
+        buffer.putInt(playerLastRecords[player2]);
+        buffer.putInt(aiLevelLastRecords[aiLevel]);
+        records.seek((long) recordCount * RECORD_SIZE);
+        records.write(buffer.array());
+        int record = recordCount++;
+
+        if (player1 == player2) {
+            // A player who played against themselves played one game and won it.
+            updatePlayer(player1, record, true);
+        } else {
+            updatePlayer(player1, record, result.getWinner() == 1);
+            updatePlayer(player2, record, result.getWinner() == 2);
+        }
+
+        aiLevelLastRecords[aiLevel] = record;
+        aiLevelGameCounts[aiLevel]++;
+        aiLevelWinnerShotTotals[aiLevel] += result.getWinnerShotCount();
+        writeAiLevel(aiLevel);
+    }
+
+    /**
+     * Gets the AI level of a strategy, giving the strategy the lowest free level if it doesn't have one yet.
+     * A level is kept with the id of the strategy's name among the players of the store, so it never changes, whichever strategies are installed or removed later. Level 0 is kept for matches without an AI, and once every other level is taken, the strategies that come after share the last level.
+     * @param strategy the name of the strategy
+     * @return the AI level, from 1 to 15
+     * @throws IOException if the level can't be written
+     */
+    public synchronized int getAiLevel(String strategy) throws IOException {
+        int id = getOrAddPlayer(strategy) + 1;
+        for (int level = 1; level < AI_LEVEL_COUNT; level++) {
+            if (aiLevelStrategies[level] == id) {
+                return level;
+            }
+        }
+        for (int level = 1; level < AI_LEVEL_COUNT; level++) {
+            // Levels counted before they were given to strategies aren't handed out again, so their matches aren't mixed with a new strategy's.
+            if (aiLevelStrategies[level] == 0 && aiLevelGameCounts[level] == 0) {
+                aiLevelStrategies[level] = id;
+                writeAiLevel(level);
+                return level;
+            }
+        }
+        return AI_LEVEL_COUNT - 1;
+    }
+
+    /**
+     * Writes the latest record, game count, shot total and strategy of an AI level to the disk.
+     * @param aiLevel the AI level
+     * @throws IOException if the AI level can't be written
+     */
+    private void writeAiLevel(int aiLevel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(AI_LEVEL_SLOT_SIZE);
+        buffer.putInt(aiLevelLastRecords[aiLevel]);
+        buffer.putInt(aiLevelGameCounts[aiLevel]);
+        buffer.putLong(aiLevelWinnerShotTotals[aiLevel]);
+        buffer.putInt(aiLevelStrategies[aiLevel]);
+        aiLevels.seek((long) aiLevel * AI_LEVEL_SLOT_SIZE);
+        aiLevels.write(buffer.array());
+    }
+
+    /**
+     * Cuts off a name that is longer than the space reserved for it, which is what the store keeps and looks players up by.
+     * @param name the name of a player
+     * @return the name as it's stored
+     */
+    private static String normalizeName(String name) {
+        while (name.getBytes(StandardCharsets.UTF_8).length > MAX_NAME_LENGTH) {
+            name = name.substring(0, name.length() - 1);
+        }
+        return name;
+    }
+
+    /**
+     * Gets the id of a player, adding the player to the store if they're not in it yet.
+     * @param name the name of the player
+     * @return the id of the player
+     * @throws IOException if the player can't be written
+     */
+    private int getOrAddPlayer(String name) throws IOException {
+        name = normalizeName(name);
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        Integer id = playerIds.get(name);
+        if (id != null) {
+            return id;
+        }
+        int newId = playerNames.size();
+        if (newId == playerLastRecords.length) {
+            playerLastRecords = Arrays.copyOf(playerLastRecords, newId * 2);
+            playerGameCounts = Arrays.copyOf(playerGameCounts, newId * 2);
+            playerWinCounts = Arrays.copyOf(playerWinCounts, newId * 2);
+        }
+        playerIds.put(name, newId);
+        playerNames.add(name);
+        playerLastRecords[newId] = -1;
+        ByteBuffer buffer = ByteBuffer.allocate(PLAYER_SLOT_SIZE);
+        buffer.put((byte) nameBytes.length);
+        buffer.put(Arrays.copyOf(nameBytes, MAX_NAME_LENGTH));
+        buffer.putInt(-1);
+        players.seek((long) newId * PLAYER_SLOT_SIZE);
+        players.write(buffer.array());
+        return newId;
+    }
+
+    /**
+     * Updates the latest record, game count and win count of a player, both in memory and on the disk.
+     * @param player the id of the player
+     * @param record the number of the player's newest record
+     * @param won whether the player won the newest game
+     * @throws IOException if the player can't be written
+     */
+    private void updatePlayer(int player, int record, boolean won) throws IOException {
+        playerLastRecords[player] = record;
+        playerGameCounts[player]++;
+        if (won) {
+            playerWinCounts[player]++;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(12);
+        buffer.putInt(record);
+        buffer.putInt(playerGameCounts[player]);
+        buffer.putInt(playerWinCounts[player]);
+        players.seek((long) player * PLAYER_SLOT_SIZE + 1 + MAX_NAME_LENGTH);
+        players.write(buffer.array());
+    }
+
+    /**
+     * Reads a result from this store.
+     * @param record the number of the result (0 is the oldest result)
+     * @return the result
+     * @throws IOException if the result can't be read
+     */
+    public synchronized MatchResult get(int record) throws IOException {
+        byte[] bytes = new byte[RECORD_SIZE];
+        records.seek((long) record * RECORD_SIZE);
+        records.readFully(bytes);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long timestamp = buffer.getLong();
+        long duration = buffer.getLong();
+        String player1 = playerNames.get(buffer.getInt());
+        String player2 = playerNames.get(buffer.getInt());
+        int playerCount = buffer.get() & 0xFF;
+        int aiLevel = buffer.get() & 0xFF;
+        int winner = buffer.get() & 0xFF;
+        buffer.get();
+        int shotCount = buffer.getInt();
+        int winnerShotCount = buffer.getInt();
+        return new MatchResult(timestamp, duration, player1, player2, playerCount, aiLevel, winner, shotCount, winnerShotCount);
+    }
+
+    /**
+     * Reads one of the pointers to a previous record from a record.
+     * @param record the number of the record
+     * @param pointer 0 for player 1's previous record, 1 for player 2's, 2 for the AI level's
+     * @return the number of the previous record, or -1 if there is none
+     * @throws IOException if the record can't be read
+     */
+    private int readPreviousRecord(int record, int pointer) throws IOException {
+        records.seek((long) record * RECORD_SIZE + 36 + pointer * 4);
+        return records.readInt();
+    }
+
+    /**
+     * Gets the latest results of a player, newest first.
+     * Only the records of the player are read.
+     * @param player the name of the player
+     * @param count the maximum amount of results
+     * @return the results
+     * @throws IOException if the results can't be read
+     */
+    public synchronized List<MatchResult> getRecentResults(String player, int count) throws IOException {
+        player = normalizeName(player);
+        ArrayList<MatchResult> results = new ArrayList<>();
+        Integer id = playerIds.get(player);
+        int record = id == null ? -1 : playerLastRecords[id];
+        while (record >= 0 && results.size() < count) {
+            MatchResult result = get(record);
+            results.add(result);
+            record = readPreviousRecord(record, result.getPlayer1().equals(player) ? 0 : 1);
+        }
+        return results;
+    }
+
+    /**
+     * Gets the latest results of matches played against an AI level, newest first.
+     * Only the records of the AI level are read.
+     * @param aiLevel the AI level, or 0 for matches without an AI
+     * @param count the maximum amount of results
+     * @return the results
+     * @throws IOException if the results can't be read
+     */
+    public synchronized List<MatchResult> getRecentResults(int aiLevel, int count) throws IOException {
+        ArrayList<MatchResult> results = new ArrayList<>();
+        int record = aiLevel >= 0 && aiLevel < AI_LEVEL_COUNT ? aiLevelLastRecords[aiLevel] : -1;
+        while (record >= 0 && results.size() < count) {
+            results.add(get(record));
+            record = readPreviousRecord(record, 2);
+        }
+        return results;
+    }
+
+    /**
+     * Gets the share of a player's last games that the player won.
+     * @param player the name of the player
+     * @param lastGames how many of the player's latest games to count
+     * @return the win rate between 0 and 1, or 0 if the player hasn't played any games
+     * @throws IOException if the results can't be read
+     */
+    public synchronized double getWinRate(String player, int lastGames) throws IOException {
+        player = normalizeName(player);
+        List<MatchResult> results = getRecentResults(player, lastGames);
+        int wins = 0;
+        for (MatchResult result : results) {
+            if (result.getWinnerName().equals(player)) {
+                wins++;
+            }
+        }
+        return results.isEmpty() ? 0 : (double) wins / results.size();
+    }
+
+    /**
+     * Gets the share of all of a player's games that the player won, without reading any results.
+     * @param player the name of the player
+     * @return the win rate between 0 and 1, or 0 if the player hasn't played any games
+     */
+    public synchronized double getWinRate(String player) {
+        Integer id = playerIds.get(normalizeName(player));
+        return id == null || playerGameCounts[id] == 0 ? 0 : (double) playerWinCounts[id] / playerGameCounts[id];
+    }
+
+    /**
+     * Gets how many shots the winner needed on average in the last matches played against an AI level.
+     * @param aiLevel the AI level, or 0 for matches without an AI
+     * @param lastGames how many of the latest matches to count
+     * @return the average shot count, or 0 if there are no such matches
+     * @throws IOException if the results can't be read
+     */
+    public synchronized double getAverageShotsToWin(int aiLevel, int lastGames) throws IOException {
+        List<MatchResult> results = getRecentResults(aiLevel, lastGames);
+        long shots = 0;
+        for (MatchResult result : results) {
+            shots += result.getWinnerShotCount();
+        }
+        return results.isEmpty() ? 0 : (double) shots / results.size();
+    }
+
+    /**
+     * Gets how many shots the winner needed on average in all the matches played against an AI level, without reading any results.
+     * @param aiLevel the AI level, or 0 for matches without an AI
+     * @return the average shot count, or 0 if there are no such matches
+     */
+    public synchronized double getAverageShotsToWin(int aiLevel) {
+        if (aiLevel < 0 || aiLevel >= AI_LEVEL_COUNT || aiLevelGameCounts[aiLevel] == 0) {
+            return 0;
+        }
+        return (double) aiLevelWinnerShotTotals[aiLevel] / aiLevelGameCounts[aiLevel];
+    }
+
+    /**
+     * Finds the first result that ended at or after the passed in time, using a binary search over the records.
+     * @param timestamp the time in milliseconds since the epoch
+     * @return the number of the first such result, or the amount of results if there is none
+     * @throws IOException if the results can't be read
+     */
+    public synchronized int findFirstResultAfter(long timestamp) throws IOException {
+        int low = 0;
+        int high = recordCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            records.seek((long) middle * RECORD_SIZE);
+            if (records.readLong() < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets all the results of matches that ended between two points in time.
+     * @param from the start of the time range in milliseconds since the epoch (inclusive)
+     * @param to the end of the time range in milliseconds since the epoch (exclusive)
+     * @return the results, oldest first
+     * @throws IOException if the results can't be read
+     */
+    public synchronized List<MatchResult> getResultsBetween(long from, long to) throws IOException {
+        ArrayList<MatchResult> results = new ArrayList<>();
+        int end = findFirstResultAfter(to);
+        for (int i = findFirstResultAfter(from); i < end; i++) {
+            results.add(get(i));
+        }
+        return results;
+    }
+
+    /**
+     * Closes the files of this store.
+     * @throws IOException if the files can't be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        records.close();
+        players.close();
+        aiLevels.close();
+    }
+}
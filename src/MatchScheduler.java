@@ -0,0 +1,376 @@
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Runs the commands of many matches on a fixed amount of worker threads (shards), so the game logic of a match never needs any locks.
+ * Every match is assigned to one shard by its id, and all of its commands run on that shard's thread one after another, in the order they were submitted.
+ * Every match has its own lock-free queue of commands (see <code>MpscQueue</code>), and every shard has a lock-free queue of the matches that have commands waiting. A match is in its shard's queue at most once, so only one thread ever runs its commands at a time.
+ * A shard runs at most <code>BATCH_SIZE</code> commands of a match before moving on to the next match, so a busy match can't starve the others.
+ * A match can be handed off to another shard at any time (see <code>moveMatch</code> and <code>rebalance</code>): the next time the match has commands waiting, it's queued on its new shard instead, and the queues make sure the new shard sees everything the old shard did to the match.
+ * Every shard counts the commands it has run and measures how long the commands waited in the queue before they ran, see <code>getReport</code>.
+ */
+public class MatchScheduler implements Closeable {
+    private static final int BATCH_SIZE = 64;
+
+    /**
+     * A command submitted for a match, together with the result it completes.
+     */
+    private static final class Command<T> {
+        private final Supplier<T> task;
+        private final CompletableFuture<T> result;
+        private final long submitTime;
+
+        private Command(Supplier<T> task) {
+            this.task = task;
+            result = new CompletableFuture<>();
+            submitTime = System.nanoTime();
+        }
+
+        /**
+         * Runs the command and completes its result with the value it returned or the exception it threw.
+         */
+        private void run() {
+            try {
+                result.complete(task.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * The commands waiting to run for one match.
+     */
+    private static final class Mailbox {
+        private final MpscQueue<Command<?>> commands;
+        private final AtomicBoolean scheduled;
+        private volatile Shard owner;
+        private boolean removed;
+
+        private Mailbox(Shard owner) {
+            this.owner = owner;
+            commands = new MpscQueue<>();
+            scheduled = new AtomicBoolean();
+        }
+    }
+
+    /**
+     * One worker thread and the matches assigned to it.
+     */
+    private final class Shard implements Runnable {
+        private final int index;
+        private final MpscQueue<Mailbox> ready;
+        private final Thread thread;
+        private final AtomicInteger matchCount;
+        private volatile boolean sleeping;
+        private volatile long commandsRun;
+        private volatile LatencyRecorder queueLatency;
+        private long reportedCommands;
+
+        private Shard(int index) {
+            this.index = index;
+            ready = new MpscQueue<>();
+            matchCount = new AtomicInteger();
+            queueLatency = new LatencyRecorder();
+            thread = new Thread(this, "Match shard " + index);
+            thread.setDaemon(true);
+        }
+
+        /**
+         * Queues a match that has commands waiting, waking the thread up if it's asleep.
+         * @param mailbox the match
+         */
+        private void schedule(Mailbox mailbox) {
+            ready.offer(mailbox);
+            if (sleeping) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        /**
+         * Runs the commands of the queued matches until the scheduler is closed, sleeping whenever no match has commands waiting.
+         */
+        @Override
+        public void run() {
+            while (!closed) {
+                Mailbox mailbox = ready.poll();
+                if (mailbox != null) {
+                    runCommands(mailbox);
+                    continue;
+                }
+                // The flag is set before checking the queue one last time, so a match queued right now either is seen here or wakes the thread up.
+                sleeping = true;
+                if (ready.isEmpty() && !closed) {
+                    LockSupport.park(this);
+                }
+                sleeping = false;
+            }
+        }
+
+        /**
+         * Runs up to <code>BATCH_SIZE</code> commands of a match, then queues the match again if it still has commands waiting.
+         * The match is queued on its current owner, which is where a handoff to another shard takes effect.
+         * @param mailbox the match
+         */
+        private void runCommands(Mailbox mailbox) {
+            LatencyRecorder latency = queueLatency;
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                Command<?> command = mailbox.commands.poll();
+                if (command == null) {
+                    break;
+                }
+                latency.record(System.nanoTime() - command.submitTime, false);
+                command.run();
+                commandsRun++;
+            }
+            if (mailbox.commands.isEmpty()) {
+                mailbox.scheduled.set(false);
+                // A command submitted while the flag was still set didn't queue the match, so the match is queued here instead, unless the submitter already did it.
+                if (mailbox.commands.isEmpty() || !mailbox.scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+            mailbox.owner.schedule(mailbox);
+        }
+    }
+
+    private final Shard[] shards;
+    private final ConcurrentHashMap<Long, Mailbox> mailboxes;
+    private final Object drainLock;
+    private final ArrayList<Mailbox> lateMailboxes;
+    private volatile boolean closed;
+    private boolean drained;
+    private long reportTime;
+
+    /**
+     * Constructs a new scheduler and starts its worker threads.
+     * @param shardCount the amount of worker threads
+     * @throws IllegalArgumentException if the amount of worker threads isn't positive
+     */
+    public MatchScheduler(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("A scheduler needs at least one shard");
+        }
+        mailboxes = new ConcurrentHashMap<>();
+        drainLock = new Object();
+        lateMailboxes = new ArrayList<>();
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+        }
+        reportTime = System.nanoTime();
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+    }
+
+    /**
+     * Gets the amount of worker threads.
+     * @return the amount of shards
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Starts accepting commands for a match and assigns the match to a shard by its id.
+     * @param matchId the id of the match
+     * @return the index of the shard the match was assigned to
+     * @throws IllegalArgumentException if a match with the same id is already registered
+     */
+    public int register(long matchId) {
+        // Mixes the bits of the id, so ids that are handed out in steps still spread over all the shards.
+        long hash = matchId * 0x9E3779B97F4A7C15L;
+        Shard shard = shards[(int) Math.floorMod(hash ^ hash >>> 32, (long) shards.length)];
+        if (mailboxes.putIfAbsent(matchId, new Mailbox(shard)) != null) {
+            throw new IllegalArgumentException("Match " + matchId + " is already registered");
+        }
+        shard.matchCount.incrementAndGet();
+        return shard.index;
+    }
+
+    /**
+     * Stops accepting commands for a match. The commands that were already submitted still run, or are cancelled if the scheduler is closed first.
+     * @param matchId the id of the match
+     */
+    public void unregister(long matchId) {
+        Mailbox mailbox = mailboxes.remove(matchId);
+        if (mailbox != null) {
+            synchronized (mailbox) {
+                mailbox.removed = true;
+                mailbox.owner.matchCount.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Submits a command for a match. The command runs on the match's shard after all the commands submitted for the match before it.
+     * @param matchId the id of the match
+     * @param task the command
+     * @param <T> the type of the value the command returns
+     * @return the result of the command, which is completed with the value the command returned or the exception it threw, or cancelled if the scheduler is closed first
+     * @throws IllegalArgumentException if the match isn't registered
+     */
+    public <T> CompletableFuture<T> submit(long matchId, Supplier<T> task) {
+        Mailbox mailbox = mailboxes.get(matchId);
+        if (mailbox == null) {
+            throw new IllegalArgumentException("Match " + matchId + " isn't registered");
+        }
+        Command<T> command = new Command<>(task);
+        if (closed) {
+            command.result.cancel(false);
+            return command.result;
+        }
+        mailbox.commands.offer(command);
+        if (mailbox.scheduled.compareAndSet(false, true)) {
+            mailbox.owner.schedule(mailbox);
+        }
+        if (closed) {
+            // The scheduler was closed while the command was being queued, so no shard may be left to run it.
+            cancelLateCommands(mailbox);
+        }
+        return command.result;
+    }
+
+    /**
+     * Makes sure the commands queued for a match while the scheduler was closing are cancelled.
+     * Only one thread may take commands out of a match's queue at a time, so they're only cancelled here if <code>close</code> has already cancelled the others, which is after every shard has stopped. Otherwise the match is left for <code>close</code>.
+     * @param mailbox the match
+     */
+    private void cancelLateCommands(Mailbox mailbox) {
+        synchronized (drainLock) {
+            if (drained) {
+                cancelCommands(mailbox);
+            } else {
+                lateMailboxes.add(mailbox);
+            }
+        }
+    }
+
+    /**
+     * Cancels all the commands waiting in a match's queue. Only called once no shard runs anymore, while holding the drain lock.
+     * @param mailbox the match
+     */
+    private static void cancelCommands(Mailbox mailbox) {
+        Command<?> command;
+        while ((command = mailbox.commands.poll()) != null) {
+            command.result.completeExceptionally(new CancellationException("The scheduler was closed"));
+        }
+    }
+
+    /**
+     * Hands a match off to another shard. Its commands that are already running or queued on the old shard finish there first.
+     * @param matchId the id of the match
+     * @param shardIndex the index of the new shard
+     * @return whether the match was registered
+     */
+    public boolean moveMatch(long matchId, int shardIndex) {
+        Mailbox mailbox = mailboxes.get(matchId);
+        return mailbox != null && moveMatch(mailbox, shards[shardIndex]);
+    }
+
+    /**
+     * Hands a match off to another shard.
+     * @param mailbox the match
+     * @param shard the new shard
+     * @return whether the match was still registered
+     */
+    private boolean moveMatch(Mailbox mailbox, Shard shard) {
+        synchronized (mailbox) {
+            if (mailbox.removed) {
+                return false;
+            }
+            mailbox.owner.matchCount.decrementAndGet();
+            shard.matchCount.incrementAndGet();
+            mailbox.owner = shard;
+            return true;
+        }
+    }
+
+    /**
+     * Hands matches off from the shards with the most matches to the shards with the fewest, until no shard has more than one match more than another.
+     * The shards start out even, since the ids spread the matches evenly, but they drift apart as matches of different lengths end.
+     * @return the amount of matches that were handed off
+     */
+    public int rebalance() {
+        int moved = 0;
+        for (Mailbox mailbox : mailboxes.values()) {
+            Shard least = shards[0];
+            for (Shard shard : shards) {
+                if (shard.matchCount.get() < least.matchCount.get()) {
+                    least = shard;
+                }
+            }
+            if (mailbox.owner.matchCount.get() - least.matchCount.get() > 1 && moveMatch(mailbox, least)) {
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Describes every shard in one line: its matches, how many commands it has run per second and the percentiles of how long the commands waited in its queue, since the previous report.
+     * @return the report, one line per shard
+     */
+    public synchronized String getReport() {
+        long now = System.nanoTime();
+        double seconds = Math.max(now - reportTime, 1) / 1e9;
+        reportTime = now;
+        StringBuilder report = new StringBuilder();
+        for (Shard shard : shards) {
+            LatencyRecorder latency = shard.queueLatency;
+            shard.queueLatency = new LatencyRecorder();
+            long commands = shard.commandsRun;
+            report.append("Shard ").append(shard.index).append(": ").append(shard.matchCount.get()).append(" matches, ")
+                    .append(Math.round((commands - shard.reportedCommands) / seconds)).append(" commands/s, queue latency p50 ")
+                    .append(latency.getPercentile(50) / 1000).append(" us, p99 ").append(latency.getPercentile(99) / 1000)
+                    .append(" us, max ").append(latency.getPercentile(100) / 1000).append(" us").append(System.lineSeparator());
+            shard.reportedCommands = commands;
+        }
+        return report.toString();
+    }
+
+    /**
+     * Stops the worker threads and cancels the commands that haven't run yet, including the ones submitted while the scheduler is closing.
+     * Every match with commands waiting is in the ready queue of a shard, whether it's still registered or not, so the ready queues are emptied too.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.thread);
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        // No shard runs anymore, so this thread can take the commands that are left. Commands submitted from now on are cancelled by their submitters.
+        synchronized (drainLock) {
+            for (Shard shard : shards) {
+                Mailbox mailbox;
+                while ((mailbox = shard.ready.poll()) != null) {
+                    cancelCommands(mailbox);
+                }
+            }
+            for (Mailbox mailbox : mailboxes.values()) {
+                cancelCommands(mailbox);
+            }
+            for (Mailbox mailbox : lateMailboxes) {
+                cancelCommands(mailbox);
+            }
+            lateMailboxes.clear();
+            drained = true;
+        }
+    }
+}
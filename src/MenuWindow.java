@@ -3,13 +3,16 @@ import javax.swing.border.LineBorder;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
 
 /**
  * A subclass of <code>JFrame</code> that serves as the first window that the player sees.
- * It allows the player to start the game or to quit.
+ * It allows the player to start the game, to start a free-for-all match, to watch a saved replay or to quit.
  */
 public class MenuWindow extends JFrame implements ActionListener {
     private JButton playButton;
+    private JButton freeForAllButton;
+    private JButton replayButton;
     private JButton quitButton;
     private int answer;
     private String options[];
@@ -21,10 +24,11 @@ public class MenuWindow extends JFrame implements ActionListener {
      */
     MenuWindow() {
         this.setDefaultCloseOperation(EXIT_ON_CLOSE);
-        this.setLayout(new GridLayout(2, 1));
+        this.setLayout(new GridLayout(4, 1));
         this.setResizable(false);
         this.setTitle("Battleships");
-        options = new String[]{"1 player", "2 players"};
+        SpriteAtlas.preload();
+        options = new String[]{"1 player", "2 players", "1 player (salvo)", "2 players (salvo)"};
 
         LineBorder buttonBorder = new LineBorder(Color.BLACK, 1);
         Dimension buttonDimension = new Dimension(250, 80);
@@ -35,6 +39,18 @@ public class MenuWindow extends JFrame implements ActionListener {
         playButton.addActionListener(this);
         this.add(playButton);
 
+        freeForAllButton = new JButton("Free-for-all");
+        freeForAllButton.setBorder(buttonBorder);
+        freeForAllButton.setPreferredSize(buttonDimension);
+        freeForAllButton.addActionListener(this);
+        this.add(freeForAllButton);
+
+        replayButton = new JButton("Watch replay");
+        replayButton.setBorder(buttonBorder);
+        replayButton.setPreferredSize(buttonDimension);
+        replayButton.addActionListener(this);
+        this.add(replayButton);
+
         quitButton = new JButton("Quit");
         quitButton.setBorder(buttonBorder);
         quitButton.setPreferredSize(buttonDimension);
@@ -50,7 +66,9 @@ public class MenuWindow extends JFrame implements ActionListener {
 
     /**
      * Handles the button presses.
-     * The play button shows a <code>JOptionPane</code> window, asking the player whether only 1 player's going to be playing or 2.
+     * The play button shows a <code>JOptionPane</code> window, asking the player whether only 1 player's going to be playing or 2, and whether every turn is a single shot or a salvo of one shot per remaining ship. When playing against the AI and more than one <code>AIStrategy</code> is available, it also asks which one to play against.
+     * The free-for-all button asks how many players (3 to 8) are going to play and how many of them are people, and starts a free-for-all match in a <code>FreeForAllWindow</code>.
+     * The replay button lets the player choose a saved replay file and opens it in a <code>ReplayWindow</code>.
      * The quit button shuts down the program.
      * @param e the event to be processed
      */
@@ -58,11 +76,49 @@ public class MenuWindow extends JFrame implements ActionListener {
     public void actionPerformed(ActionEvent e) {
         if (e.getSource() == playButton) {
             if((answer = JOptionPane.showOptionDialog(null, "Select game mode", "Start match", JOptionPane.YES_NO_OPTION, JOptionPane.INFORMATION_MESSAGE, null, options, null)) != -1){
+                if(answer % 2 == 0){
+                    String[] strategyNames = StrategyHarness.getStrategyNames().toArray(new String[0]);
+                    if(strategyNames.length > 1){
+                        String strategyName = (String) JOptionPane.showInputDialog(null, "Select the AI", "Start match", JOptionPane.QUESTION_MESSAGE, null, strategyNames, GameState.getAIStrategyName());
+                        if(strategyName == null){
+                            return;
+                        }
+                        GameState.setAIStrategyName(strategyName);
+                    }
+                }
                 this.dispose();
-                GameState.setPlayerCount(answer + 1);
+                GameState.setPlayerCount(answer % 2 + 1);
+                GameState.setSalvoMode(answer >= 2);
                 new GameWindow();
             }
         }
+        else if (e.getSource() == freeForAllButton) {
+            Integer[] playerCounts = {3, 4, 5, 6, 7, 8};
+            Integer playerCount = (Integer) JOptionPane.showInputDialog(null, "Number of players", "Free-for-all", JOptionPane.QUESTION_MESSAGE, null, playerCounts, playerCounts[0]);
+            if (playerCount != null) {
+                Integer[] humanCounts = new Integer[playerCount];
+                for (int i = 0; i < playerCount; i++) {
+                    humanCounts[i] = i + 1;
+                }
+                Integer humanCount = (Integer) JOptionPane.showInputDialog(null, "Number of human players (the rest are played by the AI)", "Free-for-all", JOptionPane.QUESTION_MESSAGE, null, humanCounts, humanCounts[playerCount - 1]);
+                if (humanCount != null) {
+                    this.dispose();
+                    new FreeForAllWindow(playerCount, humanCount);
+                }
+            }
+        }
+        else if (e.getSource() == replayButton) {
+            JFileChooser fileChooser = new JFileChooser();
+            if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                try {
+                    Replay replay = Replay.read(fileChooser.getSelectedFile());
+                    this.dispose();
+                    new ReplayWindow(replay);
+                } catch (IOException exception) {
+                    JOptionPane.showMessageDialog(null, "The replay couldn't be opened.", "Watch replay", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }
         else if (e.getSource() == quitButton) {
             System.exit(0);
         }
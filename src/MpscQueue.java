@@ -0,0 +1,67 @@
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An unbounded queue that any amount of threads can add to, but only one thread at a time can take from, without any locks.
+ * The queue is a linked list: adding swaps the new node into the tail with one atomic operation and then links the previous tail to it, and taking just follows the links from the head, which only the taking thread touches.
+ * Between those two steps of adding, the new element isn't reachable from the head yet, so <code>poll</code> can return <code>null</code> for a moment even though <code>isEmpty</code> already returns <code>false</code>.
+ * @param <T> the type of the elements
+ */
+public final class MpscQueue<T> {
+
+    /**
+     * A single link of the list.
+     */
+    private static final class Node<T> {
+        private T value;
+        private volatile Node<T> next;
+
+        private Node(T value) {
+            this.value = value;
+        }
+    }
+
+    private final AtomicReference<Node<T>> tail;
+    private Node<T> head;
+
+    /**
+     * Constructs a new empty queue.
+     */
+    public MpscQueue() {
+        head = new Node<>(null);
+        tail = new AtomicReference<>(head);
+    }
+
+    /**
+     * Adds an element to the end of the queue. Any thread can add elements.
+     * @param value the element
+     */
+    public void offer(T value) {
+        Node<T> node = new Node<>(value);
+        tail.getAndSet(node).next = node;
+    }
+
+    /**
+     * Takes the element at the start of the queue. Only one thread can take elements at a time.
+     * @return the element, or <code>null</code> if there's no element that has been completely added
+     */
+    public T poll() {
+        Node<T> next = head.next;
+        if (next == null) {
+            return null;
+        }
+        T value = next.value;
+        // The node becomes the new empty head, so it mustn't keep the element alive.
+        next.value = null;
+        head = next;
+        return value;
+    }
+
+    /**
+     * Returns whether the queue is empty, counting the elements that are still being added as already in the queue.
+     * Only the thread that takes the elements can rely on the answer.
+     * @return whether the queue is empty
+     */
+    public boolean isEmpty() {
+        return head == tail.get();
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * Counts, for every tile of a board, how many places of each ship cover it, which is what the probability maps of the AI are made of.
+ * The board is passed in as one bitmask of open tiles (tiles that can hold a ship) per row, so boards up to 64 tiles wide and high are supported.
+ * The counting works on whole rows and columns at once: the places a ship can start at in a row are found by shifting the row's mask and combining it with itself, and the counts of all the tiles of a row are kept bit-sliced (bit <code>k</code> of every tile's count in one long), so adding a ship's tiles to the counts is a handful of bitwise operations for the entire row.
+ * Vertical places are counted the same way on the columns, after transposing the mask.
+ * If the game runs with <code>--add-modules jdk.incubator.vector</code>, the counting is done by <code>VectorPlacementKernel</code> instead, which does the same on several rows or columns at once using the Vector API. The class is compiled with the same option, but never loaded without it.
+ * <code>countPlacementsScalar</code> counts the same thing one place and one tile at a time, as a reference and for comparing the speed (see <code>PlacementKernelBenchmark</code>).
+ */
+public final class PlacementKernel {
+    private static final boolean VECTOR_API = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    /**
+     * This class only has static methods.
+     */
+    private PlacementKernel() {
+    }
+
+    /**
+     * Counts how many places of the passed in ships cover each tile, with the Vector API if it's available and with bitwise operations on whole rows and columns otherwise.
+     * A ship of size 1 is only counted once for each tile, since turning it doesn't move it anywhere new.
+     * @param openRows the open tiles of every row, bit <code>x</code> of element <code>y</code> being the tile at <code>x</code>, <code>y</code>; bits past the width are ignored
+     * @param width the width of the board (1 to 64)
+     * @param height the height of the board (1 to 64)
+     * @param shipSizes the sizes of the ships
+     * @param placementCounts filled with the amount of places each ship fits, or <code>null</code>
+     * @return the count of every tile, row by row
+     */
+    public static int[] countPlacements(long[] openRows, int width, int height, int[] shipSizes, int[] placementCounts) {
+        if (VECTOR_API) {
+            checkSize(openRows, width, height);
+            return VectorPlacementKernel.countPlacements(openRows, width, height, shipSizes, placementCounts);
+        }
+        return countPlacementsBitwise(openRows, width, height, shipSizes, placementCounts);
+    }
+
+    /**
+     * Tells whether <code>countPlacements</code> uses the Vector API.
+     * @return <code>true</code> if the <code>jdk.incubator.vector</code> module was added when the game was started
+     */
+    public static boolean isVectorized() {
+        return VECTOR_API;
+    }
+
+    /**
+     * Counts how many places of the passed in ships cover each tile, using bitwise operations on whole rows and columns.
+     * A ship of size 1 is only counted once for each tile, since turning it doesn't move it anywhere new.
+     * @param openRows the open tiles of every row, bit <code>x</code> of element <code>y</code> being the tile at <code>x</code>, <code>y</code>; bits past the width are ignored
+     * @param width the width of the board (1 to 64)
+     * @param height the height of the board (1 to 64)
+     * @param shipSizes the sizes of the ships
+     * @param placementCounts filled with the amount of places each ship fits, or <code>null</code>
+     * @return the count of every tile, row by row
+     */
+    public static int[] countPlacementsBitwise(long[] openRows, int width, int height, int[] shipSizes, int[] placementCounts) {
+        checkSize(openRows, width, height);
+        long widthMask = width == 64 ? -1L : (1L << width) - 1;
+        long[] rows = new long[height];
+        long[] columns = new long[width];
+        for (int y = 0; y < height; y++) {
+            rows[y] = openRows[y] & widthMask;
+            long bits = rows[y];
+            while (bits != 0) {
+                columns[Long.numberOfTrailingZeros(bits)] |= 1L << y;
+                bits &= bits - 1;
+            }
+        }
+        int maximumCount = 0;
+        for (int size : shipSizes) {
+            maximumCount += size;
+        }
+        int planeCount = 32 - Integer.numberOfLeadingZeros(maximumCount);
+        long[] rowPlanes = new long[height * planeCount];
+        long[] columnPlanes = new long[width * planeCount];
+        for (int i = 0; i < shipSizes.length; i++) {
+            int placements = addLines(rows, shipSizes[i], rowPlanes, planeCount);
+            if (shipSizes[i] > 1) {
+                placements += addLines(columns, shipSizes[i], columnPlanes, planeCount);
+            }
+            if (placementCounts != null) {
+                placementCounts[i] = placements;
+            }
+        }
+        int[] counts = new int[width * height];
+        extractCounts(rowPlanes, height, planeCount, counts, 1, width);
+        extractCounts(columnPlanes, width, planeCount, counts, width, 1);
+        return counts;
+    }
+
+    /**
+     * Counts the places of one ship in every line (row or column) and adds the ship's tiles to the bit-sliced counts of the line.
+     * @param lines the open tiles of every line
+     * @param size the size of the ship
+     * @param planes the counts of every line, <code>planeCount</code> longs per line, the first of them holding the lowest bit of every tile's count
+     * @param planeCount how many bits every count has
+     * @return the amount of places in all the lines
+     */
+    private static int addLines(long[] lines, int size, long[] planes, int planeCount) {
+        int placements = 0;
+        for (int line = 0; line < lines.length; line++) {
+            long open = lines[line];
+            long starts = open;
+            for (int i = 1; i < size && starts != 0; i++) {
+                starts &= open >>> i;
+            }
+            if (starts == 0) {
+                continue;
+            }
+            placements += Long.bitCount(starts);
+            int base = line * planeCount;
+            for (int i = 0; i < size; i++) {
+                // Adds 1 to the count of every tile that is the i-th tile of a place, carrying into the higher bits like a binary adder.
+                long carry = starts << i;
+                for (int plane = base; carry != 0; plane++) {
+                    long next = planes[plane] & carry;
+                    planes[plane] ^= carry;
+                    carry = next;
+                }
+            }
+        }
+        return placements;
+    }
+
+    /**
+     * Adds the bit-sliced counts of every line to the counts of the tiles.
+     * @param planes the bit-sliced counts, <code>planeCount</code> longs per line
+     * @param lineCount the amount of lines
+     * @param planeCount how many bits every count has
+     * @param counts the counts of the tiles, row by row
+     * @param tileStep how far apart two neighbouring tiles of a line are in <code>counts</code>
+     * @param lineStep how far apart the first tiles of two neighbouring lines are in <code>counts</code>
+     */
+    private static void extractCounts(long[] planes, int lineCount, int planeCount, int[] counts, int tileStep, int lineStep) {
+        for (int line = 0; line < lineCount; line++) {
+            for (int plane = 0; plane < planeCount; plane++) {
+                long bits = planes[line * planeCount + plane];
+                while (bits != 0) {
+                    counts[line * lineStep + Long.numberOfTrailingZeros(bits) * tileStep] += 1 << plane;
+                    bits &= bits - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts how many places of the passed in ships cover each tile, one place and one tile at a time.
+     * The result is the same as the result of <code>countPlacements</code>.
+     * @param openRows the open tiles of every row, bit <code>x</code> of element <code>y</code> being the tile at <code>x</code>, <code>y</code>; bits past the width are ignored
+     * @param width the width of the board (1 to 64)
+     * @param height the height of the board (1 to 64)
+     * @param shipSizes the sizes of the ships
+     * @param placementCounts filled with the amount of places each ship fits, or <code>null</code>
+     * @return the count of every tile, row by row
+     */
+    public static int[] countPlacementsScalar(long[] openRows, int width, int height, int[] shipSizes, int[] placementCounts) {
+        checkSize(openRows, width, height);
+        int[] counts = new int[width * height];
+        for (int i = 0; i < shipSizes.length; i++) {
+            int size = shipSizes[i];
+            int placements = 0;
+            for (int rotation = 1; rotation <= (size > 1 ? 2 : 1); rotation++) {
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        boolean fits = true;
+                        for (int j = 0; j < size && fits; j++) {
+                            int tileX = rotation == 1 ? x : x + j;
+                            int tileY = rotation == 1 ? y + j : y;
+                            fits = tileX < width && tileY < height && (openRows[tileY] & 1L << tileX) != 0;
+                        }
+                        if (fits) {
+                            placements++;
+                            for (int j = 0; j < size; j++) {
+                                counts[(rotation == 1 ? y + j : y) * width + (rotation == 1 ? x : x + j)]++;
+                            }
+                        }
+                    }
+                }
+            }
+            if (placementCounts != null) {
+                placementCounts[i] = placements;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Checks the size of a board.
+     * @param openRows the open tiles of every row
+     * @param width the width of the board
+     * @param height the height of the board
+     * @throws IllegalArgumentException if the board is empty, more than 64 tiles wide or high, or has fewer rows than its height
+     */
+    private static void checkSize(long[] openRows, int width, int height) {
+        if (width < 1 || width > 64 || height < 1 || height > 64 || openRows.length < height) {
+            throw new IllegalArgumentException("Unsupported board size " + width + "x" + height);
+        }
+    }
+}
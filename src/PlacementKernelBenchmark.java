@@ -0,0 +1,97 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the speed of <code>PlacementKernel.countPlacementsBitwise</code> with <code>PlacementKernel.countPlacementsScalar</code> on boards of several sizes, and of <code>VectorPlacementKernel</code> too if the benchmark runs with <code>--add-modules jdk.incubator.vector</code>.
+ * Every board has about a fifth of its tiles already shot, and the ships are the ships of <code>Match.FLEET</code>.
+ * Each kernel is warmed up before it's measured, so the times are those of compiled code, and the results of both kernels are checked to be the same.
+ */
+public class PlacementKernelBenchmark {
+    private static final int BOARD_COUNT = 64;
+    private static final int SCALAR = 0;
+    private static final int BITWISE = 1;
+    private static final int VECTOR = 2;
+
+    /**
+     * This class only has the <code>main</code> method.
+     */
+    private PlacementKernelBenchmark() {
+    }
+
+    /**
+     * Runs the comparison and prints the time each kernel takes for one board.
+     * The first argument is how many milliseconds every measurement runs for (1000 by default), and the rest are the board sizes (10, 16, 32 and 64 by default).
+     * @param args the launch arguments
+     */
+    public static void main(String[] args) {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        int[] sizes = args.length > 1 ? Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray() : new int[]{10, 16, 32, 64};
+        Random random = new Random(42);
+        for (int size : sizes) {
+            long[][] boards = new long[BOARD_COUNT][size];
+            for (long[] board : boards) {
+                for (int y = 0; y < size; y++) {
+                    for (int x = 0; x < size; x++) {
+                        if (random.nextInt(5) != 0) {
+                            board[y] |= 1L << x;
+                        }
+                    }
+                }
+                int[] expected = PlacementKernel.countPlacementsScalar(board, size, size, Match.FLEET, null);
+                if (!Arrays.equals(PlacementKernel.countPlacementsBitwise(board, size, size, Match.FLEET, null), expected) || !Arrays.equals(PlacementKernel.countPlacements(board, size, size, Match.FLEET, null), expected)) {
+                    throw new IllegalStateException("The kernels disagree on a " + size + "x" + size + " board");
+                }
+            }
+            measure(boards, size, SCALAR, millis);
+            measure(boards, size, BITWISE, millis);
+            double scalar = measure(boards, size, SCALAR, millis);
+            double bitwise = measure(boards, size, BITWISE, millis);
+            System.out.printf("%dx%d: scalar %.0f ns, bitwise %.0f ns, %.1fx faster", size, size, scalar, bitwise, scalar / bitwise);
+            if (PlacementKernel.isVectorized()) {
+                measure(boards, size, VECTOR, millis);
+                double vector = measure(boards, size, VECTOR, millis);
+                System.out.printf(", vector %.0f ns, %.1fx faster", vector, scalar / vector);
+            }
+            System.out.println();
+        }
+        if (!PlacementKernel.isVectorized()) {
+            System.out.println("The vector kernel wasn't measured, run with --add-modules jdk.incubator.vector to measure it");
+        }
+    }
+
+    /**
+     * Runs one of the kernels over and over for a while.
+     * @param boards the boards to count, one after another
+     * @param size the width and height of the boards
+     * @param kernel the kernel to run (<code>SCALAR</code>, <code>BITWISE</code> or <code>VECTOR</code>)
+     * @param millis how long to run for
+     * @return the average time of one run, in nanoseconds
+     */
+    private static double measure(long[][] boards, int size, int kernel, long millis) {
+        long end = System.nanoTime() + millis * 1_000_000;
+        long runs = 0;
+        long checksum = 0;
+        long start = System.nanoTime();
+        long now = start;
+        while (now < end) {
+            for (long[] board : boards) {
+                int[] counts;
+                if (kernel == VECTOR) {
+                    counts = PlacementKernel.countPlacements(board, size, size, Match.FLEET, null);
+                } else if (kernel == BITWISE) {
+                    counts = PlacementKernel.countPlacementsBitwise(board, size, size, Match.FLEET, null);
+                } else {
+                    counts = PlacementKernel.countPlacementsScalar(board, size, size, Match.FLEET, null);
+                }
+                checksum += counts[(int) (runs % counts.length)];
+                runs++;
+            }
+            now = System.nanoTime();
+        }
+        if (checksum == 42) {
+            // Uses the results, so the runs can't be optimized away.
+            System.out.print("");
+        }
+        return (double) (now - start) / runs;
+    }
+}
@@ -0,0 +1,122 @@
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An <code>AIStrategy</code> that always shoots the undiscovered tile most likely to hold a ship, as worked out by an <code>EndgameSolver</code>.
+ * Early in a match the probabilities are approximated, and once few enough placements of the remaining ships are left they're exact.
+ * Everything it needs is in the opponent's view of the board, so it doesn't remember anything between shots.
+ * The probabilities of the most recent views are cached, shared by every instance of this strategy. The views are cached in their canonical version (see <code>BoardSymmetry</code>), so a view that's a rotation or a reflection of a cached view uses the cached probabilities too, and the same match start, which every match goes through, takes one entry instead of up to eight.
+ */
+public class ProbabilityStrategy implements AIStrategy {
+    private static final int CACHE_SIZE = 4096;
+    private static final Map<BoardSymmetry.Key, double[]> CACHE = Collections.synchronizedMap(new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<BoardSymmetry.Key, double[]> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    });
+    private static final AtomicLong cacheLookups = new AtomicLong();
+    private static final AtomicLong cacheHits = new AtomicLong();
+
+    private final EndgameSolver solver;
+
+    /**
+     * Constructs a new probability strategy with a solver using the default limits.
+     */
+    public ProbabilityStrategy() {
+        solver = new EndgameSolver();
+    }
+
+    /**
+     * Gets the name of this strategy.
+     * @return "Probability"
+     */
+    @Override
+    public String getName() {
+        return "Probability";
+    }
+
+    /**
+     * Chooses the undiscovered tile with the highest probability of holding a ship. Ties are broken at random.
+     * @param opponentView the opponent's board as this strategy sees it
+     * @param random the random number generator to use
+     * @return the tile to shoot at, or <code>null</code> if there are no undiscovered tiles left
+     */
+    @Override
+    public Coordinates chooseShot(Board opponentView, Random random) {
+        double[] probabilities = getProbabilities(opponentView);
+        int best = -1;
+        int tieCount = 0;
+        for (int cell = 0; cell < probabilities.length; cell++) {
+            if (opponentView.get(cell % Match.BOARD_SIZE, cell / Match.BOARD_SIZE) != 0) {
+                continue;
+            }
+            if (best < 0 || probabilities[cell] > probabilities[best]) {
+                best = cell;
+                tieCount = 1;
+            } else if (probabilities[cell] == probabilities[best] && random.nextInt(++tieCount) == 0) {
+                best = cell;
+            }
+        }
+        return best < 0 ? null : new Coordinates(best % Match.BOARD_SIZE, best / Match.BOARD_SIZE);
+    }
+
+    /**
+     * Gets the probabilities of a view from the cache, solving and caching them if they aren't cached yet.
+     * The cache holds the probabilities of the canonical version of the view, so they're mapped back to the tiles of the view with the symmetry that turned the view into its canonical version.
+     * @param opponentView the opponent's board as this strategy sees it
+     * @return the probability of each tile, row by row
+     */
+    private double[] getProbabilities(Board opponentView) {
+        long[] bitboards = BoardSymmetry.getViewBitboards(opponentView);
+        int symmetry = BoardSymmetry.findCanonicalSymmetry(bitboards);
+        BoardSymmetry.Key key = BoardSymmetry.createKey(bitboards, symmetry);
+        cacheLookups.incrementAndGet();
+        double[] canonical = CACHE.get(key);
+        if (canonical == null) {
+            double[] solved = solver.solve(opponentView);
+            canonical = new double[solved.length];
+            for (int cell = 0; cell < solved.length; cell++) {
+                canonical[BoardSymmetry.transformCell(symmetry, cell)] = solved[cell];
+            }
+            CACHE.put(key, canonical);
+            return solved;
+        }
+        cacheHits.incrementAndGet();
+        double[] probabilities = new double[canonical.length];
+        for (int cell = 0; cell < probabilities.length; cell++) {
+            probabilities[cell] = canonical[BoardSymmetry.transformCell(symmetry, cell)];
+        }
+        return probabilities;
+    }
+
+    /**
+     * Gets the share of the views whose probabilities were found in the cache, since the program started.
+     * @return the hit rate between 0 and 1, or 0 if no view has been looked up
+     */
+    public static double getCacheHitRate() {
+        long lookups = cacheLookups.get();
+        return lookups == 0 ? 0 : (double) cacheHits.get() / lookups;
+    }
+
+    /**
+     * Does nothing, since the opponent's view of the board already shows the results of all the shots.
+     * @param shot the tile that was shot
+     * @param result the result of the shot
+     */
+    @Override
+    public void learn(Coordinates shot, int result) {
+    }
+
+    /**
+     * Creates a new instance of this strategy, since it doesn't remember anything.
+     * @return the copy
+     */
+    @Override
+    public AIStrategy copy() {
+        return new ProbabilityStrategy();
+    }
+}
@@ -0,0 +1,75 @@
+import java.util.Random;
+
+/**
+ * The simplest possible <code>AIStrategy</code>: every shot goes to a random undiscovered tile, and nothing is learned from the results.
+ * It's mostly useful as a baseline the other strategies can be compared against in head-to-head matches, which are played on a <code>HeadlessGame</code> since it's a <code>HeadlessStrategy</code>.
+ */
+public class RandomStrategy implements HeadlessStrategy {
+
+    /**
+     * Gets the name of this strategy.
+     * @return "Random"
+     */
+    @Override
+    public String getName() {
+        return "Random";
+    }
+
+    /**
+     * Chooses a random undiscovered tile.
+     * @param opponentView the opponent's board as this strategy sees it
+     * @param random the random number generator to use
+     * @return the tile to shoot at, or <code>null</code> if there are no undiscovered tiles left
+     */
+    @Override
+    public Coordinates chooseShot(Board opponentView, Random random) {
+        return StrategyHarness.randomUndiscoveredTile(opponentView, null, random);
+    }
+
+    /**
+     * Chooses a random undiscovered tile of a <code>HeadlessGame</code>.
+     * @param game the game being played
+     * @param player the player this strategy plays as (1 or 2)
+     * @param random the random number generator to use
+     * @return the tile to shoot at, row by row, or -1 if there are no undiscovered tiles left
+     */
+    @Override
+    public int chooseCell(HeadlessGame game, int player, Random random) {
+        int count = game.getUndiscoveredCount(player);
+        return count == 0 ? -1 : game.getUndiscovered(player, random.nextInt(count));
+    }
+
+    /**
+     * Does nothing, since this strategy doesn't learn from its shots.
+     * @param shot the tile that was shot
+     * @param result the result of the shot
+     */
+    @Override
+    public void learn(Coordinates shot, int result) {
+    }
+
+    /**
+     * Does nothing, since this strategy doesn't learn from its shots.
+     * @param cell the tile that was shot
+     * @param result the result of the shot
+     */
+    @Override
+    public void learnCell(int cell, int result) {
+    }
+
+    /**
+     * Does nothing, since this strategy doesn't remember anything.
+     */
+    @Override
+    public void reset() {
+    }
+
+    /**
+     * Creates a new instance of this strategy, since it doesn't remember anything.
+     * @return the copy
+     */
+    @Override
+    public AIStrategy copy() {
+        return new RandomStrategy();
+    }
+}
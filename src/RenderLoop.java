@@ -0,0 +1,143 @@
+import java.awt.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Draws a set of <code>BoardCanvas</code>es on its own thread, 60 times a second, instead of waiting for Swing to repaint them.
+ * The effects are moved forward in fixed ticks of 1/60 of a second, whatever the frame rate is, and every frame is drawn between the last two ticks, so the animations run at the same speed on a slow computer, only with fewer frames. If drawing falls more than a few ticks behind, the missing ticks are skipped instead of being caught up all at once.
+ * The game logic doesn't know about this loop: the canvases only read the boards and tiles of their <code>GridPanel</code>s, so the game is played on the event dispatch thread exactly as before, and the loop never blocks it.
+ * The loop measures how long every frame took to draw, and counts the frames that missed their 1/60 of a second and the frames that were dropped because of them. It prints a report of the last ten seconds every ten seconds while it's drawing, and a last report when it's stopped.
+ */
+public final class RenderLoop {
+    public static final int TICKS_PER_SECOND = 60;
+
+    private static final long TICK_NANOS = 1_000_000_000L / TICKS_PER_SECOND;
+    private static final int MAXIMUM_CATCH_UP_TICKS = 5;
+    private static final long REPORT_NANOS = 10_000_000_000L;
+
+    private final CopyOnWriteArrayList<BoardCanvas> canvases;
+    private final Thread thread;
+    private volatile boolean running;
+    private LatencyRecorder frameTimes;
+    private int droppedFrames;
+    private long tick;
+
+    /**
+     * Constructs a new render loop without any canvases. The loop doesn't run until it's started.
+     */
+    public RenderLoop() {
+        canvases = new CopyOnWriteArrayList<>();
+        frameTimes = new LatencyRecorder();
+        thread = new Thread(this::run, "Render loop");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Adds a canvas drawn by this loop. It's only drawn while it's shown.
+     * @param canvas the canvas
+     */
+    public void add(BoardCanvas canvas) {
+        canvases.add(canvas);
+    }
+
+    /**
+     * Starts drawing the canvases.
+     */
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Stops drawing the canvases and waits for the frame that is being drawn, so the canvases can be thrown away afterwards.
+     */
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Describes the frames drawn since the last report in one line, and starts a new report.
+     * @return the amount of frames, the 50th, 90th and 99th percentile and the maximum of how long a frame took to draw (in microseconds), and the amount of late and dropped frames
+     */
+    public synchronized String getReport() {
+        LatencyRecorder times = frameTimes;
+        String report = "Render loop: " + times.getCount() + " frames, frame time p50 " + times.getPercentile(50) / 1000 + " us, p90 " + times.getPercentile(90) / 1000
+                + " us, p99 " + times.getPercentile(99) / 1000 + " us, max " + times.getPercentile(100) / 1000 + " us, " + times.getTimeoutCount() + " late, " + droppedFrames + " dropped";
+        frameTimes = new LatencyRecorder();
+        droppedFrames = 0;
+        return report;
+    }
+
+    /**
+     * Records one drawn frame.
+     * @param nanos how long the frame took to draw
+     * @param late whether the frame missed the end of its 1/60 of a second
+     * @param dropped how many frames after it were dropped because it was late
+     */
+    private synchronized void recordFrame(long nanos, boolean late, int dropped) {
+        frameTimes.record(nanos, late);
+        droppedFrames += dropped;
+    }
+
+    /**
+     * Moves the effects forward and draws the canvases until the loop is stopped.
+     * Every frame has a slot of 1/60 of a second. A frame that finishes after the end of its slot is late, and the slots that went by while it was being drawn get no frame of their own: those frames are dropped, and the next frame starts at the next slot.
+     */
+    private void run() {
+        long lastTickTime = System.nanoTime();
+        long deadline = lastTickTime + TICK_NANOS;
+        long lastReportTime = lastTickTime;
+        boolean drawnSinceReport = false;
+        while (running) {
+            long frameStart = System.nanoTime();
+            int ticks = 0;
+            while (frameStart - lastTickTime >= TICK_NANOS) {
+                if (ticks == MAXIMUM_CATCH_UP_TICKS) {
+                    lastTickTime = frameStart;
+                    break;
+                }
+                tick++;
+                for (BoardCanvas canvas : canvases) {
+                    canvas.update(tick);
+                }
+                lastTickTime += TICK_NANOS;
+                ticks++;
+            }
+            double time = tick + (double) (frameStart - lastTickTime) / TICK_NANOS;
+            boolean drawn = false;
+            for (BoardCanvas canvas : canvases) {
+                drawn |= canvas.render(time);
+            }
+            long now = System.nanoTime();
+            if (drawn) {
+                // Without syncing, some window systems keep the finished frame in a queue for a while before showing it.
+                Toolkit.getDefaultToolkit().sync();
+                now = System.nanoTime();
+                int dropped = now > deadline ? (int) ((now - deadline + TICK_NANOS - 1) / TICK_NANOS) : 0;
+                recordFrame(now - frameStart, now > deadline, dropped);
+                deadline += (long) dropped * TICK_NANOS;
+                drawnSinceReport = true;
+            } else if (now > deadline) {
+                deadline = now;
+            }
+            if (now - lastReportTime >= REPORT_NANOS) {
+                if (drawnSinceReport) {
+                    System.out.println(getReport());
+                }
+                lastReportTime = now;
+                drawnSinceReport = false;
+            }
+            LockSupport.parkNanos(deadline - now);
+            deadline += TICK_NANOS;
+        }
+        if (drawnSinceReport) {
+            System.out.println(getReport());
+        }
+    }
+}
@@ -0,0 +1,299 @@
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * A recording of a match that can be shown from any move without playing the whole match again.
+ * Each move is stored as the tiles it changed. Every so often, a keyframe with the boards of all the players is stored as well.
+ * To show the boards after a move, the closest earlier keyframe is found with a binary search and only the changes since that keyframe are applied.
+ * A keyframe is added once enough tiles have changed since the last one, so the number of changes to apply never grows with the length of the match.
+ * The boards are recorded as they're passed in, with the tile types used by <code>Match</code>. A keyframe keeps the passed in boards themselves, so it shares every row that didn't change with the keyframe before it and only costs the changed rows.
+ */
+public class Replay {
+    private static final int MAGIC = 0x42535250;
+    private static final int KEYFRAME_CHANGE_LIMIT = 64;
+
+    private final int size;
+    private final int playerCount;
+
+    private int moveCount;
+    private int[] moves;
+    private int[] changeEnds;
+
+    private int changeCount;
+    private int[] changes;
+
+    private int keyframeCount;
+    private int[] keyframeMoves;
+    private Board[][] keyframeBoards;
+
+    private Board[] lastBoards;
+    private int changesSinceKeyframe;
+
+    /**
+     * Constructs a new replay starting with the passed in boards.
+     * @param initialBoards the board of each player before the first move, in order of the players
+     */
+    public Replay(Board... initialBoards) {
+        size = initialBoards[0].getSize();
+        playerCount = initialBoards.length;
+        moves = new int[64];
+        changeEnds = new int[64];
+        changes = new int[256];
+        keyframeMoves = new int[8];
+        keyframeBoards = new Board[8][];
+        addKeyframe(0, initialBoards.clone());
+        lastBoards = initialBoards.clone();
+    }
+
+    /**
+     * Gets the amount of players whose boards are recorded.
+     * @return the player count
+     */
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    /**
+     * Gets the amount of moves recorded.
+     * @return the move count
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Gets the player who made a move.
+     * @param move the index of the move (0 is the first move)
+     * @return the player who made the move
+     */
+    public int getMovePlayer(int move) {
+        return moves[move] >>> 16;
+    }
+
+    /**
+     * Gets the tile that was shot in a move.
+     * @param move the index of the move (0 is the first move)
+     * @return the coordinates of the tile
+     */
+    public Coordinates getMoveCoordinates(int move) {
+        return new Coordinates((moves[move] >>> 8) & 0xFF, moves[move] & 0xFF);
+    }
+
+    /**
+     * Records a move.
+     * The tiles that changed are found by comparing the passed in boards with the boards after the previous move. Rows that the boards still share are skipped, so the boards should be the new versions of the previously passed in boards (see <code>Board.with</code>) rather than copies.
+     * @param player the player who made the move
+     * @param x the location of the tile that was shot on the X axis
+     * @param y the location of the tile that was shot on the Y axis
+     * @param boards the board of each player after the move, in order of the players
+     */
+    public void recordMove(int player, int x, int y, Board... boards) {
+        if (moveCount == moves.length) {
+            moves = Arrays.copyOf(moves, moveCount * 2);
+            changeEnds = Arrays.copyOf(changeEnds, moveCount * 2);
+        }
+        for (int i = 0; i < playerCount; i++) {
+            for (int j = 0; j < size; j++) {
+                if (!boards[i].rowEquals(lastBoards[i], j)) {
+                    for (int k = 0; k < size; k++) {
+                        if (boards[i].get(k, j) != lastBoards[i].get(k, j)) {
+                            addChange(i, k, j, boards[i].get(k, j));
+                        }
+                    }
+                }
+            }
+        }
+        moves[moveCount] = (player << 16) | (x << 8) | y;
+        changeEnds[moveCount] = changeCount;
+        moveCount++;
+        lastBoards = boards.clone();
+        if (changesSinceKeyframe >= KEYFRAME_CHANGE_LIMIT) {
+            addKeyframe(moveCount, lastBoards);
+        }
+    }
+
+    /**
+     * Adds a changed tile to the list of changes.
+     * @param boardIndex the index of the board the tile is on
+     * @param x the location of the tile on the X axis
+     * @param y the location of the tile on the Y axis
+     * @param type the new type of the tile
+     */
+    private void addChange(int boardIndex, int x, int y, int type) {
+        if (changeCount == changes.length) {
+            changes = Arrays.copyOf(changes, changeCount * 2);
+        }
+        changes[changeCount++] = (boardIndex << 24) | (x << 16) | (y << 8) | type;
+        changesSinceKeyframe++;
+    }
+
+    /**
+     * Adds a keyframe holding the boards after a move.
+     * @param move the amount of moves made before the keyframe
+     * @param boards the board of each player
+     */
+    private void addKeyframe(int move, Board[] boards) {
+        if (keyframeCount == keyframeMoves.length) {
+            keyframeMoves = Arrays.copyOf(keyframeMoves, keyframeCount * 2);
+            keyframeBoards = Arrays.copyOf(keyframeBoards, keyframeCount * 2);
+        }
+        keyframeMoves[keyframeCount] = move;
+        keyframeBoards[keyframeCount] = boards;
+        keyframeCount++;
+        changesSinceKeyframe = 0;
+    }
+
+    /**
+     * Gets the index of the first change made by a move.
+     * @param move the index of the move
+     * @return the index of the move's first change
+     */
+    private int getChangeStart(int move) {
+        return move == 0 ? 0 : changeEnds[move - 1];
+    }
+
+    /**
+     * Gets the boards of all the players after a number of moves.
+     * @param move the amount of moves made (0 gives the boards before the first move)
+     * @return the board of each player, in order of the players
+     */
+    public Board[] getBoardsAfter(int move) {
+        int keyframe = Arrays.binarySearch(keyframeMoves, 0, keyframeCount, move);
+        if (keyframe < 0) {
+            keyframe = -keyframe - 2;
+        }
+        Board[] boards = keyframeBoards[keyframe].clone();
+        for (int i = getChangeStart(keyframeMoves[keyframe]); i < getChangeStart(move); i++) {
+            int change = changes[i];
+            int boardIndex = change >>> 24;
+            boards[boardIndex] = boards[boardIndex].with((change >>> 16) & 0xFF, (change >>> 8) & 0xFF, change & 0xFF);
+        }
+        return boards;
+    }
+
+    /**
+     * Forgets all the moves after a number of moves, for example when they've been undone.
+     * @param move the amount of moves to keep
+     */
+    public void truncate(int move) {
+        if (move >= moveCount) {
+            return;
+        }
+        moveCount = move;
+        changeCount = getChangeStart(move);
+        while (keyframeMoves[keyframeCount - 1] > move) {
+            keyframeCount--;
+        }
+        lastBoards = getBoardsAfter(move);
+        changesSinceKeyframe = changeCount - getChangeStart(keyframeMoves[keyframeCount - 1]);
+    }
+
+    /**
+     * Writes this replay to a file.
+     * The file holds the moves, the changes of every move, and the keyframes together with their index.
+     * @param file the file to write to
+     * @throws IOException if the file can't be written
+     */
+    public void write(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(size);
+            out.writeInt(playerCount);
+            out.writeInt(moveCount);
+            for (int i = 0; i < moveCount; i++) {
+                out.writeInt(moves[i]);
+                out.writeInt(changeEnds[i]);
+            }
+            out.writeInt(changeCount);
+            for (int i = 0; i < changeCount; i++) {
+                out.writeInt(changes[i]);
+            }
+            out.writeInt(keyframeCount);
+            for (int i = 0; i < keyframeCount; i++) {
+                out.writeInt(keyframeMoves[i]);
+            }
+            for (int i = 0; i < keyframeCount; i++) {
+                for (Board board : keyframeBoards[i]) {
+                    writeBoard(out, board);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a replay from a file written by <code>write</code>.
+     * @param file the file to read from
+     * @return the replay
+     * @throws IOException if the file can't be read or isn't a replay
+     */
+    public static Replay read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a replay file: " + file);
+            }
+            int size = in.readInt();
+            int playerCount = in.readInt();
+            Board[] emptyBoards = new Board[playerCount];
+            Arrays.fill(emptyBoards, Board.filled(size, 1));
+            Replay replay = new Replay(emptyBoards);
+            replay.moveCount = in.readInt();
+            replay.moves = new int[Math.max(replay.moveCount, 1)];
+            replay.changeEnds = new int[Math.max(replay.moveCount, 1)];
+            for (int i = 0; i < replay.moveCount; i++) {
+                replay.moves[i] = in.readInt();
+                replay.changeEnds[i] = in.readInt();
+            }
+            replay.changeCount = in.readInt();
+            replay.changes = new int[Math.max(replay.changeCount, 1)];
+            for (int i = 0; i < replay.changeCount; i++) {
+                replay.changes[i] = in.readInt();
+            }
+            replay.keyframeCount = in.readInt();
+            replay.keyframeMoves = new int[replay.keyframeCount];
+            replay.keyframeBoards = new Board[replay.keyframeCount][];
+            for (int i = 0; i < replay.keyframeCount; i++) {
+                replay.keyframeMoves[i] = in.readInt();
+            }
+            for (int i = 0; i < replay.keyframeCount; i++) {
+                replay.keyframeBoards[i] = new Board[playerCount];
+                for (int j = 0; j < playerCount; j++) {
+                    replay.keyframeBoards[i][j] = readBoard(in, size);
+                }
+            }
+            replay.lastBoards = replay.getBoardsAfter(replay.moveCount);
+            replay.changesSinceKeyframe = replay.changeCount - replay.getChangeStart(replay.keyframeMoves[replay.keyframeCount - 1]);
+            return replay;
+        }
+    }
+
+    /**
+     * Writes the type of every tile of a board, one byte per tile.
+     * @param out the stream to write to
+     * @param board the board to write
+     * @throws IOException if the board can't be written
+     */
+    private static void writeBoard(DataOutputStream out, Board board) throws IOException {
+        for (int y = 0; y < board.getSize(); y++) {
+            for (int x = 0; x < board.getSize(); x++) {
+                out.writeByte(board.get(x, y));
+            }
+        }
+    }
+
+    /**
+     * Reads a board written by <code>writeBoard</code>.
+     * @param in the stream to read from
+     * @param size the size of the board
+     * @return the board
+     * @throws IOException if the board can't be read
+     */
+    private static Board readBoard(DataInputStream in, int size) throws IOException {
+        Board board = Board.filled(size, 1);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                board = board.with(x, y, in.readByte());
+            }
+        }
+        return board;
+    }
+}
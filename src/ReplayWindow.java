@@ -0,0 +1,174 @@
+import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
+/**
+ * A subclass of <code>JFrame</code> that plays back a recorded match.
+ * It shows the boards of both players the same way as the <code>GridPanel</code>s of a game, and lets the player play, pause, step through and jump to any move of the match.
+ * Closing this window opens the <code>MenuWindow</code> again.
+ */
+public class ReplayWindow extends JFrame implements ActionListener, ChangeListener {
+    private static final String[] SPEED_NAMES = {"0.5x", "1x", "2x", "4x", "8x"};
+    private static final double[] SPEEDS = {0.5, 1, 2, 4, 8};
+    private static final int MOVE_DELAY = 500;
+
+    private Replay replay;
+    private GridPanel[] grids;
+    private int currentMove;
+
+    private JSlider moveSlider;
+    private JLabel moveLabel;
+    private JButton playButton;
+    private JButton stepBackButton;
+    private JButton stepForwardButton;
+    private JComboBox<String> speedBox;
+    private Timer playTimer;
+
+    /**
+     * Constructs a new replay window showing the boards before the first move.
+     * Note that it also sets this window as visible.
+     * @param replay the recorded match
+     */
+    public ReplayWindow(Replay replay) {
+        this.replay = replay;
+        int gridSize = 200;
+
+        this.setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        this.setSize(new Dimension(600, 460));
+        this.setResizable(false);
+        this.setLocationRelativeTo(null);
+        this.setTitle("Battleships (Replay)");
+        this.setLayout(null);
+        this.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                playTimer.stop();
+                new MenuWindow();
+            }
+        });
+
+        grids = new GridPanel[replay.getPlayerCount()];
+        for (int i = 0; i < grids.length; i++) {
+            JLabel playerLabel = new JLabel("Player " + (i + 1));
+            playerLabel.setFont(new Font("Helvetica", Font.BOLD, 16));
+            playerLabel.setBounds(50 + i * 300, 20, gridSize, 30);
+            this.add(playerLabel);
+
+            grids[i] = new GridPanel(true, false);
+            grids[i].setBounds(50 + i * 300, 60, gridSize, gridSize);
+            this.add(grids[i]);
+        }
+
+        moveSlider = new JSlider(0, replay.getMoveCount(), 0);
+        moveSlider.setBounds(50, 290, 500, 40);
+        moveSlider.addChangeListener(this);
+        this.add(moveSlider);
+
+        stepBackButton = new JButton("<");
+        stepBackButton.setBounds(50, 350, 60, 40);
+        stepBackButton.addActionListener(this);
+        this.add(stepBackButton);
+
+        playButton = new JButton("Play");
+        playButton.setBounds(120, 350, 100, 40);
+        playButton.addActionListener(this);
+        this.add(playButton);
+
+        stepForwardButton = new JButton(">");
+        stepForwardButton.setBounds(230, 350, 60, 40);
+        stepForwardButton.addActionListener(this);
+        this.add(stepForwardButton);
+
+        speedBox = new JComboBox<>(SPEED_NAMES);
+        speedBox.setSelectedIndex(1);
+        speedBox.setBounds(300, 350, 80, 40);
+        speedBox.addActionListener(this);
+        this.add(speedBox);
+
+        moveLabel = new JLabel();
+        moveLabel.setBounds(400, 350, 150, 40);
+        this.add(moveLabel);
+
+        playTimer = new Timer(MOVE_DELAY, this);
+
+        showMove(0);
+        this.setVisible(true);
+    }
+
+    /**
+     * Shows the boards after a number of moves and updates the slider and the move label.
+     * @param move the amount of moves made
+     */
+    private void showMove(int move) {
+        currentMove = Math.max(0, Math.min(move, replay.getMoveCount()));
+        Board[] boards = replay.getBoardsAfter(currentMove);
+        for (int i = 0; i < grids.length; i++) {
+            grids[i].showBoard(Match.ownView(boards[i]));
+        }
+        if (moveSlider.getValue() != currentMove) {
+            moveSlider.setValue(currentMove);
+        }
+        String moveText = "Move " + currentMove + " / " + replay.getMoveCount();
+        if (currentMove > 0) {
+            Coordinates coordinates = replay.getMoveCoordinates(currentMove - 1);
+            moveText += " (P" + replay.getMovePlayer(currentMove - 1) + ": " + coordinates.getX() + ", " + coordinates.getY() + ")";
+        }
+        moveLabel.setText(moveText);
+    }
+
+    /**
+     * Starts or stops playing the replay.
+     * If the replay is at its last move, it starts playing from the beginning.
+     */
+    private void togglePlaying() {
+        if (playTimer.isRunning()) {
+            playTimer.stop();
+            playButton.setText("Play");
+        } else {
+            if (currentMove >= replay.getMoveCount()) {
+                showMove(0);
+            }
+            playTimer.start();
+            playButton.setText("Pause");
+        }
+    }
+
+    /**
+     * Handles the button presses, the speed selection and the ticks of the playback timer.
+     * Every tick of the timer shows the next move, until the last move is reached.
+     * @param e the event to be processed
+     */
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (e.getSource() == playTimer) {
+            showMove(currentMove + 1);
+            if (currentMove >= replay.getMoveCount()) {
+                togglePlaying();
+            }
+        } else if (e.getSource() == playButton) {
+            togglePlaying();
+        } else if (e.getSource() == stepBackButton) {
+            showMove(currentMove - 1);
+        } else if (e.getSource() == stepForwardButton) {
+            showMove(currentMove + 1);
+        } else if (e.getSource() == speedBox) {
+            playTimer.setDelay((int) (MOVE_DELAY / SPEEDS[speedBox.getSelectedIndex()]));
+        }
+    }
+
+    /**
+     * Jumps to the move selected with the slider.
+     * @param e the event to be processed
+     */
+    @Override
+    public void stateChanged(ChangeEvent e) {
+        if (moveSlider.getValue() != currentMove) {
+            showMove(moveSlider.getValue());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+import javax.swing.*;
+import java.io.IOException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves what the game windows keep about finished matches (the results, the leaderboard and the heatmap) on a background thread, so the event dispatch thread never waits for the disk.
+ * The saves are made one after another, in the order they're asked for. If a save fails, a message is shown on the event dispatch thread.
+ * The thread isn't a daemon, so a save that was asked for still finishes if the last window is closed right after, and it stops once it has had nothing to save for a second.
+ */
+public final class ResultSaver {
+    private static final ThreadPoolExecutor saveExecutor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> new Thread(runnable, "Result saver"));
+
+    static {
+        saveExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Something that is written to the disk.
+     */
+    private interface Save {
+
+        /**
+         * Writes it.
+         * @throws IOException if it can't be written
+         */
+        void run() throws IOException;
+    }
+
+    /**
+     * This class only has static methods.
+     */
+    private ResultSaver() {
+    }
+
+    /**
+     * Stores the result of a match in the default <code>MatchResultStore</code>, counts it on the default <code>Leaderboard</code> and saves the leaderboard and the global heatmap.
+     * In a match against the AI, player 2 is the AI's strategy, and the result is stored with the AI level the store gives that strategy.
+     * @param result the result of the match
+     */
+    public static void saveMatchResult(MatchResult result) {
+        save(() -> {
+            MatchResultStore store = MatchResultStore.getDefault();
+            store.append(result.getPlayerCount() == 1 ? result.withAiLevel(store.getAiLevel(result.getPlayer2())) : result);
+            Leaderboard.getDefault().catchUp(store);
+            Leaderboard.saveDefault();
+            HeatmapAnalytics.saveGlobal();
+        }, "The result of the match couldn't be saved.");
+    }
+
+    /**
+     * Saves the global heatmap.
+     */
+    public static void saveHeatmap() {
+        save(HeatmapAnalytics::saveGlobal, "The heatmap couldn't be saved.");
+    }
+
+    /**
+     * Makes a save on the background thread, and shows a message on the event dispatch thread if it fails.
+     * @param save the save
+     * @param message the message shown if it fails
+     */
+    private static void save(Save save, String message) {
+        saveExecutor.execute(() -> {
+            try {
+                save.run();
+            } catch (IOException exception) {
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null, message, "Results", JOptionPane.ERROR_MESSAGE));
+            }
+        });
+    }
+}
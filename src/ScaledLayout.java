@@ -0,0 +1,144 @@
+import java.awt.*;
+import java.util.HashMap;
+
+/**
+ * A layout that places every component where it would be on a container of a fixed design size, scaled to the real size of the container.
+ * The bounds of a component are given on the design size when it's added, as a <code>Rectangle</code> constraint, and they're remembered when it's removed, so a component that is taken out and put back (like the grids of the two players) can be added again without them.
+ * The layout keeps the proportions of the design: it's scaled by the same amount in both directions, as much as fits, and centered. The fonts of the components are scaled with it.
+ */
+public class ScaledLayout implements LayoutManager2 {
+    private final int designWidth;
+    private final int designHeight;
+    private final HashMap<Component, Rectangle> designBounds;
+    private final HashMap<Component, Font> designFonts;
+
+    /**
+     * Constructs a new scaled layout.
+     * @param designWidth the width the bounds of the components are given on
+     * @param designHeight the height the bounds of the components are given on
+     */
+    public ScaledLayout(int designWidth, int designHeight) {
+        this.designWidth = designWidth;
+        this.designHeight = designHeight;
+        designBounds = new HashMap<>();
+        designFonts = new HashMap<>();
+    }
+
+    /**
+     * Gets how much the design is scaled to fit a container.
+     * @param parent the container
+     * @return the scale, 1 when the container has the design size
+     */
+    public double getScale(Container parent) {
+        Insets insets = parent.getInsets();
+        double width = parent.getWidth() - insets.left - insets.right;
+        double height = parent.getHeight() - insets.top - insets.bottom;
+        return Math.max(Math.min(width / designWidth, height / designHeight), 0.01);
+    }
+
+    /**
+     * Remembers the bounds of a component added with a constraint.
+     * @param component the component
+     * @param constraints the bounds of the component on the design size, as a <code>Rectangle</code>
+     * @throws IllegalArgumentException if the constraint isn't a <code>Rectangle</code>
+     */
+    @Override
+    public void addLayoutComponent(Component component, Object constraints) {
+        if (constraints == null) {
+            return;
+        }
+        if (!(constraints instanceof Rectangle bounds)) {
+            throw new IllegalArgumentException("The constraint of a scaled layout must be a Rectangle");
+        }
+        designBounds.put(component, new Rectangle(bounds));
+    }
+
+    @Override
+    public void addLayoutComponent(String name, Component component) {
+
+    }
+
+    /**
+     * Keeps the bounds of the removed component, so it can be added again without them.
+     * @param component the removed component
+     */
+    @Override
+    public void removeLayoutComponent(Component component) {
+
+    }
+
+    /**
+     * Places every component of a container at its scaled bounds, and scales its font.
+     * Components that were never given bounds are left where they are.
+     * @param parent the container
+     */
+    @Override
+    public void layoutContainer(Container parent) {
+        synchronized (parent.getTreeLock()) {
+            Insets insets = parent.getInsets();
+            double scale = getScale(parent);
+            int offsetX = insets.left + (int) ((parent.getWidth() - insets.left - insets.right - designWidth * scale) / 2);
+            int offsetY = insets.top + (int) ((parent.getHeight() - insets.top - insets.bottom - designHeight * scale) / 2);
+            for (Component component : parent.getComponents()) {
+                Rectangle bounds = designBounds.get(component);
+                if (bounds == null) {
+                    continue;
+                }
+                int x = (int) Math.round(bounds.x * scale);
+                int y = (int) Math.round(bounds.y * scale);
+                int width = (int) Math.round((bounds.x + bounds.width) * scale) - x;
+                int height = (int) Math.round((bounds.y + bounds.height) * scale) - y;
+                component.setBounds(offsetX + x, offsetY + y, width, height);
+                Font font = designFonts.computeIfAbsent(component, Component::getFont);
+                if (font != null) {
+                    float size = (float) (font.getSize2D() * scale);
+                    if (component.getFont().getSize2D() != size) {
+                        component.setFont(font.deriveFont(size));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the design size, which is the size at which nothing is scaled.
+     * @param parent the container
+     * @return the design size plus the insets of the container
+     */
+    @Override
+    public Dimension preferredLayoutSize(Container parent) {
+        Insets insets = parent.getInsets();
+        return new Dimension(designWidth + insets.left + insets.right, designHeight + insets.top + insets.bottom);
+    }
+
+    /**
+     * Gets the smallest size that still leaves the components usable, half of the design size.
+     * @param parent the container
+     * @return half of the design size plus the insets of the container
+     */
+    @Override
+    public Dimension minimumLayoutSize(Container parent) {
+        Insets insets = parent.getInsets();
+        return new Dimension(designWidth / 2 + insets.left + insets.right, designHeight / 2 + insets.top + insets.bottom);
+    }
+
+    @Override
+    public Dimension maximumLayoutSize(Container target) {
+        return new Dimension(Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public float getLayoutAlignmentX(Container target) {
+        return 0.5f;
+    }
+
+    @Override
+    public float getLayoutAlignmentY(Container target) {
+        return 0.5f;
+    }
+
+    @Override
+    public void invalidateLayout(Container target) {
+
+    }
+}
@@ -0,0 +1,160 @@
+import java.awt.*;
+import java.awt.geom.Ellipse2D;
+
+/**
+ * One animation drawn over the tiles of a <code>BoardCanvas</code>.
+ * The types of effects are:
+ * 1 = Splash: a shot hit the water; rings of water spread out from the tile
+ * 2 = Explosion: a shot hit a ship; a fireball grows and fades out while debris flies away from the tile
+ * 3 = Sinking: a ship was sunk; the water rises over its tiles while bubbles come up
+ * An effect only knows when it started, and works out how it looks from how many ticks of the <code>RenderLoop</code> have passed since then, so it can be drawn between two ticks without changing anything.
+ */
+public final class ShotEffect {
+    public static final int SPLASH = 1;
+    public static final int EXPLOSION = 2;
+    public static final int SINKING = 3;
+
+    private static final int[] DURATION_TICKS = {0, 40, 50, 90};
+    private static final Color WATER = new Color(200, 230, 255);
+    private static final Color DEEP_WATER = new Color(20, 50, 110);
+    private static final Color FIRE = new Color(255, 150, 30);
+    private static final Color FLASH = new Color(255, 240, 150);
+    private static final Color DEBRIS = new Color(60, 40, 30);
+    private static final int DEBRIS_COUNT = 8;
+
+    private final int type;
+    private final int[] cells;
+    private final long startTick;
+
+    /**
+     * Constructs a new effect.
+     * @param type the type of the effect
+     * @param cells the tiles the effect is drawn on, each as <code>y * Match.BOARD_SIZE + x</code> (one tile for splashes and explosions, every tile of the ship for sinking)
+     * @param startTick the tick of the <code>RenderLoop</code> the effect starts on
+     */
+    public ShotEffect(int type, int[] cells, long startTick) {
+        this.type = type;
+        this.cells = cells;
+        this.startTick = startTick;
+    }
+
+    /**
+     * Gets the type of this effect.
+     * @return <code>SPLASH</code>, <code>EXPLOSION</code> or <code>SINKING</code>
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * Returns whether this effect has played all the way through.
+     * @param tick the current tick of the <code>RenderLoop</code>
+     * @return whether the effect is over and can be thrown away
+     */
+    public boolean isFinished(long tick) {
+        return tick - startTick >= DURATION_TICKS[type];
+    }
+
+    /**
+     * Draws this effect as it looks at a point in time.
+     * @param graphics the graphics to draw with, with the top left corner of the board at 0, 0
+     * @param tileSize the width and height of a tile in pixels
+     * @param time the current tick of the <code>RenderLoop</code>, plus how far the loop is into the next tick (between 0 and 1)
+     */
+    public void draw(Graphics2D graphics, int tileSize, double time) {
+        double progress = Math.max(0, Math.min((time - startTick) / DURATION_TICKS[type], 1));
+        for (int cell : cells) {
+            int x = cell % Match.BOARD_SIZE * tileSize;
+            int y = cell / Match.BOARD_SIZE * tileSize;
+            switch (type) {
+                case SPLASH -> drawSplash(graphics, x, y, tileSize, progress);
+                case EXPLOSION -> drawExplosion(graphics, x, y, tileSize, progress);
+                case SINKING -> drawSinking(graphics, x, y, tileSize, progress, cell);
+            }
+        }
+    }
+
+    /**
+     * Draws two rings of water spreading out from the middle of a tile and fading out, the second one a little behind the first.
+     * @param graphics the graphics to draw with
+     * @param x the left edge of the tile
+     * @param y the top edge of the tile
+     * @param tileSize the width and height of a tile in pixels
+     * @param progress how far the effect is, between 0 and 1
+     */
+    private static void drawSplash(Graphics2D graphics, int x, int y, int tileSize, double progress) {
+        graphics.setStroke(new BasicStroke(Math.max(1, tileSize / 10f)));
+        for (int ring = 0; ring < 2; ring++) {
+            double ringProgress = progress * 1.5 - ring * 0.5;
+            if (ringProgress <= 0 || ringProgress >= 1) {
+                continue;
+            }
+            double radius = tileSize * (0.1 + 0.9 * ringProgress);
+            graphics.setColor(withAlpha(WATER, 1 - ringProgress));
+            graphics.draw(new Ellipse2D.Double(x + tileSize / 2.0 - radius, y + tileSize / 2.0 - radius, radius * 2, radius * 2));
+        }
+    }
+
+    /**
+     * Draws a fireball that grows quickly and then fades out, with a bright flash at the start and debris flying away from the middle of a tile.
+     * @param graphics the graphics to draw with
+     * @param x the left edge of the tile
+     * @param y the top edge of the tile
+     * @param tileSize the width and height of a tile in pixels
+     * @param progress how far the effect is, between 0 and 1
+     */
+    private static void drawExplosion(Graphics2D graphics, int x, int y, int tileSize, double progress) {
+        double centerX = x + tileSize / 2.0;
+        double centerY = y + tileSize / 2.0;
+        double radius = tileSize * 0.7 * Math.sqrt(progress);
+        graphics.setColor(withAlpha(FIRE, 1 - progress));
+        graphics.fill(new Ellipse2D.Double(centerX - radius, centerY - radius, radius * 2, radius * 2));
+        if (progress < 0.3) {
+            double flashRadius = radius * 0.6;
+            graphics.setColor(withAlpha(FLASH, 1 - progress / 0.3));
+            graphics.fill(new Ellipse2D.Double(centerX - flashRadius, centerY - flashRadius, flashRadius * 2, flashRadius * 2));
+        }
+        double debrisSize = Math.max(2, tileSize / 8.0);
+        graphics.setColor(withAlpha(DEBRIS, 1 - progress));
+        for (int i = 0; i < DEBRIS_COUNT; i++) {
+            double angle = Math.PI * 2 * i / DEBRIS_COUNT;
+            double distance = tileSize * 0.9 * progress;
+            graphics.fill(new Ellipse2D.Double(centerX + Math.cos(angle) * distance - debrisSize / 2, centerY + Math.sin(angle) * distance - debrisSize / 2, debrisSize, debrisSize));
+        }
+    }
+
+    /**
+     * Draws the water rising over one tile of a sunk ship, and bubbles coming up from it.
+     * The water stays at the end, a little see-through, until the effect is thrown away.
+     * @param graphics the graphics to draw with
+     * @param x the left edge of the tile
+     * @param y the top edge of the tile
+     * @param tileSize the width and height of a tile in pixels
+     * @param progress how far the effect is, between 0 and 1
+     * @param cell the tile, used to give every tile its own bubbles
+     */
+    private static void drawSinking(Graphics2D graphics, int x, int y, int tileSize, double progress, int cell) {
+        int waterHeight = (int) (tileSize * Math.min(progress * 1.5, 1));
+        graphics.setColor(withAlpha(DEEP_WATER, 0.6));
+        graphics.fillRect(x, y + tileSize - waterHeight, tileSize, waterHeight);
+        double bubbleSize = Math.max(2, tileSize / 6.0);
+        graphics.setColor(withAlpha(WATER, 1 - progress));
+        for (int i = 0; i < 3; i++) {
+            // Every bubble starts rising a little later than the one before it, from a spot that depends on the tile.
+            double bubbleProgress = (progress * 2 + i / 3.0 + cell * 0.37) % 1;
+            double bubbleX = x + tileSize * (0.2 + 0.6 * ((cell * 7 + i * 3) % 5) / 4.0) - bubbleSize / 2;
+            double bubbleY = y + tileSize * (1 - bubbleProgress) - bubbleSize / 2;
+            graphics.fill(new Ellipse2D.Double(bubbleX, bubbleY, bubbleSize, bubbleSize));
+        }
+    }
+
+    /**
+     * Makes a see-through version of a color.
+     * @param color the color
+     * @param alpha how opaque the color should be, between 0 and 1
+     * @return the see-through color
+     */
+    private static Color withAlpha(Color color, double alpha) {
+        return new Color(color.getRed(), color.getGreen(), color.getBlue(), (int) (Math.max(0, Math.min(alpha, 1)) * 255));
+    }
+}
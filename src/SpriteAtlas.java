@@ -0,0 +1,168 @@
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Holds the images of all the ships, packed next to each other in a single image.
+ * The images are loaded only once, on a background thread, the first time this class is used.
+ * Scaled and rotated versions of the images are made the first time they're needed and then kept, so drawing a ship never scales an image. Only the versions of the last few tile sizes are kept, like in <code>TileImageCache</code>, so resizing the window doesn't fill up the memory.
+ */
+public final class SpriteAtlas {
+    private static final String[] SHIP_IMAGE_NAMES = {"submarine", "destroyer", "cruiser", "battleship", "carrier"};
+    private static final int CACHED_TILE_SIZES = 8;
+
+    private static final CompletableFuture<SpriteAtlas> loading = CompletableFuture.supplyAsync(SpriteAtlas::load, runnable -> {
+        Thread thread = new Thread(runnable, "Sprite atlas loader");
+        thread.setDaemon(true);
+        thread.start();
+    });
+
+    private final BufferedImage atlas;
+    private final Rectangle[] regions;
+    private final ImageIcon[] shipIcons;
+    private final Map<Integer, BufferedImage[][]> tileSprites;
+
+    /**
+     * Constructs a new sprite atlas.
+     * @param atlas the image containing the images of all the ships
+     * @param regions the part of the atlas taken by each ship, indexed by ship size - 1 (<code>null</code> if the ship's image couldn't be loaded)
+     */
+    private SpriteAtlas(BufferedImage atlas, Rectangle[] regions) {
+        this.atlas = atlas;
+        this.regions = regions;
+        shipIcons = new ImageIcon[regions.length];
+        for (int i = 0; i < regions.length; i++) {
+            if (regions[i] != null) {
+                shipIcons[i] = new ImageIcon(atlas.getSubimage(regions[i].x, regions[i].y, regions[i].width, regions[i].height));
+            }
+        }
+        tileSprites = Collections.synchronizedMap(new LinkedHashMap<>(CACHED_TILE_SIZES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, BufferedImage[][]> eldest) {
+                return size() > CACHED_TILE_SIZES;
+            }
+        });
+    }
+
+    /**
+     * Starts loading the ship images in the background if they haven't started loading yet.
+     * Calling this method early (for example from the menu) means the images are usually ready by the time a game starts.
+     */
+    public static void preload() {
+        // Loading starts when this class is initialized.
+    }
+
+    /**
+     * Runs the passed in action on the event dispatch thread once the ship images have been loaded.
+     * If they're already loaded, the action is still run later on the event dispatch thread.
+     * @param action the action to run with the loaded atlas
+     */
+    public static void whenLoaded(Consumer<SpriteAtlas> action) {
+        loading.thenAccept(atlas -> SwingUtilities.invokeLater(() -> action.accept(atlas)));
+    }
+
+    /**
+     * Reads the images of all the ships and packs them next to each other into one image.
+     * Images that can't be read are left out.
+     * @return the new sprite atlas
+     */
+    private static SpriteAtlas load() {
+        BufferedImage[] images = new BufferedImage[SHIP_IMAGE_NAMES.length];
+        int width = 0;
+        int height = 1;
+        for (int i = 0; i < images.length; i++) {
+            try {
+                images[i] = ImageIO.read(new File("shipImages/" + SHIP_IMAGE_NAMES[i] + ".png"));
+            } catch (IOException e) {
+                images[i] = null;
+            }
+            if (images[i] != null) {
+                width += images[i].getWidth();
+                height = Math.max(height, images[i].getHeight());
+            }
+        }
+        BufferedImage atlas = new BufferedImage(Math.max(width, 1), height, BufferedImage.TYPE_INT_ARGB);
+        Rectangle[] regions = new Rectangle[images.length];
+        Graphics2D graphics = atlas.createGraphics();
+        int x = 0;
+        for (int i = 0; i < images.length; i++) {
+            if (images[i] != null) {
+                graphics.drawImage(images[i], x, 0, null);
+                regions[i] = new Rectangle(x, 0, images[i].getWidth(), images[i].getHeight());
+                x += images[i].getWidth();
+            }
+        }
+        graphics.dispose();
+        return new SpriteAtlas(atlas, regions);
+    }
+
+    /**
+     * Gets the icon of a ship, as shown on the <code>ShipLabel</code>s.
+     * @param shipSize the size of the ship
+     * @return the icon, or <code>null</code> if the ship's image couldn't be loaded
+     */
+    public ImageIcon getShipIcon(int shipSize) {
+        return shipIcons[shipSize - 1];
+    }
+
+    /**
+     * Gets the image of a ship, scaled to the passed in tile size, rotated and cut up into one image per tile.
+     * The images are made the first time they're asked for, and then kept for next time, unless more than <code>CACHED_TILE_SIZES</code> other tile sizes have been asked for since.
+     * For vertical ships (rotation 1) the images go from the top tile to the bottom tile, for horizontal ships (rotation 2) from the leftmost tile to the rightmost tile.
+     * @param shipSize the size of the ship
+     * @param rotation the rotation of the ship (1 = vertical, 2 = horizontal)
+     * @param tileSize the width and height of a tile in pixels
+     * @return one image for each tile of the ship, or <code>null</code> if the ship's image couldn't be loaded
+     */
+    public BufferedImage[] getTileSprites(int shipSize, int rotation, int tileSize) {
+        if (shipSize < 1 || shipSize > regions.length || regions[shipSize - 1] == null || tileSize <= 0) {
+            return null;
+        }
+        BufferedImage[][] sprites = tileSprites.computeIfAbsent(tileSize, size -> new BufferedImage[2 * regions.length][]);
+        int index = (rotation == 2 ? regions.length : 0) + shipSize - 1;
+        synchronized (sprites) {
+            if (sprites[index] == null) {
+                sprites[index] = createTileSprites(shipSize, rotation, tileSize);
+            }
+            return sprites[index];
+        }
+    }
+
+    /**
+     * Scales, rotates and cuts up the image of a ship.
+     * The images in the atlas are vertical, so horizontal ships are rotated by 90 degrees.
+     * @param shipSize the size of the ship
+     * @param rotation the rotation of the ship (1 = vertical, 2 = horizontal)
+     * @param tileSize the width and height of a tile in pixels
+     * @return one image for each tile of the ship
+     */
+    private BufferedImage[] createTileSprites(int shipSize, int rotation, int tileSize) {
+        Rectangle region = regions[shipSize - 1];
+        boolean horizontal = rotation == 2;
+        int width = horizontal ? tileSize * shipSize : tileSize;
+        int height = horizontal ? tileSize : tileSize * shipSize;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        if (horizontal) {
+            graphics.translate(width, 0);
+            graphics.rotate(Math.PI / 2);
+        }
+        graphics.drawImage(atlas, 0, 0, tileSize, tileSize * shipSize, region.x, region.y, region.x + region.width, region.y + region.height, null);
+        graphics.dispose();
+
+        BufferedImage[] sprites = new BufferedImage[shipSize];
+        for (int i = 0; i < shipSize; i++) {
+            sprites[i] = horizontal ? image.getSubimage(i * tileSize, 0, tileSize, tileSize) : image.getSubimage(0, i * tileSize, tileSize, tileSize);
+        }
+        return sprites;
+    }
+}
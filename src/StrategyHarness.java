@@ -0,0 +1,428 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.ServiceLoader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds the available <code>AIStrategy</code>s and plays their moves while holding every move to a wall-clock time budget.
+ * Every move of a strategy runs on a separate thread. If the strategy doesn't answer within the budget, throws an exception or chooses a tile that can't be shot, a default move (a random undiscovered tile) is played instead, so a slow or broken strategy can never stall a match.
+ * A strategy that ran out of time is left alone until its late move finishes: it gets default moves and isn't told their results in the meantime, so it's never called from two threads at once.
+ * The default moves are chosen with a random number generator of their own, since a late move may still be using the strategy's one. That keeps a seeded match the same every time it's played.
+ * How long every move took is recorded for each strategy, so their latency percentiles can be compared.
+ * The harness can also play many head-to-head matches between strategies at once, one match per processor core.
+ * The fleets and shots of every match are recorded in a <code>HeatmapAnalytics</code>, the global heatmap unless another one is set.
+ * A match between two <code>HeadlessStrategy</code>s is played on a <code>HeadlessGame</code> reused by the thread playing it, which doesn't allocate any memory per shot. Their moves run on that thread, so they're timed and held to the same budget, but a late move is only replaced by default shots once it's over (see <code>HeadlessGame.setMoveBudget</code>).
+ */
+public class StrategyHarness {
+    public static final String DEFAULT_STRATEGY = "Hunt and target";
+
+    private static final long FALLBACK_SEED_MIX = 0x5DEECE66DL;
+
+    private static final ExecutorService moveExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "AI move");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static Map<String, ServiceLoader.Provider<AIStrategy>> providers;
+
+    private final long moveBudgetNanos;
+    private final ConcurrentHashMap<String, LatencyRecorder> latencies;
+    private final ConcurrentHashMap<AIStrategy, AtomicBoolean> lateMoves;
+    private final ThreadLocal<HeadlessGame> headlessGames;
+    private final AtomicLong headlessMatchCount;
+    private GameArchiveWriter archive;
+    private HeatmapAnalytics analytics;
+
+    /**
+     * Constructs a new harness recording its matches in the global heatmap.
+     * @param moveBudgetMillis how many milliseconds a strategy has for every move
+     */
+    public StrategyHarness(long moveBudgetMillis) {
+        moveBudgetNanos = TimeUnit.MILLISECONDS.toNanos(moveBudgetMillis);
+        latencies = new ConcurrentHashMap<>();
+        lateMoves = new ConcurrentHashMap<>();
+        headlessGames = ThreadLocal.withInitial(HeadlessGame::new);
+        headlessMatchCount = new AtomicLong();
+        analytics = HeatmapAnalytics.getGlobal();
+    }
+
+    /**
+     * Sets the archive every match played by <code>playHeadToHead</code> is appended to.
+     * @param archive the archive, or <code>null</code> to not keep the matches
+     */
+    public void setArchive(GameArchiveWriter archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Sets the heatmap the fleets and shots of the following matches are recorded in.
+     * @param analytics the heatmap, or <code>null</code> to not record the matches
+     */
+    public void setAnalytics(HeatmapAnalytics analytics) {
+        this.analytics = analytics;
+    }
+
+    /**
+     * Gets the names of all the strategies the <code>ServiceLoader</code> finds, in the order they're listed.
+     * The strategies are only looked up the first time this method or <code>createStrategy</code> is called.
+     * @return the names of the available strategies
+     */
+    public static synchronized List<String> getStrategyNames() {
+        if (providers == null) {
+            providers = new LinkedHashMap<>();
+            for (ServiceLoader.Provider<AIStrategy> provider : ServiceLoader.load(AIStrategy.class).stream().toList()) {
+                providers.putIfAbsent(provider.get().getName(), provider);
+            }
+        }
+        return new ArrayList<>(providers.keySet());
+    }
+
+    /**
+     * Creates a new instance of a strategy.
+     * @param name the name of the strategy
+     * @return the new strategy, or a new <code>AIPlayer</code> if no strategy has that name
+     */
+    public static AIStrategy createStrategy(String name) {
+        ServiceLoader.Provider<AIStrategy> provider = getStrategyNames().contains(name) ? providers.get(name) : null;
+        return provider != null ? provider.get() : new AIPlayer();
+    }
+
+    /**
+     * Gets how many matches this harness played on a <code>HeadlessGame</code>.
+     * @return the amount of headless matches
+     */
+    public long getHeadlessMatchCount() {
+        return headlessMatchCount.get();
+    }
+
+    /**
+     * Gets the move times recorded for a strategy.
+     * @param name the name of the strategy
+     * @return the recorder of the strategy's move times
+     */
+    public LatencyRecorder getLatencies(String name) {
+        return latencies.computeIfAbsent(name, key -> new LatencyRecorder());
+    }
+
+    /**
+     * Lets a strategy place all of a player's ships.
+     * The strategy places its ships on an empty board of a separate match, so it can't see or change anything else. The ships are then copied to the real match, and any ships the strategy didn't place in time are placed at random.
+     * @param strategy the strategy
+     * @param match the match being played
+     * @param player the player the strategy plays as (from 1 to the player count)
+     * @param random the random number generator the strategy uses
+     * @param fallbackRandom the random number generator used for placing the ships the strategy didn't place, which must not be the strategy's one
+     */
+    public void placeFleet(AIStrategy strategy, Match match, int player, Random random, Random fallbackRandom) {
+        Match placementMatch = new Match();
+        Boolean placed = callWithBudget(strategy, () -> {
+            strategy.placeFleet(placementMatch, 1, random);
+            return Boolean.TRUE;
+        });
+        if (placed != null) {
+            for (Ship ship : placementMatch.getShips(1)) {
+                Coordinates firstTile = ship.getTiles().get(0);
+                match.placeShip(player, firstTile.getX(), firstTile.getY(), ship.getSize(), ship.getRotation());
+            }
+        }
+        match.placeFleetRandomly(player, fallbackRandom);
+    }
+
+    /**
+     * Plays one turn of a strategy: a single shot, or a salvo in a salvo match.
+     * The strategy is told the result of every shot fired for it, including default shots.
+     * @param strategy the strategy
+     * @param match the match being played
+     * @param target the player being shot at (from 1 to the player count)
+     * @param salvoSize the amount of shots in the salvo, or 0 for a single shot
+     * @param random the random number generator the strategy uses
+     * @param fallbackRandom the random number generator used for choosing the default shots, which must not be the strategy's one
+     * @param shots filled with the tiles that were shot, in the order they were fired
+     * @return the result of each shot, in the same order as the shots, which is empty if there was nothing left to shoot
+     */
+    public int[] playTurn(AIStrategy strategy, Match match, int target, int salvoSize, Random random, Random fallbackRandom, List<Coordinates> shots) {
+        Board opponentView = match.getOpponentView(target);
+        boolean[] taken = new boolean[Match.BOARD_SIZE * Match.BOARD_SIZE];
+        int shotCount = Math.max(salvoSize, 1);
+        GameEvents.AIDecision decision = GameEvents.beginAIDecision();
+        List<Coordinates> chosenShots = callWithBudget(strategy, () -> salvoSize == 0
+                ? Collections.singletonList(strategy.chooseShot(opponentView, random))
+                : strategy.chooseSalvo(opponentView, salvoSize, random));
+        GameEvents.recordAIDecision(decision, strategy.getName(), opponentView, shotCount, chosenShots == null);
+        if (chosenShots != null) {
+            for (Coordinates shot : chosenShots) {
+                if (shots.size() < shotCount && shot != null && shot.getX() >= 0 && shot.getY() >= 0 && shot.getX() < Match.BOARD_SIZE && shot.getY() < Match.BOARD_SIZE
+                        && opponentView.get(shot.getX(), shot.getY()) == 0 && !taken[shot.getY() * Match.BOARD_SIZE + shot.getX()]) {
+                    taken[shot.getY() * Match.BOARD_SIZE + shot.getX()] = true;
+                    shots.add(shot);
+                }
+            }
+        }
+        while (shots.size() < shotCount) {
+            Coordinates shot = randomUndiscoveredTile(opponentView, taken, fallbackRandom);
+            if (shot == null) {
+                break;
+            }
+            taken[shot.getY() * Match.BOARD_SIZE + shot.getX()] = true;
+            shots.add(shot);
+        }
+        if (shots.isEmpty()) {
+            return new int[0];
+        }
+        int[] results = salvoSize == 0 ? new int[]{match.shoot(target, shots.get(0).getX(), shots.get(0).getY())} : match.salvo(target, shots);
+        if (!lateMoves.containsKey(strategy)) {
+            for (int i = 0; i < shots.size(); i++) {
+                if (results[i] != Match.INVALID) {
+                    strategy.learn(shots.get(i), results[i]);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Runs one move of a strategy on a separate thread and waits for it for at most the move budget.
+     * The time the move took is recorded for the strategy.
+     * @param strategy the strategy making the move
+     * @param move the move
+     * @param <T> the type of the move's answer
+     * @return the move's answer, or <code>null</code> if the move ran out of time, threw an exception or the strategy is still busy with a late move
+     */
+    private <T> T callWithBudget(AIStrategy strategy, Callable<T> move) {
+        AtomicBoolean lateMoveFinished = lateMoves.get(strategy);
+        if (lateMoveFinished != null) {
+            if (!lateMoveFinished.get()) {
+                getLatencies(strategy.getName()).recordSkipped();
+                return null;
+            }
+            lateMoves.remove(strategy);
+        }
+        AtomicBoolean finished = new AtomicBoolean();
+        long start = System.nanoTime();
+        Future<T> future = moveExecutor.submit(() -> {
+            try {
+                return move.call();
+            } finally {
+                finished.set(true);
+            }
+        });
+        try {
+            T answer = future.get(moveBudgetNanos, TimeUnit.NANOSECONDS);
+            getLatencies(strategy.getName()).record(System.nanoTime() - start, false);
+            return answer;
+        } catch (TimeoutException exception) {
+            future.cancel(true);
+            lateMoves.put(strategy, finished);
+            getLatencies(strategy.getName()).record(System.nanoTime() - start, true);
+        } catch (ExecutionException exception) {
+            getLatencies(strategy.getName()).record(System.nanoTime() - start, false);
+        } catch (InterruptedException exception) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * Chooses a random undiscovered tile, which is the default move when a strategy doesn't choose one.
+     * @param opponentView the opponent's board, with the types used by <code>Tile</code> (0 = undiscovered)
+     * @param taken tiles that can't be chosen, row by row, or <code>null</code>
+     * @param random the random number generator to use
+     * @return the tile, or <code>null</code> if there are no undiscovered tiles left
+     */
+    public static Coordinates randomUndiscoveredTile(Board opponentView, boolean[] taken, Random random) {
+        int[] candidates = new int[Match.BOARD_SIZE * Match.BOARD_SIZE];
+        int candidateCount = 0;
+        for (int index = 0; index < candidates.length; index++) {
+            if (opponentView.get(index % Match.BOARD_SIZE, index / Match.BOARD_SIZE) == 0 && (taken == null || !taken[index])) {
+                candidates[candidateCount++] = index;
+            }
+        }
+        if (candidateCount == 0) {
+            return null;
+        }
+        int index = candidates[random.nextInt(candidateCount)];
+        return new Coordinates(index % Match.BOARD_SIZE, index / Match.BOARD_SIZE);
+    }
+
+    /**
+     * Plays head-to-head matches between every pair of strategies, with as many matches at once as there are processor cores.
+     * Each pair plays the same amount of matches, taking turns at shooting first.
+     * @param names the names of the strategies
+     * @param matchesPerPair how many matches every pair of strategies plays
+     * @param salvo whether the matches are salvo matches
+     * @param seed the seed the random number generator of every match is derived from
+     * @return how many matches each strategy won against each other strategy, indexed by the positions of their names
+     * @throws InterruptedException if the thread is interrupted while waiting for the matches
+     * @throws ExecutionException if a match fails
+     */
+    public int[][] playHeadToHead(List<String> names, int matchesPerPair, boolean salvo, long seed) throws InterruptedException, ExecutionException {
+        ExecutorService matchExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            List<Future<Integer>> winners = new ArrayList<>();
+            List<int[]> pairs = new ArrayList<>();
+            Random seeds = new Random(seed);
+            for (int i = 0; i < names.size(); i++) {
+                for (int j = i + 1; j < names.size(); j++) {
+                    for (int k = 0; k < matchesPerPair; k++) {
+                        String first = names.get(k % 2 == 0 ? i : j);
+                        String second = names.get(k % 2 == 0 ? j : i);
+                        long matchSeed = seeds.nextLong();
+                        pairs.add(k % 2 == 0 ? new int[]{i, j} : new int[]{j, i});
+                        winners.add(matchExecutor.submit(() -> playMatch(first, second, salvo, matchSeed)));
+                    }
+                }
+            }
+            int[][] wins = new int[names.size()][names.size()];
+            for (int i = 0; i < winners.size(); i++) {
+                int winner = winners.get(i).get();
+                int[] pair = pairs.get(i);
+                wins[pair[winner - 1]][pair[2 - winner]]++;
+            }
+            return wins;
+        } finally {
+            matchExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Plays one match between two strategies, on the thread's <code>HeadlessGame</code> if both of them are <code>HeadlessStrategy</code>s and on a <code>Match</code> otherwise.
+     * @param first the name of the strategy playing as player 1, who shoots first
+     * @param second the name of the strategy playing as player 2
+     * @param salvo whether the match is a salvo match
+     * @param seed the seed of the random number generator of the match
+     * @return the winner (1 or 2)
+     */
+    private int playMatch(String first, String second, boolean salvo, long seed) {
+        AIStrategy[] strategies = {createStrategy(first), createStrategy(second)};
+        if (strategies[0] instanceof HeadlessStrategy firstStrategy && strategies[1] instanceof HeadlessStrategy secondStrategy) {
+            return playHeadlessMatch(headlessGames.get(), firstStrategy, secondStrategy, salvo, seed);
+        }
+        Random random = new Random(seed);
+        Random fallbackRandom = new Random(seed ^ FALLBACK_SEED_MIX);
+        Match match = new Match();
+        match.setAnalytics(analytics);
+        placeFleet(strategies[0], match, 1, random, fallbackRandom);
+        placeFleet(strategies[1], match, 2, random, fallbackRandom);
+        int player = 1;
+        List<Coordinates> shots = new ArrayList<>();
+        List<List<Coordinates>> playerShots = List.of(new ArrayList<>(), new ArrayList<>());
+        while (!match.isOver()) {
+            shots.clear();
+            playTurn(strategies[player - 1], match, 3 - player, salvo ? match.getSalvoSize(player) : 0, random, fallbackRandom, shots);
+            playerShots.get(player - 1).addAll(shots);
+            player = 3 - player;
+            if (!match.isOver()) {
+                GameEvents.recordTurnSwitch(player, match.getShotCount());
+            }
+        }
+        if (archive != null) {
+            try {
+                archive.append(new ArchivedGame(match.getShips(1), match.getShips(2), playerShots.get(0), playerShots.get(1)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return match.getWinner();
+    }
+
+    /**
+     * Plays one match between two headless strategies on a headless game, and appends it to the archive if there is one.
+     * The strategies are reset first, so the same instances can play one match after another. Every move is held to the move budget and timed for its strategy, like on a <code>Match</code>. Apart from archiving, playing the match doesn't allocate any memory (<code>AllocationGate</code> checks this).
+     * The two strategies must be separate instances, even if they're the same strategy, since every instance remembers its own shots.
+     * @param game the game to play the match on, which only one thread may use at a time
+     * @param first the strategy playing as player 1, who shoots first
+     * @param second the strategy playing as player 2
+     * @param salvo whether the match is a salvo match
+     * @param seed the seed of the random number generator of the match
+     * @return the winner (1 or 2)
+     */
+    public int playHeadlessMatch(HeadlessGame game, HeadlessStrategy first, HeadlessStrategy second, boolean salvo, long seed) {
+        first.reset();
+        second.reset();
+        game.setAnalytics(analytics);
+        game.setMoveBudget(moveBudgetNanos);
+        game.setLatencies(getLatencies(first.getName()), getLatencies(second.getName()));
+        int winner = game.play(first, second, salvo, seed);
+        headlessMatchCount.incrementAndGet();
+        if (archive != null) {
+            try {
+                archive.append(new ArchivedGame(game.getShips(1), game.getShips(2), game.getShots(1), game.getShots(2)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return winner;
+    }
+
+    /**
+     * Plays head-to-head matches between all the available strategies and prints how many matches each of them won against each other and the move latencies of every strategy.
+     * The first argument is the amount of matches every pair plays (100 by default), the second one the move budget in milliseconds (50 by default), a <code>--salvo</code> argument plays salvo matches, and <code>--archive FILE</code> appends every match to a <code>GameArchiveWriter</code> archive.
+     * The matches are added to the global heatmap, which is saved at the end.
+     * @param args the launch arguments
+     * @throws Exception if a match fails
+     */
+    public static void main(String[] args) throws Exception {
+        boolean salvo = false;
+        String archiveFile = null;
+        long[] numbers = {100, 50};
+        int numberCount = 0;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--salvo")) {
+                salvo = true;
+            } else if (args[i].equals("--archive") && i + 1 < args.length) {
+                archiveFile = args[++i];
+            } else if (numberCount < numbers.length) {
+                numbers[numberCount++] = Long.parseLong(args[i]);
+            }
+        }
+        int matchesPerPair = (int) numbers[0];
+        long moveBudgetMillis = numbers[1];
+        List<String> names = getStrategyNames();
+        StrategyHarness harness = new StrategyHarness(moveBudgetMillis);
+        GameArchiveWriter archive = archiveFile != null ? new GameArchiveWriter(new File(archiveFile)) : null;
+        harness.setArchive(archive);
+        long start = System.nanoTime();
+        int[][] wins;
+        try {
+            wins = harness.playHeadToHead(names, matchesPerPair, salvo, System.nanoTime());
+        } finally {
+            if (archive != null) {
+                archive.close();
+            }
+        }
+        HeatmapAnalytics.saveGlobal();
+        System.out.println(names.size() + " strategies, " + matchesPerPair + " matches per pair, " + Runtime.getRuntime().availableProcessors() + " threads, "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        for (int i = 0; i < names.size(); i++) {
+            for (int j = 0; j < names.size(); j++) {
+                if (i != j) {
+                    System.out.println(names.get(i) + " beat " + names.get(j) + " " + wins[i][j] + " times");
+                }
+            }
+        }
+        System.out.println(harness.getHeadlessMatchCount() + " matches between headless strategies were played on a HeadlessGame");
+        for (String name : names) {
+            System.out.println(name + ": " + harness.getLatencies(name).getSummary());
+        }
+        if (archiveFile != null) {
+            System.out.println("Archived to " + archiveFile + " (" + new File(archiveFile).length() + " bytes)");
+        }
+    }
+}
@@ -1,5 +1,4 @@
 import javax.swing.*;
-import javax.swing.border.LineBorder;
 import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
@@ -7,30 +6,40 @@ import java.awt.event.MouseListener;
 
 /**
  * A subclass of <code>JLabel</code> meant for displaying a tile in a <code>GridPanel</code>.
+ * The color and border of this tile are drawn by copying a ready-made image from the <code>TileImageCache</code>, made for the size of this tile in device pixels, so tiles stay sharp on high resolution displays and a resized grid doesn't fill any rectangles.
+ * The fields that decide how this tile looks are volatile, because a <code>BoardCanvas</code> draws them on the thread of its <code>RenderLoop</code>.
  */
 public class Tile extends JLabel implements MouseListener {
+    private static final Color SUNK_TINT = new Color(255, 0, 0, 128);
+
+    private GridPanel grid;
     private Coordinates coordinates;
-    private int type;
+    private volatile int type;
     private boolean hovering;
     private boolean isOpponentGrid;
+    private volatile Image sprite;
+    private volatile Color overlay;
+    private volatile int appearance;
+    private volatile boolean targeted;
 
     /**
      * Constructs a new tile, assigns a type of either undiscovered or empty based on whether the user sets this tile as revealed or not, and sets up the look of this tile.
+     * @param grid the <code>GridPanel</code> this tile is part of
      * @param coordinates the coordinates of this tile
      * @param revealed whether the tile is revealed
      * @param opponentGrid whether the tile is part of an opponent <code>GridPanel</code> (whether it is shootable)
      */
-    Tile(Coordinates coordinates, boolean revealed, boolean opponentGrid){
+    Tile(GridPanel grid, Coordinates coordinates, boolean revealed, boolean opponentGrid){
+        this.grid = grid;
         this.coordinates = coordinates;
         if(revealed){
             type = 1;
         } else {
             type = 0;
         }
-        refreshColor();
+        appearance = TileImageCache.getAppearance(type, TileImageCache.NORMAL);
         this.isOpponentGrid = opponentGrid;
         hovering = false;
-        this.setBorder(new LineBorder(Color.BLACK, 2));
         this.setOpaque(true);
         this.addMouseListener(this);
     }
@@ -60,6 +69,7 @@ public class Tile extends JLabel implements MouseListener {
     /**
      * Sets the type of this tile.
      * Only values between 0 and 5 are intended.
+     * Note that this doesn't change the board of the <code>GridPanel</code>, so the type should be set through <code>GridPanel.setType</code> instead.
      * 0 = Undiscovered
      * 1 = Empty
      * 2 = Ship
@@ -73,27 +83,128 @@ public class Tile extends JLabel implements MouseListener {
     }
 
     /**
-     * Gets the color based on the type of tile that was passed in.
-     * @param color the type of tile
-     * @return the corresponding color
+     * Sets the part of a ship's image drawn on this tile.
+     * The image should already have the same size as this tile, so it doesn't have to be scaled when this tile is drawn.
+     * This tile isn't repainted; the <code>GridPanel</code> repaints all the changed tiles at once.
+     * @param sprite the image to draw, or <code>null</code> to only draw the color of this tile
+     * @return whether the image changed
+     */
+    public boolean setSprite(Image sprite) {
+        if(this.sprite == sprite){
+            return false;
+        }
+        this.sprite = sprite;
+        return true;
+    }
+
+    /**
+     * Gets the part of a ship's image drawn on this tile.
+     * @return the image, or <code>null</code> if there is none
+     */
+    public Image getSprite() {
+        return sprite;
+    }
+
+    /**
+     * Gets the translucent color drawn over this tile.
+     * @return the overlay color, or <code>null</code> if there is none
+     */
+    public Color getOverlay() {
+        return overlay;
+    }
+
+    /**
+     * Gets how this tile currently looks, including the brighter and darker versions of its color shown while the cursor is over it or pressing it.
+     * @return the appearance, as used by the <code>TileImageCache</code>
+     */
+    public int getAppearance() {
+        return appearance;
+    }
+
+    /**
+     * Returns whether this tile is a target of the salvo that is being put together.
+     * @return whether this tile is targeted
+     */
+    public boolean isTargeted() {
+        return targeted;
+    }
+
+    /**
+     * Sets a translucent color drawn over this tile, for example to show a heatmap.
+     * This tile isn't repainted; the <code>GridPanel</code> repaints all the changed tiles at once.
+     * @param overlay the color to draw over this tile, or <code>null</code> to draw nothing
+     */
+    public void setOverlay(Color overlay) {
+        this.overlay = overlay;
+    }
+
+    /**
+     * Marks this tile as a target of the salvo that is being put together, or removes the mark.
+     * Targeted tiles have a thick yellow border.
+     * @param targeted whether this tile is targeted
      */
-    private Color getColor(int color){
-        return switch (color) {
-            case 0 -> Color.DARK_GRAY;
-            case 1 -> Color.GRAY;
-            case 2 -> Color.WHITE;
-            case 3 -> Color.RED;
-            case 4 -> Color.PINK;
-            case 5 -> Color.ORANGE;
-            default -> null;
-        };
+    public void setTargeted(boolean targeted) {
+        if(this.targeted != targeted){
+            this.targeted = targeted;
+            repaint();
+        }
     }
 
     /**
-     * Changes this tile's color back to its assigned type.
+     * Draws this tile. A plain tile is a single image from the <code>TileImageCache</code>.
+     * A tile with a ship's image or an overlay color is drawn in layers: its color, then the part of the ship's image on it, then the overlay color, and then its border on top.
+     * Sunk ship tiles are tinted red, so hits stay visible on top of the image.
+     * The tile covers all of its area, so the background of the label isn't painted first.
+     * @param g the graphics to draw with
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D graphics = (Graphics2D) g;
+        double scale = TileImageCache.getScale(graphics);
+        int size = (int) Math.round(getWidth() * scale);
+        if(sprite == null && overlay == null){
+            TileImageCache.drawDeviceImage(graphics, TileImageCache.getTileImage(appearance, targeted, size, scale), 0, 0);
+            return;
+        }
+        TileImageCache.drawDeviceImage(graphics, TileImageCache.getFillImage(appearance, size, scale), 0, 0);
+        if(sprite != null){
+            TileImageCache.drawDeviceImage(graphics, sprite, 0, 0);
+            if(type == 3){
+                g.setColor(SUNK_TINT);
+                g.fillRect(0, 0, getWidth(), getHeight());
+            }
+        }
+        if(overlay != null){
+            g.setColor(overlay);
+            g.fillRect(0, 0, getWidth(), getHeight());
+        }
+        TileImageCache.drawDeviceImage(graphics, TileImageCache.getBorderImage(targeted, size, scale), 0, 0);
+    }
+
+    /**
+     * Changes this tile's color back to its assigned type and repaints this tile.
      */
     public void refreshColor(){
-        this.setBackground(this.getColor(type));
+        paintAppearance(TileImageCache.getAppearance(type, TileImageCache.NORMAL));
+    }
+
+    /**
+     * Changes this tile's color back to its assigned type without repainting this tile.
+     * Used by the <code>GridPanel</code> when many tiles change at once, so they can all be repainted together.
+     */
+    public void updateColor(){
+        appearance = TileImageCache.getAppearance(type, TileImageCache.NORMAL);
+    }
+
+    /**
+     * Changes how this tile looks and repaints this tile, if its look changed.
+     * @param appearance the new appearance, as used by the <code>TileImageCache</code>
+     */
+    private void paintAppearance(int appearance){
+        if(appearance != this.appearance){
+            this.appearance = appearance;
+            repaint();
+        }
     }
 
     /**
@@ -101,7 +212,7 @@ public class Tile extends JLabel implements MouseListener {
      * Used for displaying a ship that's currently being placed and showing that its location is valid.
      */
     public void highlightValid(){
-        this.setBackground(Color.BLUE.brighter());
+        paintAppearance(TileImageCache.VALID);
     }
 
     /**
@@ -109,7 +220,7 @@ public class Tile extends JLabel implements MouseListener {
      * Used for displaying a ship that's currently being placed and showing that its location is invalid.
      */
     public void highlightInvalid(){
-        this.setBackground(Color.RED.brighter());
+        paintAppearance(TileImageCache.INVALID);
     }
 
     /**
@@ -117,7 +228,7 @@ public class Tile extends JLabel implements MouseListener {
      * Used when the player hovers over the tile with the cursor.
      */
     private void highlight(){
-        this.setBackground(this.getColor(type).brighter());
+        paintAppearance(TileImageCache.getAppearance(type, TileImageCache.HOVERED));
     }
 
     /**
@@ -125,7 +236,15 @@ public class Tile extends JLabel implements MouseListener {
      * Used when the player presses the tile down.
      */
     private void pressTile(){
-        this.setBackground(this.getColor(type).darker());
+        paintAppearance(TileImageCache.getAppearance(type, TileImageCache.PRESSED));
+    }
+
+    /**
+     * Returns whether this tile is used for creating ships, which is when the game is in the ship creating phase and this tile's grid doesn't handle its own shots.
+     * @return whether this tile is used for creating ships
+     */
+    private boolean isShipCreating(){
+        return grid.getShotHandler() == null && GameState.isShipCreating();
     }
 
     @Override
@@ -139,14 +258,14 @@ public class Tile extends JLabel implements MouseListener {
      */
     @Override
     public void mousePressed(MouseEvent e) {
-        if(!GameState.isShipCreating()){
+        if(!isShipCreating()){
             pressTile();
         }
     }
 
     /**
      * Handles the mouse button presses.
-     * The left mouse button either places down a ship on the grid if the game is in the ship creating phase, or it shoots at the opponent's grid.
+     * The left mouse button either places down a ship on the grid if the game is in the ship creating phase, or it shoots at the opponent's grid (through the grid's shot handler, if it has one; in a salvo match, it adds this tile to the salvo or removes it from the salvo instead).
      * The right mouse button either rotates the ship if the game is in the ship creating phase, or it highlights this tile.
      * @param e the event to be processed
      */
@@ -154,26 +273,28 @@ public class Tile extends JLabel implements MouseListener {
     public void mouseReleased(MouseEvent e) {
         if(hovering){
             if(e.getButton() == MouseEvent.BUTTON1){
-                if(GameState.isShipCreating()){
+                if(isShipCreating()){
                     GameState.addShip();
                 } else {
                     if(isOpponentGrid){
-                        if(GameState.getCurrentPlayer() == 1){
-                            GameState.shootPlayer1(this);
+                        if(grid.getShotHandler() != null){
+                            grid.getShotHandler().accept(coordinates);
+                        } else if(GameState.isSalvoMode()){
+                            GameState.toggleSalvoTarget(this);
                         } else {
-                            GameState.shootPlayer2(this);
+                            GameState.shoot(this);
                         }
                     }
                     highlight();
                 }
             } else if(e.getButton() == MouseEvent.BUTTON3) {
-                if (GameState.isShipCreating()) {
+                if (isShipCreating()) {
                     GameState.getNewShip().toggleRotation();
                 } else {
                     if(type == 0){
-                        type = 5;
+                        grid.setType(coordinates.getX(), coordinates.getY(), 5);
                     } else if(type == 5){
-                        type = 0;
+                        grid.setType(coordinates.getX(), coordinates.getY(), 0);
                     }
                     highlight();
                 }
@@ -188,7 +309,7 @@ public class Tile extends JLabel implements MouseListener {
     @Override
     public void mouseEntered(MouseEvent e) {
         hovering = true;
-        if(GameState.isShipCreating()){
+        if(isShipCreating()){
             GameState.getNewShip().getTiles().clear();
             GameState.addShipTiles(coordinates);
             GameState.showShip();
@@ -205,7 +326,7 @@ public class Tile extends JLabel implements MouseListener {
     public void mouseExited(MouseEvent e) {
         refreshColor();
         hovering = false;
-        if(GameState.isShipCreating()){
+        if(isShipCreating()){
             GameState.refreshNewShipTiles();
         }
     }
@@ -0,0 +1,220 @@
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds ready-made images of how a tile can look, so drawing a tile copies one image instead of filling its color and drawing its border every time.
+ * A tile's look is its appearance: the color of its type in one of three states (as it is, brighter while the cursor is over it, darker while it's pressed), or one of the two colors of a ship that is being placed (valid and invalid).
+ * The images are made in device pixels, for every tile size and display scale they're asked for, the first time they're asked for. Only the images of the last few sizes are kept, so resizing a window doesn't fill up the memory.
+ * The images can be asked for from any thread.
+ */
+public final class TileImageCache {
+    public static final int NORMAL = 0;
+    public static final int HOVERED = 1;
+    public static final int PRESSED = 2;
+    public static final int VALID = 18;
+    public static final int INVALID = 19;
+    public static final int APPEARANCE_COUNT = 20;
+
+    private static final int BORDER_WIDTH = 2;
+    private static final int TARGETED_BORDER_WIDTH = 3;
+    private static final Color[] COLORS = new Color[APPEARANCE_COUNT];
+    private static final int CACHE_SIZE = 8;
+    private static final Map<Long, TileImages> CACHE = Collections.synchronizedMap(new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, TileImages> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    });
+
+    static {
+        Color[] typeColors = {Color.DARK_GRAY, Color.GRAY, Color.WHITE, Color.RED, Color.PINK, Color.ORANGE};
+        for (int type = 0; type < typeColors.length; type++) {
+            COLORS[getAppearance(type, NORMAL)] = typeColors[type];
+            COLORS[getAppearance(type, HOVERED)] = typeColors[type].brighter();
+            COLORS[getAppearance(type, PRESSED)] = typeColors[type].darker();
+        }
+        COLORS[VALID] = Color.BLUE.brighter();
+        COLORS[INVALID] = Color.RED.brighter();
+    }
+
+    /**
+     * The images of one tile size and display scale, made as they're asked for.
+     */
+    private static final class TileImages {
+        private final int size;
+        private final int borderWidth;
+        private final int targetedBorderWidth;
+        private final BufferedImage[] tiles = new BufferedImage[APPEARANCE_COUNT * 2];
+        private final BufferedImage[] fills = new BufferedImage[APPEARANCE_COUNT];
+        private final BufferedImage[] borders = new BufferedImage[2];
+
+        /**
+         * Constructs the images of a tile size and display scale.
+         * @param size the width and height of a tile in device pixels
+         * @param scale how many device pixels one pixel of the user interface takes
+         */
+        private TileImages(int size, double scale) {
+            this.size = size;
+            borderWidth = Math.max(1, (int) Math.round(BORDER_WIDTH * scale));
+            targetedBorderWidth = Math.max(1, (int) Math.round(TARGETED_BORDER_WIDTH * scale));
+        }
+    }
+
+    /**
+     * This class only has static methods.
+     */
+    private TileImageCache() {
+    }
+
+    /**
+     * Gets the appearance of a tile type in a state.
+     * @param type the type of the tile (0 to 5, see <code>Tile.getType</code>)
+     * @param state <code>NORMAL</code>, <code>HOVERED</code> or <code>PRESSED</code>
+     * @return the appearance
+     */
+    public static int getAppearance(int type, int state) {
+        return type * 3 + state;
+    }
+
+    /**
+     * Gets how many device pixels one pixel of the user interface takes when drawing with a graphics object, which is more than 1 on high resolution displays.
+     * @param graphics the graphics
+     * @return the scale
+     */
+    public static double getScale(Graphics2D graphics) {
+        return Math.max(graphics.getTransform().getScaleX(), 0.01);
+    }
+
+    /**
+     * Gets the image of a whole tile: its color with its border around it.
+     * @param appearance the appearance of the tile
+     * @param targeted whether the tile has the thick border of a salvo target
+     * @param size the width and height of the tile in device pixels
+     * @param scale how many device pixels one pixel of the user interface takes
+     * @return the image
+     */
+    public static BufferedImage getTileImage(int appearance, boolean targeted, int size, double scale) {
+        TileImages images = getImages(size, scale);
+        int index = appearance * 2 + (targeted ? 1 : 0);
+        synchronized (images) {
+            if (images.tiles[index] == null) {
+                BufferedImage image = createImage(images.size, Transparency.OPAQUE);
+                Graphics2D graphics = image.createGraphics();
+                graphics.setColor(COLORS[appearance]);
+                graphics.fillRect(0, 0, images.size, images.size);
+                drawBorder(graphics, images, targeted);
+                graphics.dispose();
+                images.tiles[index] = image;
+            }
+            return images.tiles[index];
+        }
+    }
+
+    /**
+     * Gets the image of the color of a tile without its border, to draw a ship's image or an overlay over before the border is drawn.
+     * @param appearance the appearance of the tile
+     * @param size the width and height of the tile in device pixels
+     * @param scale how many device pixels one pixel of the user interface takes
+     * @return the image
+     */
+    public static BufferedImage getFillImage(int appearance, int size, double scale) {
+        TileImages images = getImages(size, scale);
+        synchronized (images) {
+            if (images.fills[appearance] == null) {
+                BufferedImage image = createImage(images.size, Transparency.OPAQUE);
+                Graphics2D graphics = image.createGraphics();
+                graphics.setColor(COLORS[appearance]);
+                graphics.fillRect(0, 0, images.size, images.size);
+                graphics.dispose();
+                images.fills[appearance] = image;
+            }
+            return images.fills[appearance];
+        }
+    }
+
+    /**
+     * Gets the image of the border of a tile, which is see-through inside the border.
+     * @param targeted whether it's the thick border of a salvo target
+     * @param size the width and height of the tile in device pixels
+     * @param scale how many device pixels one pixel of the user interface takes
+     * @return the image
+     */
+    public static BufferedImage getBorderImage(boolean targeted, int size, double scale) {
+        TileImages images = getImages(size, scale);
+        int index = targeted ? 1 : 0;
+        synchronized (images) {
+            if (images.borders[index] == null) {
+                BufferedImage image = createImage(images.size, Transparency.BITMASK);
+                Graphics2D graphics = image.createGraphics();
+                drawBorder(graphics, images, targeted);
+                graphics.dispose();
+                images.borders[index] = image;
+            }
+            return images.borders[index];
+        }
+    }
+
+    /**
+     * Draws an image made in device pixels so that it covers a rectangle of the user interface, copying it pixel for pixel instead of scaling it.
+     * @param graphics the graphics to draw with
+     * @param image the image
+     * @param x the left edge of the rectangle
+     * @param y the top edge of the rectangle
+     */
+    public static void drawDeviceImage(Graphics2D graphics, Image image, int x, int y) {
+        AffineTransform transform = graphics.getTransform();
+        if (transform.getScaleX() == 1 && transform.getScaleY() == 1 && transform.getShearX() == 0 && transform.getShearY() == 0) {
+            graphics.drawImage(image, x, y, null);
+            return;
+        }
+        double deviceX = transform.getTranslateX() + x * transform.getScaleX();
+        double deviceY = transform.getTranslateY() + y * transform.getScaleY();
+        graphics.setTransform(AffineTransform.getTranslateInstance(Math.round(deviceX), Math.round(deviceY)));
+        graphics.drawImage(image, 0, 0, null);
+        graphics.setTransform(transform);
+    }
+
+    /**
+     * Gets the images of a tile size and display scale, making a new set if they aren't kept.
+     * @param size the width and height of a tile in device pixels
+     * @param scale how many device pixels one pixel of the user interface takes
+     * @return the images
+     */
+    private static TileImages getImages(int size, double scale) {
+        int clampedSize = Math.max(size, 1);
+        long key = (long) clampedSize << 32 | Math.round(scale * 100);
+        return CACHE.computeIfAbsent(key, k -> new TileImages(clampedSize, scale));
+    }
+
+    /**
+     * Draws the border of a tile.
+     * @param graphics the graphics of the tile's image
+     * @param images the images of the tile's size and scale
+     * @param targeted whether to draw the thick yellow border of a salvo target instead of the black one
+     */
+    private static void drawBorder(Graphics2D graphics, TileImages images, boolean targeted) {
+        int width = Math.min(targeted ? images.targetedBorderWidth : images.borderWidth, (images.size + 1) / 2);
+        graphics.setColor(targeted ? Color.YELLOW : Color.BLACK);
+        graphics.fillRect(0, 0, images.size, width);
+        graphics.fillRect(0, images.size - width, images.size, width);
+        graphics.fillRect(0, 0, width, images.size);
+        graphics.fillRect(images.size - width, 0, width, images.size);
+    }
+
+    /**
+     * Creates an image of a tile, in a format that is quick to draw on the screen when there is one.
+     * @param size the width and height of the image
+     * @param transparency <code>Transparency.OPAQUE</code> or <code>Transparency.BITMASK</code>
+     * @return the empty image
+     */
+    private static BufferedImage createImage(int size, int transparency) {
+        if (!GraphicsEnvironment.isHeadless()) {
+            return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration().createCompatibleImage(size, size, transparency);
+        }
+        return new BufferedImage(size, size, transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * An immutable history of states that can be undone and redone.
+ * Recording, undoing or redoing creates a new history that shares all of its other entries with the old one, so every step only costs one small entry.
+ * @param <T> the type of the states kept in this history
+ */
+public final class UndoHistory<T> {
+
+    /**
+     * A single link of an immutable list of states.
+     */
+    private static final class Entry<T> {
+        private final T state;
+        private final Entry<T> next;
+
+        private Entry(T state, Entry<T> next) {
+            this.state = state;
+            this.next = next;
+        }
+    }
+
+    private final Entry<T> past;
+    private final Entry<T> future;
+
+    /**
+     * Constructs a new history containing only the passed in state.
+     * @param initialState the state the history starts with
+     */
+    public UndoHistory(T initialState) {
+        this(new Entry<>(initialState, null), null);
+    }
+
+    private UndoHistory(Entry<T> past, Entry<T> future) {
+        this.past = past;
+        this.future = future;
+    }
+
+    /**
+     * Gets the state this history is currently at.
+     * @return the current state
+     */
+    public T getCurrent() {
+        return past.state;
+    }
+
+    /**
+     * Creates a new history where the passed in state follows the current state.
+     * All the states that could have been redone are forgotten.
+     * @param state the new current state
+     * @return the new history
+     */
+    public UndoHistory<T> record(T state) {
+        return new UndoHistory<>(new Entry<>(state, past), null);
+    }
+
+    /**
+     * Returns whether there is a state before the current state.
+     * @return whether the current state can be undone
+     */
+    public boolean canUndo() {
+        return past.next != null;
+    }
+
+    /**
+     * Returns whether there is a state that was undone and can be restored.
+     * @return whether a state can be redone
+     */
+    public boolean canRedo() {
+        return future != null;
+    }
+
+    /**
+     * Creates a new history which is at the state before the current state.
+     * If there is no such state, this history is returned.
+     * @return the new history
+     */
+    public UndoHistory<T> undo() {
+        if (!canUndo()) {
+            return this;
+        }
+        return new UndoHistory<>(past.next, new Entry<>(past.state, future));
+    }
+
+    /**
+     * Creates a new history which is at the state that was last undone.
+     * If there is no such state, this history is returned.
+     * @return the new history
+     */
+    public UndoHistory<T> redo() {
+        if (!canRedo()) {
+            return this;
+        }
+        return new UndoHistory<>(new Entry<>(future.state, past), future.next);
+    }
+}
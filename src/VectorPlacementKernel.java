@@ -0,0 +1,136 @@
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The <code>PlacementKernel</code> counting written with the Vector API, so the rows (and columns) of a board are worked on several at a time, one per lane of the processor's widest vector registers.
+ * It does the same thing as the bitwise kernel, but the bit-sliced counts are kept plane by plane instead of line by line, so one vector holds the same bit of the counts of neighbouring lines.
+ * The Vector API is still an incubator module in Java 17, so compiling this class needs <code>--add-modules jdk.incubator.vector</code>, and it's only used if the game was started with that option too. Otherwise <code>PlacementKernel</code> never loads it and counts with the bitwise kernel.
+ */
+final class VectorPlacementKernel {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    /**
+     * This class only has static methods.
+     */
+    private VectorPlacementKernel() {
+    }
+
+    /**
+     * Counts how many places of the passed in ships cover each tile, working on as many rows or columns at once as a vector has lanes.
+     * The board must already have been checked by <code>PlacementKernel</code>.
+     * @param openRows the open tiles of every row, bit <code>x</code> of element <code>y</code> being the tile at <code>x</code>, <code>y</code>; bits past the width are ignored
+     * @param width the width of the board (1 to 64)
+     * @param height the height of the board (1 to 64)
+     * @param shipSizes the sizes of the ships
+     * @param placementCounts filled with the amount of places each ship fits, or <code>null</code>
+     * @return the count of every tile, row by row
+     */
+    static int[] countPlacements(long[] openRows, int width, int height, int[] shipSizes, int[] placementCounts) {
+        long widthMask = width == 64 ? -1L : (1L << width) - 1;
+        // The lines are padded with closed lines up to a whole number of vectors, which have no places and so change nothing.
+        int rowCount = roundUp(height);
+        int columnCount = roundUp(width);
+        long[] rows = new long[rowCount];
+        long[] columns = new long[columnCount];
+        for (int y = 0; y < height; y++) {
+            rows[y] = openRows[y] & widthMask;
+            long bits = rows[y];
+            while (bits != 0) {
+                columns[Long.numberOfTrailingZeros(bits)] |= 1L << y;
+                bits &= bits - 1;
+            }
+        }
+        int maximumCount = 0;
+        for (int size : shipSizes) {
+            maximumCount += size;
+        }
+        int planeCount = 32 - Integer.numberOfLeadingZeros(maximumCount);
+        long[] rowPlanes = new long[planeCount * rowCount];
+        long[] columnPlanes = new long[planeCount * columnCount];
+        long[] starts = new long[SPECIES.length()];
+        for (int i = 0; i < shipSizes.length; i++) {
+            int placements = addLines(rows, shipSizes[i], rowPlanes, planeCount, starts);
+            if (shipSizes[i] > 1) {
+                placements += addLines(columns, shipSizes[i], columnPlanes, planeCount, starts);
+            }
+            if (placementCounts != null) {
+                placementCounts[i] = placements;
+            }
+        }
+        int[] counts = new int[width * height];
+        extractCounts(rowPlanes, rowCount, height, planeCount, counts, 1, width);
+        extractCounts(columnPlanes, columnCount, width, planeCount, counts, width, 1);
+        return counts;
+    }
+
+    /**
+     * Rounds an amount of lines up to a whole number of vectors.
+     * @param lineCount the amount of lines
+     * @return the amount of lines including the padding
+     */
+    private static int roundUp(int lineCount) {
+        return (lineCount + SPECIES.length() - 1) / SPECIES.length() * SPECIES.length();
+    }
+
+    /**
+     * Counts the places of one ship in every line (row or column) and adds the ship's tiles to the bit-sliced counts of the lines, one vector of lines at a time.
+     * @param lines the open tiles of every line, a whole number of vectors long
+     * @param size the size of the ship
+     * @param planes the counts of every line, plane by plane: element <code>plane * lines.length + line</code> holds bit <code>plane</code> of the counts of the tiles of <code>line</code>
+     * @param planeCount how many bits every count has
+     * @param starts scratch space of one vector, for counting the places
+     * @return the amount of places in all the lines
+     */
+    private static int addLines(long[] lines, int size, long[] planes, int planeCount, long[] starts) {
+        int placements = 0;
+        for (int line = 0; line < lines.length; line += SPECIES.length()) {
+            LongVector open = LongVector.fromArray(SPECIES, lines, line);
+            LongVector start = open;
+            for (int i = 1; i < size; i++) {
+                start = start.and(open.lanewise(VectorOperators.LSHR, i));
+            }
+            if (!start.compare(VectorOperators.NE, 0).anyTrue()) {
+                continue;
+            }
+            start.intoArray(starts, 0);
+            for (long bits : starts) {
+                placements += Long.bitCount(bits);
+            }
+            for (int i = 0; i < size; i++) {
+                // Adds 1 to the count of every tile that is the i-th tile of a place, carrying into the higher bits like a binary adder.
+                LongVector carry = start.lanewise(VectorOperators.LSHL, i);
+                for (int plane = 0; plane < planeCount && carry.compare(VectorOperators.NE, 0).anyTrue(); plane++) {
+                    int index = plane * lines.length + line;
+                    LongVector counts = LongVector.fromArray(SPECIES, planes, index);
+                    LongVector next = counts.and(carry);
+                    counts.lanewise(VectorOperators.XOR, carry).intoArray(planes, index);
+                    carry = next;
+                }
+            }
+        }
+        return placements;
+    }
+
+    /**
+     * Adds the bit-sliced counts of every line to the counts of the tiles.
+     * @param planes the bit-sliced counts, plane by plane
+     * @param paddedLineCount the amount of lines in every plane, including the padding
+     * @param lineCount the amount of lines of the board
+     * @param planeCount how many bits every count has
+     * @param counts the counts of the tiles, row by row
+     * @param tileStep how far apart two neighbouring tiles of a line are in <code>counts</code>
+     * @param lineStep how far apart the first tiles of two neighbouring lines are in <code>counts</code>
+     */
+    private static void extractCounts(long[] planes, int paddedLineCount, int lineCount, int planeCount, int[] counts, int tileStep, int lineStep) {
+        for (int plane = 0; plane < planeCount; plane++) {
+            for (int line = 0; line < lineCount; line++) {
+                long bits = planes[plane * paddedLineCount + line];
+                while (bits != 0) {
+                    counts[line * lineStep + Long.numberOfTrailingZeros(bits) * tileStep] += 1 << plane;
+                    bits &= bits - 1;
+                }
+            }
+        }
+    }
+}